@@ -0,0 +1,364 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Computes new names for a batch of files from a template, a regular expression replacement, a
+ * counter and a case change.
+ *
+ * <p>The template may contain {@code [N]} (the name without its extension), {@code [E]} (the
+ * extension including its dot), {@code [F]} (the full name), {@code [P]} (the parent directory's
+ * name) and {@code [C]} (the counter). The replacement is applied to the expanded template and
+ * the case change last, so {@code "[N][E]"} with an empty pattern keeps every name.
+ *
+ * <p>{@link #plan(List)} checks the whole batch before anything is renamed: invalid names, two
+ * files getting the same name and names taken by files outside the batch are reported per entry.
+ * Renames onto a name another file of the batch is giving up, including swaps and longer
+ * cycles, are allowed; {@link BulkRenameJob} moves those through temporary names.
+ */
+final class BulkRename {
+
+    enum Case {
+        UNCHANGED("Unchanged"),
+        LOWER("lower case"),
+        UPPER("UPPER CASE"),
+        TITLE("Title Case");
+
+        private final String label;
+
+        Case(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    /** One file of a {@link Plan}. */
+    static final class Entry {
+
+        private final File source;
+        private final File target;
+        private String problem;
+        private boolean chained;
+
+        Entry(File source, File target) {
+            this.source = source;
+            this.target = target;
+        }
+
+        File getSource() {
+            return source;
+        }
+
+        File getTarget() {
+            return target;
+        }
+
+        /** Why this file cannot be renamed, or null. */
+        String getProblem() {
+            return problem;
+        }
+
+        boolean isUnchanged() {
+            return source.getName().equals(target.getName());
+        }
+
+        /** Whether the target is a name another file of the batch currently has. */
+        boolean isChained() {
+            return chained;
+        }
+    }
+
+    /** The outcome of {@link #plan(List)}. */
+    static final class Plan {
+
+        private final List<Entry> entries;
+        private final int problems;
+        private final int renames;
+
+        Plan(List<Entry> entries) {
+            this.entries = Collections.unmodifiableList(entries);
+            int problemCount = 0;
+            int renameCount = 0;
+            for (Entry entry : entries) {
+                if (entry.getProblem() != null) {
+                    problemCount++;
+                } else if (!entry.isUnchanged()) {
+                    renameCount++;
+                }
+            }
+            this.problems = problemCount;
+            this.renames = renameCount;
+        }
+
+        List<Entry> getEntries() {
+            return entries;
+        }
+
+        int getProblemCount() {
+            return problems;
+        }
+
+        int getRenameCount() {
+            return renames;
+        }
+
+        /** The entries that change a name, if there are no problems. */
+        List<Entry> getRenames() {
+            List<Entry> list = new ArrayList<Entry>();
+            for (Entry entry : entries) {
+                if (entry.getProblem() == null && !entry.isUnchanged()) {
+                    list.add(entry);
+                }
+            }
+            return list;
+        }
+
+        Entry getFirstProblem() {
+            for (Entry entry : entries) {
+                if (entry.getProblem() != null) {
+                    return entry;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final Pattern TOKEN = Pattern.compile("\\[([NEFPC])\\]");
+
+    private String template = "[N][E]";
+    private Pattern find;
+    private String replacement = "";
+    private Case caseChange = Case.UNCHANGED;
+    private int counterStart = 1;
+    private int counterStep = 1;
+    private int counterDigits = 1;
+
+    String getTemplate() {
+        return template;
+    }
+
+    void setTemplate(String template) {
+        this.template = template;
+    }
+
+    /**
+     * @param find the pattern to replace, or null for none
+     * @param replacement the replacement, which may refer to groups as {@code $1}
+     */
+    void setReplace(Pattern find, String replacement) {
+        this.find = find;
+        this.replacement = replacement;
+    }
+
+    void setCase(Case caseChange) {
+        this.caseChange = caseChange;
+    }
+
+    void setCounter(int start, int step, int digits) {
+        this.counterStart = start;
+        this.counterStep = step;
+        this.counterDigits = digits;
+    }
+
+    /**
+     * The new name of a file.
+     *
+     * @param index the file's position in the batch, for the counter
+     */
+    String newName(File file, int index) {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        // ".profile" is all name and no extension
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String extension = dot > 0 ? name.substring(dot) : "";
+        File parent = file.getParentFile();
+
+        StringBuffer sb = new StringBuffer();
+        Matcher matcher = TOKEN.matcher(template);
+        while (matcher.find()) {
+            String value;
+            switch (matcher.group(1).charAt(0)) {
+                case 'N':
+                    value = base;
+                    break;
+                case 'E':
+                    value = extension;
+                    break;
+                case 'F':
+                    value = name;
+                    break;
+                case 'P':
+                    value = parent == null ? "" : parent.getName();
+                    break;
+                default:
+                    value = counter(index);
+            }
+            matcher.appendReplacement(sb, Matcher.quoteReplacement(value));
+        }
+        matcher.appendTail(sb);
+        String result = sb.toString();
+        if (find != null) {
+            result = find.matcher(result).replaceAll(replacement);
+        }
+        return changeCase(result);
+    }
+
+    private String counter(int index) {
+        long value = counterStart + (long) index * counterStep;
+        String digits = Long.toString(Math.abs(value));
+        StringBuilder sb = new StringBuilder();
+        if (value < 0) {
+            sb.append('-');
+        }
+        for (int ii = digits.length(); ii < counterDigits; ii++) {
+            sb.append('0');
+        }
+        return sb.append(digits).toString();
+    }
+
+    private String changeCase(String name) {
+        switch (caseChange) {
+            case LOWER:
+                return name.toLowerCase(Locale.ROOT);
+            case UPPER:
+                return name.toUpperCase(Locale.ROOT);
+            case TITLE:
+                StringBuilder sb = new StringBuilder(name.length());
+                boolean start = true;
+                for (int ii = 0; ii < name.length(); ii++) {
+                    char c = name.charAt(ii);
+                    sb.append(start ? Character.toTitleCase(c) : Character.toLowerCase(c));
+                    // "it's.txt" stays "It's.txt", not "It'S.Txt"
+                    start = Character.isWhitespace(c) || c == '_' || c == '-';
+                }
+                return sb.toString();
+            default:
+                return name;
+        }
+    }
+
+    /** Computes and checks the new names of {@code files}. Reads the file system. */
+    Plan plan(List<File> files) {
+        List<Entry> entries = new ArrayList<Entry>(files.size());
+        Set<File> sources = new HashSet<File>();
+        for (File file : files) {
+            sources.add(file.getAbsoluteFile());
+        }
+        // File compares names case-sensitively on Unix-like systems, macOS included, so "A" and
+        // "a" do not clash here even where the file system folds case; the job's renames refuse
+        // to replace an existing file and catch those
+        Map<File, Entry> byTarget = new HashMap<File, Entry>();
+        for (int ii = 0; ii < files.size(); ii++) {
+            File source = files.get(ii).getAbsoluteFile();
+            String name = newName(source, ii);
+            Entry entry = new Entry(source, new File(source.getParentFile(), name));
+            entries.add(entry);
+            String invalid = checkName(name);
+            if (invalid != null) {
+                entry.problem = invalid;
+                continue;
+            }
+            if (entry.isUnchanged()) {
+                byTarget.put(entry.target, entry);
+                continue;
+            }
+            Entry clash = byTarget.get(entry.target);
+            if (clash != null) {
+                entry.problem = "Same name as " + clash.source.getName();
+                if (clash.problem == null && !clash.isUnchanged()) {
+                    clash.problem = "Same name as " + source.getName();
+                }
+                continue;
+            }
+            byTarget.put(entry.target, entry);
+            if (sources.contains(entry.target)) {
+                entry.chained = true;
+            } else if (entry.target.exists() && !isSameFile(source, entry.target)) {
+                entry.problem = "Already exists";
+            } else if (entry.target.exists()) {
+                // a case-only change on a case-insensitive file system
+                entry.chained = true;
+            }
+        }
+        // a file that keeps its name (or cannot be renamed) still holds it
+        Map<File, Entry> bySource = new HashMap<File, Entry>();
+        for (Entry entry : entries) {
+            bySource.put(entry.source, entry);
+        }
+        for (Entry entry : entries) {
+            if (entry.chained && entry.problem == null) {
+                Entry holder = bySource.get(entry.target);
+                if (holder != null
+                        && holder != entry
+                        && (holder.problem != null || holder.isUnchanged())) {
+                    entry.problem = "Already exists";
+                }
+            }
+        }
+        return new Plan(entries);
+    }
+
+    private static boolean isSameFile(File a, File b) {
+        try {
+            return Files.isSameFile(a.toPath(), b.toPath());
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    /** Why {@code name} cannot be a file name, or null. */
+    static String checkName(String name) {
+        if (name.trim().length() == 0) {
+            return "Empty name";
+        }
+        if (name.equals(".") || name.equals("..")) {
+            return "Invalid name";
+        }
+        for (int ii = 0; ii < name.length(); ii++) {
+            char c = name.charAt(ii);
+            if (c == '/' || c == File.separatorChar || c == 0) {
+                return "Contains '" + (c == 0 ? "\\0" : String.valueOf(c)) + "'";
+            }
+        }
+        return null;
+    }
+}
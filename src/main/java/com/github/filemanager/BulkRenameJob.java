@@ -0,0 +1,147 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Renames a batch of files planned by {@link BulkRename}.
+ *
+ * <p>The plan is made again when the job starts, so it reflects the file system at that moment,
+ * and the job fails without touching anything if it has problems. Files whose new name is
+ * still held by another file of the batch are first moved to a temporary name, which resolves
+ * swaps and cycles. No rename replaces an existing file, so a clash the plan could not see, such
+ * as two names differing only in case on a case-insensitive file system, fails the job. If a
+ * rename fails or the job is cancelled, the renames done so far are undone in reverse order.
+ */
+class BulkRenameJob extends FileJob {
+
+    private static final String TEMPORARY_SUFFIX = ".renaming";
+
+    private final BulkRename rename;
+    private final List<File> files;
+    private volatile BulkRename.Plan plan;
+
+    BulkRenameJob(BulkRename rename, List<File> files) {
+        super("Rename " + files.size() + " files", files.toArray(new File[0]));
+        this.rename = rename;
+        this.files = new ArrayList<File>(files);
+    }
+
+    @Override
+    String getUnit() {
+        return "files";
+    }
+
+    /** The plan the job carried out; null until it has started. */
+    BulkRename.Plan getPlan() {
+        return plan;
+    }
+
+    @Override
+    protected void execute() throws IOException {
+        setMessage("Checking names...");
+        plan = rename.plan(files);
+        BulkRename.Entry problem = plan.getFirstProblem();
+        if (problem != null) {
+            throw new IOException(
+                    problem.getSource().getName()
+                            + ": "
+                            + problem.getProblem()
+                            + (plan.getProblemCount() > 1
+                                    ? " (and " + (plan.getProblemCount() - 1) + " more)"
+                                    : ""));
+        }
+        List<BulkRename.Entry> renames = plan.getRenames();
+        setTotal(renames.size());
+        setMessage("");
+
+        // renames done so far, as {from, to}, for undoing them
+        List<File[]> done = new ArrayList<File[]>();
+        boolean complete = false;
+        try {
+            List<File[]> second = new ArrayList<File[]>();
+            for (BulkRename.Entry entry : renames) {
+                checkpoint();
+                if (entry.isChained()) {
+                    File temporary = temporaryName(entry.getSource());
+                    move(entry.getSource(), temporary, done);
+                    second.add(new File[] {temporary, entry.getTarget()});
+                } else {
+                    move(entry.getSource(), entry.getTarget(), done);
+                    addProgress(1);
+                }
+            }
+            for (File[] move : second) {
+                checkpoint();
+                move(move[0], move[1], done);
+                addProgress(1);
+            }
+            complete = true;
+        } finally {
+            if (!complete) {
+                undo(done);
+            }
+        }
+        setMessage(renames.size() + " renamed");
+    }
+
+    private static void move(File from, File to, List<File[]> done) throws IOException {
+        try {
+            Files.move(from.toPath(), to.toPath());
+        } catch (FileAlreadyExistsException ex) {
+            throw new IOException(
+                    "The file '" + from + "' could not be renamed to " + to.getName()
+                            + ", which already exists",
+                    ex);
+        }
+        done.add(new File[] {from, to});
+    }
+
+    private static File temporaryName(File file) {
+        File temporary;
+        int ii = 0;
+        do {
+            temporary = new File(file.getParentFile(), file.getName() + TEMPORARY_SUFFIX + ii++);
+        } while (temporary.exists());
+        return temporary;
+    }
+
+    /** Best effort: a file that cannot be moved back keeps its new name. */
+    private static void undo(List<File[]> done) {
+        for (int ii = done.size() - 1; ii >= 0; ii--) {
+            File[] move = done.get(ii);
+            try {
+                Files.move(move[1].toPath(), move[0].toPath());
+            } catch (IOException ex) {
+                // keeps the new name
+            }
+        }
+    }
+}
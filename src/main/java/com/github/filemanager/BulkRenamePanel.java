@@ -0,0 +1,276 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.GridLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JSpinner;
+import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.SpinnerNumberModel;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Settings and a live preview for {@link BulkRename}.
+ *
+ * <p>Each change restarts a short timer; when it fires the batch is planned on the I/O
+ * executor, because planning checks every new name against the file system. Results of
+ * superseded previews are dropped.
+ */
+class BulkRenamePanel extends JPanel {
+
+    private static final int PREVIEW_DELAY_MILLIS = 150;
+
+    private final List<File> files;
+    private final JTextField template = new JTextField("[N][E]", 20);
+    private final JTextField find = new JTextField(12);
+    private final JTextField replace = new JTextField(12);
+    private final JCheckBox regex = new JCheckBox("Regex");
+    private final JComboBox<BulkRename.Case> caseChange =
+            new JComboBox<BulkRename.Case>(BulkRename.Case.values());
+    private final JSpinner counterStart = new JSpinner(new SpinnerNumberModel(1, 0, 999999, 1));
+    private final JSpinner counterStep = new JSpinner(new SpinnerNumberModel(1, 1, 1000, 1));
+    private final JSpinner counterDigits = new JSpinner(new SpinnerNumberModel(1, 1, 10, 1));
+    private final JLabel status = new JLabel(" ");
+    private final PreviewModel model = new PreviewModel();
+    private final Timer previewTimer;
+    private int previewGeneration;
+    private BulkRename.Plan plan;
+
+    BulkRenamePanel(List<File> files) {
+        super(new BorderLayout(3, 3));
+        this.files = new ArrayList<File>(files);
+
+        JPanel fields = new JPanel(new GridLayout(0, 2, 4, 2));
+        fields.add(new JLabel("Name ([N] name, [E] extension, [C] counter, [P] folder)"));
+        fields.add(template);
+        fields.add(new JLabel("Find"));
+        JPanel findPanel = new JPanel(new BorderLayout(3, 0));
+        findPanel.add(find, BorderLayout.CENTER);
+        findPanel.add(regex, BorderLayout.EAST);
+        fields.add(findPanel);
+        fields.add(new JLabel("Replace with"));
+        fields.add(replace);
+        fields.add(new JLabel("Case"));
+        fields.add(caseChange);
+        fields.add(new JLabel("Counter start, step, digits"));
+        JPanel counter = new JPanel(new GridLayout(1, 3, 3, 0));
+        counter.add(counterStart);
+        counter.add(counterStep);
+        counter.add(counterDigits);
+        fields.add(counter);
+        add(fields, BorderLayout.NORTH);
+
+        JTable table = new JTable(model);
+        JScrollPane scroll = new JScrollPane(table);
+        scroll.setPreferredSize(new Dimension(640, 300));
+        add(scroll, BorderLayout.CENTER);
+        add(status, BorderLayout.SOUTH);
+
+        previewTimer =
+                new Timer(
+                        PREVIEW_DELAY_MILLIS,
+                        new ActionListener() {
+                            public void actionPerformed(ActionEvent ae) {
+                                preview();
+                            }
+                        });
+        previewTimer.setRepeats(false);
+
+        DocumentListener documentListener =
+                new DocumentListener() {
+                    public void insertUpdate(DocumentEvent e) {
+                        previewTimer.restart();
+                    }
+
+                    public void removeUpdate(DocumentEvent e) {
+                        previewTimer.restart();
+                    }
+
+                    public void changedUpdate(DocumentEvent e) {
+                        previewTimer.restart();
+                    }
+                };
+        template.getDocument().addDocumentListener(documentListener);
+        find.getDocument().addDocumentListener(documentListener);
+        replace.getDocument().addDocumentListener(documentListener);
+        ActionListener actionListener =
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        previewTimer.restart();
+                    }
+                };
+        regex.addActionListener(actionListener);
+        caseChange.addActionListener(actionListener);
+        ChangeListener changeListener =
+                new ChangeListener() {
+                    public void stateChanged(ChangeEvent e) {
+                        previewTimer.restart();
+                    }
+                };
+        counterStart.addChangeListener(changeListener);
+        counterStep.addChangeListener(changeListener);
+        counterDigits.addChangeListener(changeListener);
+
+        model.setPlan(null);
+        preview();
+    }
+
+    /**
+     * The settings as entered.
+     *
+     * @throws PatternSyntaxException if the find pattern is not a valid regular expression
+     */
+    BulkRename getRename() {
+        BulkRename rename = new BulkRename();
+        rename.setTemplate(template.getText());
+        String findText = find.getText();
+        if (findText.length() > 0) {
+            boolean isRegex = regex.isSelected();
+            String replacement = replace.getText();
+            rename.setReplace(
+                    Pattern.compile(isRegex ? findText : Pattern.quote(findText)),
+                    isRegex ? replacement : Matcher.quoteReplacement(replacement));
+        }
+        rename.setCase((BulkRename.Case) caseChange.getSelectedItem());
+        rename.setCounter(
+                (Integer) counterStart.getValue(),
+                (Integer) counterStep.getValue(),
+                (Integer) counterDigits.getValue());
+        return rename;
+    }
+
+    List<File> getFiles() {
+        return Collections.unmodifiableList(files);
+    }
+
+    /** The most recent preview, or null while none has finished. */
+    BulkRename.Plan getPlan() {
+        return plan;
+    }
+
+    private void preview() {
+        final int generation = ++previewGeneration;
+        final BulkRename rename;
+        try {
+            rename = getRename();
+        } catch (PatternSyntaxException ex) {
+            status.setText("Invalid pattern: " + ex.getDescription());
+            return;
+        }
+        status.setText("Previewing...");
+        SwingWorker<BulkRename.Plan, Void> worker =
+                new SwingWorker<BulkRename.Plan, Void>() {
+                    @Override
+                    public BulkRename.Plan doInBackground() {
+                        return rename.plan(files);
+                    }
+
+                    @Override
+                    protected void done() {
+                        if (generation != previewGeneration) {
+                            return;
+                        }
+                        try {
+                            plan = get();
+                        } catch (InterruptedException ex) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        } catch (ExecutionException ex) {
+                            status.setText("Preview failed: " + ex.getCause());
+                            return;
+                        }
+                        model.setPlan(plan);
+                        status.setText(
+                                plan.getRenameCount()
+                                        + " of "
+                                        + files.size()
+                                        + " files renamed"
+                                        + (plan.getProblemCount() > 0
+                                                ? ", " + plan.getProblemCount() + " problems"
+                                                : ""));
+                    }
+                };
+        IoExecutor.get().execute(worker);
+    }
+
+    private class PreviewModel extends AbstractTableModel {
+
+        private final String[] columns = {"Name", "New Name", "Problem"};
+        private BulkRename.Plan shown;
+
+        void setPlan(BulkRename.Plan plan) {
+            shown = plan;
+            fireTableDataChanged();
+        }
+
+        public int getRowCount() {
+            return files.size();
+        }
+
+        public int getColumnCount() {
+            return columns.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return columns[column];
+        }
+
+        public Object getValueAt(int row, int column) {
+            BulkRename.Entry entry = shown == null ? null : shown.getEntries().get(row);
+            switch (column) {
+                case 0:
+                    return files.get(row).getName();
+                case 1:
+                    return entry == null ? "" : entry.getTarget().getName();
+                default:
+                    return entry == null || entry.getProblem() == null ? "" : entry.getProblem();
+            }
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates or verifies a {@code .sha256} manifest.
+ *
+ * <p>Creating hashes a file, or every file below a directory, and writes
+ * {@code <name>.sha256} next to it. Verifying re-hashes the files listed in a manifest and
+ * reports the ones that differ or are missing. Files are hashed by a few threads at once; each
+ * file is still read in a single pass.
+ */
+class ChecksumJob extends FileJob {
+
+    static final int PARALLELISM =
+            Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+
+    private final File file;
+    private final boolean verify;
+    private final Map<File, Checksums.Result> results =
+            new ConcurrentHashMap<File, Checksums.Result>();
+    private final List<String> failures = Collections.synchronizedList(new ArrayList<String>());
+    private File manifest;
+
+    /**
+     * @param file the file or directory to hash, or the manifest to verify
+     * @param verify whether {@code file} is a manifest to verify
+     */
+    ChecksumJob(File file, boolean verify) {
+        super((verify ? "Verify " : "Checksum ") + file.getName(), file);
+        this.file = file;
+        this.verify = verify;
+    }
+
+    /** The manifest written or verified; set once the job has run. */
+    File getManifest() {
+        return manifest;
+    }
+
+    /** Checksums of every hashed file. */
+    Map<File, Checksums.Result> getResults() {
+        return results;
+    }
+
+    /** Files that did not match the manifest or could not be read, one line each. */
+    List<String> getFailures() {
+        return new ArrayList<String>(failures);
+    }
+
+    @Override
+    protected void execute() throws Exception {
+        File base = file.getAbsoluteFile().getParentFile();
+        if (verify) {
+            manifest = file;
+            Map<String, String> expected = Checksums.readManifest(file);
+            Map<File, String> files = new TreeMap<File, String>();
+            for (Map.Entry<String, String> entry : expected.entrySet()) {
+                File listed = new File(base, entry.getKey());
+                if (listed.isFile()) {
+                    files.put(listed, entry.getValue());
+                } else {
+                    failures.add("MISSING " + entry.getKey());
+                }
+            }
+            hashAll(new ArrayList<File>(files.keySet()));
+            for (Map.Entry<File, String> entry : files.entrySet()) {
+                Checksums.Result result = results.get(entry.getKey());
+                if (result != null && !result.getSha256().equals(entry.getValue())) {
+                    failures.add("FAILED " + relativePath(base, entry.getKey()));
+                }
+            }
+            setMessage(
+                    failures.isEmpty()
+                            ? files.size() + " files OK"
+                            : failures.size() + " of " + expected.size() + " files failed");
+        } else {
+            manifest = new File(base, file.getName() + Checksums.MANIFEST_SUFFIX);
+            List<File> files = new ArrayList<File>();
+            collect(file, files);
+            files.remove(manifest);
+            hashAll(files);
+            if (!failures.isEmpty()) {
+                throw new IOException(failures.size() + " files could not be read");
+            }
+            Map<String, String> entries = new TreeMap<String, String>();
+            for (File hashed : files) {
+                entries.put(relativePath(base, hashed), results.get(hashed).getSha256());
+            }
+            Checksums.writeManifest(manifest, entries);
+            setMessage(files.size() + " files, " + manifest.getName());
+        }
+    }
+
+    private void collect(File dir, List<File> files) {
+        checkpoint();
+        if (dir.isDirectory()) {
+            File[] children = dir.listFiles();
+            if (children != null) {
+                for (File child : children) {
+                    collect(child, files);
+                }
+            }
+        } else if (dir.isFile()) {
+            files.add(dir);
+        }
+    }
+
+    private void hashAll(List<File> files) throws Exception {
+        long total = 0;
+        for (File each : files) {
+            total += each.length();
+        }
+        setTotal(total);
+        ExecutorService executor =
+                Executors.newFixedThreadPool(
+                        Math.min(PARALLELISM, Math.max(1, files.size())),
+                        new ThreadFactory() {
+                            public Thread newThread(Runnable r) {
+                                Thread thread = new Thread(r, "checksum");
+                                thread.setDaemon(true);
+                                return thread;
+                            }
+                        });
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (final File each : files) {
+                futures.add(
+                        executor.submit(
+                                new Runnable() {
+                                    public void run() {
+                                        hash(each);
+                                    }
+                                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException ex) {
+                    if (ex.getCause() instanceof CancellationException) {
+                        throw (CancellationException) ex.getCause();
+                    }
+                    throw ex;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void hash(File each) {
+        checkpoint();
+        try {
+            results.put(
+                    each,
+                    Checksums.compute(
+                            each,
+                            new Checksums.Progress() {
+                                public void hashed(long bytes) {
+                                    addProgress(bytes);
+                                    checkpoint();
+                                }
+                            }));
+        } catch (IOException ex) {
+            failures.add("UNREADABLE " + each + ": " + ex.getMessage());
+        }
+    }
+
+    /** {@code file}'s path below {@code base}, with '/' separators as sha256sum writes them. */
+    static String relativePath(File base, File file) {
+        String basePath = base.getAbsolutePath();
+        String path = file.getAbsolutePath();
+        if (path.startsWith(basePath + File.separator)) {
+            path = path.substring(basePath.length() + 1);
+        } else if (basePath.endsWith(File.separator) && path.startsWith(basePath)) {
+            path = path.substring(basePath.length());
+        }
+        return path.replace(File.separatorChar, '/');
+    }
+}
@@ -0,0 +1,254 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.Checksum;
+
+/**
+ * Computes MD5, SHA-256 and CRC-32C of a file in one read pass, and reads and writes
+ * {@code sha256sum}-style manifests.
+ *
+ * <p>Small files are read through one heap buffer; files of {@link #MAP_THRESHOLD} and more are
+ * memory mapped window by window, so their data goes from the page cache to the digests without
+ * a copy. CRC-32C uses {@code java.util.zip.CRC32C} where the runtime has it (Java 9 and later)
+ * and {@link Crc32c} otherwise.
+ */
+final class Checksums {
+
+    static final long MAP_THRESHOLD = 16L * 1024 * 1024;
+    static final long MAP_WINDOW = 64L * 1024 * 1024;
+    static final int BUFFER_SIZE = 256 * 1024;
+    static final String MANIFEST_SUFFIX = ".sha256";
+
+    /** Receives the number of bytes hashed after every chunk; may throw to abort. */
+    interface Progress {
+        void hashed(long bytes);
+    }
+
+    /** The checksums of one file. */
+    static final class Result {
+
+        private final long length;
+        private final byte[] md5;
+        private final byte[] sha256;
+        private final long crc32c;
+
+        Result(long length, byte[] md5, byte[] sha256, long crc32c) {
+            this.length = length;
+            this.md5 = md5;
+            this.sha256 = sha256;
+            this.crc32c = crc32c;
+        }
+
+        long getLength() {
+            return length;
+        }
+
+        String getMd5() {
+            return toHex(md5);
+        }
+
+        String getSha256() {
+            return toHex(sha256);
+        }
+
+        String getCrc32c() {
+            return String.format("%08x", crc32c);
+        }
+    }
+
+    private static final Constructor<?> JDK_CRC32C;
+    private static final Method JDK_CRC32C_UPDATE;
+
+    static {
+        Constructor<?> constructor = null;
+        Method update = null;
+        try {
+            Class<?> type = Class.forName("java.util.zip.CRC32C");
+            constructor = type.getConstructor();
+            update = type.getMethod("update", ByteBuffer.class);
+        } catch (Exception ex) {
+            // Java 8: use our own
+        }
+        JDK_CRC32C = constructor;
+        JDK_CRC32C_UPDATE = update;
+    }
+
+    private Checksums() {}
+
+    static Result compute(File file) throws IOException {
+        return compute(file, null);
+    }
+
+    static Result compute(File file, Progress progress) throws IOException {
+        MessageDigest md5 = digest("MD5");
+        MessageDigest sha256 = digest("SHA-256");
+        Checksum crc32c = newCrc32c();
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        long length = 0;
+        try {
+            FileChannel channel = in.getChannel();
+            long size = channel.size();
+            if (size >= MAP_THRESHOLD) {
+                for (long position = 0; position < size; position += MAP_WINDOW) {
+                    long count = Math.min(MAP_WINDOW, size - position);
+                    ByteBuffer window =
+                            channel.map(FileChannel.MapMode.READ_ONLY, position, count);
+                    update(window, md5, sha256, crc32c);
+                    length += count;
+                    if (progress != null) {
+                        progress.hashed(count);
+                    }
+                }
+            } else {
+                ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+                int read;
+                while ((read = channel.read(buffer)) >= 0) {
+                    if (read == 0 && !buffer.hasRemaining()) {
+                        continue;
+                    }
+                    buffer.flip();
+                    update(buffer, md5, sha256, crc32c);
+                    buffer.clear();
+                    length += read;
+                    if (progress != null) {
+                        progress.hashed(read);
+                    }
+                }
+            }
+        } finally {
+            in.close();
+        }
+        return new Result(length, md5.digest(), sha256.digest(), crc32c.getValue());
+    }
+
+    private static void update(
+            ByteBuffer data, MessageDigest md5, MessageDigest sha256, Checksum crc32c) {
+        md5.update(data.duplicate());
+        sha256.update(data.duplicate());
+        ByteBuffer crcData = data.duplicate();
+        if (crc32c instanceof Crc32c) {
+            ((Crc32c) crc32c).update(crcData);
+        } else {
+            try {
+                JDK_CRC32C_UPDATE.invoke(crc32c, crcData);
+            } catch (IllegalAccessException ex) {
+                throw new IllegalStateException(ex);
+            } catch (InvocationTargetException ex) {
+                throw new IllegalStateException(ex.getCause());
+            }
+        }
+    }
+
+    static Checksum newCrc32c() {
+        if (JDK_CRC32C != null) {
+            try {
+                return (Checksum) JDK_CRC32C.newInstance();
+            } catch (Exception ex) {
+                // fall through
+            }
+        }
+        return new Crc32c();
+    }
+
+    private static MessageDigest digest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException ex) {
+            // every Java platform must provide MD5 and SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes {@code entries} (path relative to the manifest's directory, SHA-256 in hex) in the
+     * format of {@code sha256sum}, so the manifest can also be checked with
+     * {@code sha256sum -c}.
+     */
+    static void writeManifest(File manifest, Map<String, String> entries) throws IOException {
+        Writer out = new OutputStreamWriter(new FileOutputStream(manifest), "UTF-8");
+        try {
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                out.write(entry.getValue() + "  " + entry.getKey() + "\n");
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /** Reads a manifest into relative path to hex SHA-256, in file order. */
+    static Map<String, String> readManifest(File manifest) throws IOException {
+        Map<String, String> entries = new LinkedHashMap<String, String>();
+        BufferedReader reader =
+                new BufferedReader(
+                        new InputStreamReader(new FileInputStream(manifest), "UTF-8"));
+        try {
+            String line;
+            int number = 0;
+            while ((line = reader.readLine()) != null) {
+                number++;
+                if (line.trim().length() == 0 || line.startsWith("#")) {
+                    continue;
+                }
+                // "<hex>  <path>" for text mode, "<hex> *<path>" for binary mode
+                int space = line.indexOf(' ');
+                if (space != 64 || line.length() < 67) {
+                    throw new IOException(
+                            manifest.getName() + ":" + number + ": not a SHA-256 line");
+                }
+                entries.put(line.substring(66), line.substring(0, 64).toLowerCase());
+            }
+        } finally {
+            reader.close();
+        }
+        return entries;
+    }
+}
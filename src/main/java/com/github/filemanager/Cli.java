@@ -0,0 +1,1168 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * The command line interface, for servers without a display and for scripts.
+ *
+ * <p>{@link FileManager#main} runs it when there are arguments or no display. The commands use
+ * the same engines as the GUI: {@link CopyJob} for copies, {@link DiskUsageScanner} for sizes,
+ * {@link Checksums} and {@link ChecksumJob} for hashing. Results go to standard output, one per
+ * line; with {@code --json} each line is a JSON object instead (JSON Lines), so the output can
+ * be piped into {@code jq}. Every command ends with a summary of the time taken and the
+ * throughput, on standard error as text or as a last {@code "type": "summary"} JSON line.
+ *
+ * <p>The exit status is 0 on success, 1 if some files failed (or, for {@code grep}, nothing
+ * matched, and for {@code checksum --verify}, something differed) and 2 for usage errors.
+ */
+final class Cli {
+
+    static final int OK = 0;
+    static final int FAILED = 1;
+    static final int USAGE = 2;
+
+    static final int DEFAULT_PARALLELISM = 4;
+
+    private static final String USAGE_TEXT =
+            "Usage: filemanager <command> [options] [paths]\n"
+                    + "\n"
+                    + "Commands:\n"
+                    + "  ls [-a] [path...]                     list directories\n"
+                    + "  du [path...]                          sizes of directory entries\n"
+                    + "  cp [--verify] [--parallel N] src... dest\n"
+                    + "                                        copy files and directories\n"
+                    + "  sync [--delete] [--dry-run] [--verify] [--parallel N] src dest\n"
+                    + "                                        make dest a copy of src\n"
+                    + "  find [--name glob] [--type f|d] [--size +N|-N] [path...]\n"
+                    + "                                        list matching files\n"
+                    + "  find --query 'size>1G mtime<7d *.log' [path...]\n"
+                    + "                                        list files matching a query\n"
+                    + "  grep [-i] [-l] pattern path...        search file contents\n"
+                    + "  checksum [--all] [--parallel N] path...\n"
+                    + "  checksum --write path...              write <path>.sha256 manifests\n"
+                    + "  checksum --verify manifest...         check .sha256 manifests\n"
+                    + "  serve [--port N] [--bind address] [dir]\n"
+                    + "                                        serve dir over HTTP\n"
+                    + "\n"
+                    + "Options for all commands:\n"
+                    + "  --json                                print JSON Lines\n"
+                    + "  --help                                print this text\n";
+
+    private final PrintStream out;
+    private final PrintStream err;
+    private boolean json;
+
+    Cli(PrintStream out, PrintStream err) {
+        this.out = out;
+        this.err = err;
+    }
+
+    /** Runs a command line and returns the exit status. */
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        return new Cli(out, err).run(args);
+    }
+
+    int run(String[] args) {
+        if (args.length == 0 || args[0].equals("--help") || args[0].equals("help")) {
+            (args.length == 0 ? err : out).print(USAGE_TEXT);
+            return args.length == 0 ? USAGE : OK;
+        }
+        String command = args[0];
+        Options options;
+        try {
+            options = new Options(args, 1);
+            json = options.flag("--json");
+            if (options.flag("--help")) {
+                out.print(USAGE_TEXT);
+                return OK;
+            }
+            if (command.equals("ls")) {
+                return ls(options);
+            } else if (command.equals("du")) {
+                return du(options);
+            } else if (command.equals("cp")) {
+                return cp(options);
+            } else if (command.equals("sync")) {
+                return sync(options);
+            } else if (command.equals("find")) {
+                return find(options);
+            } else if (command.equals("grep")) {
+                return grep(options);
+            } else if (command.equals("checksum")) {
+                return checksum(options);
+            } else if (command.equals("serve")) {
+                return serve(options);
+            }
+            throw new UsageException("Unknown command: " + command);
+        } catch (UsageException ex) {
+            err.println(ex.getMessage());
+            err.print(USAGE_TEXT);
+            return USAGE;
+        } catch (IOException ex) {
+            error(command, ex.getMessage());
+            return FAILED;
+        }
+    }
+
+    /* ---------------------------------------------------------------- ls */
+
+    private int ls(Options options) throws IOException, UsageException {
+        boolean all = options.flag("-a");
+        List<String> paths = options.paths(0, ".");
+        long start = Metrics.start();
+        long entries = 0;
+        long bytes = 0;
+        int status = OK;
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.ROOT);
+        for (String name : paths) {
+            File dir = new File(name);
+            if (!dir.isDirectory()) {
+                error("ls", name + ": not a directory");
+                status = FAILED;
+                continue;
+            }
+            FileRows rows = list(dir, all);
+            if (paths.size() > 1 && !json) {
+                out.println((entries > 0 ? "\n" : "") + name + ":");
+            }
+            for (int row = 0; row < rows.size(); row++) {
+                boolean directory = rows.is(row, FileRows.DIRECTORY);
+                if (json) {
+                    out.println(
+                            new JsonLine()
+                                    .put("type", "entry")
+                                    .put("path", rows.getPath(row))
+                                    .put("name", rows.getName(row))
+                                    .put("directory", directory)
+                                    .put("size", rows.getLength(row))
+                                    .put("modified", rows.getLastModified(row)));
+                } else {
+                    out.printf(
+                            "%s %12d %s %s%n",
+                            directory ? "d" : rows.is(row, FileRows.FILE) ? "-" : "?",
+                            rows.getLength(row),
+                            format.format(new Date(rows.getLastModified(row))),
+                            rows.getName(row));
+                }
+                bytes += rows.getLength(row);
+            }
+            entries += rows.size();
+        }
+        summary("ls", start, entries, "entries", bytes, false);
+        return status;
+    }
+
+    /** The entries of {@code dir} by name, reading each entry's attributes once. */
+    static FileRows list(File dir, boolean hidden) throws IOException {
+        return list(dir, hidden, false);
+    }
+
+    /**
+     * The entries of {@code dir} by name, reading each entry's attributes once.
+     *
+     * @param permissions whether to also test the permissions, three more calls per entry
+     */
+    static FileRows list(File dir, boolean hidden, boolean permissions) throws IOException {
+        List<Path> paths = new ArrayList<Path>();
+        DirectoryStream<Path> stream = Files.newDirectoryStream(dir.toPath());
+        try {
+            for (Path path : stream) {
+                if (hidden || !path.getFileName().toString().startsWith(".")) {
+                    paths.add(path);
+                }
+            }
+        } finally {
+            stream.close();
+        }
+        Collections.sort(paths);
+        FileRows rows = new FileRows();
+        for (Path path : paths) {
+            long length = 0;
+            long modified = 0;
+            byte bits = 0;
+            try {
+                BasicFileAttributes attributes =
+                        Files.readAttributes(
+                                path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                length = attributes.size();
+                modified = attributes.lastModifiedTime().toMillis();
+                bits |= FileRows.EXISTS;
+                if (attributes.isDirectory()) {
+                    bits |= FileRows.DIRECTORY;
+                } else if (attributes.isRegularFile()) {
+                    bits |= FileRows.FILE;
+                }
+                if (permissions) {
+                    File file = path.toFile();
+                    if (file.canRead()) {
+                        bits |= FileRows.READABLE;
+                    }
+                    if (file.canWrite()) {
+                        bits |= FileRows.WRITABLE;
+                    }
+                    if (file.canExecute()) {
+                        bits |= FileRows.EXECUTABLE;
+                    }
+                }
+            } catch (IOException ex) {
+                // removed while listing; shown without attributes
+            }
+            rows.add(path.toFile(), null, null, length, modified, bits);
+        }
+        return rows;
+    }
+
+    /* ---------------------------------------------------------------- du */
+
+    private int du(Options options) throws UsageException {
+        List<String> paths = options.paths(0, ".");
+        long start = Metrics.start();
+        long files = 0;
+        long bytes = 0;
+        DiskUsageScanner scanner = new DiskUsageScanner();
+        for (String name : paths) {
+            DiskUsageScanner.Node root = scanner.scan(new File(name)).getRoot();
+            List<DiskUsageScanner.Node> children =
+                    new ArrayList<DiskUsageScanner.Node>(root.getChildren());
+            Collections.sort(
+                    children,
+                    new Comparator<DiskUsageScanner.Node>() {
+                        public int compare(DiskUsageScanner.Node a, DiskUsageScanner.Node b) {
+                            return Long.compare(b.getSize(), a.getSize());
+                        }
+                    });
+            for (DiskUsageScanner.Node child : children) {
+                printUsage(child);
+            }
+            printUsage(root);
+            files += root.getFileCount();
+            bytes += root.getSize();
+        }
+        summary("du", start, files, "files", bytes, true);
+        return OK;
+    }
+
+    private void printUsage(DiskUsageScanner.Node node) {
+        if (json) {
+            out.println(
+                    new JsonLine()
+                            .put("type", "usage")
+                            .put("path", node.getFile().getPath())
+                            .put("directory", node.isDirectory())
+                            .put("size", node.getSize())
+                            .put("files", node.getFileCount()));
+        } else {
+            out.printf("%12d  %s%n", node.getSize(), node.getFile().getPath());
+        }
+    }
+
+    /* ---------------------------------------------------------------- cp, sync */
+
+    private int cp(Options options) throws IOException, UsageException {
+        boolean verify = options.flag("--verify");
+        int parallelism = options.intValue("--parallel", DEFAULT_PARALLELISM);
+        List<String> paths = options.paths(2, null);
+        File dest = new File(paths.get(paths.size() - 1));
+        List<String> sources = paths.subList(0, paths.size() - 1);
+        if (sources.size() > 1 && !dest.isDirectory()) {
+            throw new UsageException("cp: " + dest + " is not a directory");
+        }
+        long start = Metrics.start();
+        Transfer transfer = new Transfer();
+        for (String name : sources) {
+            File source = new File(name);
+            if (!source.exists()) {
+                error("cp", name + ": no such file or directory");
+                transfer.failures.incrementAndGet();
+                continue;
+            }
+            File target = dest.isDirectory() ? new File(dest, source.getName()) : dest;
+            if (source.isDirectory()
+                    && TreeNodes.contains(source.getCanonicalFile(), target.getCanonicalFile())) {
+                error("cp", "cannot copy " + source + " into itself");
+                transfer.failures.incrementAndGet();
+                continue;
+            }
+            transfer.plan(source, target, false);
+        }
+        transfer.run(parallelism, verify);
+        summary("cp", start, transfer.copied.get(), "files", transfer.bytes.get(), true);
+        return transfer.failures.get() == 0 ? OK : FAILED;
+    }
+
+    private int sync(Options options) throws IOException, UsageException {
+        boolean delete = options.flag("--delete");
+        boolean dryRun = options.flag("--dry-run");
+        boolean verify = options.flag("--verify");
+        int parallelism = options.intValue("--parallel", DEFAULT_PARALLELISM);
+        List<String> paths = options.paths(2, null);
+        if (paths.size() != 2) {
+            throw new UsageException("sync: expected a source and a destination directory");
+        }
+        File source = new File(paths.get(0));
+        File dest = new File(paths.get(1));
+        if (!source.isDirectory()) {
+            throw new UsageException("sync: " + source + " is not a directory");
+        }
+        long start = Metrics.start();
+        Transfer transfer = new Transfer();
+        transfer.dryRun = dryRun;
+        transfer.plan(source, dest, true);
+        if (delete) {
+            transfer.deleteExtra(source, dest);
+        }
+        transfer.run(parallelism, verify);
+        if (!json) {
+            err.println(
+                    "sync: "
+                            + transfer.copied.get()
+                            + " copied, "
+                            + transfer.skipped.get()
+                            + " up to date, "
+                            + transfer.deleted.get()
+                            + " deleted"
+                            + (dryRun ? " (dry run)" : ""));
+        }
+        summary("sync", start, transfer.copied.get(), "files", transfer.bytes.get(), true);
+        return transfer.failures.get() == 0 ? OK : FAILED;
+    }
+
+    /** Files to copy, found by walking the sources, then copied by a pool of {@link CopyJob}s. */
+    private final class Transfer {
+
+        final List<File[]> files = new ArrayList<File[]>();
+        /** Created directories, parents first, to restore their dates at the end. */
+        final List<File[]> directories = new ArrayList<File[]>();
+        final AtomicInteger copied = new AtomicInteger();
+        final AtomicInteger skipped = new AtomicInteger();
+        final AtomicInteger deleted = new AtomicInteger();
+        final AtomicInteger failures = new AtomicInteger();
+        final AtomicLong bytes = new AtomicLong();
+        boolean dryRun;
+
+        /**
+         * @param onlyChanged whether to skip targets with the source's size and date, as sync
+         *     does
+         */
+        void plan(File source, File target, boolean onlyChanged) {
+            if (source.isDirectory()) {
+                if (!target.isDirectory()) {
+                    if (!dryRun && !target.mkdirs()) {
+                        error("cp", "could not create directory " + target);
+                        failures.incrementAndGet();
+                        return;
+                    }
+                    report("mkdir", target, 0);
+                }
+                directories.add(new File[] {source, target});
+                File[] children = source.listFiles();
+                if (children == null) {
+                    error("cp", source + ": cannot list directory");
+                    failures.incrementAndGet();
+                    return;
+                }
+                Arrays.sort(children);
+                for (File child : children) {
+                    plan(child, new File(target, child.getName()), onlyChanged);
+                }
+            } else if (onlyChanged && isUpToDate(source, target)) {
+                skipped.incrementAndGet();
+            } else {
+                files.add(new File[] {source, target});
+            }
+        }
+
+        /** Removes what is in {@code target} but not in {@code source}. */
+        void deleteExtra(File source, File target) {
+            File[] children = target.listFiles();
+            if (children == null) {
+                return;
+            }
+            for (File child : children) {
+                File original = new File(source, child.getName());
+                if (!original.exists()
+                        || original.isDirectory() != child.isDirectory()) {
+                    report("delete", child, 0);
+                    if (!dryRun) {
+                        DeleteJob job = new DeleteJob(child);
+                        job.run();
+                        if (job.getState() != FileJob.State.DONE) {
+                            error("sync", child + ": " + job.getMessage());
+                            failures.incrementAndGet();
+                            continue;
+                        }
+                    }
+                    deleted.incrementAndGet();
+                } else if (child.isDirectory()) {
+                    deleteExtra(original, child);
+                }
+            }
+        }
+
+        void run(int parallelism, final boolean verify) throws IOException {
+            ExecutorService executor = newPool("cli-copy", parallelism);
+            try {
+                List<Future<?>> futures = new ArrayList<Future<?>>();
+                for (final File[] pair : files) {
+                    futures.add(
+                            executor.submit(
+                                    new Runnable() {
+                                        public void run() {
+                                            copy(pair[0], pair[1], verify);
+                                        }
+                                    }));
+                }
+                await(futures);
+            } finally {
+                executor.shutdownNow();
+            }
+            if (!dryRun) {
+                // children first, since copying into a directory changes its date
+                for (int ii = directories.size() - 1; ii >= 0; ii--) {
+                    directories.get(ii)[1].setLastModified(directories.get(ii)[0].lastModified());
+                }
+            }
+        }
+
+        private void copy(File source, File target, boolean verify) {
+            if (dryRun) {
+                report("copy", target, source.length());
+                copied.incrementAndGet();
+                bytes.addAndGet(source.length());
+                return;
+            }
+            CopyJob job = new CopyJob(source, target);
+            job.setVerify(verify);
+            job.run();
+            if (job.getState() == FileJob.State.DONE) {
+                long length = target.length();
+                copied.incrementAndGet();
+                bytes.addAndGet(length);
+                // one file per job, so the summary names its single strategy
+                String strategy = job.getStrategies().keySet().iterator().next().toString();
+                report("copy", target, length, strategy);
+            } else {
+                error("cp", source + ": " + job.getMessage());
+                failures.incrementAndGet();
+            }
+        }
+    }
+
+    /** Same size and, within file system precision, the same modification time. */
+    static boolean isUpToDate(File source, File target) {
+        return target.isFile()
+                && source.length() == target.length()
+                && Math.abs(source.lastModified() - target.lastModified()) < 2000;
+    }
+
+    /* ---------------------------------------------------------------- find */
+
+    private int find(Options options) throws IOException, UsageException {
+        String glob = options.value("--name", null);
+        String type = options.value("--type", null);
+        String size = options.value("--size", null);
+        String query = options.value("--query", null);
+        List<String> paths = options.paths(0, ".");
+        if (query != null) {
+            if (glob != null || type != null || size != null) {
+                throw new UsageException("find: --query replaces --name, --type and --size");
+            }
+            return findQuery(query, paths);
+        }
+        if (type != null && !type.equals("f") && !type.equals("d")) {
+            throw new UsageException("find: --type must be f or d");
+        }
+        final PathMatcher matcher =
+                glob == null ? null : FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        final boolean wantFiles = type == null || type.equals("f");
+        final boolean wantDirectories = type == null || type.equals("d");
+        final long minSize;
+        final long maxSize;
+        if (size == null) {
+            minSize = Long.MIN_VALUE;
+            maxSize = Long.MAX_VALUE;
+        } else if (size.startsWith("-")) {
+            minSize = Long.MIN_VALUE;
+            maxSize = parseSize(size.substring(1)) - 1;
+        } else {
+            minSize = parseSize(size.startsWith("+") ? size.substring(1) : size) + 1;
+            maxSize = Long.MAX_VALUE;
+        }
+        long start = Metrics.start();
+        final long[] found = new long[2];
+        for (String name : paths) {
+            Files.walkFileTree(
+                    new File(name).toPath(),
+                    new SimpleFileVisitor<Path>() {
+                        @Override
+                        public FileVisitResult preVisitDirectory(
+                                Path dir, BasicFileAttributes attrs) {
+                            visit(dir, attrs);
+                            return FileVisitResult.CONTINUE;
+                        }
+
+                        @Override
+                        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                            visit(file, attrs);
+                            return FileVisitResult.CONTINUE;
+                        }
+
+                        @Override
+                        public FileVisitResult visitFileFailed(Path file, IOException ex) {
+                            error("find", file + ": " + ex.getMessage());
+                            return FileVisitResult.CONTINUE;
+                        }
+
+                        private void visit(Path path, BasicFileAttributes attrs) {
+                            boolean directory = attrs.isDirectory();
+                            if (directory ? !wantDirectories : !wantFiles) {
+                                return;
+                            }
+                            if (matcher != null
+                                    && (path.getFileName() == null
+                                            || !matcher.matches(path.getFileName()))) {
+                                return;
+                            }
+                            if (size != null
+                                    && (directory
+                                            || attrs.size() < minSize
+                                            || attrs.size() > maxSize)) {
+                                return;
+                            }
+                            found[0]++;
+                            found[1] += directory ? 0 : attrs.size();
+                            printMatch(
+                                    path.toString(),
+                                    directory,
+                                    attrs.size(),
+                                    attrs.lastModifiedTime().toMillis());
+                        }
+                    });
+        }
+        summary("find", start, found[0], "matches", found[1], false);
+        return OK;
+    }
+
+    /** Lists what matches a {@link FileQuery} below {@code paths}, as it is found. */
+    private int findQuery(String text, List<String> paths) throws UsageException {
+        FileQuery query;
+        try {
+            query = FileQuery.parse(text);
+        } catch (ParseException ex) {
+            throw new UsageException(
+                    "find: " + ex.getMessage() + " at " + (ex.getErrorOffset() + 1));
+        }
+        final boolean permissions = query.needsPermissions();
+        QuerySearch search =
+                new QuerySearch(
+                        query,
+                        new DirectoryCache.Lister() {
+                            public FileRows list(File dir) {
+                                try {
+                                    return Cli.list(dir, true, permissions);
+                                } catch (IOException ex) {
+                                    error("find", dir + ": " + ex.getMessage());
+                                    return null;
+                                }
+                            }
+                        });
+        long start = Metrics.start();
+        final long[] bytes = new long[1];
+        for (String name : paths) {
+            search.run(
+                    new File(name),
+                    new QuerySearch.Results() {
+                        public void found(FileRows matches) {
+                            for (int row = 0; row < matches.size(); row++) {
+                                bytes[0] += matches.getLength(row);
+                                printMatch(
+                                        matches.getPath(row),
+                                        matches.is(row, FileRows.DIRECTORY),
+                                        matches.getLength(row),
+                                        matches.getLastModified(row));
+                            }
+                        }
+                    });
+        }
+        summary("find", start, search.getMatches(), "matches", bytes[0], false);
+        return OK;
+    }
+
+    private void printMatch(String path, boolean directory, long size, long modified) {
+        if (json) {
+            out.println(
+                    new JsonLine()
+                            .put("type", "match")
+                            .put("path", path)
+                            .put("directory", directory)
+                            .put("size", size)
+                            .put("modified", modified));
+        } else {
+            out.println(path);
+        }
+    }
+
+    /** Parses a size like {@code 512}, {@code 10k}, {@code 1.5M} or {@code 2G} (powers of 1024). */
+    static long parseSize(String text) throws UsageException {
+        try {
+            return FileQuery.parseSize(text);
+        } catch (NumberFormatException ex) {
+            throw new UsageException("Not a size: " + text);
+        }
+    }
+
+    /* ---------------------------------------------------------------- grep */
+
+    private int grep(Options options) throws IOException, UsageException {
+        boolean ignoreCase = options.flag("-i");
+        boolean namesOnly = options.flag("-l");
+        List<String> arguments = options.paths(2, null);
+        Pattern pattern;
+        try {
+            pattern =
+                    Pattern.compile(
+                            arguments.get(0),
+                            ignoreCase ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0);
+        } catch (PatternSyntaxException ex) {
+            throw new UsageException("grep: " + ex.getDescription());
+        }
+        long start = Metrics.start();
+        Grep grep = new Grep(pattern, namesOnly);
+        for (String name : arguments.subList(1, arguments.size())) {
+            grep.search(new File(name));
+        }
+        summary("grep", start, grep.matches, "matches", grep.bytes, true);
+        return grep.matches > 0 ? OK : FAILED;
+    }
+
+    private final class Grep {
+
+        static final int BINARY_PROBE = 8192;
+
+        final Pattern pattern;
+        final boolean namesOnly;
+        long matches;
+        long bytes;
+
+        Grep(Pattern pattern, boolean namesOnly) {
+            this.pattern = pattern;
+            this.namesOnly = namesOnly;
+        }
+
+        void search(File file) {
+            if (file.isDirectory()) {
+                File[] children = file.listFiles();
+                if (children == null) {
+                    error("grep", file + ": cannot list directory");
+                    return;
+                }
+                Arrays.sort(children);
+                for (File child : children) {
+                    search(child);
+                }
+                return;
+            }
+            try {
+                if (isBinary(file)) {
+                    return;
+                }
+                searchFile(file);
+            } catch (IOException ex) {
+                error("grep", file + ": " + ex.getMessage());
+            }
+        }
+
+        private void searchFile(File file) throws IOException {
+            InputStream in = new FileInputStream(file);
+            try {
+                BufferedReader reader =
+                        new BufferedReader(
+                                new InputStreamReader(
+                                        in,
+                                        StandardCharsets.UTF_8
+                                                .newDecoder()
+                                                .onMalformedInput(CodingErrorAction.REPLACE)
+                                                .onUnmappableCharacter(
+                                                        CodingErrorAction.REPLACE)));
+                String line;
+                long number = 0;
+                while ((line = reader.readLine()) != null) {
+                    number++;
+                    if (!pattern.matcher(line).find()) {
+                        continue;
+                    }
+                    matches++;
+                    if (namesOnly) {
+                        print(file, 0, null);
+                        return;
+                    }
+                    print(file, number, line);
+                }
+            } finally {
+                in.close();
+                bytes += file.length();
+            }
+        }
+
+        private void print(File file, long number, String line) {
+            if (json) {
+                JsonLine record = new JsonLine().put("type", "match").put("path", file.getPath());
+                if (line != null) {
+                    record.put("line", number).put("text", line);
+                }
+                out.println(record);
+            } else if (line == null) {
+                out.println(file.getPath());
+            } else {
+                out.println(file.getPath() + ":" + number + ":" + line);
+            }
+        }
+
+        private boolean isBinary(File file) throws IOException {
+            InputStream in = new FileInputStream(file);
+            try {
+                byte[] probe = new byte[BINARY_PROBE];
+                int read = in.read(probe);
+                for (int ii = 0; ii < read; ii++) {
+                    if (probe[ii] == 0) {
+                        return true;
+                    }
+                }
+                return false;
+            } finally {
+                in.close();
+            }
+        }
+    }
+
+    /* ---------------------------------------------------------------- checksum */
+
+    private int checksum(Options options) throws IOException, UsageException {
+        boolean all = options.flag("--all");
+        boolean write = options.flag("--write");
+        boolean verify = options.flag("--verify");
+        int parallelism = options.intValue("--parallel", DEFAULT_PARALLELISM);
+        List<String> paths = options.paths(1, null);
+        if (write && verify) {
+            throw new UsageException("checksum: --write and --verify exclude each other");
+        }
+        long start = Metrics.start();
+        if (write || verify) {
+            return manifests(paths, verify, start);
+        }
+
+        List<File> files = new ArrayList<File>();
+        for (String name : paths) {
+            collectFiles(new File(name), files);
+        }
+        ExecutorService executor = newPool("cli-checksum", parallelism);
+        int status = OK;
+        long bytes = 0;
+        try {
+            List<Future<Checksums.Result>> futures = new ArrayList<Future<Checksums.Result>>();
+            for (final File file : files) {
+                futures.add(
+                        executor.submit(
+                                new Callable<Checksums.Result>() {
+                                    public Checksums.Result call() throws IOException {
+                                        return Checksums.compute(file);
+                                    }
+                                }));
+            }
+            // in the order given, while later files are still being hashed
+            for (int ii = 0; ii < files.size(); ii++) {
+                String path = files.get(ii).getPath();
+                Checksums.Result result;
+                try {
+                    result = futures.get(ii).get();
+                } catch (ExecutionException ex) {
+                    error("checksum", path + ": " + ex.getCause().getMessage());
+                    status = FAILED;
+                    continue;
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted");
+                }
+                bytes += result.getLength();
+                if (json) {
+                    out.println(
+                            new JsonLine()
+                                    .put("type", "checksum")
+                                    .put("path", path)
+                                    .put("size", result.getLength())
+                                    .put("md5", result.getMd5())
+                                    .put("sha256", result.getSha256())
+                                    .put("crc32c", result.getCrc32c()));
+                } else if (all) {
+                    out.println(
+                            result.getMd5()
+                                    + " "
+                                    + result.getSha256()
+                                    + " "
+                                    + result.getCrc32c()
+                                    + "  "
+                                    + path);
+                } else {
+                    // the format of sha256sum
+                    out.println(result.getSha256() + "  " + path);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        summary("checksum", start, files.size(), "files", bytes, true);
+        return status;
+    }
+
+    private int manifests(List<String> paths, boolean verify, long start) {
+        int status = OK;
+        long files = 0;
+        long bytes = 0;
+        for (String name : paths) {
+            ChecksumJob job = new ChecksumJob(new File(name), verify);
+            job.run();
+            files += job.getResults().size();
+            bytes += job.getProgress();
+            if (job.getState() != FileJob.State.DONE) {
+                error("checksum", name + ": " + job.getMessage());
+                status = FAILED;
+                continue;
+            }
+            for (String failure : job.getFailures()) {
+                if (json) {
+                    out.println(
+                            new JsonLine()
+                                    .put("type", "failure")
+                                    .put("manifest", job.getManifest().getPath())
+                                    .put("failure", failure));
+                } else {
+                    out.println(job.getManifest().getPath() + ": " + failure);
+                }
+                status = FAILED;
+            }
+            if (json) {
+                out.println(
+                        new JsonLine()
+                                .put("type", verify ? "verified" : "written")
+                                .put("manifest", job.getManifest().getPath())
+                                .put("message", job.getMessage()));
+            } else {
+                out.println(job.getManifest().getPath() + ": " + job.getMessage());
+            }
+        }
+        summary("checksum", start, files, "files", bytes, true);
+        return status;
+    }
+
+    private void collectFiles(File file, List<File> files) {
+        if (file.isDirectory()) {
+            File[] children = file.listFiles();
+            if (children == null) {
+                error("checksum", file + ": cannot list directory");
+                return;
+            }
+            Arrays.sort(children);
+            for (File child : children) {
+                collectFiles(child, files);
+            }
+        } else {
+            files.add(file);
+        }
+    }
+
+    /* ---------------------------------------------------------------- serve */
+
+    /** Runs a {@link RemoteServer} until the process is stopped. */
+    private int serve(Options options) throws IOException, UsageException {
+        int port = options.intValue("--port", RemoteServer.DEFAULT_PORT);
+        String bind = options.value("--bind", "127.0.0.1");
+        List<String> paths = options.paths(0, ".");
+        if (paths.size() != 1) {
+            throw new UsageException("serve: expected one directory");
+        }
+        final RemoteServer server =
+                new RemoteServer(new File(paths.get(0)), new InetSocketAddress(bind, port));
+        Runtime.getRuntime()
+                .addShutdownHook(
+                        new Thread(
+                                new Runnable() {
+                                    public void run() {
+                                        server.close();
+                                    }
+                                },
+                                "remote-shutdown"));
+        err.println(
+                "Serving " + server.getRoot() + " on http://" + bind + ":" + server.getPort()
+                        + "/api/");
+        try {
+            server.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            server.close();
+        }
+        return OK;
+    }
+
+    /* ---------------------------------------------------------------- output */
+
+    private void report(String action, File file, long size) {
+        report(action, file, size, null);
+    }
+
+    /** @param strategy the {@link CopyStrategy} a copy used, or null */
+    private void report(String action, File file, long size, String strategy) {
+        if (json) {
+            JsonLine line =
+                    new JsonLine()
+                            .put("type", action)
+                            .put("path", file.getPath())
+                            .put("size", size);
+            if (strategy != null) {
+                line.put("strategy", strategy);
+            }
+            out.println(line);
+        } else {
+            String suffix = strategy == null ? "" : " (" + strategy + ")";
+            out.println(action + " " + file.getPath() + suffix);
+        }
+    }
+
+    private synchronized void error(String command, String message) {
+        if (json) {
+            out.println(
+                    new JsonLine()
+                            .put("type", "error")
+                            .put("command", command)
+                            .put("message", String.valueOf(message)));
+        } else {
+            err.println(command + ": " + message);
+        }
+    }
+
+    /**
+     * Prints how long a command took.
+     *
+     * @param throughput whether the bytes were read or written, so a rate makes sense
+     */
+    private void summary(
+            String command, long startNanos, long items, String unit, long bytes,
+            boolean throughput) {
+        long nanos = System.nanoTime() - startNanos;
+        Metrics.metric("cli." + command).record(nanos);
+        double seconds = nanos / 1e9;
+        double rate = seconds <= 0 ? 0 : bytes / seconds;
+        if (json) {
+            JsonLine line =
+                    new JsonLine()
+                            .put("type", "summary")
+                            .put("command", command)
+                            .put(unit, items)
+                            .put("bytes", bytes)
+                            .put("elapsedMillis", nanos / 1000000);
+            if (throughput) {
+                line.put("bytesPerSecond", (long) rate);
+            }
+            out.println(line);
+        } else {
+            err.println(
+                    String.format(
+                            Locale.ROOT,
+                            "%s: %d %s, %s in %.3f s%s",
+                            command,
+                            items,
+                            unit,
+                            Formats.size(bytes),
+                            seconds,
+                            throughput
+                                    ? " (" + Formats.size((long) rate) + "/s)"
+                                    : ""));
+        }
+    }
+
+    private static ExecutorService newPool(final String name, int threads) {
+        return Executors.newFixedThreadPool(
+                Math.max(1, threads),
+                new ThreadFactory() {
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, name);
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+    }
+
+    private static void await(List<Future<?>> futures) throws IOException {
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException ex) {
+                throw new IOException(ex.getCause());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted");
+            }
+        }
+    }
+
+    /** A usage error, reported with the usage text. */
+    static final class UsageException extends Exception {
+        UsageException(String message) {
+            super(message);
+        }
+    }
+
+    /** Flags, options with a value and the remaining arguments of a command. */
+    static final class Options {
+
+        private final Set<String> flags = new HashSet<String>();
+        private final Map<String, String> values = new LinkedHashMap<String, String>();
+        private final List<String> paths = new ArrayList<String>();
+        private final Set<String> used = new HashSet<String>();
+
+        /** Options that take a value; every other option is a flag. */
+        private static final Set<String> WITH_VALUE =
+                new HashSet<String>(
+                        Arrays.asList(
+                                "--parallel",
+                                "--name",
+                                "--type",
+                                "--size",
+                                "--query",
+                                "--port",
+                                "--bind"));
+
+        Options(String[] args, int from) throws UsageException {
+            boolean onlyPaths = false;
+            for (int ii = from; ii < args.length; ii++) {
+                String arg = args[ii];
+                if (onlyPaths || !arg.startsWith("-") || arg.equals("-")) {
+                    paths.add(arg);
+                } else if (arg.equals("--")) {
+                    onlyPaths = true;
+                } else if (WITH_VALUE.contains(arg)) {
+                    if (ii + 1 >= args.length) {
+                        throw new UsageException(arg + " needs a value");
+                    }
+                    values.put(arg, args[++ii]);
+                } else {
+                    flags.add(arg);
+                }
+            }
+        }
+
+        boolean flag(String name) {
+            used.add(name);
+            return flags.contains(name);
+        }
+
+        String value(String name, String defaultValue) {
+            used.add(name);
+            String value = values.get(name);
+            return value == null ? defaultValue : value;
+        }
+
+        int intValue(String name, int defaultValue) throws UsageException {
+            String value = value(name, null);
+            if (value == null) {
+                return defaultValue;
+            }
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException ex) {
+                throw new UsageException(name + " needs a number");
+            }
+        }
+
+        /**
+         * The non-option arguments; call it after reading the options, since it rejects the
+         * ones that were not read.
+         *
+         * @param min how many there must be
+         * @param defaultPath used when there are none, or null
+         */
+        List<String> paths(int min, String defaultPath) throws UsageException {
+            for (String flag : flags) {
+                if (!used.contains(flag)) {
+                    throw new UsageException("Unknown option: " + flag);
+                }
+            }
+            for (String name : values.keySet()) {
+                if (!used.contains(name)) {
+                    throw new UsageException("Unknown option: " + name);
+                }
+            }
+            if (paths.isEmpty() && defaultPath != null) {
+                return Collections.singletonList(defaultPath);
+            }
+            if (paths.size() < min) {
+                throw new UsageException("Missing arguments");
+            }
+            return paths;
+        }
+    }
+}
@@ -0,0 +1,456 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Checksum;
+
+/**
+ * Copies a file or a directory tree. The data is moved in chunks so the job can be paused and
+ * cancelled between them.
+ *
+ * <p>Each file is written as {@code <name>.part} and renamed to its name once complete, so a
+ * crash never leaves a truncated file under the final name. Files larger than the {@link
+ * #JOURNAL_INTERVAL journal interval} also get a {@code <name>.part.journal} that records how
+ * much of the part file is safely on disk. When a copy fails or the process dies, copying the
+ * same file to the same place again resumes at that offset, after checking the last journaled
+ * chunk against both the journal and the source. A cancelled copy removes both files.
+ *
+ * <p>Files that stay on one file system are first offered to the faster {@link CopyStrategy
+ * strategies}, a clone or the JDK's native copy; the job's message names the ones used. The
+ * chunked copy leaves blocks of zeros as holes ({@link SparseCopy}), and the message also
+ * says how much was written when that is less than the files' length.
+ *
+ * <p>With {@link #setVerify(boolean) verification} on, every copied file is read back and its
+ * checksums compared with the source's, and the progress total counts those reads as well.
+ */
+class CopyJob extends FileJob {
+
+    static final long CHUNK_SIZE = 8L * 1024 * 1024;
+    /** Larger files keep a journal, forced to disk after each interval of this many bytes. */
+    static final long JOURNAL_INTERVAL = 64L * 1024 * 1024;
+    static final String PART_SUFFIX = ".part";
+    static final String JOURNAL_SUFFIX = ".part.journal";
+
+    private final File source;
+    private final File target;
+    private volatile boolean verify;
+    private volatile long journalInterval = JOURNAL_INTERVAL;
+    private final AtomicLong resumedBytes = new AtomicLong();
+    private final AtomicLong logicalBytes = new AtomicLong();
+    private final AtomicLong writtenBytes = new AtomicLong();
+    private final Map<CopyStrategy, Integer> strategies =
+            new EnumMap<CopyStrategy, Integer>(CopyStrategy.class);
+
+    CopyJob(File source, File target) {
+        this("Copy " + source.getName() + " to " + target.getParent(), source, target);
+    }
+
+    CopyJob(String name, File source, File target) {
+        super(name, source, target);
+        this.source = source;
+        this.target = target;
+    }
+
+    File getSource() {
+        return source;
+    }
+
+    File getTarget() {
+        return target;
+    }
+
+    /** Whether to compare the checksums of source and target after copying each file. */
+    void setVerify(boolean verify) {
+        this.verify = verify;
+    }
+
+    boolean isVerify() {
+        return verify;
+    }
+
+    /** How often large files are journaled; also the size above which they are. */
+    void setJournalInterval(long bytes) {
+        this.journalInterval = bytes;
+    }
+
+    /** How many files each {@link CopyStrategy} copied. */
+    Map<CopyStrategy, Integer> getStrategies() {
+        synchronized (strategies) {
+            return new EnumMap<CopyStrategy, Integer>(strategies);
+        }
+    }
+
+    /** The strategies used, like {@code "reflink: 3 files, chunked: 1 file"}. */
+    String getStrategySummary() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<CopyStrategy, Integer> entry : getStrategies().entrySet()) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(entry.getKey())
+                    .append(": ")
+                    .append(entry.getValue())
+                    .append(entry.getValue() == 1 ? " file" : " files");
+        }
+        if (sb.length() == 0) {
+            return "no files";
+        }
+        long logical = logicalBytes.get();
+        long written = writtenBytes.get();
+        if (written < logical) {
+            sb.append("; ")
+                    .append(Formats.size(written))
+                    .append(" written for ")
+                    .append(Formats.size(logical));
+        }
+        return sb.toString();
+    }
+
+    /** The length of the files copied by this run, holes included. */
+    long getLogicalBytes() {
+        return logicalBytes.get();
+    }
+
+    /**
+     * The bytes this run wrote: less than the {@link #getLogicalBytes() logical bytes} when
+     * zero blocks were left as holes or files were cloned.
+     */
+    long getWrittenBytes() {
+        return writtenBytes.get();
+    }
+
+    /** The bytes that were not copied again because an earlier attempt had copied them. */
+    long getResumedBytes() {
+        return resumedBytes.get();
+    }
+
+    @Override
+    protected void execute() throws IOException {
+        String sourcePath = source.getCanonicalPath();
+        String targetPath = target.getCanonicalPath();
+        if (targetPath.equals(sourcePath)) {
+            // the part file would replace the source, and a move would then delete it
+            throw new IOException("Cannot copy " + source + " onto itself");
+        }
+        if (source.isDirectory() && targetPath.startsWith(sourcePath + File.separator)) {
+            throw new IOException("Cannot copy " + source + " into itself");
+        }
+        setMessage("Measuring...");
+        long size = sizeOf(source);
+        setTotal(verify ? size * 2 : size);
+        setMessage(target.getPath());
+        copy(source, target);
+        setMessage(target.getPath() + " (" + getStrategySummary() + ")");
+    }
+
+    private long sizeOf(File file) {
+        checkpoint();
+        if (file.isDirectory()) {
+            long size = 0;
+            File[] children = file.listFiles();
+            if (children != null) {
+                for (File child : children) {
+                    size += sizeOf(child);
+                }
+            }
+            return size;
+        }
+        return file.length();
+    }
+
+    private void copy(File from, File to) throws IOException {
+        checkpoint();
+        if (from.isDirectory()) {
+            if (!to.isDirectory() && !to.mkdirs()) {
+                throw new IOException("Could not create directory " + to);
+            }
+            File[] children = from.listFiles();
+            if (children != null) {
+                for (File child : children) {
+                    copy(child, new File(to, child.getName()));
+                }
+            }
+            to.setLastModified(from.lastModified());
+        } else {
+            copyFile(from, to);
+        }
+    }
+
+    private void copyFile(File from, File to) throws IOException {
+        long start = Metrics.start();
+        File part = new File(to.getParentFile(), to.getName() + PART_SUFFIX);
+        File journal = new File(to.getParentFile(), to.getName() + JOURNAL_SUFFIX);
+        CopyStrategy strategy = CopyStrategy.CHUNKED;
+        if (!journal.isFile()) {
+            // an interrupted chunked copy is resumed rather than started over
+            long size = from.length();
+            for (CopyStrategy candidate :
+                    CopyStrategy.candidates(from, to.getParentFile(), size)) {
+                if (candidate == CopyStrategy.CHUNKED) {
+                    break;
+                }
+                if (candidate == CopyStrategy.NATIVE && size > journalInterval) {
+                    // journaled files are copied in resumable chunks
+                    continue;
+                }
+                checkpoint();
+                boolean copied = false;
+                try {
+                    copied = candidate.copy(from, part);
+                } finally {
+                    if (!copied) {
+                        part.delete();
+                    }
+                }
+                if (copied) {
+                    strategy = candidate;
+                    addProgress(size);
+                    logicalBytes.addAndGet(size);
+                    // a clone shares the source's blocks
+                    writtenBytes.addAndGet(candidate == CopyStrategy.REFLINK ? 0 : size);
+                    Metrics.count(Metrics.COPY_BYTES, size);
+                    break;
+                }
+            }
+        }
+        if (strategy == CopyStrategy.CHUNKED) {
+            copyChunked(from, part, journal);
+        }
+        synchronized (strategies) {
+            Integer count = strategies.get(strategy);
+            strategies.put(strategy, count == null ? 1 : count + 1);
+        }
+        part.setLastModified(from.lastModified());
+        if (verify) {
+            verifyFile(from, part, journal);
+        }
+        part.setReadable(from.canRead());
+        part.setWritable(from.canWrite());
+        part.setExecutable(from.canExecute());
+        try {
+            Files.move(
+                    part.toPath(),
+                    to.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(part.toPath(), to.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        journal.delete();
+        Metrics.stop(Metrics.COPY, start);
+    }
+
+    /** Copies through the journaled part file, resuming where an earlier attempt stopped. */
+    private void copyChunked(File from, File part, File journal) throws IOException {
+        FileChannel in = FileChannel.open(from.toPath(), StandardOpenOption.READ);
+        try {
+            long size = in.size();
+            boolean journaled = size > journalInterval;
+            long position = journaled ? resumeOffset(from, in, part, journal) : 0;
+            RandomAccessFile file = new RandomAccessFile(part, "rw");
+            FileChannel out = file.getChannel();
+            SparseCopy sparse = new SparseCopy();
+            boolean complete = false;
+            try {
+                out.truncate(position);
+                if (position > 0) {
+                    resumedBytes.addAndGet(position);
+                    addProgress(position);
+                }
+                long journaledAt = position;
+                long chunkSize = Math.min(CHUNK_SIZE, journalInterval);
+                in.position(position);
+                while (position < size) {
+                    checkpoint();
+                    long count = Math.min(chunkSize, size - position);
+                    long written = sparse.getWrittenBytes();
+                    long copied = sparse.copy(in, out, position, count);
+                    if (copied <= 0) {
+                        break;
+                    }
+                    position += copied;
+                    addProgress(copied);
+                    logicalBytes.addAndGet(copied);
+                    writtenBytes.addAndGet(sparse.getWrittenBytes() - written);
+                    Metrics.count(Metrics.COPY_BYTES, copied);
+                    if (journaled && position - journaledAt >= journalInterval && position < size) {
+                        if (out.size() < position) {
+                            // the chunk ended in a hole
+                            file.setLength(position);
+                        }
+                        // the data must be on disk before the journal says it is
+                        out.force(false);
+                        writeJournal(journal, from, size, position, out);
+                        journaledAt = position;
+                    }
+                }
+                // a trailing hole is only a length
+                file.setLength(position);
+                complete = true;
+            } finally {
+                file.close();
+                // after a failure a journaled part file is kept for the next attempt
+                if (!complete && (isCancelRequested() || !journal.isFile())) {
+                    part.delete();
+                    journal.delete();
+                }
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Where an earlier, interrupted copy of {@code from} can be continued: the journaled
+     * offset, if the journal describes the same source and the last journaled window of the
+     * part file still matches both the journal and the source; 0 otherwise.
+     */
+    private static long resumeOffset(File from, FileChannel in, File part, File journal) {
+        if (!part.isFile() || !journal.isFile()) {
+            return 0;
+        }
+        try {
+            Properties entries = new Properties();
+            InputStream stream = new FileInputStream(journal);
+            try {
+                entries.load(stream);
+            } finally {
+                stream.close();
+            }
+            long offset = Long.parseLong(entries.getProperty("offset", "0"));
+            if (!from.getAbsolutePath().equals(entries.getProperty("source"))
+                    || in.size() != Long.parseLong(entries.getProperty("length", "-1"))
+                    || from.lastModified()
+                            != Long.parseLong(entries.getProperty("modified", "-1"))
+                    || offset <= 0
+                    || offset > part.length()) {
+                return 0;
+            }
+            String crc = entries.getProperty("crc32c");
+            long windowStart = offset - Math.min(CHUNK_SIZE, offset);
+            FileChannel written = FileChannel.open(part.toPath(), StandardOpenOption.READ);
+            try {
+                if (!crc32c(written, windowStart, offset).equals(crc)
+                        || !crc32c(in, windowStart, offset).equals(crc)) {
+                    return 0;
+                }
+            } finally {
+                written.close();
+            }
+            return offset;
+        } catch (IOException | NumberFormatException ex) {
+            return 0;
+        }
+    }
+
+    /**
+     * Records that the first {@code offset} bytes of the part file are on disk, with the
+     * CRC-32C of the last {@link #CHUNK_SIZE} of them. Written to a temporary file first, so
+     * the journal is always whole.
+     */
+    private static void writeJournal(
+            File journal, File from, long length, long offset, FileChannel written)
+            throws IOException {
+        Properties entries = new Properties();
+        entries.setProperty("source", from.getAbsolutePath());
+        entries.setProperty("length", String.valueOf(length));
+        entries.setProperty("modified", String.valueOf(from.lastModified()));
+        entries.setProperty("offset", String.valueOf(offset));
+        entries.setProperty(
+                "crc32c", crc32c(written, offset - Math.min(CHUNK_SIZE, offset), offset));
+        File temp = new File(journal.getPath() + ".tmp");
+        OutputStream stream = new FileOutputStream(temp);
+        try {
+            entries.store(stream, null);
+        } finally {
+            stream.close();
+        }
+        try {
+            Files.move(
+                    temp.toPath(),
+                    journal.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(temp.toPath(), journal.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static String crc32c(FileChannel channel, long from, long to) throws IOException {
+        Checksum crc = Checksums.newCrc32c();
+        ByteBuffer buffer = ByteBuffer.allocate(Checksums.BUFFER_SIZE);
+        long position = from;
+        while (position < to) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), to - position));
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+            crc.update(buffer.array(), 0, read);
+            position += read;
+        }
+        return String.format("%08x", crc.getValue());
+    }
+
+    private void verifyFile(File from, File to, File journal) throws IOException {
+        // each side counts half of the file's share of the verification work
+        Checksums.Progress progress =
+                new Checksums.Progress() {
+                    private long half;
+
+                    public void hashed(long bytes) {
+                        half += bytes;
+                        addProgress(half / 2);
+                        half %= 2;
+                        checkpoint();
+                    }
+                };
+        Checksums.Result expected = Checksums.compute(from, progress);
+        Checksums.Result actual = Checksums.compute(to, progress);
+        if (!expected.getSha256().equals(actual.getSha256())
+                || !expected.getCrc32c().equals(actual.getCrc32c())) {
+            to.delete();
+            journal.delete();
+            throw new IOException("Checksum mismatch after copying " + from + " to " + to);
+        }
+    }
+}
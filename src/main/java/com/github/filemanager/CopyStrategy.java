@@ -0,0 +1,243 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ways to copy the data of one file, fastest first.
+ *
+ * <p>Within one file system the data need not move at all: Btrfs, XFS and others can clone a
+ * file by sharing its blocks until either copy is written, and the JDK's own {@link Files#copy}
+ * uses the kernel's in-place copy where it can. Across file systems every byte has to be read
+ * and written, which {@link #CHUNKED} does without copying them through the heap, and without
+ * writing the blocks that are all zeros.
+ * {@link #candidates} picks the strategies worth trying for a copy; {@link CopyJob} reports
+ * which one each file used.
+ */
+enum CopyStrategy {
+
+    /** A copy-on-write clone through {@code cp --reflink=always}, on Linux. */
+    REFLINK("reflink") {
+        @Override
+        boolean copy(File from, File to) throws IOException {
+            Object device = deviceOf(from);
+            if (!IS_LINUX || device == null || NO_REFLINK.contains(device)) {
+                return false;
+            }
+            ProcessBuilder builder =
+                    new ProcessBuilder(
+                            "cp", "--reflink=always", "--", from.getPath(), to.getPath());
+            builder.redirectErrorStream(true);
+            // the messages are matched below
+            builder.environment().put("LC_ALL", "C");
+            String output;
+            Process process = null;
+            try {
+                process = builder.start();
+                process.getOutputStream().close();
+                // cp writes no more than a line or two, which fits in the pipe while it runs
+                if (!process.waitFor(REFLINK_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    // a hung clone says nothing about the file system; the next strategy copies
+                    process.destroyForcibly().waitFor();
+                    process.getInputStream().close();
+                    to.delete();
+                    return false;
+                }
+                output = readOutput(process.getInputStream());
+                if (process.exitValue() == 0) {
+                    return true;
+                }
+            } catch (InterruptedException ex) {
+                process.destroyForcibly();
+                to.delete();
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while cloning " + from);
+            } catch (IOException ex) {
+                // no cp here
+                output = null;
+            }
+            if (output == null || isReflinkUnsupported(output)) {
+                // not supported by this file system; not tried on it again
+                NO_REFLINK.add(device);
+            }
+            // anything else, e.g. a full disk or a missing permission, is left to the next
+            // strategy to report
+            to.delete();
+            return false;
+        }
+    },
+
+    /** {@link Files#copy}, which the JDK implements with the platform's own copy call. */
+    NATIVE("native") {
+        @Override
+        boolean copy(File from, File to) throws IOException {
+            Files.copy(from.toPath(), to.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        }
+    },
+
+    /** Positional reads and writes in chunks, leaving blocks of zeros as holes. */
+    CHUNKED("chunked") {
+        @Override
+        boolean copy(File from, File to) throws IOException {
+            FileChannel in = FileChannel.open(from.toPath(), StandardOpenOption.READ);
+            try {
+                RandomAccessFile out = new RandomAccessFile(to, "rw");
+                try {
+                    out.setLength(0);
+                    long length = new SparseCopy().copy(in, out.getChannel(), 0, in.size());
+                    out.setLength(length);
+                } finally {
+                    out.close();
+                }
+            } finally {
+                in.close();
+            }
+            return true;
+        }
+    };
+
+    /** Smaller files are not worth starting a process for. */
+    static final long REFLINK_MIN_SIZE = 1024 * 1024;
+    /**
+     * Larger files are not copied with {@link Files#copy}, which can be neither paused nor
+     * cancelled, nor resumed after a failure.
+     */
+    static final long NATIVE_MAX_SIZE = CopyJob.JOURNAL_INTERVAL;
+
+    private static final long REFLINK_TIMEOUT_SECONDS = 60;
+    private static final boolean IS_LINUX =
+            System.getProperty("os.name", "").toLowerCase(Locale.ROOT).startsWith("linux");
+    private static final Set<Object> NO_REFLINK =
+            Collections.newSetFromMap(new ConcurrentHashMap<Object, Boolean>());
+
+    private final String label;
+
+    CopyStrategy(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Copies the data of {@code from} to {@code to}, replacing it.
+     *
+     * @return false if this strategy cannot copy here; {@code to} is then left alone
+     */
+    abstract boolean copy(File from, File to) throws IOException;
+
+    @Override
+    public String toString() {
+        return label;
+    }
+
+    /** The strategies to try, in order, for copying {@code size} bytes into {@code toDir}. */
+    static List<CopyStrategy> candidates(File from, File toDir, long size) {
+        List<CopyStrategy> candidates = new ArrayList<CopyStrategy>(3);
+        if (isSameFileStore(from, toDir)) {
+            if (size >= REFLINK_MIN_SIZE) {
+                candidates.add(REFLINK);
+            }
+            if (size <= NATIVE_MAX_SIZE) {
+                candidates.add(NATIVE);
+            }
+        }
+        candidates.add(CHUNKED);
+        return candidates;
+    }
+
+    /** Copies with the first of the {@link #candidates} that works, and returns it. */
+    static CopyStrategy copyFastest(File from, File to) throws IOException {
+        for (CopyStrategy strategy : candidates(from, to.getParentFile(), from.length())) {
+            if (strategy.copy(from, to)) {
+                return strategy;
+            }
+        }
+        throw new IllegalStateException("The chunked copy always applies");
+    }
+
+    /**
+     * Whether {@code cp} failed because the file system cannot clone, rather than because of this
+     * particular file.
+     */
+    static boolean isReflinkUnsupported(String output) {
+        return output.contains("Operation not supported")
+                || output.contains("Invalid cross-device link")
+                || output.contains("Inappropriate ioctl for device")
+                || output.contains("Function not implemented");
+    }
+
+    private static String readOutput(InputStream output) throws IOException {
+        try {
+            byte[] buffer = new byte[4096];
+            int length = 0;
+            int read;
+            while (length < buffer.length
+                    && (read = output.read(buffer, length, buffer.length - length)) >= 0) {
+                length += read;
+            }
+            return new String(buffer, 0, length, "UTF-8");
+        } finally {
+            output.close();
+        }
+    }
+
+    /** Whether both files are on the same file system, so its own copy functions apply. */
+    static boolean isSameFileStore(File a, File b) {
+        Object deviceA = deviceOf(a);
+        return deviceA != null && deviceA.equals(deviceOf(b));
+    }
+
+    /**
+     * The device number where the platform has one, which costs a single stat, or else the
+     * {@link FileStore}; null if neither can be read.
+     */
+    private static Object deviceOf(File file) {
+        try {
+            return Files.getAttribute(file.toPath(), "unix:dev");
+        } catch (UnsupportedOperationException | IllegalArgumentException ex) {
+            try {
+                return Files.getFileStore(file.toPath());
+            } catch (IOException notThere) {
+                return null;
+            }
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.nio.ByteBuffer;
+import java.util.zip.Checksum;
+
+/**
+ * CRC-32C (Castagnoli), for runtimes without {@code java.util.zip.CRC32C}. Table driven, eight
+ * bytes per step.
+ */
+final class Crc32c implements Checksum {
+
+    private static final int POLYNOMIAL = 0x82F63B78;
+    private static final int[][] TABLES = new int[8][256];
+
+    static {
+        for (int ii = 0; ii < 256; ii++) {
+            int crc = ii;
+            for (int bit = 0; bit < 8; bit++) {
+                crc = (crc & 1) != 0 ? (crc >>> 1) ^ POLYNOMIAL : crc >>> 1;
+            }
+            TABLES[0][ii] = crc;
+        }
+        for (int ii = 0; ii < 256; ii++) {
+            for (int table = 1; table < 8; table++) {
+                int previous = TABLES[table - 1][ii];
+                TABLES[table][ii] = (previous >>> 8) ^ TABLES[0][previous & 0xFF];
+            }
+        }
+    }
+
+    private int crc = 0xFFFFFFFF;
+
+    public void update(int b) {
+        crc = (crc >>> 8) ^ TABLES[0][(crc ^ b) & 0xFF];
+    }
+
+    public void update(byte[] b, int off, int len) {
+        int c = crc;
+        int end = off + len;
+        while (end - off >= 8) {
+            int low =
+                    c
+                            ^ ((b[off] & 0xFF)
+                                    | (b[off + 1] & 0xFF) << 8
+                                    | (b[off + 2] & 0xFF) << 16
+                                    | (b[off + 3] & 0xFF) << 24);
+            c =
+                    TABLES[7][low & 0xFF]
+                            ^ TABLES[6][(low >>> 8) & 0xFF]
+                            ^ TABLES[5][(low >>> 16) & 0xFF]
+                            ^ TABLES[4][low >>> 24]
+                            ^ TABLES[3][b[off + 4] & 0xFF]
+                            ^ TABLES[2][b[off + 5] & 0xFF]
+                            ^ TABLES[1][b[off + 6] & 0xFF]
+                            ^ TABLES[0][b[off + 7] & 0xFF];
+            off += 8;
+        }
+        while (off < end) {
+            c = (c >>> 8) ^ TABLES[0][(c ^ b[off++]) & 0xFF];
+        }
+        crc = c;
+    }
+
+    /** Consumes the remaining bytes of {@code buffer}. */
+    public void update(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            update(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            buffer.position(buffer.limit());
+            return;
+        }
+        byte[] chunk = new byte[Math.min(buffer.remaining(), 64 * 1024)];
+        while (buffer.hasRemaining()) {
+            int count = Math.min(chunk.length, buffer.remaining());
+            buffer.get(chunk, 0, count);
+            update(chunk, 0, count);
+        }
+    }
+
+    public long getValue() {
+        return ~crc & 0xFFFFFFFFL;
+    }
+
+    public void reset() {
+        crc = 0xFFFFFFFF;
+    }
+}
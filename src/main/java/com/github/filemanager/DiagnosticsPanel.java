@@ -0,0 +1,278 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import javax.swing.JButton;
+import javax.swing.JFileChooser;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JSplitPane;
+import javax.swing.JTable;
+import javax.swing.Timer;
+import javax.swing.border.EmptyBorder;
+import javax.swing.table.AbstractTableModel;
+
+/** Shows the {@link Metrics} and recent EDT stalls, refreshed every second while visible. */
+class DiagnosticsPanel extends JPanel {
+
+    private final MetricTableModel metricModel = new MetricTableModel();
+    private final StallTableModel stallModel = new StallTableModel();
+    private final JLabel summary = new JLabel();
+    private final Timer refreshTimer;
+
+    DiagnosticsPanel() {
+        super(new BorderLayout(3, 3));
+        setBorder(new EmptyBorder(5, 5, 5, 5));
+
+        add(summary, BorderLayout.NORTH);
+
+        JTable metricTable = new JTable(metricModel);
+        metricTable.setAutoCreateRowSorter(true);
+        JScrollPane metricScroll = new JScrollPane(metricTable);
+        metricScroll.setPreferredSize(new Dimension(560, 220));
+        JTable stallTable = new JTable(stallModel);
+        stallTable.getColumnModel().getColumn(2).setPreferredWidth(320);
+        JScrollPane stallScroll = new JScrollPane(stallTable);
+        stallScroll.setPreferredSize(new Dimension(560, 140));
+        add(
+                new JSplitPane(JSplitPane.VERTICAL_SPLIT, metricScroll, stallScroll),
+                BorderLayout.CENTER);
+
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.LEADING, 4, 0));
+        JButton reset = new JButton("Reset");
+        reset.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        Metrics.reset();
+                        EdtMonitor.clearStalls();
+                        refresh();
+                    }
+                });
+        buttons.add(reset);
+        JButton exportJson = new JButton("Export JSON...");
+        exportJson.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        exportJson();
+                    }
+                });
+        buttons.add(exportJson);
+        JButton exportJfr = new JButton("Export JFR...");
+        exportJfr.setEnabled(JfrExport.isAvailable());
+        exportJfr.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        exportJfr();
+                    }
+                });
+        buttons.add(exportJfr);
+        add(buttons, BorderLayout.SOUTH);
+
+        refreshTimer =
+                new Timer(
+                        1000,
+                        new ActionListener() {
+                            public void actionPerformed(ActionEvent ae) {
+                                refresh();
+                            }
+                        });
+        refresh();
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        refreshTimer.start();
+    }
+
+    @Override
+    public void removeNotify() {
+        refreshTimer.stop();
+        super.removeNotify();
+    }
+
+    void refresh() {
+        metricModel.metrics = Metrics.snapshot();
+        metricModel.fireTableDataChanged();
+        stallModel.stalls = EdtMonitor.recentStalls();
+        stallModel.fireTableDataChanged();
+        long copyNanos = Metrics.metric(Metrics.COPY).getTotalNanos();
+        long copyBytes = Metrics.metric(Metrics.COPY_BYTES).getCount();
+        String throughput =
+                copyNanos == 0
+                        ? "-"
+                        : Formats.size((long) (copyBytes / (copyNanos / 1e9))) + "/s";
+        summary.setText(
+                "Copy throughput: "
+                        + throughput
+                        + "    EDT stalls: "
+                        + Metrics.metric(Metrics.EDT_STALL).getCount()
+                        + (EdtMonitor.isInstalled() ? "" : " (monitor not installed)"));
+    }
+
+    private File chooseTarget(String name) {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File(name));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return null;
+        }
+        return chooser.getSelectedFile();
+    }
+
+    private void exportJson() {
+        File target = chooseTarget("filemanager-diagnostics.json");
+        if (target == null) {
+            return;
+        }
+        try {
+            Writer out = new OutputStreamWriter(new FileOutputStream(target), "UTF-8");
+            try {
+                out.write(Metrics.toJson());
+            } finally {
+                out.close();
+            }
+        } catch (IOException ex) {
+            showError(ex);
+        }
+    }
+
+    private void exportJfr() {
+        File target = chooseTarget("filemanager-diagnostics.jfr");
+        if (target == null) {
+            return;
+        }
+        try {
+            JfrExport.dump(target);
+        } catch (IOException ex) {
+            showError(ex);
+        }
+    }
+
+    private void showError(Exception ex) {
+        JOptionPane.showMessageDialog(
+                this, ex.toString(), "Export failed", JOptionPane.ERROR_MESSAGE);
+    }
+
+    static String formatMillis(long nanos) {
+        return String.format("%.3f", nanos / 1e6);
+    }
+
+    private static class MetricTableModel extends AbstractTableModel {
+
+        private final String[] columns = {"Metric", "Count", "Total ms", "Avg ms", "Max ms"};
+        private List<Metrics.Metric> metrics = new ArrayList<Metrics.Metric>();
+
+        public int getRowCount() {
+            return metrics.size();
+        }
+
+        public int getColumnCount() {
+            return columns.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return columns[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return column == 1 ? Long.class : String.class;
+        }
+
+        public Object getValueAt(int row, int column) {
+            Metrics.Metric metric = metrics.get(row);
+            // counters have no time, only a count
+            boolean timed = metric.getTotalNanos() > 0;
+            switch (column) {
+                case 0:
+                    return metric.getName();
+                case 1:
+                    return metric.getCount();
+                case 2:
+                    return timed ? formatMillis(metric.getTotalNanos()) : "";
+                case 3:
+                    return timed && metric.getCount() > 0
+                            ? formatMillis(metric.getTotalNanos() / metric.getCount())
+                            : "";
+                case 4:
+                    return timed ? formatMillis(metric.getMaxNanos()) : "";
+                default:
+                    return "";
+            }
+        }
+    }
+
+    private static class StallTableModel extends AbstractTableModel {
+
+        private final String[] columns = {"Time", "Duration ms", "Event"};
+        private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss.SSS");
+        private List<EdtMonitor.Stall> stalls = new ArrayList<EdtMonitor.Stall>();
+
+        public int getRowCount() {
+            return stalls.size();
+        }
+
+        public int getColumnCount() {
+            return columns.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return columns[column];
+        }
+
+        public Object getValueAt(int row, int column) {
+            // newest first
+            EdtMonitor.Stall stall = stalls.get(stalls.size() - 1 - row);
+            switch (column) {
+                case 0:
+                    return timeFormat.format(new Date(stall.getTimestamp()));
+                case 1:
+                    return formatMillis(stall.getDurationNanos());
+                case 2:
+                    return stall.getDescription();
+                default:
+                    return "";
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The most recently listed directories, so going back to one does not list it again.
+ *
+ * <p>An entry is only used while the directory's modification time is unchanged, which catches
+ * files being added, removed or renamed. Changes inside files (size, date) do not touch the
+ * directory, so operations of this application invalidate what they touch and a refresh lists
+ * again regardless. Entries are evicted least recently used first, once there are more than
+ * {@link #getMaxEntries()} directories or {@link #getMaxRows()} rows in total.
+ */
+class DirectoryCache {
+
+    static final String HIT = "dircache.hit";
+    static final String MISS = "dircache.miss";
+
+    static final int DEFAULT_MAX_ENTRIES = 64;
+    static final int DEFAULT_MAX_ROWS = 200000;
+
+    private static final class Entry {
+
+        final long lastModified;
+        final FileRows rows;
+
+        Entry(long lastModified, FileRows rows) {
+            this.lastModified = lastModified;
+            this.rows = rows;
+        }
+    }
+
+    private final int maxEntries;
+    private final int maxRows;
+    private final LinkedHashMap<File, Entry> entries =
+            new LinkedHashMap<File, Entry>(16, 0.75f, true);
+    private int rows;
+
+    DirectoryCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_ROWS);
+    }
+
+    DirectoryCache(int maxEntries, int maxRows) {
+        this.maxEntries = maxEntries;
+        this.maxRows = maxRows;
+    }
+
+    int getMaxEntries() {
+        return maxEntries;
+    }
+
+    int getMaxRows() {
+        return maxRows;
+    }
+
+    /**
+     * The cached listing of {@code dir} if it is still current. Reads the directory's
+     * modification time, so call it where file system access is allowed.
+     */
+    FileRows get(File dir) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(dir);
+        }
+        if (entry != null && entry.lastModified == dir.lastModified()) {
+            Metrics.count(HIT, 1);
+            return entry.rows;
+        }
+        if (entry != null) {
+            remove(dir, entry);
+        }
+        Metrics.count(MISS, 1);
+        return null;
+    }
+
+    /** The cached listing of {@code dir} without checking that it is current; no I/O. */
+    synchronized FileRows peek(File dir) {
+        Entry entry = entries.get(dir);
+        return entry == null ? null : entry.rows;
+    }
+
+    /** Whether {@code dir} has an entry, without checking that it is current. */
+    synchronized boolean contains(File dir) {
+        return entries.containsKey(dir);
+    }
+
+    /**
+     * Caches a listing.
+     *
+     * @param lastModified the directory's modification time, read before listing it
+     */
+    synchronized void put(File dir, long lastModified, FileRows listing) {
+        if (listing.size() > maxRows) {
+            return;
+        }
+        Entry old = entries.put(dir, new Entry(lastModified, listing));
+        if (old != null) {
+            rows -= old.rows.size();
+        }
+        rows += listing.size();
+        Iterator<Entry> it = entries.values().iterator();
+        while ((entries.size() > maxEntries || rows > maxRows) && it.hasNext()) {
+            rows -= it.next().rows.size();
+            it.remove();
+        }
+    }
+
+    /** Lists {@code dir} through the cache; {@code lister} is only called on a miss. */
+    FileRows list(File dir, Lister lister) {
+        FileRows cached = get(dir);
+        if (cached != null) {
+            return cached;
+        }
+        long lastModified = dir.lastModified();
+        FileRows listing = lister.list(dir);
+        if (listing != null && lastModified != 0) {
+            put(dir, lastModified, listing);
+        }
+        return listing;
+    }
+
+    /** Lists a directory, or returns null if it is not one. */
+    interface Lister {
+        FileRows list(File dir);
+    }
+
+    synchronized void invalidate(File dir) {
+        Entry old = entries.remove(dir);
+        if (old != null) {
+            rows -= old.rows.size();
+        }
+    }
+
+    /** Drops {@code file}, its parent and every directory below it. */
+    synchronized void invalidateTree(File file) {
+        invalidate(file.getParentFile());
+        String prefix = file.getPath() + File.separator;
+        Iterator<Map.Entry<File, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<File, Entry> entry = it.next();
+            File dir = entry.getKey();
+            if (dir.equals(file) || dir.getPath().startsWith(prefix)) {
+                rows -= entry.getValue().rows.size();
+                it.remove();
+            }
+        }
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        rows = 0;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private synchronized void remove(File dir, Entry entry) {
+        // only if it was not replaced in the meantime
+        if (entries.get(dir) == entry) {
+            invalidate(dir);
+        }
+    }
+}
@@ -0,0 +1,303 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.geom.Rectangle2D;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+import javax.swing.JButton;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.Timer;
+import javax.swing.border.EmptyBorder;
+
+/**
+ * Shows the disk usage below a directory as a squarified treemap.
+ *
+ * <p>The map is repainted while the scan runs, so the largest subtrees show up long before the
+ * scan finishes. Clicking a directory drills into it; Up goes back towards the scanned root.
+ */
+class DiskUsagePanel extends JPanel {
+
+    /** Directories smaller than this are not subdivided. */
+    private static final int MIN_NESTED_SIZE = 48;
+    private static final int HEADER_HEIGHT = 14;
+
+    private final DiskUsageScanner scanner;
+    private final File dir;
+    private final JLabel status = new JLabel();
+    private final JButton up = new JButton("Up");
+    private final TreemapCanvas canvas = new TreemapCanvas();
+    private final Timer refreshTimer;
+    private DiskUsageScanner.Scan scan;
+    private DiskUsageScanner.Node current;
+
+    DiskUsagePanel(DiskUsageScanner scanner, File dir) {
+        super(new BorderLayout(3, 3));
+        this.scanner = scanner;
+        this.dir = dir;
+        setBorder(new EmptyBorder(5, 5, 5, 5));
+
+        JPanel tools = new JPanel(new FlowLayout(FlowLayout.LEADING, 4, 0));
+        up.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        if (current != null && current.getParent() != null) {
+                            setCurrent(current.getParent());
+                        }
+                    }
+                });
+        tools.add(up);
+        JButton rescan = new JButton("Rescan");
+        rescan.setToolTipText("Forget cached sizes and scan everything again");
+        rescan.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        DiskUsagePanel.this.scanner.clearCache();
+                        startScan();
+                    }
+                });
+        tools.add(rescan);
+        tools.add(status);
+        add(tools, BorderLayout.NORTH);
+        add(canvas, BorderLayout.CENTER);
+
+        refreshTimer =
+                new Timer(
+                        300,
+                        new ActionListener() {
+                            public void actionPerformed(ActionEvent ae) {
+                                refresh();
+                            }
+                        });
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        if (scan == null) {
+            startScan();
+        }
+    }
+
+    @Override
+    public void removeNotify() {
+        refreshTimer.stop();
+        if (scan != null) {
+            scan.cancel();
+        }
+        super.removeNotify();
+    }
+
+    private void startScan() {
+        if (scan != null) {
+            scan.cancel();
+        }
+        scan = scanner.start(dir);
+        setCurrent(scan.getRoot());
+        refreshTimer.start();
+    }
+
+    private void setCurrent(DiskUsageScanner.Node node) {
+        current = node;
+        up.setEnabled(node.getParent() != null);
+        refresh();
+    }
+
+    private void refresh() {
+        if (scan.isDone()) {
+            refreshTimer.stop();
+        }
+        status.setText(
+                current.getFile().getPath()
+                        + "  "
+                        + Formats.size(current.getSize())
+                        + " in "
+                        + current.getFileCount()
+                        + " file(s)"
+                        + (scan.isDone() ? "" : "  (scanning...)"));
+        canvas.repaint();
+    }
+
+    /** Children sorted by size, largest first. */
+    private static List<DiskUsageScanner.Node> sortedChildren(DiskUsageScanner.Node node) {
+        final List<DiskUsageScanner.Node> children =
+                new ArrayList<DiskUsageScanner.Node>(node.getChildren());
+        final long[] sizes = new long[children.size()];
+        // sizes change while scanning, so sort on a snapshot
+        List<Integer> order = new ArrayList<Integer>();
+        for (int ii = 0; ii < sizes.length; ii++) {
+            sizes[ii] = children.get(ii).getSize();
+            order.add(ii);
+        }
+        Collections.sort(
+                order,
+                new Comparator<Integer>() {
+                    public int compare(Integer a, Integer b) {
+                        return Long.compare(sizes[b], sizes[a]);
+                    }
+                });
+        List<DiskUsageScanner.Node> sorted = new ArrayList<DiskUsageScanner.Node>();
+        for (Integer index : order) {
+            sorted.add(children.get(index));
+        }
+        return sorted;
+    }
+
+    static Color colorOf(DiskUsageScanner.Node node, int depth) {
+        if (node.isDirectory()) {
+            return Color.getHSBColor(0.6f, 0.35f, 0.95f - 0.1f * depth);
+        }
+        String name = node.getName();
+        int dot = name.lastIndexOf('.');
+        String extension = dot < 0 ? "" : name.substring(dot + 1).toLowerCase(Locale.ROOT);
+        float hue = (extension.hashCode() & 0xFFFF) / 65536f;
+        return Color.getHSBColor(hue, 0.45f, 0.9f - 0.1f * depth);
+    }
+
+    /** Paints the map and finds the node under the mouse. */
+    private class TreemapCanvas extends JComponent {
+
+        /** Painted rectangles and their nodes, innermost last. */
+        private final List<Rectangle2D> rects = new ArrayList<Rectangle2D>();
+        private final List<DiskUsageScanner.Node> nodes = new ArrayList<DiskUsageScanner.Node>();
+
+        TreemapCanvas() {
+            setPreferredSize(new Dimension(720, 480));
+            setToolTipText("");
+            addMouseListener(
+                    new MouseAdapter() {
+                        @Override
+                        public void mouseClicked(MouseEvent e) {
+                            DiskUsageScanner.Node node = topLevelAt(e.getX(), e.getY());
+                            if (node != null && node.isDirectory()) {
+                                setCurrent(node);
+                            }
+                        }
+                    });
+        }
+
+        /** The child of the current node under the point, so drilling goes one level. */
+        private DiskUsageScanner.Node topLevelAt(int x, int y) {
+            DiskUsageScanner.Node node = nodeAt(x, y);
+            while (node != null && node.getParent() != current) {
+                node = node.getParent();
+            }
+            return node;
+        }
+
+        private DiskUsageScanner.Node nodeAt(int x, int y) {
+            for (int ii = rects.size() - 1; ii >= 0; ii--) {
+                if (rects.get(ii).contains(x, y)) {
+                    return nodes.get(ii);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public String getToolTipText(MouseEvent e) {
+            DiskUsageScanner.Node node = nodeAt(e.getX(), e.getY());
+            if (node == null) {
+                return null;
+            }
+            return node.getFile().getPath() + " - " + Formats.size(node.getSize());
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            Graphics2D g2 = (Graphics2D) g;
+            g2.setColor(getBackground());
+            g2.fillRect(0, 0, getWidth(), getHeight());
+            rects.clear();
+            nodes.clear();
+            if (current != null) {
+                paintChildren(g2, current, new Rectangle(0, 0, getWidth(), getHeight()), 0);
+            }
+        }
+
+        private void paintChildren(
+                Graphics2D g2, DiskUsageScanner.Node node, Rectangle2D bounds, int depth) {
+            List<DiskUsageScanner.Node> children = sortedChildren(node);
+            long[] sizes = new long[children.size()];
+            for (int ii = 0; ii < sizes.length; ii++) {
+                sizes[ii] = children.get(ii).getSize();
+            }
+            Rectangle2D.Double[] layout = Treemap.layout(sizes, bounds);
+            FontMetrics metrics = g2.getFontMetrics();
+            for (int ii = 0; ii < layout.length; ii++) {
+                Rectangle2D.Double rect = layout[ii];
+                if (rect.width < 1 || rect.height < 1) {
+                    continue;
+                }
+                DiskUsageScanner.Node child = children.get(ii);
+                rects.add(rect);
+                nodes.add(child);
+                Rectangle r = rect.getBounds();
+                g2.setColor(colorOf(child, depth));
+                g2.fillRect(r.x, r.y, r.width, r.height);
+                g2.setColor(Color.DARK_GRAY);
+                g2.drawRect(r.x, r.y, r.width - 1, r.height - 1);
+                String label = child.getName() + " " + Formats.size(child.getSize());
+                if (r.width > metrics.stringWidth(label) + 4
+                        && r.height > metrics.getHeight()) {
+                    g2.setColor(Color.BLACK);
+                    g2.drawString(label, r.x + 2, r.y + metrics.getAscent());
+                }
+                if (child.isDirectory()
+                        && depth == 0
+                        && r.width >= MIN_NESTED_SIZE
+                        && r.height >= MIN_NESTED_SIZE) {
+                    paintChildren(
+                            g2,
+                            child,
+                            new Rectangle2D.Double(
+                                    rect.x + 2,
+                                    rect.y + HEADER_HEIGHT,
+                                    rect.width - 4,
+                                    rect.height - HEADER_HEIGHT - 2),
+                            depth + 1);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,292 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Adds up the disk usage of directory trees.
+ *
+ * <p>A scan walks the tree with one fork/join task per directory. Sizes are added to a node and
+ * all of its ancestors as soon as each file is seen, so a view can paint the partial result
+ * while the scan runs. Finished directories are cached with their modification time; a later
+ * scan reuses a directory without listing it again if that time is unchanged, and only
+ * descends to check its subdirectories. A file that grows in place does not change its
+ * directory's time, so {@link #clearCache()} forces a full rescan.
+ */
+class DiskUsageScanner {
+
+    /** A file or directory with its (possibly still growing) total size. */
+    static final class Node {
+
+        private final File file;
+        private final Node parent;
+        private final boolean directory;
+        private final long modified;
+        private final AtomicLong size = new AtomicLong();
+        private final AtomicLong fileCount = new AtomicLong();
+        private volatile List<Node> children = Collections.emptyList();
+        private volatile boolean complete;
+
+        Node(File file, Node parent, boolean directory, long modified) {
+            this.file = file;
+            this.parent = parent;
+            this.directory = directory;
+            this.modified = modified;
+        }
+
+        File getFile() {
+            return file;
+        }
+
+        String getName() {
+            return file.getName().length() == 0 ? file.getPath() : file.getName();
+        }
+
+        Node getParent() {
+            return parent;
+        }
+
+        boolean isDirectory() {
+            return directory;
+        }
+
+        long getSize() {
+            return size.get();
+        }
+
+        long getFileCount() {
+            return fileCount.get();
+        }
+
+        /** Children found so far; the list itself never changes once published. */
+        List<Node> getChildren() {
+            return children;
+        }
+
+        /** Whether the whole subtree has been added up. */
+        boolean isComplete() {
+            return complete;
+        }
+
+        private void add(long bytes, long files) {
+            for (Node node = this; node != null; node = node.parent) {
+                node.size.addAndGet(bytes);
+                node.fileCount.addAndGet(files);
+            }
+        }
+    }
+
+    /** A running or finished scan. */
+    final class Scan {
+
+        private final Node root;
+        private final AtomicLong listed = new AtomicLong();
+        private volatile boolean cancelled;
+        private volatile boolean done;
+
+        private Scan(Node root) {
+            this.root = root;
+        }
+
+        Node getRoot() {
+            return root;
+        }
+
+        boolean isDone() {
+            return done;
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+
+        /** Directories that had to be listed, as opposed to taken from the cache. */
+        long getDirectoriesListed() {
+            return listed.get();
+        }
+    }
+
+    private final ForkJoinPool pool =
+            new ForkJoinPool(Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+    private final ConcurrentMap<String, Node> cache = new ConcurrentHashMap<String, Node>();
+
+    /** Starts scanning {@code dir}; the returned scan's root fills in while it runs. */
+    Scan start(File dir) {
+        long modified = modifiedTime(dir.toPath());
+        final Scan scan = new Scan(new Node(dir, null, true, modified));
+        final DirectoryTask task = new DirectoryTask(scan, scan.root);
+        Thread thread =
+                new Thread(
+                        new Runnable() {
+                            public void run() {
+                                try {
+                                    pool.invoke(task);
+                                } finally {
+                                    scan.done = true;
+                                }
+                            }
+                        },
+                        "disk-usage");
+        thread.setDaemon(true);
+        thread.start();
+        return scan;
+    }
+
+    /** Scans {@code dir} and waits for the result. */
+    Scan scan(File dir) {
+        Scan scan = new Scan(new Node(dir, null, true, modifiedTime(dir.toPath())));
+        try {
+            pool.invoke(new DirectoryTask(scan, scan.root));
+        } finally {
+            scan.done = true;
+        }
+        return scan;
+    }
+
+    void clearCache() {
+        cache.clear();
+    }
+
+    private static long modifiedTime(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS)
+                    .lastModifiedTime()
+                    .toMillis();
+        } catch (IOException ex) {
+            return -1;
+        }
+    }
+
+    private class DirectoryTask extends RecursiveAction {
+
+        private final Scan scan;
+        private final Node node;
+
+        DirectoryTask(Scan scan, Node node) {
+            this.scan = scan;
+            this.node = node;
+        }
+
+        @Override
+        protected void compute() {
+            if (scan.cancelled) {
+                return;
+            }
+            String key = node.file.getPath();
+            Node cached = cache.get(key);
+            List<Node> children = new ArrayList<Node>();
+            List<DirectoryTask> subtasks = new ArrayList<DirectoryTask>();
+            if (cached != null && cached.modified == node.modified && node.modified != -1) {
+                // unchanged listing: reuse the file sizes, but subdirectories may have changed
+                for (Node old : cached.children) {
+                    if (old.directory) {
+                        Node child =
+                                new Node(
+                                        old.file,
+                                        node,
+                                        true,
+                                        modifiedTime(old.file.toPath()));
+                        children.add(child);
+                        subtasks.add(new DirectoryTask(scan, child));
+                    } else {
+                        Node child = new Node(old.file, node, false, old.modified);
+                        child.size.set(old.getSize());
+                        child.fileCount.set(1);
+                        child.complete = true;
+                        children.add(child);
+                        node.add(old.getSize(), 1);
+                    }
+                }
+            } else {
+                scan.listed.incrementAndGet();
+                list(children, subtasks);
+            }
+            node.children = Collections.unmodifiableList(children);
+            invokeAll(subtasks);
+            if (!scan.cancelled) {
+                node.complete = true;
+                cache.put(key, node);
+            }
+        }
+
+        private void list(List<Node> children, List<DirectoryTask> subtasks) {
+            long start = Metrics.start();
+            try {
+                DirectoryStream<Path> stream = Files.newDirectoryStream(node.file.toPath());
+                try {
+                    for (Path path : stream) {
+                        if (scan.cancelled) {
+                            return;
+                        }
+                        BasicFileAttributes attributes;
+                        try {
+                            attributes =
+                                    Files.readAttributes(
+                                            path,
+                                            BasicFileAttributes.class,
+                                            LinkOption.NOFOLLOW_LINKS);
+                        } catch (IOException ex) {
+                            continue;
+                        }
+                        long modified = attributes.lastModifiedTime().toMillis();
+                        if (attributes.isDirectory()) {
+                            Node child = new Node(path.toFile(), node, true, modified);
+                            children.add(child);
+                            subtasks.add(new DirectoryTask(scan, child));
+                        } else {
+                            // symbolic links count as their own (tiny) size
+                            Node child = new Node(path.toFile(), node, false, modified);
+                            child.size.set(attributes.size());
+                            child.fileCount.set(1);
+                            child.complete = true;
+                            children.add(child);
+                            node.add(attributes.size(), 1);
+                        }
+                    }
+                } finally {
+                    stream.close();
+                }
+            } catch (IOException ex) {
+                // unreadable directory: counts as empty
+            } finally {
+                Metrics.stop(Metrics.LISTING, start);
+            }
+        }
+    }
+}
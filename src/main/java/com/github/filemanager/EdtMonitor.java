@@ -0,0 +1,159 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.awt.event.InvocationEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Detects stalls of the event dispatch thread.
+ *
+ * <p>{@link #install(long)} pushes an {@link EventQueue} that times every dispatched event. All
+ * dispatches are recorded under {@link Metrics#EDT_DISPATCH}; those slower than the threshold
+ * are also recorded under {@link Metrics#EDT_STALL} and kept in a short list of recent stalls.
+ * An event that runs a secondary loop, such as one showing a modal dialog, is not timed itself:
+ * its duration is mostly the user looking at the dialog, and the events dispatched by the loop
+ * are timed on their own.
+ */
+final class EdtMonitor extends EventQueue {
+
+    /** Dispatches slower than this are considered stalls by default. */
+    static final long DEFAULT_THRESHOLD_MILLIS = 100;
+
+    private static final int MAX_STALLS = 50;
+
+    /** One slow dispatch. */
+    static final class Stall {
+
+        private final long timestamp;
+        private final long durationNanos;
+        private final String description;
+
+        Stall(long timestamp, long durationNanos, String description) {
+            this.timestamp = timestamp;
+            this.durationNanos = durationNanos;
+            this.description = description;
+        }
+
+        long getTimestamp() {
+            return timestamp;
+        }
+
+        long getDurationNanos() {
+            return durationNanos;
+        }
+
+        String getDescription() {
+            return description;
+        }
+    }
+
+    private static final List<Stall> STALLS = new ArrayList<Stall>();
+    private static volatile boolean installed;
+
+    private final long thresholdNanos;
+    // only touched on the EDT
+    private long dispatches;
+
+    private EdtMonitor(long thresholdMillis) {
+        this.thresholdNanos = thresholdMillis * 1000000L;
+    }
+
+    /** Starts monitoring the EDT; later calls do nothing. */
+    static synchronized void install(long thresholdMillis) {
+        if (!installed) {
+            Toolkit.getDefaultToolkit()
+                    .getSystemEventQueue()
+                    .push(new EdtMonitor(thresholdMillis));
+            installed = true;
+        }
+    }
+
+    static boolean isInstalled() {
+        return installed;
+    }
+
+    @Override
+    protected void dispatchEvent(AWTEvent event) {
+        long start = System.nanoTime();
+        long dispatchesBefore = ++dispatches;
+        try {
+            super.dispatchEvent(event);
+        } finally {
+            long nanos = System.nanoTime() - start;
+            // when a nested loop ran inside this dispatch, its events were recorded on their own
+            if (dispatches == dispatchesBefore) {
+                Metrics.metric(Metrics.EDT_DISPATCH).record(nanos);
+                if (nanos >= thresholdNanos) {
+                    Metrics.metric(Metrics.EDT_STALL).record(nanos);
+                    addStall(new Stall(System.currentTimeMillis(), nanos, describe(event)));
+                }
+            }
+        }
+    }
+
+    static void addStall(Stall stall) {
+        synchronized (STALLS) {
+            if (STALLS.size() == MAX_STALLS) {
+                STALLS.remove(0);
+            }
+            STALLS.add(stall);
+        }
+    }
+
+    /** The most recent stalls, oldest first. */
+    static List<Stall> recentStalls() {
+        synchronized (STALLS) {
+            return new ArrayList<Stall>(STALLS);
+        }
+    }
+
+    static void clearStalls() {
+        synchronized (STALLS) {
+            STALLS.clear();
+        }
+    }
+
+    private static String describe(AWTEvent event) {
+        if (event instanceof InvocationEvent) {
+            // invokeLater and SwingWorker callbacks: the runnable's class is the useful part
+            String text = event.paramString();
+            int runnable = text.indexOf("runnable=");
+            if (runnable >= 0) {
+                int end = text.indexOf(',', runnable);
+                return "invocation "
+                        + text.substring(runnable + 9, end < 0 ? text.length() : end);
+            }
+        }
+        Object source = event.getSource();
+        return event.getClass().getSimpleName()
+                + " id="
+                + event.getID()
+                + (source == null ? "" : " on " + source.getClass().getName());
+    }
+}
@@ -0,0 +1,69 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.awt.Component;
+import java.util.Date;
+
+import javax.swing.JTable;
+import javax.swing.SwingConstants;
+import javax.swing.table.DefaultTableCellRenderer;
+
+/**
+ * Paints the size and date columns of a {@link FileTableModel} with the texts it keeps per row,
+ * instead of formatting a boxed value each time a cell is painted.
+ */
+class FileCellRenderer extends DefaultTableCellRenderer {
+
+    FileCellRenderer(int alignment) {
+        setHorizontalAlignment(alignment);
+    }
+
+    @Override
+    public Component getTableCellRendererComponent(
+            JTable table,
+            Object value,
+            boolean isSelected,
+            boolean hasFocus,
+            int row,
+            int column) {
+        super.getTableCellRendererComponent(table, null, isSelected, hasFocus, row, column);
+        if (table.getModel() instanceof FileTableModel) {
+            setText(
+                    ((FileTableModel) table.getModel())
+                            .getText(
+                                    table.convertRowIndexToModel(row),
+                                    table.convertColumnIndexToModel(column)));
+        } else {
+            setText(value == null ? "" : value.toString());
+        }
+        return this;
+    }
+
+    /** Uses this renderer for the size and date columns of {@code table}. */
+    static void install(JTable table) {
+        table.setDefaultRenderer(Long.class, new FileCellRenderer(SwingConstants.RIGHT));
+        table.setDefaultRenderer(Date.class, new FileCellRenderer(SwingConstants.LEADING));
+    }
+}
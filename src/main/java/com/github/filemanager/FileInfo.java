@@ -0,0 +1,144 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.File;
+
+import javax.swing.Icon;
+import javax.swing.filechooser.FileSystemView;
+
+/**
+ * What the table shows about one file, read once in the background so that painting never
+ * touches the file system.
+ */
+final class FileInfo {
+
+    private final File file;
+    private final String displayName;
+    private final Icon icon;
+    private final long length;
+    private final long lastModified;
+    private final boolean exists;
+    private final boolean readable;
+    private final boolean writable;
+    private final boolean executable;
+    private final boolean directory;
+    private final boolean isFile;
+
+    FileInfo(
+            File file,
+            String displayName,
+            Icon icon,
+            long length,
+            long lastModified,
+            boolean exists,
+            boolean readable,
+            boolean writable,
+            boolean executable,
+            boolean directory,
+            boolean isFile) {
+        this.file = file;
+        this.displayName = displayName;
+        this.icon = icon;
+        this.length = length;
+        this.lastModified = lastModified;
+        this.exists = exists;
+        this.readable = readable;
+        this.writable = writable;
+        this.executable = executable;
+        this.directory = directory;
+        this.isFile = isFile;
+    }
+
+    /** Reads the metadata of {@code file}; blocks as long as its file system does. */
+    static FileInfo read(File file, FileSystemView fileSystemView, IconCache icons) {
+        long start = Metrics.start();
+        boolean directory = file.isDirectory();
+        boolean isFile = !directory && file.isFile();
+        String displayName = fileSystemView.getSystemDisplayName(file);
+        long length = file.length();
+        long lastModified = file.lastModified();
+        boolean exists = directory || isFile || file.exists();
+        boolean readable = file.canRead();
+        boolean writable = file.canWrite();
+        boolean executable = file.canExecute();
+        Metrics.stop(Metrics.STAT, start);
+        return new FileInfo(
+                file,
+                displayName == null || displayName.length() == 0 ? file.getPath() : displayName,
+                icons.get(file, directory),
+                length,
+                lastModified,
+                exists,
+                readable,
+                writable,
+                executable,
+                directory,
+                isFile);
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    String getDisplayName() {
+        return displayName;
+    }
+
+    Icon getIcon() {
+        return icon;
+    }
+
+    long getLength() {
+        return length;
+    }
+
+    long getLastModified() {
+        return lastModified;
+    }
+
+    boolean exists() {
+        return exists;
+    }
+
+    boolean canRead() {
+        return readable;
+    }
+
+    boolean canWrite() {
+        return writable;
+    }
+
+    boolean canExecute() {
+        return executable;
+    }
+
+    boolean isDirectory() {
+        return directory;
+    }
+
+    boolean isFile() {
+        return isFile;
+    }
+}
@@ -0,0 +1,246 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A background file operation run by the {@link JobQueue}.
+ *
+ * <p>Subclasses implement {@link #execute()} and call {@link #checkpoint()} between units of
+ * work, which is where pausing blocks and cancelling takes effect. Progress is reported with
+ * {@link #addProgress(long)} in the job's {@link #getUnit() unit}.
+ */
+abstract class FileJob {
+
+    enum State {
+        QUEUED,
+        RUNNING,
+        PAUSED,
+        DONE,
+        FAILED,
+        CANCELLED
+    }
+
+    private final String name;
+    private final List<File> files;
+    private final AtomicLong progress = new AtomicLong();
+    private volatile long total = -1;
+    private volatile State state = State.QUEUED;
+    private volatile boolean pauseRequested;
+    private volatile boolean cancelRequested;
+    private volatile Throwable error;
+    private volatile String message = "";
+    private long startNanos;
+    private long endNanos;
+    private long pausedNanos;
+    private long pauseStartNanos;
+    private Runnable whenDone;
+
+    /** Devices this job touches, resolved by the queue unless set beforehand. */
+    private List<String> devices = Collections.emptyList();
+
+    /**
+     * @param name shown in the jobs panel
+     * @param files the source and target files; their devices limit concurrency
+     */
+    FileJob(String name, File... files) {
+        this.name = name;
+        List<File> list = new ArrayList<File>();
+        for (File file : files) {
+            if (file != null) {
+                list.add(file);
+            }
+        }
+        this.files = list;
+    }
+
+    /** Does the actual work on a queue thread. */
+    protected abstract void execute() throws Exception;
+
+    /** Unit of {@link #getProgress()}, e.g. "B" for bytes or "files". */
+    String getUnit() {
+        return "B";
+    }
+
+    String getName() {
+        return name;
+    }
+
+    List<File> getFiles() {
+        return files;
+    }
+
+    List<String> getDevices() {
+        return devices;
+    }
+
+    void setDevices(List<String> devices) {
+        this.devices = devices;
+    }
+
+    State getState() {
+        return state;
+    }
+
+    Throwable getError() {
+        return error;
+    }
+
+    String getMessage() {
+        return message;
+    }
+
+    protected void setMessage(String message) {
+        this.message = message;
+    }
+
+    long getProgress() {
+        return progress.get();
+    }
+
+    /** Total amount of work, or -1 while unknown. */
+    long getTotal() {
+        return total;
+    }
+
+    protected void setTotal(long total) {
+        this.total = total;
+    }
+
+    protected void addProgress(long amount) {
+        progress.addAndGet(amount);
+    }
+
+    boolean isFinished() {
+        State s = state;
+        return s == State.DONE || s == State.FAILED || s == State.CANCELLED;
+    }
+
+    /** Progress per second while running, not counting time spent paused. */
+    synchronized double getThroughput() {
+        if (startNanos == 0) {
+            return 0;
+        }
+        long end = endNanos != 0 ? endNanos : System.nanoTime();
+        long paused = pausedNanos + (pauseStartNanos != 0 ? end - pauseStartNanos : 0);
+        double seconds = (end - startNanos - paused) / 1e9;
+        return seconds <= 0 ? 0 : progress.get() / seconds;
+    }
+
+    /** Runs {@code whenDone} on the EDT after the job finishes, whatever its outcome. */
+    void setWhenDone(Runnable whenDone) {
+        this.whenDone = whenDone;
+    }
+
+    Runnable getWhenDone() {
+        return whenDone;
+    }
+
+    synchronized void pause() {
+        if (!isFinished()) {
+            pauseRequested = true;
+        }
+    }
+
+    synchronized void resume() {
+        pauseRequested = false;
+        notifyAll();
+    }
+
+    synchronized void cancel() {
+        cancelRequested = true;
+        notifyAll();
+    }
+
+    boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    /**
+     * Blocks while the job is paused.
+     *
+     * @throws CancellationException if the job was cancelled
+     */
+    protected synchronized void checkpoint() {
+        while (pauseRequested && !cancelRequested) {
+            if (state != State.PAUSED) {
+                state = State.PAUSED;
+                pauseStartNanos = System.nanoTime();
+            }
+            try {
+                wait();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                cancelRequested = true;
+            }
+        }
+        if (state == State.PAUSED) {
+            pausedNanos += System.nanoTime() - pauseStartNanos;
+            pauseStartNanos = 0;
+            state = State.RUNNING;
+        }
+        if (cancelRequested) {
+            throw new CancellationException(name);
+        }
+    }
+
+    /** Called by the queue; runs the job and records its outcome. */
+    final void run() {
+        synchronized (this) {
+            startNanos = System.nanoTime();
+            state = State.RUNNING;
+        }
+        State outcome;
+        try {
+            checkpoint();
+            execute();
+            outcome = State.DONE;
+        } catch (CancellationException ex) {
+            outcome = State.CANCELLED;
+        } catch (Throwable t) {
+            error = t;
+            message = t.toString();
+            outcome = State.FAILED;
+        }
+        synchronized (this) {
+            endNanos = System.nanoTime();
+            if (pauseStartNanos != 0) {
+                pausedNanos += endNanos - pauseStartNanos;
+                pauseStartNanos = 0;
+            }
+            state = outcome;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -23,42 +23,50 @@ SOFTWARE.
  */
 package com.github.filemanager;
 
-import org.apache.commons.io.FileUtils;
-
 import java.awt.BorderLayout;
+import java.awt.Color;
 import java.awt.Component;
 import java.awt.Container;
 import java.awt.Desktop;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
+import java.awt.GraphicsEnvironment;
 import java.awt.GridLayout;
 import java.awt.Image;
+import java.awt.KeyboardFocusManager;
+import java.awt.Point;
 import java.awt.Toolkit;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.URL;
-import java.nio.channels.FileChannel;
-import java.text.SimpleDateFormat;
+import java.text.ParseException;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.imageio.ImageIO;
 import javax.swing.AbstractAction;
 import javax.swing.ActionMap;
 import javax.swing.ButtonGroup;
 import javax.swing.Icon;
-import javax.swing.ImageIcon;
 import javax.swing.InputMap;
 import javax.swing.JButton;
 import javax.swing.JCheckBox;
+import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JComponent;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
@@ -67,6 +75,7 @@ import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JPopupMenu;
 import javax.swing.JProgressBar;
 import javax.swing.JRadioButton;
 import javax.swing.JScrollPane;
@@ -75,6 +84,7 @@ import javax.swing.JTable;
 import javax.swing.JTextField;
 import javax.swing.JToolBar;
 import javax.swing.JTree;
+import javax.swing.JViewport;
 import javax.swing.KeyStroke;
 import javax.swing.ListSelectionModel;
 import javax.swing.RowFilter;
@@ -89,7 +99,6 @@ import javax.swing.event.ListSelectionListener;
 import javax.swing.event.TreeSelectionEvent;
 import javax.swing.event.TreeSelectionListener;
 import javax.swing.filechooser.FileSystemView;
-import javax.swing.table.AbstractTableModel;
 import javax.swing.table.TableColumn;
 import javax.swing.table.TableRowSorter;
 import javax.swing.tree.DefaultMutableTreeNode;
@@ -107,7 +116,25 @@ public class FileManager {
     /** Title of the application */
     public static final String APP_TITLE = "FileMan";
 
-    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+    /** How many subdirectories and siblings of the listed directory are prefetched. */
+    private static final int MAX_PREFETCH_CHILDREN = 16;
+
+    private static final int MAX_PREFETCH_SIBLINGS = 8;
+
+    /** Listings walked at once when a subtree is searched or flattened. */
+    private static final int WALK_THREADS = 8;
+
+    /** Rows found but not yet in the table; the walk waits while the EDT catches up. */
+    private static final int MAX_PENDING_ROWS = 50000;
+
+    /** A flattened subtree stops growing at this many rows. */
+    private static final int MAX_WALKED_ROWS = 2000000;
+
+    private static final String FILTER_HELP =
+            "<html>A part of the name, or a query such as<br>"
+                    + "<tt>size&gt;1G mtime&lt;7d *.log</tt><br>"
+                    + "<tt>ext:jpg,png or type:d</tt><br>"
+                    + "<tt>not perm:w (tmp or cache)</tt></html>";
 
     /** Used to open/edit/print files. */
     private Desktop desktop;
@@ -117,6 +144,8 @@ public class FileManager {
 
     /** currently selected File. */
     private File currentFile;
+    /** Metadata of currentFile, or null while it is being read. */
+    private FileInfo currentInfo;
 
     /** Main GUI container */
     private JPanel gui;
@@ -130,7 +159,45 @@ public class FileManager {
     private JTable table;
 
     private TableRowSorter<FileTableModel> tableSorter;
+    private RootLoader rootLoader;
+    private final IoGateway ioGateway = new IoGateway();
+    private IconCache iconCache;
+    /** Incremented per listing request so that only the latest one fills the table. */
+    private volatile int listingGeneration;
+    /** Listings still running; only used on the EDT. */
+    private int listingsInFlight;
+    /** Recent listings, shared by navigation and prefetching. */
+    private final DirectoryCache directoryCache = new DirectoryCache();
+    private DirectoryCache.Lister directoryLister;
+    private Prefetcher prefetcher;
+    private final NavigationHistory history = new NavigationHistory();
+    /** Set while going back or forward, so the move is not recorded as a new visit. */
+    private boolean navigatingHistory;
+    private JMenuItem backItem;
+    private JMenuItem forwardItem;
+    /** The tree node whose children the table shows. */
+    private DefaultMutableTreeNode listedNode;
+    /**
+     * Nodes given a child by {@link TreeNodes#ensurePath} before they were listed, so they show
+     * only some of their children until they are.
+     */
+    private final Set<DefaultMutableTreeNode> partialNodes =
+            Collections.newSetFromMap(new ConcurrentHashMap<DefaultMutableTreeNode, Boolean>());
     private JTextField filterField;
+    /** Whether the filter searches the whole subtree instead of filtering the listing. */
+    private JCheckBox searchSubfolders;
+    private SavedQueries savedQueries;
+    private JPanel detailView;
+    /** The filter and table, alone or as the left of {@link #paneSplit}. */
+    private JPanel tablePanel;
+    private JSplitPane paneSplit;
+    /** The right pane of the dual-pane layout; created when that is first shown. */
+    private FilePane secondPane;
+
+    /** Whether the table shows every descendant of the listed directory. */
+    private JCheckBoxMenuItem flattenItem;
+    /** The subtree search whose results the table shows, or null. */
+    private QuerySearch activeSearch;
 
     private JProgressBar progressBar;
 
@@ -138,11 +205,21 @@ public class FileManager {
     private FileTableModel fileTableModel;
 
     private ListSelectionListener listSelectionListener;
+    private JViewport tableViewport;
+    /** The directory whose listing the table shows, or null for search results. */
+    private File tableDirectory;
     private boolean cellSizesSet = false;
     private int rowIconPadding = 6;
+    private int iconRowHeight = -1;
+
+    /** Image/text previews for column 0. Created lazily when thumbnail mode is enabled. */
+    private ThumbnailCache thumbnailCache;
+
+    private boolean thumbnailMode = false;
 
     /* File controls. */
     private JButton openFile;
+    private JButton viewFile;
     private JButton printFile;
     private JButton editFile;
     private JButton deleteFile;
@@ -153,7 +230,8 @@ public class FileManager {
 
     /* File details. */
     private JLabel fileName;
-    private JTextField path;
+    /** Shows the selected file's path; editing it navigates. */
+    private PathField path;
     private JLabel date;
     private JLabel size;
     private JCheckBox readable;
@@ -173,21 +251,45 @@ public class FileManager {
     /** Clipboard for copy operations */
     private File clipboardFile;
 
+    /** Runs copy, delete, rename and create operations off the EDT. */
+    private final JobQueue jobQueue = new JobQueue();
+    /** Shared so that reopening the disk usage view reuses unchanged directories. */
+    private final DiskUsageScanner diskUsageScanner = new DiskUsageScanner();
+    /** Whether copies read back and compare checksums, from Edit > Verify After Copy. */
+    private boolean verifyCopies;
+
+    private JobsPanel jobsPanel;
+
     public Container getGui() {
         if (gui == null) {
             gui = new JPanel(new BorderLayout(3, 3));
             gui.setBorder(new EmptyBorder(5, 5, 5, 5));
 
             fileSystemView = FileSystemView.getFileSystemView();
+            iconCache = new IconCache(fileSystemView);
+            directoryLister =
+                    new DirectoryCache.Lister() {
+                        public FileRows list(File dir) {
+                            return listRows(dir);
+                        }
+                    };
+            prefetcher =
+                    new Prefetcher(
+                            directoryCache,
+                            ioGateway,
+                            directoryLister,
+                            Prefetcher.DEFAULT_IDLE_MILLIS);
             desktop = Desktop.getDesktop();
 
-            JPanel detailView = new JPanel(new BorderLayout(3, 3));
+            detailView = new JPanel(new BorderLayout(3, 3));
 
             table = new JTable();
-            table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+            // several files can be selected for bulk renaming; details follow the lead row
+            table.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
             table.setAutoCreateRowSorter(false);
             table.setShowVerticalLines(false);
             table.setFillsViewportHeight(true);
+            FileCellRenderer.install(table);
 
             listSelectionListener =
                     new ListSelectionListener() {
@@ -196,13 +298,18 @@ public class FileManager {
                             if (lse.getValueIsAdjusting()) {
                                 return;
                             }
+                            // a new listing clears the selection; the details keep the folder
+                            if (table.getSelectionModel().isSelectionEmpty()) {
+                                return;
+                            }
                             int viewRow = table.getSelectionModel().getLeadSelectionIndex();
                             if (viewRow < 0 || viewRow >= table.getRowCount()) {
-                                setFileDetails(null);
+                                setFileDetails((FileInfo) null);
                                 return;
                             }
                             int modelRow = table.convertRowIndexToModel(viewRow);
-                            setFileDetails(((FileTableModel) table.getModel()).getFile(modelRow));
+                            setFileDetails(((FileTableModel) table.getModel()).getInfo(modelRow));
+                            schedulePrefetch();
                         }
                     };
             table.getSelectionModel().addListSelectionListener(listSelectionListener);
@@ -216,8 +323,9 @@ public class FileManager {
                                 int viewRow = table.getSelectedRow();
                                 if (viewRow < 0) return;
                                 int modelRow = table.convertRowIndexToModel(viewRow);
-                                File f = ((FileTableModel) table.getModel()).getFile(modelRow);
-                                if (f != null && f.isDirectory()) {
+                                FileTableModel model = (FileTableModel) table.getModel();
+                                File f = model.getFile(modelRow);
+                                if (model.isDirectory(modelRow)) {
                                     navigateTo(f);
                                 } else if (f != null && desktop.isSupported(Desktop.Action.OPEN)) {
                                     try {
@@ -231,6 +339,7 @@ public class FileManager {
                     });
 
             JScrollPane tableScroll = new JScrollPane(table);
+            tableViewport = tableScroll.getViewport();
             Dimension d = tableScroll.getPreferredSize();
             tableScroll.setPreferredSize(
                     new Dimension((int) d.getWidth(), (int) d.getHeight() / 2));
@@ -259,9 +368,44 @@ public class FileManager {
                                     applyFilter();
                                 }
                             });
+            filterField.setToolTipText(FILTER_HELP);
+            filterField.addActionListener(
+                    new ActionListener() {
+                        public void actionPerformed(ActionEvent ae) {
+                            if (searchSubfolders.isSelected()) {
+                                searchSubtree();
+                            }
+                        }
+                    });
             filterPanel.add(filterField, BorderLayout.CENTER);
 
-            JPanel tablePanel = new JPanel(new BorderLayout());
+            savedQueries = new SavedQueries();
+            searchSubfolders = new JCheckBox("Subfolders");
+            searchSubfolders.setToolTipText("Search the whole folder tree; press Enter to start");
+            searchSubfolders.addActionListener(
+                    new ActionListener() {
+                        public void actionPerformed(ActionEvent ae) {
+                            if (searchSubfolders.isSelected()) {
+                                searchSubtree();
+                            } else if (listedNode != null) {
+                                showChildren(listedNode);
+                            }
+                        }
+                    });
+            final JButton savedButton = new JButton("Saved");
+            savedButton.setToolTipText("Saved queries");
+            savedButton.addActionListener(
+                    new ActionListener() {
+                        public void actionPerformed(ActionEvent ae) {
+                            showSavedQueries(savedButton);
+                        }
+                    });
+            JPanel filterOptions = new JPanel(new FlowLayout(FlowLayout.RIGHT, 3, 0));
+            filterOptions.add(searchSubfolders);
+            filterOptions.add(savedButton);
+            filterPanel.add(filterOptions, BorderLayout.EAST);
+
+            tablePanel = new JPanel(new BorderLayout());
             tablePanel.add(filterPanel, BorderLayout.NORTH);
             tablePanel.add(tableScroll, BorderLayout.CENTER);
 
@@ -284,26 +428,46 @@ public class FileManager {
                         }
                     };
 
-            // show the file system roots.
-            File[] roots = fileSystemView.getRoots();
-            for (File fileSystemRoot : roots) {
-                DefaultMutableTreeNode node = new DefaultMutableTreeNode(fileSystemRoot);
-                root.add(node);
-                File[] files = fileSystemView.getFiles(fileSystemRoot, true);
-                if (files != null) {
-                    for (File file : files) {
-                        if (file.isDirectory()) {
-                            node.add(new DefaultMutableTreeNode(file));
-                        }
-                    }
-                }
-            }
-
             tree = new JTree(treeModel);
             tree.setRootVisible(false);
             tree.addTreeSelectionListener(treeSelectionListener);
-            tree.setCellRenderer(new FileTreeCellRenderer());
-            tree.expandRow(0);
+
+            // show the file system roots; their children are listed in the background
+            rootLoader =
+                    new RootLoader(
+                            treeModel,
+                            RootLoader.directoryLister(fileSystemView),
+                            RootLoader.DEFAULT_TIMEOUT_MILLIS);
+            rootLoader.setListener(
+                    new RootLoader.Listener() {
+                        public void rootLoaded(DefaultMutableTreeNode node) {
+                            if (node.getParent() != null
+                                    && node.getParent().getIndex(node) == 0) {
+                                tree.expandPath(new TreePath(node.getPath()));
+                            }
+                        }
+                    });
+            rootLoader.load(root, fileSystemView.getRoots());
+            FileTreeCellRenderer renderer = new FileTreeCellRenderer();
+            renderer.setRootLoader(rootLoader);
+            renderer.setIoGateway(ioGateway, iconCache);
+            tree.setCellRenderer(renderer);
+            ioGateway.addListener(
+                    new IoGateway.Listener() {
+                        public void mountStateChanged(
+                                final String mount, final boolean available) {
+                            SwingUtilities.invokeLater(
+                                    new Runnable() {
+                                        public void run() {
+                                            tree.repaint();
+                                            setStatus(
+                                                    available
+                                                            ? mount + " is responding again"
+                                                            : mount + " is not responding");
+                                        }
+                                    });
+                        }
+                    });
             JScrollPane treeScroll = new JScrollPane(tree);
 
             tree.setVisibleRowCount(15);
@@ -326,8 +490,23 @@ public class FileManager {
             fileName = new JLabel();
             fileDetailsValues.add(fileName);
             fileDetailsLabels.add(new JLabel("Path/name", JLabel.TRAILING));
-            path = new JTextField(5);
-            path.setEditable(false);
+            path =
+                    new PathField(
+                            5,
+                            new PathField.Source() {
+                                public FileRows cached(File dir) {
+                                    return directoryCache.peek(dir);
+                                }
+
+                                public void load(final File dir, final Runnable whenLoaded) {
+                                    loadIntoCache(dir, whenLoaded);
+                                }
+                            },
+                            new PathField.Listener() {
+                                public void pathEntered(String text) {
+                                    openPath(text);
+                                }
+                            });
             fileDetailsValues.add(path);
             fileDetailsLabels.add(new JLabel("Last Modified", JLabel.TRAILING));
             date = new JLabel();
@@ -374,6 +553,16 @@ public class FileManager {
                     });
             toolBar.add(openFile);
 
+            viewFile = new JButton("View");
+            viewFile.setMnemonic('i');
+            viewFile.addActionListener(
+                    new ActionListener() {
+                        public void actionPerformed(ActionEvent ae) {
+                            viewFile();
+                        }
+                    });
+            toolBar.add(viewFile);
+
             editFile = new JButton("Edit");
             editFile.setMnemonic('e');
             editFile.addActionListener(
@@ -499,6 +688,16 @@ public class FileManager {
                     });
             toolBar.add(executable);
 
+            JButton permissions = new JButton("Permissions...");
+            permissions.setMnemonic('m');
+            permissions.addActionListener(
+                    new ActionListener() {
+                        public void actionPerformed(ActionEvent ae) {
+                            editPermissions();
+                        }
+                    });
+            toolBar.add(permissions);
+
             JPanel fileView = new JPanel(new BorderLayout(3, 3));
 
             fileView.add(toolBar, BorderLayout.NORTH);
@@ -519,7 +718,14 @@ public class FileManager {
             statusPanel.add(progressBar, BorderLayout.EAST);
             progressBar.setVisible(false);
 
-            gui.add(statusPanel, BorderLayout.SOUTH);
+            // Background jobs, shown once the first one is submitted
+            jobsPanel = new JobsPanel(jobQueue);
+            jobsPanel.setVisible(false);
+            JPanel southPanel = new JPanel(new BorderLayout(3, 3));
+            southPanel.add(jobsPanel, BorderLayout.CENTER);
+            southPanel.add(statusPanel, BorderLayout.SOUTH);
+
+            gui.add(southPanel, BorderLayout.SOUTH);
 
             // Keyboard shortcuts
             installKeyboardShortcuts();
@@ -554,6 +760,16 @@ public class FileManager {
                     }
                 });
 
+        im.put(KeyStroke.getKeyStroke(KeyEvent.VK_F3, 0), "view");
+        am.put(
+                "view",
+                new AbstractAction() {
+                    @Override
+                    public void actionPerformed(ActionEvent e) {
+                        viewFile();
+                    }
+                });
+
         im.put(KeyStroke.getKeyStroke(KeyEvent.VK_F5, 0), "refresh");
         am.put(
                 "refresh",
@@ -597,6 +813,7 @@ public class FileManager {
     }
 
     public JMenuBar createMenuBar() {
+        int menuMask = Toolkit.getDefaultToolkit().getMenuShortcutKeyMask();
         JMenuBar menuBar = new JMenuBar();
         JMenu fileMenu = new JMenu("File");
         fileMenu.setMnemonic('F');
@@ -622,6 +839,26 @@ public class FileManager {
 
         fileMenu.addSeparator();
 
+        JMenuItem checksumItem = new JMenuItem("Create Checksums", 'C');
+        checksumItem.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent e) {
+                        createChecksums();
+                    }
+                });
+        fileMenu.add(checksumItem);
+
+        JMenuItem verifyItem = new JMenuItem("Verify Checksums", 'V');
+        verifyItem.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent e) {
+                        verifyChecksums();
+                    }
+                });
+        fileMenu.add(verifyItem);
+
+        fileMenu.addSeparator();
+
         JMenuItem exitItem = new JMenuItem("Exit", 'x');
         exitItem.addActionListener(
                 new ActionListener() {
@@ -652,6 +889,38 @@ public class FileManager {
                 });
         editMenu.add(pasteItem);
 
+        JMenuItem copyToPaneItem = new JMenuItem("Copy to Other Pane", 'O');
+        copyToPaneItem.setAccelerator(
+                KeyStroke.getKeyStroke(KeyEvent.VK_F5, KeyEvent.SHIFT_DOWN_MASK));
+        copyToPaneItem.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent e) {
+                        transferToOtherPane(false);
+                    }
+                });
+        editMenu.add(copyToPaneItem);
+
+        JMenuItem moveToPaneItem = new JMenuItem("Move to Other Pane", 'M');
+        moveToPaneItem.setAccelerator(
+                KeyStroke.getKeyStroke(KeyEvent.VK_F6, KeyEvent.SHIFT_DOWN_MASK));
+        moveToPaneItem.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent e) {
+                        transferToOtherPane(true);
+                    }
+                });
+        editMenu.add(moveToPaneItem);
+
+        final JCheckBoxMenuItem verifyCopiesItem = new JCheckBoxMenuItem("Verify After Copy");
+        verifyCopiesItem.setMnemonic('A');
+        verifyCopiesItem.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent e) {
+                        verifyCopies = verifyCopiesItem.isSelected();
+                    }
+                });
+        editMenu.add(verifyCopiesItem);
+
         editMenu.addSeparator();
 
         JMenuItem renameItem = new JMenuItem("Rename...", 'R');
@@ -664,6 +933,17 @@ public class FileManager {
                 });
         editMenu.add(renameItem);
 
+        JMenuItem bulkRenameItem = new JMenuItem("Bulk Rename...", 'B');
+        bulkRenameItem.setAccelerator(
+                KeyStroke.getKeyStroke(KeyEvent.VK_F2, KeyEvent.SHIFT_DOWN_MASK));
+        bulkRenameItem.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent e) {
+                        bulkRename(getSelectedFiles());
+                    }
+                });
+        editMenu.add(bulkRenameItem);
+
         JMenuItem deleteItem = new JMenuItem("Delete", 'D');
         deleteItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_DELETE, 0));
         deleteItem.addActionListener(
@@ -674,6 +954,84 @@ public class FileManager {
                 });
         editMenu.add(deleteItem);
 
+        JMenu viewMenu = new JMenu("View");
+        viewMenu.setMnemonic('V');
+
+        final JCheckBoxMenuItem thumbnailsItem = new JCheckBoxMenuItem("Thumbnails");
+        thumbnailsItem.setMnemonic('T');
+        thumbnailsItem.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent e) {
+                        setThumbnailMode(thumbnailsItem.isSelected());
+                    }
+                });
+        viewMenu.add(thumbnailsItem);
+
+        flattenItem = new JCheckBoxMenuItem("Flatten Folder");
+        flattenItem.setMnemonic('l');
+        flattenItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_L, menuMask));
+        flattenItem.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent e) {
+                        if (flattenItem.isSelected()) {
+                            flattenSubtree();
+                        } else if (listedNode != null) {
+                            showChildren(listedNode);
+                        }
+                    }
+                });
+        viewMenu.add(flattenItem);
+
+        final JCheckBoxMenuItem dualPaneItem = new JCheckBoxMenuItem("Dual Pane");
+        dualPaneItem.setMnemonic('P');
+        dualPaneItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_F9, 0));
+        dualPaneItem.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent e) {
+                        setDualPane(dualPaneItem.isSelected());
+                    }
+                });
+        viewMenu.add(dualPaneItem);
+
+        JMenuItem viewFileItem = new JMenuItem("View File", 'V');
+        viewFileItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_F3, 0));
+        viewFileItem.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent e) {
+                        viewFile();
+                    }
+                });
+        viewMenu.add(viewFileItem);
+
+        JMenuItem jobsItem = new JMenuItem("Jobs", 'J');
+        jobsItem.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent e) {
+                        jobsPanel.setVisible(!jobsPanel.isVisible());
+                        gui.revalidate();
+                    }
+                });
+        viewMenu.add(jobsItem);
+
+        JMenuItem diskUsageItem = new JMenuItem("Disk Usage", 'U');
+        diskUsageItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_U, menuMask));
+        diskUsageItem.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent e) {
+                        showDiskUsage();
+                    }
+                });
+        viewMenu.add(diskUsageItem);
+
+        JMenuItem diagnosticsItem = new JMenuItem("Diagnostics", 'D');
+        diagnosticsItem.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent e) {
+                        showDiagnostics();
+                    }
+                });
+        viewMenu.add(diagnosticsItem);
+
         JMenu helpMenu = new JMenu("Help");
         helpMenu.setMnemonic('H');
         JMenuItem aboutItem = new JMenuItem("About", 'A');
@@ -684,7 +1042,8 @@ public class FileManager {
                                 gui,
                                 APP_TITLE
                                         + "\n\nA simple file manager written in Java Swing.\n"
-                                        + "Shortcuts: F2=Rename, Delete=Delete, F5=Refresh\n"
+                                        + "Shortcuts: F2=Rename, F3=View, Delete=Delete,"
+                                        + " F5=Refresh\n"
                                         + "Ctrl+C=Copy, Ctrl+V=Paste, Ctrl+N=New",
                                 "About " + APP_TITLE,
                                 JOptionPane.INFORMATION_MESSAGE);
@@ -692,38 +1051,335 @@ public class FileManager {
                 });
         helpMenu.add(aboutItem);
 
+        JMenu goMenu = new JMenu("Go");
+        goMenu.setMnemonic('G');
+
+        backItem = new JMenuItem("Back", 'B');
+        backItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_LEFT, KeyEvent.ALT_DOWN_MASK));
+        backItem.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent e) {
+                        goBack();
+                    }
+                });
+        goMenu.add(backItem);
+
+        forwardItem = new JMenuItem("Forward", 'F');
+        forwardItem.setAccelerator(
+                KeyStroke.getKeyStroke(KeyEvent.VK_RIGHT, KeyEvent.ALT_DOWN_MASK));
+        forwardItem.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent e) {
+                        goForward();
+                    }
+                });
+        goMenu.add(forwardItem);
+        updateHistoryActions();
+
         menuBar.add(fileMenu);
         menuBar.add(editMenu);
+        menuBar.add(viewMenu);
+        menuBar.add(goMenu);
         menuBar.add(helpMenu);
         return menuBar;
     }
 
+    /** Switches column 0 between system icons and decoded previews. */
+    private void setThumbnailMode(boolean enabled) {
+        thumbnailMode = enabled;
+        if (enabled && thumbnailCache == null) {
+            thumbnailCache = new ThumbnailCache();
+            thumbnailCache.setListener(
+                    new ThumbnailCache.Listener() {
+                        public void thumbnailReady(File file, int rowHint) {
+                            if (fileTableModel != null) {
+                                fileTableModel.fireFileUpdated(file, rowHint);
+                            }
+                        }
+                    });
+        }
+        if (fileTableModel != null) {
+            applyThumbnailMode();
+        }
+    }
+
+    private void applyThumbnailMode() {
+        fileTableModel.setThumbnails(thumbnailMode ? thumbnailCache : null);
+        if (thumbnailMode) {
+            table.setRowHeight(ThumbnailCache.THUMBNAIL_SIZE + rowIconPadding);
+            setColumnWidth(0, ThumbnailCache.THUMBNAIL_SIZE + rowIconPadding);
+        } else if (cellSizesSet) {
+            if (iconRowHeight > 0) {
+                table.setRowHeight(iconRowHeight);
+            }
+            setColumnWidth(0, -1);
+        }
+    }
+
     private void applyFilter() {
         if (tableSorter == null || filterField == null) {
             return;
         }
-        String text = filterField.getText();
-        if (text == null || text.trim().length() == 0) {
+        long start = Metrics.start();
+        FileQuery query;
+        try {
+            query = FileQuery.parse(filterField.getText());
+            filterField.setForeground(UIManager.getColor("TextField.foreground"));
+            filterField.setToolTipText(FILTER_HELP);
+        } catch (ParseException ex) {
+            filterField.setForeground(Color.RED);
+            filterField.setToolTipText(ex.getMessage() + " at " + (ex.getErrorOffset() + 1));
+            query = null;
+        }
+        if (query == null || query.isEmpty()) {
             tableSorter.setRowFilter(null);
         } else {
-            try {
-                tableSorter.setRowFilter(
-                        RowFilter.regexFilter("(?i)" + java.util.regex.Pattern.quote(text), 1));
-            } catch (Exception ex) {
-                tableSorter.setRowFilter(null);
+            // tests the model's columns directly instead of going through getValueAt
+            final FileQuery compiled = query;
+            final FileTableModel model = fileTableModel;
+            tableSorter.setRowFilter(
+                    new RowFilter<FileTableModel, Integer>() {
+                        @Override
+                        public boolean include(
+                                Entry<? extends FileTableModel, ? extends Integer> entry) {
+                            return compiled.matches(model.getRows(), entry.getIdentifier());
+                        }
+                    });
+        }
+        Metrics.stop(Metrics.FILTER, start);
+    }
+
+    /** Shows the matches of the filter below the listed directory as they are found. */
+    private void searchSubtree() {
+        FileQuery query;
+        try {
+            query = FileQuery.parse(filterField.getText());
+        } catch (ParseException ex) {
+            setStatus(ex.getMessage());
+            return;
+        }
+        if (flattenItem != null) {
+            flattenItem.setSelected(false);
+        }
+        walkSubtree(query);
+    }
+
+    /**
+     * Shows every file and folder below the listed directory, with paths relative to it. The
+     * filter and the sort order apply to the rows as they arrive.
+     */
+    private void flattenSubtree() {
+        if (searchSubfolders != null) {
+            searchSubfolders.setSelected(false);
+        }
+        walkSubtree(FileQuery.all());
+    }
+
+    /**
+     * Streams the rows below the listed directory that match {@code query} into the table. The
+     * walk lists several directories at once and pauses while {@link #MAX_PENDING_ROWS} rows wait
+     * for the EDT, so a huge tree neither floods the event queue nor holds its rows twice. Each
+     * directory is listed through the {@link IoGateway}; one on a mount that does not answer is
+     * skipped and counted in the status, and the walk goes on.
+     */
+    private void walkSubtree(FileQuery query) {
+        final File dir = listedNode == null ? null : TreeNodes.fileOf(listedNode);
+        if (dir == null || fileTableModel == null) {
+            return;
+        }
+        cancelSearch();
+        final AtomicInteger skipped = new AtomicInteger();
+        final QuerySearch search = new QuerySearch(query, walkLister(skipped));
+        activeSearch = search;
+        final int generation = ++listingGeneration;
+        final Semaphore pendingRows = new Semaphore(MAX_PENDING_ROWS);
+        tableDirectory = null;
+        fileTableModel.setRows(new FileRows(), dir);
+        listingsInFlight++;
+        progressBar.setVisible(true);
+        progressBar.setIndeterminate(true);
+        setStatus("Searching " + dir.getPath());
+        final long start = Metrics.start();
+
+        SwingWorker<Void, FileRows> worker =
+                new SwingWorker<Void, FileRows>() {
+                    @Override
+                    public Void doInBackground() throws InterruptedException {
+                        search.run(
+                                dir,
+                                new QuerySearch.Results() {
+                                    public void found(FileRows matches) {
+                                        int permits = Math.min(matches.size(), MAX_PENDING_ROWS);
+                                        try {
+                                            while (!pendingRows.tryAcquire(
+                                                    permits, 100, TimeUnit.MILLISECONDS)) {
+                                                if (search.isCancelled()) {
+                                                    return;
+                                                }
+                                            }
+                                        } catch (InterruptedException ex) {
+                                            search.cancel();
+                                            return;
+                                        }
+                                        publish(matches);
+                                    }
+                                },
+                                WALK_THREADS);
+                        return null;
+                    }
+
+                    @Override
+                    protected void process(List<FileRows> chunks) {
+                        for (FileRows matches : chunks) {
+                            pendingRows.release(Math.min(matches.size(), MAX_PENDING_ROWS));
+                        }
+                        if (generation != listingGeneration) {
+                            return;
+                        }
+                        fileTableModel.addRows(chunks);
+                        if (fileTableModel.getRowCount() >= MAX_WALKED_ROWS) {
+                            search.cancel();
+                        }
+                        setStatus(
+                                "Searching " + dir.getPath() + ": "
+                                        + fileTableModel.getRowCount() + " found"
+                                        + skippedNote(skipped.get()));
+                    }
+
+                    @Override
+                    protected void done() {
+                        if (--listingsInFlight == 0) {
+                            progressBar.setIndeterminate(false);
+                            progressBar.setVisible(false);
+                        }
+                        if (activeSearch == search) {
+                            activeSearch = null;
+                        }
+                        if (generation == listingGeneration) {
+                            setStatus(
+                                    String.format(
+                                            "%d found in %d folders below %s in %.1f s%s%s",
+                                            fileTableModel.getRowCount(),
+                                            search.getDirectoriesSearched(),
+                                            dir.getPath(),
+                                            (System.nanoTime() - start) / 1e9,
+                                            skippedNote(skipped.get()),
+                                            search.isCancelled() ? " (stopped)" : ""));
+                        }
+                    }
+                };
+        IoExecutor.get().execute(worker);
+    }
+
+    /**
+     * The {@link #directoryLister} behind the mount timeouts, for walks that list many
+     * directories on their own threads. A directory that cannot be listed in time is counted in
+     * {@code skipped} and treated as empty, so a hung share costs the walk one timeout per
+     * directory until its circuit opens, instead of all its threads.
+     */
+    private DirectoryCache.Lister walkLister(final AtomicInteger skipped) {
+        return new DirectoryCache.Lister() {
+            public FileRows list(final File dir) {
+                try {
+                    return ioGateway.call(
+                            dir,
+                            new Callable<FileRows>() {
+                                public FileRows call() {
+                                    return listRows(dir);
+                                }
+                            });
+                } catch (IoGateway.UnavailableException ex) {
+                    skipped.incrementAndGet();
+                    return null;
+                } catch (IOException ex) {
+                    // interrupted: the gateway has set the flag again, which ends the walk
+                    return null;
+                }
             }
+        };
+    }
+
+    private static String skippedNote(int skipped) {
+        return skipped == 0 ? "" : ", " + skipped + " folders not responding skipped";
+    }
+
+    private void cancelSearch() {
+        if (activeSearch != null) {
+            activeSearch.cancel();
+            activeSearch = null;
+        }
+    }
+
+    /** Pops up the saved queries, with items to save and delete them. */
+    private void showSavedQueries(JComponent invoker) {
+        JPopupMenu menu = new JPopupMenu();
+        List<String> names = savedQueries.getNames();
+        for (final String name : names) {
+            JMenuItem item = new JMenuItem(name);
+            item.setToolTipText(savedQueries.get(name));
+            item.addActionListener(
+                    new ActionListener() {
+                        public void actionPerformed(ActionEvent ae) {
+                            String query = savedQueries.get(name);
+                            if (query != null) {
+                                filterField.setText(query);
+                                if (searchSubfolders.isSelected()) {
+                                    searchSubtree();
+                                }
+                            }
+                        }
+                    });
+            menu.add(item);
+        }
+        if (!names.isEmpty()) {
+            menu.addSeparator();
+        }
+        JMenuItem save = new JMenuItem("Save Query...");
+        save.setEnabled(filterField.getText().trim().length() > 0);
+        save.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        String name =
+                                JOptionPane.showInputDialog(
+                                        gui, "Name for \"" + filterField.getText() + "\":");
+                        if (name == null) {
+                            return;
+                        }
+                        try {
+                            savedQueries.put(name.trim(), filterField.getText());
+                        } catch (ParseException ex) {
+                            showErrorMessage(ex.getMessage(), "Invalid Query");
+                        } catch (IllegalArgumentException ex) {
+                            showErrorMessage(ex.getMessage(), "Cannot Save Query");
+                        }
+                    }
+                });
+        menu.add(save);
+        JMenu delete = new JMenu("Delete");
+        delete.setEnabled(!names.isEmpty());
+        for (final String name : names) {
+            JMenuItem item = new JMenuItem(name);
+            item.addActionListener(
+                    new ActionListener() {
+                        public void actionPerformed(ActionEvent ae) {
+                            savedQueries.remove(name);
+                        }
+                    });
+            delete.add(item);
         }
+        menu.add(delete);
+        menu.show(invoker, 0, invoker.getHeight());
     }
 
     private void updateButtonsState() {
-        boolean hasFile = currentFile != null;
-        boolean fileExists = hasFile && currentFile.exists();
+        boolean fileExists = currentInfo != null && currentInfo.exists();
         if (editFile != null)
             editFile.setEnabled(fileExists && desktop.isSupported(Desktop.Action.EDIT));
         if (openFile != null)
             openFile.setEnabled(fileExists && desktop.isSupported(Desktop.Action.OPEN));
         if (printFile != null)
             printFile.setEnabled(fileExists && desktop.isSupported(Desktop.Action.PRINT));
+        if (viewFile != null) viewFile.setEnabled(fileExists && currentInfo.isFile());
         if (deleteFile != null) deleteFile.setEnabled(fileExists);
         if (renameFile != null) renameFile.setEnabled(fileExists);
         if (copyFile != null) copyFile.setEnabled(fileExists);
@@ -764,22 +1420,7 @@ public class FileManager {
                 return;
             }
         }
-        try {
-            if (clipboardFile.isDirectory()) {
-                FileUtils.copyDirectory(clipboardFile, dest);
-            } else {
-                FileUtils.copyFile(clipboardFile, dest);
-            }
-            setStatus("Pasted: " + dest.getName());
-            TreePath parentPath = findTreePath(targetDir);
-            if (parentPath != null) {
-                DefaultMutableTreeNode parentNode =
-                        (DefaultMutableTreeNode) parentPath.getLastPathComponent();
-                showChildren(parentNode);
-            }
-        } catch (Throwable t) {
-            showThrowable(t);
-        }
+        submitCopy(clipboardFile, dest, "Pasted: " + dest.getName());
     }
 
     private void copyFileAction() {
@@ -809,42 +1450,377 @@ public class FileManager {
                     return;
                 }
             }
-            try {
-                if (currentFile.isDirectory()) {
-                    FileUtils.copyDirectory(currentFile, dest);
-                } else {
-                    FileUtils.copyFile(currentFile, dest);
-                }
-                setStatus("Copied to: " + dest.getAbsolutePath());
-                TreePath parentPath = findTreePath(destDir);
-                if (parentPath != null) {
-                    DefaultMutableTreeNode parentNode =
-                            (DefaultMutableTreeNode) parentPath.getLastPathComponent();
-                    showChildren(parentNode);
-                }
-            } catch (Throwable t) {
-                showThrowable(t);
-            }
+            submitCopy(currentFile, dest, "Copied to: " + dest.getAbsolutePath());
         }
     }
 
-    private void applyPermissions() {
-        if (currentFile == null || !currentFile.exists()) {
-            return;
-        }
-        try {
-            currentFile.setReadable(readable.isSelected());
-            currentFile.setWritable(writable.isSelected());
-            currentFile.setExecutable(executable.isSelected());
-            setStatus("Updated permissions for: " + currentFile.getName());
-        } catch (Throwable t) {
-            showThrowable(t);
-        }
+    /** Copies in the background and refreshes the target directory when done. */
+    private void submitCopy(File source, final File dest, final String doneStatus) {
+        final CopyJob job = new CopyJob(source, dest);
+        job.setVerify(verifyCopies);
+        job.setWhenDone(
+                new Runnable() {
+                    public void run() {
+                        reportJob(job, doneStatus, "Copy Failed");
+                        showChildrenOf(dest.getParentFile());
+                    }
+                });
+        submitJob(job);
     }
 
-    private void refresh() {
-        if (currentFile == null) {
-            return;
+    private void submitJob(final FileJob job) {
+        // whatever the job touched may be cached with stale metadata
+        final Runnable whenDone = job.getWhenDone();
+        job.setWhenDone(
+                new Runnable() {
+                    public void run() {
+                        for (File file : job.getFiles()) {
+                            directoryCache.invalidateTree(file);
+                        }
+                        if (whenDone != null) {
+                            whenDone.run();
+                        }
+                    }
+                });
+        if (!jobsPanel.isVisible()) {
+            jobsPanel.setVisible(true);
+            gui.revalidate();
+        }
+        jobQueue.submit(job);
+    }
+
+    /** Shows the outcome of a finished job in the status bar or an error dialog. */
+    private void reportJob(FileJob job, String doneStatus, String failureTitle) {
+        switch (job.getState()) {
+            case DONE:
+                String throughput = JobsPanel.formatThroughput(job);
+                setStatus(
+                        throughput.length() == 0
+                                ? doneStatus
+                                : doneStatus + " (" + throughput + ")");
+                break;
+            case CANCELLED:
+                setStatus("Cancelled: " + job.getName());
+                break;
+            default:
+                Throwable error = job.getError();
+                showErrorMessage(
+                        error == null || error.getMessage() == null
+                                ? String.valueOf(error)
+                                : error.getMessage(),
+                        failureTitle);
+        }
+    }
+
+    /**
+     * Writes a {@code .sha256} manifest for the current file or directory. For a single file the
+     * MD5, SHA-256 and CRC-32C are also shown.
+     */
+    private void createChecksums() {
+        if (currentFile == null) {
+            showErrorMessage("No file selected.", "Select File");
+            return;
+        }
+        final File file = currentFile;
+        final ChecksumJob job = new ChecksumJob(file, false);
+        job.setWhenDone(
+                new Runnable() {
+                    public void run() {
+                        reportJob(job, "Checksums: " + job.getMessage(), "Checksum Failed");
+                        if (job.getState() != FileJob.State.DONE) {
+                            return;
+                        }
+                        showChildrenOf(job.getManifest().getParentFile());
+                        Checksums.Result result = job.getResults().get(file);
+                        if (file.isFile() && result != null) {
+                            JOptionPane.showMessageDialog(
+                                    gui,
+                                    "MD5:      "
+                                            + result.getMd5()
+                                            + "\nSHA-256: "
+                                            + result.getSha256()
+                                            + "\nCRC-32C: "
+                                            + result.getCrc32c(),
+                                    "Checksums of " + file.getName(),
+                                    JOptionPane.INFORMATION_MESSAGE);
+                        }
+                    }
+                });
+        submitJob(job);
+    }
+
+    /** Re-hashes the files listed in the selected {@code .sha256} manifest. */
+    private void verifyChecksums() {
+        if (currentFile == null
+                || !currentFile.isFile()
+                || !currentFile.getName().endsWith(Checksums.MANIFEST_SUFFIX)) {
+            showErrorMessage(
+                    "Select a " + Checksums.MANIFEST_SUFFIX + " file to verify.", "Select File");
+            return;
+        }
+        final ChecksumJob job = new ChecksumJob(currentFile, true);
+        job.setWhenDone(
+                new Runnable() {
+                    public void run() {
+                        reportJob(job, "Verified: " + job.getMessage(), "Verify Failed");
+                        if (job.getState() == FileJob.State.DONE) {
+                            showFailures(job, job.getFailures(), "Checksums Differ");
+                        }
+                    }
+                });
+        submitJob(job);
+    }
+
+    /** Lists the first few {@code failures} of a job that finished anyway, if there are any. */
+    private void showFailures(FileJob job, List<String> failures, String title) {
+        if (failures.isEmpty()) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder(job.getMessage()).append(':');
+        for (int ii = 0; ii < failures.size() && ii < 20; ii++) {
+            sb.append('\n').append(failures.get(ii));
+        }
+        if (failures.size() > 20) {
+            sb.append("\n...");
+        }
+        showErrorMessage(sb.toString(), title);
+    }
+
+    /** Re-lists {@code dir} if it is shown in the tree. */
+    private void showChildrenOf(File dir) {
+        TreePath parentPath = findTreePath(dir);
+        if (parentPath != null) {
+            showChildren((DefaultMutableTreeNode) parentPath.getLastPathComponent());
+        }
+    }
+
+    /**
+     * Shows a second, independent listing next to the table. It starts in the listed directory
+     * and keeps its own folder when it is hidden and shown again.
+     */
+    private void setDualPane(boolean dual) {
+        if (dual == (paneSplit != null)) {
+            return;
+        }
+        if (dual) {
+            if (secondPane == null) {
+                secondPane = new FilePane(directoryCache, directoryLister, ioGateway);
+                secondPane.setListener(
+                        new FilePane.Listener() {
+                            public void fileOpened(File file) {
+                                if (desktop.isSupported(Desktop.Action.OPEN)) {
+                                    try {
+                                        desktop.open(file);
+                                    } catch (Throwable t) {
+                                        showThrowable(t);
+                                    }
+                                }
+                            }
+                        });
+            }
+            detailView.remove(tablePanel);
+            paneSplit = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, tablePanel, secondPane);
+            paneSplit.setResizeWeight(0.5);
+            detailView.add(paneSplit, BorderLayout.CENTER);
+            File dir = listedNode == null ? null : TreeNodes.fileOf(listedNode);
+            if (secondPane.getDirectory() == null && dir != null) {
+                secondPane.show(dir);
+            }
+        } else {
+            detailView.remove(paneSplit);
+            paneSplit = null;
+            detailView.add(tablePanel, BorderLayout.CENTER);
+        }
+        detailView.revalidate();
+        detailView.repaint();
+    }
+
+    /**
+     * Copies or moves the selection of the focused pane into the folder of the other one, as
+     * background jobs. Only the panes showing an affected folder are listed again.
+     */
+    private void transferToOtherPane(boolean move) {
+        String title = move ? "Move" : "Copy";
+        if (paneSplit == null) {
+            showErrorMessage("Show the second pane first (View > Dual Pane).", title);
+            return;
+        }
+        Component focused = KeyboardFocusManager.getCurrentKeyboardFocusManager().getFocusOwner();
+        boolean fromSecond =
+                focused != null && SwingUtilities.isDescendingFrom(focused, secondPane);
+        List<File> sources = fromSecond ? secondPane.getSelectedFiles() : getSelectedFiles();
+        File targetDir =
+                fromSecond
+                        ? (listedNode == null ? null : TreeNodes.fileOf(listedNode))
+                        : secondPane.getDirectory();
+        if (sources.isEmpty()) {
+            showErrorMessage("No file selected.", title);
+            return;
+        }
+        if (targetDir == null) {
+            showErrorMessage("The other pane shows no folder.", title);
+            return;
+        }
+        for (File source : sources) {
+            if (source == null) {
+                continue;
+            }
+            File dest = new File(targetDir, source.getName());
+            if (dest.equals(source)) {
+                showErrorMessage("Both panes show " + targetDir.getPath() + ".", title);
+                return;
+            }
+            if (dest.exists()) {
+                int res =
+                        JOptionPane.showConfirmDialog(
+                                gui,
+                                "File '" + dest.getName() + "' already exists. Overwrite?",
+                                "Overwrite?",
+                                JOptionPane.YES_NO_OPTION);
+                if (res != JOptionPane.YES_OPTION) {
+                    continue;
+                }
+            }
+            submitTransfer(source, dest, move);
+        }
+    }
+
+    private void submitTransfer(final File source, final File dest, final boolean move) {
+        final CopyJob job = move ? new MoveJob(source, dest) : new CopyJob(source, dest);
+        job.setVerify(verifyCopies);
+        job.setWhenDone(
+                new Runnable() {
+                    public void run() {
+                        reportJob(
+                                job,
+                                (move ? "Moved to: " : "Copied to: ") + dest.getPath(),
+                                move ? "Move Failed" : "Copy Failed");
+                        refreshPanesShowing(dest.getParentFile());
+                        if (move) {
+                            refreshPanesShowing(source.getParentFile());
+                        }
+                    }
+                });
+        submitJob(job);
+    }
+
+    /** Lists {@code dir} again in whichever pane shows it, leaving the other one alone. */
+    private void refreshPanesShowing(File dir) {
+        if (dir == null) {
+            return;
+        }
+        if (secondPane != null && dir.equals(secondPane.getDirectory())) {
+            secondPane.refresh();
+        }
+        if (listedNode != null && dir.equals(TreeNodes.fileOf(listedNode))) {
+            showChildren(listedNode);
+        }
+    }
+
+    /** Shows the current file in the built-in text/hex viewer. */
+    private void viewFile() {
+        if (currentFile == null || !currentFile.isFile()) {
+            showErrorMessage("No file selected.", "Select File");
+            return;
+        }
+        final FileViewer viewer = new FileViewer();
+        try {
+            viewer.open(currentFile);
+        } catch (Throwable t) {
+            showThrowable(t);
+            return;
+        }
+        JFrame frame = new JFrame(APP_TITLE + " :: " + currentFile.getName());
+        frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        frame.addWindowListener(
+                new WindowAdapter() {
+                    @Override
+                    public void windowClosed(WindowEvent e) {
+                        viewer.close();
+                    }
+                });
+        frame.setContentPane(viewer);
+        frame.pack();
+        frame.setLocationRelativeTo(gui);
+        frame.setVisible(true);
+    }
+
+    private void showDiskUsage() {
+        if (currentFile == null) {
+            showErrorMessage("No directory selected.", "Select Directory");
+            return;
+        }
+        File dir = currentFile.isDirectory() ? currentFile : currentFile.getParentFile();
+        JFrame frame = new JFrame(APP_TITLE + " :: Disk Usage :: " + dir.getPath());
+        frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        frame.setContentPane(new DiskUsagePanel(diskUsageScanner, dir));
+        frame.pack();
+        frame.setLocationRelativeTo(gui);
+        frame.setVisible(true);
+    }
+
+    private void showDiagnostics() {
+        JFrame frame = new JFrame(APP_TITLE + " :: Diagnostics");
+        frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        frame.setContentPane(new DiagnosticsPanel());
+        frame.pack();
+        frame.setLocationRelativeTo(gui);
+        frame.setVisible(true);
+    }
+
+    private void applyPermissions() {
+        if (currentFile == null || !currentFile.exists()) {
+            return;
+        }
+        try {
+            currentFile.setReadable(readable.isSelected());
+            currentFile.setWritable(writable.isSelected());
+            currentFile.setExecutable(executable.isSelected());
+            directoryCache.invalidate(currentFile.getParentFile());
+            setStatus("Updated permissions for: " + currentFile.getName());
+        } catch (Throwable t) {
+            showThrowable(t);
+        }
+    }
+
+    /** Sets permission bits, owner and group on the current file or its whole subtree. */
+    private void editPermissions() {
+        if (currentFile == null || !currentFile.exists()) {
+            showErrorMessage("No file selected.", "Select File");
+            return;
+        }
+        final File file = currentFile;
+        PermissionsPanel panel = new PermissionsPanel(file);
+        int result =
+                JOptionPane.showConfirmDialog(
+                        gui,
+                        panel,
+                        "Permissions of " + file.getName(),
+                        JOptionPane.OK_CANCEL_OPTION,
+                        JOptionPane.PLAIN_MESSAGE);
+        if (result != JOptionPane.OK_OPTION) {
+            return;
+        }
+        final PermissionsJob job = panel.createJob(file);
+        job.setWhenDone(
+                new Runnable() {
+                    public void run() {
+                        reportJob(job, "Permissions: " + job.getMessage(), "Permissions Failed");
+                        if (job.getState() == FileJob.State.DONE) {
+                            showFailures(
+                                    job, job.getFailures(), "Some Permissions Not Changed");
+                        }
+                        if (file.equals(currentFile)) {
+                            setFileDetails(file);
+                        }
+                    }
+                });
+        submitJob(job);
+    }
+
+    private void refresh() {
+        if (currentFile == null) {
+            return;
         }
         File dir = currentFile.isDirectory() ? currentFile : currentFile.getParentFile();
         if (dir == null) {
@@ -853,14 +1829,22 @@ public class FileManager {
         TreePath treePath = findTreePath(dir);
         if (treePath != null) {
             DefaultMutableTreeNode node = (DefaultMutableTreeNode) treePath.getLastPathComponent();
+            directoryCache.invalidate(dir);
             showChildren(node);
             setStatus("Refreshed: " + dir.getAbsolutePath());
         }
     }
 
     private void navigateTo(File dir) {
-        TreePath path = findTreePath(dir);
-        if (path != null) {
+        DefaultMutableTreeNode node =
+                TreeNodes.ensurePath(
+                        treeModel, (DefaultMutableTreeNode) treeModel.getRoot(), dir, partialNodes);
+        TreePath path = node != null ? new TreePath(node.getPath()) : findTreePath(dir);
+        if (path != null && path.equals(tree.getSelectionPath())) {
+            // selecting it again would not list it
+            showChildren((DefaultMutableTreeNode) path.getLastPathComponent());
+            tree.scrollPathToVisible(path);
+        } else if (path != null) {
             tree.setSelectionPath(path);
             tree.scrollPathToVisible(path);
         } else {
@@ -870,28 +1854,192 @@ public class FileManager {
         }
     }
 
+    /**
+     * Goes to a typed path: a directory is listed, a file is shown in its directory. Relative
+     * paths are resolved against the listed directory.
+     */
+    private void openPath(final String text) {
+        if (text.trim().length() == 0) {
+            return;
+        }
+        File typed = new File(text.trim());
+        File base = listedNode == null ? null : TreeNodes.fileOf(listedNode);
+        final File target =
+                typed.isAbsolute() || base == null ? typed.getAbsoluteFile() : new File(base, text);
+        SwingWorker<File, Void> worker =
+                new SwingWorker<File, Void>() {
+                    private boolean directory;
+
+                    @Override
+                    public File doInBackground() throws IOException {
+                        return ioGateway.call(
+                                target,
+                                new Callable<File>() {
+                                    public File call() throws IOException {
+                                        File file = target.getCanonicalFile();
+                                        directory = file.isDirectory();
+                                        return file.exists() ? file : null;
+                                    }
+                                });
+                    }
+
+                    @Override
+                    protected void done() {
+                        File file;
+                        try {
+                            file = get();
+                        } catch (Exception ex) {
+                            Throwable cause = ex.getCause() == null ? ex : ex.getCause();
+                            setStatus(cause.getMessage());
+                            return;
+                        }
+                        if (file == null) {
+                            Toolkit.getDefaultToolkit().beep();
+                            setStatus("Not found: " + target.getPath());
+                            return;
+                        }
+                        navigateTo(directory ? file : file.getParentFile());
+                        if (!directory) {
+                            setFileDetails(file);
+                        }
+                    }
+                };
+        IoExecutor.get().execute(worker);
+    }
+
+    /** Lists {@code dir} into the directory cache for path completion. */
+    private void loadIntoCache(final File dir, final Runnable whenLoaded) {
+        SwingWorker<Void, Void> worker =
+                new SwingWorker<Void, Void>() {
+                    @Override
+                    public Void doInBackground() throws IOException {
+                        if (ioGateway.isAvailable(dir)) {
+                            ioGateway.call(
+                                    dir,
+                                    new Callable<FileRows>() {
+                                        public FileRows call() {
+                                            return directoryCache.list(dir, directoryLister);
+                                        }
+                                    });
+                        }
+                        return null;
+                    }
+
+                    @Override
+                    protected void done() {
+                        whenLoaded.run();
+                    }
+                };
+        IoExecutor.get().execute(worker);
+    }
+
+    private void goBack() {
+        File dir = history.back();
+        if (dir != null) {
+            navigateHistory(dir);
+        }
+    }
+
+    private void goForward() {
+        File dir = history.forward();
+        if (dir != null) {
+            navigateHistory(dir);
+        }
+    }
+
+    private void navigateHistory(File dir) {
+        navigatingHistory = true;
+        try {
+            navigateTo(dir);
+        } finally {
+            navigatingHistory = false;
+        }
+        updateHistoryActions();
+    }
+
+    private void updateHistoryActions() {
+        if (backItem != null) {
+            backItem.setEnabled(history.canGoBack());
+            forwardItem.setEnabled(history.canGoForward());
+        }
+    }
+
+    /**
+     * Prefetches, when the user is idle, the directories the user is likely to open next: the
+     * selected one, the other subdirectories from the selection on, and the listed directory's
+     * siblings.
+     */
+    private void schedulePrefetch() {
+        if (prefetcher == null || fileTableModel == null) {
+            return;
+        }
+        List<File> candidates = new ArrayList<File>();
+        int rows = table.getRowCount();
+        int start = Math.max(0, table.getSelectionModel().getLeadSelectionIndex());
+        for (int ii = 0; ii < rows && candidates.size() < MAX_PREFETCH_CHILDREN; ii++) {
+            int modelRow = table.convertRowIndexToModel((start + ii) % rows);
+            if (fileTableModel.isDirectory(modelRow)) {
+                candidates.add(fileTableModel.getFile(modelRow));
+            }
+        }
+        DefaultMutableTreeNode parent =
+                listedNode == null ? null : (DefaultMutableTreeNode) listedNode.getParent();
+        if (parent != null && parent.getIndex(listedNode) >= 0) {
+            int index = parent.getIndex(listedNode);
+            // nearest siblings first, alternating below and above
+            for (int distance = 1;
+                    distance < parent.getChildCount()
+                            && candidates.size() < MAX_PREFETCH_CHILDREN + MAX_PREFETCH_SIBLINGS;
+                    distance++) {
+                addSibling(candidates, parent, index + distance);
+                addSibling(candidates, parent, index - distance);
+            }
+        }
+        prefetcher.schedule(candidates);
+    }
+
+    private static void addSibling(
+            List<File> candidates, DefaultMutableTreeNode parent, int index) {
+        if (index >= 0 && index < parent.getChildCount()) {
+            Object userObj = ((DefaultMutableTreeNode) parent.getChildAt(index)).getUserObject();
+            if (userObj instanceof File) {
+                candidates.add((File) userObj);
+            }
+        }
+    }
+
     public void showRootFile() {
         tree.setSelectionInterval(0, 0);
     }
 
     private TreePath findTreePath(File find) {
         if (find == null) return null;
-        for (int ii = 0; ii < tree.getRowCount(); ii++) {
-            TreePath treePath = tree.getPathForRow(ii);
-            Object object = treePath.getLastPathComponent();
-            DefaultMutableTreeNode node = (DefaultMutableTreeNode) object;
-            Object userObj = node.getUserObject();
-            if (userObj instanceof File) {
-                File nodeFile = (File) userObj;
-                if (nodeFile.equals(find)) {
-                    return treePath;
+        long start = Metrics.start();
+        try {
+            for (int ii = 0; ii < tree.getRowCount(); ii++) {
+                TreePath treePath = tree.getPathForRow(ii);
+                Object object = treePath.getLastPathComponent();
+                DefaultMutableTreeNode node = (DefaultMutableTreeNode) object;
+                Object userObj = node.getUserObject();
+                if (userObj instanceof File) {
+                    File nodeFile = (File) userObj;
+                    if (nodeFile.equals(find)) {
+                        return treePath;
+                    }
                 }
             }
+            return null;
+        } finally {
+            Metrics.stop(Metrics.FIND_TREE_PATH, start);
         }
-        return null;
     }
 
     private void renameFile() {
+        List<File> selected = getSelectedFiles();
+        if (selected.size() > 1) {
+            bulkRename(selected);
+            return;
+        }
         if (currentFile == null) {
             showErrorMessage("No file selected to rename.", "Select File");
             return;
@@ -908,49 +2056,114 @@ public class FileManager {
                                 null,
                                 currentFile.getName());
         if (renameTo != null && renameTo.trim().length() > 0) {
-            try {
-                boolean directory = currentFile.isDirectory();
-                File parentFile = currentFile.getParentFile();
-                if (parentFile == null) {
-                    showErrorMessage("Cannot rename root file.", "Rename Failed");
-                    return;
-                }
-                TreePath parentPath = findTreePath(parentFile);
-                DefaultMutableTreeNode parentNode =
-                        parentPath != null
-                                ? (DefaultMutableTreeNode) parentPath.getLastPathComponent()
-                                : null;
-
-                File newFile = new File(parentFile, renameTo);
-                if (newFile.exists()) {
-                    showErrorMessage("A file with that name already exists.", "Rename Failed");
-                    return;
-                }
-                boolean renamed = currentFile.renameTo(newFile);
-                if (renamed) {
-                    if (directory) {
-                        TreePath currentPath = findTreePath(currentFile);
-                        if (currentPath != null) {
-                            DefaultMutableTreeNode currentNode =
-                                    (DefaultMutableTreeNode) currentPath.getLastPathComponent();
-                            treeModel.removeNodeFromParent(currentNode);
-                        }
-                    }
-                    if (parentNode != null) {
-                        showChildren(parentNode);
-                    }
-                    setStatus("Renamed to: " + newFile.getName());
-                } else {
-                    String msg = "The file '" + currentFile + "' could not be renamed.";
-                    showErrorMessage(msg, "Rename Failed");
-                }
-            } catch (Throwable t) {
-                showThrowable(t);
+            final File oldFile = currentFile;
+            final boolean directory = oldFile.isDirectory();
+            final File parentFile = oldFile.getParentFile();
+            if (parentFile == null) {
+                showErrorMessage("Cannot rename root file.", "Rename Failed");
+                return;
             }
+            final File newFile = new File(parentFile, renameTo);
+            if (newFile.exists()) {
+                showErrorMessage("A file with that name already exists.", "Rename Failed");
+                return;
+            }
+            final FileJob job =
+                    new FileJob("Rename " + oldFile.getName() + " to " + renameTo, oldFile) {
+                        @Override
+                        protected void execute() throws IOException {
+                            if (!oldFile.renameTo(newFile)) {
+                                throw new IOException(
+                                        "The file '" + oldFile + "' could not be renamed.");
+                            }
+                        }
+                    };
+            job.setWhenDone(
+                    new Runnable() {
+                        public void run() {
+                            if (job.getState() == FileJob.State.DONE && directory) {
+                                TreePath currentPath = findTreePath(oldFile);
+                                if (currentPath != null) {
+                                    treeModel.removeNodeFromParent(
+                                            (DefaultMutableTreeNode)
+                                                    currentPath.getLastPathComponent());
+                                }
+                            }
+                            showChildrenOf(parentFile);
+                            reportJob(job, "Renamed to: " + newFile.getName(), "Rename Failed");
+                        }
+                    });
+            submitJob(job);
         }
         gui.repaint();
     }
 
+    /** The files selected in the table, in view order. */
+    private List<File> getSelectedFiles() {
+        List<File> files = new ArrayList<File>();
+        FileTableModel model = (FileTableModel) table.getModel();
+        for (int viewRow : table.getSelectedRows()) {
+            files.add(model.getFile(table.convertRowIndexToModel(viewRow)));
+        }
+        return files;
+    }
+
+    /**
+     * Renames {@code files} by a pattern in one job. The affected directories are listed once
+     * when the job is done, however many files it renamed.
+     */
+    private void bulkRename(List<File> files) {
+        if (files.isEmpty()) {
+            showErrorMessage("No files selected to rename.", "Select Files");
+            return;
+        }
+        BulkRenamePanel panel = new BulkRenamePanel(files);
+        int result =
+                JOptionPane.showConfirmDialog(
+                        gui,
+                        panel,
+                        "Bulk Rename",
+                        JOptionPane.OK_CANCEL_OPTION,
+                        JOptionPane.PLAIN_MESSAGE);
+        if (result != JOptionPane.OK_OPTION) {
+            return;
+        }
+        BulkRename rename;
+        try {
+            rename = panel.getRename();
+        } catch (java.util.regex.PatternSyntaxException ex) {
+            showErrorMessage(ex.getMessage(), "Invalid Pattern");
+            return;
+        }
+        final BulkRenameJob job = new BulkRenameJob(rename, files);
+        job.setWhenDone(
+                new Runnable() {
+                    public void run() {
+                        BulkRename.Plan plan = job.getPlan();
+                        Set<File> parents = new LinkedHashSet<File>();
+                        if (plan != null) {
+                            for (BulkRename.Entry entry : plan.getRenames()) {
+                                parents.add(entry.getSource().getParentFile());
+                                if (job.getState() == FileJob.State.DONE
+                                        && entry.getTarget().isDirectory()) {
+                                    TreePath path = findTreePath(entry.getSource());
+                                    if (path != null) {
+                                        treeModel.removeNodeFromParent(
+                                                (DefaultMutableTreeNode)
+                                                        path.getLastPathComponent());
+                                    }
+                                }
+                            }
+                        }
+                        for (File parent : parents) {
+                            showChildrenOf(parent);
+                        }
+                        reportJob(job, "Renamed: " + job.getMessage(), "Rename Failed");
+                    }
+                });
+        submitJob(job);
+    }
+
     private void deleteFile() {
         if (currentFile == null) {
             showErrorMessage("No file selected for deletion.", "Select File");
@@ -972,38 +2185,31 @@ public class FileManager {
                         JOptionPane.YES_NO_OPTION,
                         JOptionPane.WARNING_MESSAGE);
         if (result == JOptionPane.YES_OPTION) {
-            try {
-                File parentFile = currentFile.getParentFile();
-                TreePath parentPath = findTreePath(parentFile);
-                DefaultMutableTreeNode parentNode =
-                        parentPath != null
-                                ? (DefaultMutableTreeNode) parentPath.getLastPathComponent()
-                                : null;
-
-                boolean directory = currentFile.isDirectory();
-                File toDelete = currentFile;
-                if (FileUtils.deleteQuietly(toDelete)) {
-                    if (directory) {
-                        TreePath currentPath = findTreePath(toDelete);
-                        if (currentPath != null) {
-                            DefaultMutableTreeNode currentNode =
-                                    (DefaultMutableTreeNode) currentPath.getLastPathComponent();
-                            treeModel.removeNodeFromParent(currentNode);
+            final File toDelete = currentFile;
+            final File parentFile = toDelete.getParentFile();
+            final boolean directory = toDelete.isDirectory();
+            final DeleteJob job = new DeleteJob(toDelete);
+            job.setWhenDone(
+                    new Runnable() {
+                        public void run() {
+                            if (job.getState() == FileJob.State.DONE) {
+                                if (directory) {
+                                    TreePath currentPath = findTreePath(toDelete);
+                                    if (currentPath != null) {
+                                        treeModel.removeNodeFromParent(
+                                                (DefaultMutableTreeNode)
+                                                        currentPath.getLastPathComponent());
+                                    }
+                                }
+                                if (toDelete.equals(currentFile)) {
+                                    setFileDetails((FileInfo) null);
+                                }
+                            }
+                            showChildrenOf(parentFile);
+                            reportJob(job, "Deleted: " + toDelete.getName(), "Delete Failed");
                         }
-                    }
-                    if (parentNode != null) {
-                        showChildren(parentNode);
-                    }
-                    setStatus("Deleted: " + toDelete.getName());
-                    currentFile = null;
-                    updateButtonsState();
-                } else {
-                    String msg = "The file '" + currentFile + "' could not be deleted.";
-                    showErrorMessage(msg, "Delete Failed");
-                }
-            } catch (Throwable t) {
-                showThrowable(t);
-            }
+                    });
+            submitJob(job);
         }
         gui.repaint();
     }
@@ -1038,45 +2244,51 @@ public class FileManager {
                 JOptionPane.showConfirmDialog(
                         gui, newFilePanel, "Create File", JOptionPane.OK_CANCEL_OPTION);
         if (result == JOptionPane.OK_OPTION) {
-            try {
-                if (name.getText() == null || name.getText().trim().length() == 0) {
-                    showErrorMessage("Name cannot be empty.", "Create Failed");
-                    return;
-                }
-                boolean created;
-                File parentFile = currentFile;
-                if (!parentFile.isDirectory()) {
-                    parentFile = parentFile.getParentFile();
-                }
-                File file = new File(parentFile, name.getText());
-                if (file.exists()) {
-                    showErrorMessage("A file with that name already exists.", "Create Failed");
-                    return;
-                }
-                if (newTypeFile.isSelected()) {
-                    created = file.createNewFile();
-                } else {
-                    created = file.mkdir();
-                }
-                if (created) {
-                    TreePath parentPath = findTreePath(parentFile);
-                    DefaultMutableTreeNode parentNode =
-                            (DefaultMutableTreeNode) parentPath.getLastPathComponent();
-
-                    if (file.isDirectory()) {
-                        DefaultMutableTreeNode newNode = new DefaultMutableTreeNode(file);
-                        treeModel.insertNodeInto(newNode, parentNode, parentNode.getChildCount());
-                    }
-
-                    showChildren(parentNode);
-                    setStatus("Created: " + file.getName());
-                } else {
-                    String msg = "The file '" + file + "' could not be created.";
-                    showErrorMessage(msg, "Create Failed");
-                }
-            } catch (Throwable t) {
-                showThrowable(t);
+            if (name.getText() == null || name.getText().trim().length() == 0) {
+                showErrorMessage("Name cannot be empty.", "Create Failed");
+                return;
+            }
+            File parent = currentFile;
+            if (!parent.isDirectory()) {
+                parent = parent.getParentFile();
+            }
+            final File parentFile = parent;
+            final File file = new File(parentFile, name.getText());
+            if (file.exists()) {
+                showErrorMessage("A file with that name already exists.", "Create Failed");
+                return;
             }
+            final boolean createFile = newTypeFile.isSelected();
+            final FileJob job =
+                    new FileJob("Create " + file.getName(), file) {
+                        @Override
+                        protected void execute() throws IOException {
+                            boolean created = createFile ? file.createNewFile() : file.mkdir();
+                            if (!created) {
+                                throw new IOException(
+                                        "The file '" + file + "' could not be created.");
+                            }
+                        }
+                    };
+            job.setWhenDone(
+                    new Runnable() {
+                        public void run() {
+                            TreePath parentPath = findTreePath(parentFile);
+                            if (job.getState() == FileJob.State.DONE && parentPath != null) {
+                                DefaultMutableTreeNode parentNode =
+                                        (DefaultMutableTreeNode) parentPath.getLastPathComponent();
+                                if (file.isDirectory()) {
+                                    DefaultMutableTreeNode newNode =
+                                            new DefaultMutableTreeNode(file);
+                                    treeModel.insertNodeInto(
+                                            newNode, parentNode, parentNode.getChildCount());
+                                }
+                                showChildren(parentNode);
+                            }
+                            reportJob(job, "Created: " + file.getName(), "Create Failed");
+                        }
+                    });
+            submitJob(job);
         }
         gui.repaint();
     }
@@ -1097,31 +2309,55 @@ public class FileManager {
         gui.repaint();
     }
 
-    /** Update the table on the EDT */
-    private void setTableData(final File[] files) {
+    /**
+     * Shows the listing {@code files} of {@code dir}. A new listing of the directory already
+     * shown only changes the rows that differ, so the selection and scroll position stay.
+     */
+    private void setTableData(final FileRows files, final File dir) {
         SwingUtilities.invokeLater(
                 new Runnable() {
                     public void run() {
                         if (fileTableModel == null) {
                             fileTableModel = new FileTableModel();
+                            fileTableModel.setThumbnails(thumbnailMode ? thumbnailCache : null);
                             table.setModel(fileTableModel);
-                            tableSorter = new TableRowSorter<FileTableModel>(fileTableModel);
+                            tableSorter =
+                                    new TableRowSorter<FileTableModel>(fileTableModel) {
+                                        @Override
+                                        public void sort() {
+                                            long start = Metrics.start();
+                                            super.sort();
+                                            Metrics.stop(Metrics.SORT, start);
+                                        }
+                                    };
                             table.setRowSorter(tableSorter);
                         }
-                        table.getSelectionModel()
-                                .removeListSelectionListener(listSelectionListener);
-                        fileTableModel.setFiles(files);
-                        table.getSelectionModel().addListSelectionListener(listSelectionListener);
-                        applyFilter();
-                        if (!cellSizesSet && files != null && files.length > 0) {
-                            Icon icon = fileSystemView.getSystemIcon(files[0]);
+                        boolean sameDirectory = dir != null && dir.equals(tableDirectory);
+                        tableDirectory = dir;
+                        if (sameDirectory) {
+                            List<File> selected = getSelectedFiles();
+                            Point position = tableViewport.getViewPosition();
+                            if (!fileTableModel.update(files)) {
+                                // too much changed for row events; put things back by file
+                                select(selected);
+                                tableViewport.setViewPosition(position);
+                            }
+                        } else {
+                            fileTableModel.setRows(files);
+                            applyFilter();
+                        }
+                        if (!cellSizesSet && files != null && files.size() > 0) {
+                            Icon icon = files.getIcon(0);
                             if (icon != null) {
-                                table.setRowHeight(icon.getIconHeight() + rowIconPadding);
+                                iconRowHeight = icon.getIconHeight() + rowIconPadding;
+                                table.setRowHeight(iconRowHeight);
                             }
                             setColumnWidth(0, -1);
                             setColumnWidth(3, 80);
                             table.getColumnModel().getColumn(3).setMaxWidth(120);
-                            setColumnWidth(4, -1);
+                            // wide enough for the full date and time
+                            JLabel sample = new JLabel(Formats.dateTime(0));
+                            setColumnWidth(4, sample.getPreferredSize().width + 14);
                             setColumnWidth(5, -1);
                             setColumnWidth(6, -1);
                             setColumnWidth(7, -1);
@@ -1129,13 +2365,28 @@ public class FileManager {
                             setColumnWidth(9, -1);
 
                             cellSizesSet = true;
+                            if (thumbnailMode) {
+                                applyThumbnailMode();
+                            }
                         }
-                        int shown = (files == null) ? 0 : files.length;
+                        int shown = (files == null) ? 0 : files.size();
                         setStatus(shown + " item(s)");
                     }
                 });
     }
 
+    /** Selects the rows of {@code files} that are shown. */
+    private void select(List<File> files) {
+        table.clearSelection();
+        for (File file : files) {
+            int modelRow = file == null ? -1 : fileTableModel.getRows().indexOf(file, -1);
+            int viewRow = modelRow < 0 ? -1 : table.convertRowIndexToView(modelRow);
+            if (viewRow >= 0) {
+                table.addRowSelectionInterval(viewRow, viewRow);
+            }
+        }
+    }
+
     private void setColumnWidth(int column, int width) {
         TableColumn tableColumn = table.getColumnModel().getColumn(column);
         if (width < 0) {
@@ -1150,60 +2401,177 @@ public class FileManager {
 
     /** Add the files that are contained within the directory of this node. */
     private void showChildren(final DefaultMutableTreeNode node) {
-        tree.setEnabled(false);
+        Object nodeObj = node.getUserObject();
+        if (nodeObj instanceof File
+                && ((rootLoader != null
+                                && rootLoader.getStatus((File) nodeObj)
+                                        == RootLoader.Status.UNRESPONSIVE)
+                        || !ioGateway.isAvailable((File) nodeObj))) {
+            setStatus(((File) nodeObj).getPath() + " is not responding");
+            listingGeneration++;
+            setTableData(new FileRows(), null);
+            return;
+        }
+        if (nodeObj instanceof File && !navigatingHistory) {
+            history.visit((File) nodeObj);
+            updateHistoryActions();
+        }
+        listedNode = node;
+        cancelSearch();
+        if (searchSubfolders != null) {
+            // the table shows a listing again
+            searchSubfolders.setSelected(false);
+        }
+        if (flattenItem != null) {
+            flattenItem.setSelected(false);
+        }
+        if (prefetcher != null) {
+            prefetcher.cancel();
+        }
+        // the tree stays usable; a listing that is overtaken by a newer one is not shown
+        final int generation = ++listingGeneration;
+        listingsInFlight++;
         progressBar.setVisible(true);
         progressBar.setIndeterminate(true);
 
         SwingWorker<Void, File> worker =
                 new SwingWorker<Void, File>() {
+                    private Boolean addChildren;
+                    private IOException failure;
+
                     @Override
                     public Void doInBackground() {
                         Object userObj = node.getUserObject();
                         if (!(userObj instanceof File)) {
                             return null;
                         }
-                        File file = (File) userObj;
-                        if (file.isDirectory()) {
-                            File[] files = fileSystemView.getFiles(file, true);
-                            if (files == null) {
-                                files = new File[0];
+                        final File file = (File) userObj;
+                        FileRows rows;
+                        try {
+                            rows =
+                                    ioGateway.call(
+                                            file,
+                                            new Callable<FileRows>() {
+                                                public FileRows call() {
+                                                    return directoryCache.list(
+                                                            file, directoryLister);
+                                                }
+                                            });
+                        } catch (IOException ex) {
+                            failure = ex;
+                            if (generation == listingGeneration) {
+                                setTableData(new FileRows(), null);
                             }
-                            if (node.isLeaf()) {
-                                for (File child : files) {
-                                    if (child.isDirectory()) {
-                                        publish(child);
+                            return null;
+                        }
+                        if (rows != null) {
+                            if (node.isLeaf() || partialNodes.contains(node)) {
+                                for (int row = 0; row < rows.size(); row++) {
+                                    if (rows.is(row, FileRows.DIRECTORY)) {
+                                        publish(rows.getFile(row));
                                     }
                                 }
                             }
-                            setTableData(files);
+                            if (generation == listingGeneration) {
+                                setTableData(rows, file);
+                            }
                         }
                         return null;
                     }
 
                     @Override
                     protected void process(List<File> chunks) {
-                        for (File child : chunks) {
-                            node.add(new DefaultMutableTreeNode(child));
+                        // the root loader may have filled the node since it was checked
+                        if (addChildren == null) {
+                            addChildren = node.isLeaf() || partialNodes.remove(node);
+                        }
+                        if (addChildren) {
+                            TreeNodes.mergeChildren(treeModel, node, chunks);
                         }
                     }
 
                     @Override
                     protected void done() {
-                        progressBar.setIndeterminate(false);
-                        progressBar.setVisible(false);
-                        tree.setEnabled(true);
+                        if (--listingsInFlight == 0) {
+                            progressBar.setIndeterminate(false);
+                            progressBar.setVisible(false);
+                        }
+                        if (failure != null) {
+                            setStatus(failure.getMessage());
+                            tree.repaint();
+                        } else if (generation == listingGeneration) {
+                            schedulePrefetch();
+                        }
                     }
                 };
-        worker.execute();
+        IoExecutor.get().execute(worker);
     }
 
-    /** Update the File details view with the details of this File. */
-    private void setFileDetails(File file) {
-        currentFile = file;
+    /** Lists {@code dir} with metadata, or returns null if it is not a directory. */
+    private FileRows listRows(File dir) {
+        if (!dir.isDirectory()) {
+            return null;
+        }
+        long start = Metrics.start();
+        File[] files = fileSystemView.getFiles(dir, true);
+        Metrics.stop(Metrics.LISTING, start);
+        return FileRows.read(files == null ? new File[0] : files, fileSystemView, iconCache);
+    }
+
+    /**
+     * Update the File details view with the details of this File. The metadata is read in the
+     * background; until then only the name and path are shown.
+     */
+    private void setFileDetails(final File file) {
         if (file == null) {
+            setFileDetails((FileInfo) null);
+            return;
+        }
+        currentFile = file;
+        currentInfo = null;
+        fileName.setIcon(null);
+        fileName.setText(file.getName().length() == 0 ? file.getPath() : file.getName());
+        path.setPath(file.getPath());
+        date.setText("");
+        size.setText("");
+        updateButtonsState();
+        SwingWorker<FileInfo, Void> worker =
+                new SwingWorker<FileInfo, Void>() {
+                    @Override
+                    public FileInfo doInBackground() throws IOException {
+                        return ioGateway.call(
+                                file,
+                                new Callable<FileInfo>() {
+                                    public FileInfo call() {
+                                        return FileInfo.read(file, fileSystemView, iconCache);
+                                    }
+                                });
+                    }
+
+                    @Override
+                    protected void done() {
+                        if (!file.equals(currentFile) || currentInfo != null) {
+                            return;
+                        }
+                        try {
+                            setFileDetails(get());
+                        } catch (Exception ex) {
+                            Throwable cause = ex.getCause() == null ? ex : ex.getCause();
+                            setStatus(cause.getMessage());
+                        }
+                    }
+                };
+        IoExecutor.get().execute(worker);
+    }
+
+    /** Shows metadata that has already been read. */
+    private void setFileDetails(FileInfo info) {
+        currentInfo = info;
+        if (info == null) {
+            currentFile = null;
             fileName.setIcon(null);
             fileName.setText("");
-            path.setText("");
+            path.setPath("");
             date.setText("");
             size.setText("");
             readable.setSelected(false);
@@ -1215,83 +2583,45 @@ public class FileManager {
             gui.repaint();
             return;
         }
-        Icon icon = fileSystemView.getSystemIcon(file);
-        fileName.setIcon(icon);
-        fileName.setText(fileSystemView.getSystemDisplayName(file));
-        path.setText(file.getPath());
-        date.setText(DATE_FORMAT.format(new Date(file.lastModified())));
-        size.setText(formatSize(file.length()) + " (" + file.length() + " bytes)");
-        readable.setSelected(file.canRead());
-        writable.setSelected(file.canWrite());
-        executable.setSelected(file.canExecute());
-        isDirectory.setSelected(file.isDirectory());
-        isFile.setSelected(file.isFile());
+        File file = info.getFile();
+        currentFile = file;
+        fileName.setIcon(info.getIcon());
+        fileName.setText(info.getDisplayName());
+        path.setPath(file.getPath());
+        date.setText(Formats.dateTime(info.getLastModified()));
+        size.setText(Formats.size(info.getLength()) + " (" + info.getLength() + " bytes)");
+        readable.setSelected(info.canRead());
+        writable.setSelected(info.canWrite());
+        executable.setSelected(info.canExecute());
+        isDirectory.setSelected(info.isDirectory());
+        isFile.setSelected(info.isFile());
 
         JFrame f = (JFrame) gui.getTopLevelAncestor();
         if (f != null) {
-            f.setTitle(APP_TITLE + " :: " + fileSystemView.getSystemDisplayName(file));
+            f.setTitle(APP_TITLE + " :: " + info.getDisplayName());
         }
 
         updateButtonsState();
         gui.repaint();
     }
 
-    private static String formatSize(long bytes) {
-        if (bytes < 1024) return bytes + " B";
-        int exp = (int) (Math.log(bytes) / Math.log(1024));
-        String pre = "KMGTPE".charAt(exp - 1) + "";
-        return String.format("%.2f %sB", bytes / Math.pow(1024, exp), pre);
-    }
-
     public static boolean copyFile(File from, File to) throws IOException {
         boolean created = to.createNewFile();
         if (created) {
-            FileChannel fromChannel = null;
-            FileChannel toChannel = null;
-            FileInputStream fis = null;
-            FileOutputStream fos = null;
-            try {
-                fis = new FileInputStream(from);
-                fos = new FileOutputStream(to);
-                fromChannel = fis.getChannel();
-                toChannel = fos.getChannel();
-
-                toChannel.transferFrom(fromChannel, 0, fromChannel.size());
-
-                to.setReadable(from.canRead());
-                to.setWritable(from.canWrite());
-                to.setExecutable(from.canExecute());
-            } finally {
-                if (fromChannel != null) {
-                    try {
-                        fromChannel.close();
-                    } catch (IOException ignored) {
-                    }
-                }
-                if (toChannel != null) {
-                    try {
-                        toChannel.close();
-                    } catch (IOException ignored) {
-                    }
-                }
-                if (fis != null) {
-                    try {
-                        fis.close();
-                    } catch (IOException ignored) {
-                    }
-                }
-                if (fos != null) {
-                    try {
-                        fos.close();
-                    } catch (IOException ignored) {
-                    }
-                }
-            }
+            CopyStrategy.copyFastest(from, to);
+            to.setReadable(from.canRead());
+            to.setWritable(from.canWrite());
+            to.setExecutable(from.canExecute());
         }
         return created;
     }
 
     public static void main(String[] args) {
+        if (args.length > 0 || GraphicsEnvironment.isHeadless()) {
+            System.exit(Cli.run(args, System.out, System.err));
+        }
+        final long startNanos = Metrics.start();
+        EdtMonitor.install(EdtMonitor.DEFAULT_THRESHOLD_MILLIS);
         SwingUtilities.invokeLater(
                 new Runnable() {
                     public void run() {
@@ -1320,6 +2650,7 @@ public class FileManager {
                         f.setLocationByPlatform(true);
                         f.setMinimumSize(f.getSize());
                         f.setVisible(true);
+                        Metrics.stop(Metrics.STARTUP, startNanos);
 
                         fileManager.showRootFile();
                     }
@@ -1327,100 +2658,14 @@ public class FileManager {
     }
 }
 
-/** A TableModel to hold File[]. */
-class FileTableModel extends AbstractTableModel {
-
-    private File[] files;
-    private FileSystemView fileSystemView = FileSystemView.getFileSystemView();
-    private String[] columns = {
-        "Icon", "File", "Path/name", "Size", "Last Modified", "R", "W", "E", "D", "F",
-    };
-
-    FileTableModel() {
-        this(new File[0]);
-    }
-
-    FileTableModel(File[] files) {
-        this.files = files;
-    }
-
-    public Object getValueAt(int row, int column) {
-        File file = files[row];
-        switch (column) {
-            case 0:
-                return fileSystemView.getSystemIcon(file);
-            case 1:
-                return fileSystemView.getSystemDisplayName(file);
-            case 2:
-                return file.getPath();
-            case 3:
-                return file.length();
-            case 4:
-                return new Date(file.lastModified());
-            case 5:
-                return file.canRead();
-            case 6:
-                return file.canWrite();
-            case 7:
-                return file.canExecute();
-            case 8:
-                return file.isDirectory();
-            case 9:
-                return file.isFile();
-            default:
-                System.err.println("Logic Error");
-        }
-        return "";
-    }
-
-    public int getColumnCount() {
-        return columns.length;
-    }
-
-    public Class<?> getColumnClass(int column) {
-        switch (column) {
-            case 0:
-                return ImageIcon.class;
-            case 3:
-                return Long.class;
-            case 4:
-                return Date.class;
-            case 5:
-            case 6:
-            case 7:
-            case 8:
-            case 9:
-                return Boolean.class;
-        }
-        return String.class;
-    }
-
-    public String getColumnName(int column) {
-        return columns[column];
-    }
-
-    public int getRowCount() {
-        return files == null ? 0 : files.length;
-    }
-
-    public File getFile(int row) {
-        if (files == null || row < 0 || row >= files.length) {
-            return null;
-        }
-        return files[row];
-    }
-
-    public void setFiles(File[] files) {
-        this.files = files == null ? new File[0] : files;
-        fireTableDataChanged();
-    }
-}
-
 /** A TreeCellRenderer for a File. */
 class FileTreeCellRenderer extends DefaultTreeCellRenderer {
 
     private FileSystemView fileSystemView;
     private JLabel label;
+    private RootLoader rootLoader;
+    private IoGateway ioGateway;
+    private IconCache iconCache;
 
     FileTreeCellRenderer() {
         label = new JLabel();
@@ -1440,10 +2685,34 @@ class FileTreeCellRenderer extends DefaultTreeCellRenderer {
 
         DefaultMutableTreeNode node = (DefaultMutableTreeNode) value;
         Object userObj = node.getUserObject();
-        if (userObj instanceof File) {
+        RootLoader.Status status =
+                rootLoader != null && userObj instanceof File
+                        ? rootLoader.getStatus((File) userObj)
+                        : null;
+        boolean unavailable =
+                status == RootLoader.Status.UNRESPONSIVE
+                        || (ioGateway != null
+                                && userObj instanceof File
+                                && !ioGateway.isAvailable((File) userObj));
+        if (unavailable) {
+            // asking the system for icon or name could block on the same mount
+            File file = (File) userObj;
+            label.setIcon(null);
+            label.setText(file.getPath() + " (not responding)");
+            label.setToolTipText(file.getPath() + " did not answer in time");
+        } else if (userObj instanceof File && iconCache != null && status == null) {
+            // below the roots every node is a directory, which needs no system lookup
+            File file = (File) userObj;
+            Icon icon = iconCache.getDirectoryIcon();
+            label.setIcon(icon != null ? icon : iconCache.get(file, true));
+            label.setText(file.getName());
+            label.setToolTipText(file.getPath());
+        } else if (userObj instanceof File) {
             File file = (File) userObj;
             try {
+                long start = Metrics.start();
                 label.setIcon(fileSystemView.getSystemIcon(file));
+                Metrics.stop(Metrics.ICON, start);
                 label.setText(fileSystemView.getSystemDisplayName(file));
                 label.setToolTipText(file.getPath());
             } catch (Exception ex) {
@@ -1457,14 +2726,29 @@ class FileTreeCellRenderer extends DefaultTreeCellRenderer {
             label.setToolTipText(null);
         }
 
+        if (status == RootLoader.Status.LOADING) {
+            label.setText(label.getText() + " (loading...)");
+        }
         if (selected) {
             label.setBackground(backgroundSelectionColor);
             label.setForeground(textSelectionColor);
         } else {
             label.setBackground(backgroundNonSelectionColor);
-            label.setForeground(textNonSelectionColor);
+            label.setForeground(
+                    unavailable ? Color.GRAY
+                            : textNonSelectionColor);
         }
 
         return label;
     }
+
+    void setRootLoader(RootLoader rootLoader) {
+        this.rootLoader = rootLoader;
+    }
+
+    /** Greys out nodes on unavailable mounts and uses shared icons for directories. */
+    void setIoGateway(IoGateway ioGateway, IconCache iconCache) {
+        this.ioGateway = ioGateway;
+        this.iconCache = iconCache;
+    }
 }
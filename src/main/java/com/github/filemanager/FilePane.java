@@ -0,0 +1,273 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.File;
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.ListSelectionModel;
+import javax.swing.RowFilter;
+import javax.swing.SwingWorker;
+import javax.swing.UIManager;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.TableRowSorter;
+
+/**
+ * A directory listing with its own table, filter and listing worker, used as the second pane of
+ * the dual-pane layout.
+ *
+ * <p>Listings go through the shared {@link DirectoryCache} and {@link IoGateway}, so a directory
+ * shown in both panes is read once and a hung mount cannot block this pane either. Each pane
+ * counts its own listing generations: refreshing one never repaints or cancels the other.
+ */
+class FilePane extends JPanel {
+
+    /** Told when the user opens a file, i.e. double-clicks a row that is not a directory. */
+    interface Listener {
+        void fileOpened(File file);
+    }
+
+    private final DirectoryCache directoryCache;
+    private final DirectoryCache.Lister lister;
+    private final IoGateway ioGateway;
+    private final FileTableModel model = new FileTableModel();
+    private final TableRowSorter<FileTableModel> sorter =
+            new TableRowSorter<FileTableModel>(model);
+    private final JTable table = new JTable(model);
+    private final JTextField filterField = new JTextField();
+    private final JLabel pathLabel = new JLabel(" ");
+    private final JLabel status = new JLabel(" ");
+    private Listener listener;
+    private File directory;
+    /** The directory whose listing the table holds, which lags {@link #directory} meanwhile. */
+    private File listed;
+    /** Bumped by each listing; a listing that is overtaken is not shown. */
+    private int generation;
+
+    FilePane(DirectoryCache directoryCache, DirectoryCache.Lister lister, IoGateway ioGateway) {
+        super(new BorderLayout(3, 3));
+        this.directoryCache = directoryCache;
+        this.lister = lister;
+        this.ioGateway = ioGateway;
+
+        table.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        table.setShowVerticalLines(false);
+        table.setFillsViewportHeight(true);
+        FileCellRenderer.install(table);
+        table.setRowSorter(sorter);
+        table.addMouseListener(
+                new MouseAdapter() {
+                    @Override
+                    public void mouseClicked(MouseEvent e) {
+                        if (e.getClickCount() == 2) {
+                            open(table.getSelectedRow());
+                        }
+                    }
+                });
+
+        JButton up = new JButton("Up");
+        up.setToolTipText("Show the parent folder");
+        up.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        File parent = directory == null ? null : directory.getParentFile();
+                        if (parent != null) {
+                            show(parent);
+                        }
+                    }
+                });
+        JPanel header = new JPanel(new BorderLayout(3, 3));
+        header.add(up, BorderLayout.WEST);
+        header.add(pathLabel, BorderLayout.CENTER);
+
+        filterField.setToolTipText("Filter this pane by name or query");
+        filterField
+                .getDocument()
+                .addDocumentListener(
+                        new DocumentListener() {
+                            public void insertUpdate(DocumentEvent e) {
+                                applyFilter();
+                            }
+
+                            public void removeUpdate(DocumentEvent e) {
+                                applyFilter();
+                            }
+
+                            public void changedUpdate(DocumentEvent e) {
+                                applyFilter();
+                            }
+                        });
+        JPanel top = new JPanel(new BorderLayout(3, 3));
+        top.add(header, BorderLayout.NORTH);
+        top.add(filterField, BorderLayout.SOUTH);
+
+        add(top, BorderLayout.NORTH);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+        add(status, BorderLayout.SOUTH);
+    }
+
+    void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    JTable getTable() {
+        return table;
+    }
+
+    /** The directory shown, or null before the first {@link #show}. */
+    File getDirectory() {
+        return directory;
+    }
+
+    /** The files selected in this pane, in view order. */
+    List<File> getSelectedFiles() {
+        List<File> files = new ArrayList<File>();
+        for (int viewRow : table.getSelectedRows()) {
+            File file = model.getFile(table.convertRowIndexToModel(viewRow));
+            if (file != null) {
+                files.add(file);
+            }
+        }
+        return files;
+    }
+
+    /** Lists {@code dir} in the background; call on the EDT. */
+    void show(final File dir) {
+        directory = dir;
+        pathLabel.setText(dir.getPath());
+        pathLabel.setToolTipText(dir.getPath());
+        status.setText("Listing...");
+        final int listing = ++generation;
+        SwingWorker<FileRows, Void> worker =
+                new SwingWorker<FileRows, Void>() {
+                    private IOException failure;
+
+                    @Override
+                    public FileRows doInBackground() {
+                        try {
+                            return ioGateway.call(
+                                    dir,
+                                    new Callable<FileRows>() {
+                                        public FileRows call() {
+                                            return directoryCache.list(dir, lister);
+                                        }
+                                    });
+                        } catch (IOException ex) {
+                            failure = ex;
+                            return null;
+                        }
+                    }
+
+                    @Override
+                    protected void done() {
+                        if (listing != generation) {
+                            return;
+                        }
+                        FileRows rows = null;
+                        try {
+                            rows = get();
+                        } catch (Exception ex) {
+                            failure = new IOException(ex.getMessage(), ex);
+                        }
+                        if (dir.equals(listed) && rows != null) {
+                            // a refresh: only the rows that changed are touched
+                            model.update(rows);
+                        } else {
+                            model.setRows(rows);
+                            applyFilter();
+                        }
+                        listed = rows == null ? null : dir;
+                        if (failure != null) {
+                            status.setText(failure.getMessage());
+                        } else {
+                            status.setText(model.getRowCount() + " item(s)");
+                        }
+                    }
+                };
+        IoExecutor.get().execute(worker);
+    }
+
+    /** Lists the shown directory again, bypassing the cache. */
+    void refresh() {
+        if (directory != null) {
+            directoryCache.invalidate(directory);
+            show(directory);
+        }
+    }
+
+    private void open(int viewRow) {
+        if (viewRow < 0) {
+            return;
+        }
+        int modelRow = table.convertRowIndexToModel(viewRow);
+        File file = model.getFile(modelRow);
+        if (model.isDirectory(modelRow)) {
+            show(file);
+        } else if (file != null && listener != null) {
+            listener.fileOpened(file);
+        }
+    }
+
+    private void applyFilter() {
+        final FileQuery query;
+        try {
+            query = FileQuery.parse(filterField.getText());
+        } catch (ParseException ex) {
+            filterField.setForeground(Color.RED);
+            filterField.setToolTipText(ex.getMessage());
+            return;
+        }
+        filterField.setForeground(UIManager.getColor("TextField.foreground"));
+        filterField.setToolTipText("Filter this pane by name or query");
+        if (query.isEmpty()) {
+            sorter.setRowFilter(null);
+            return;
+        }
+        sorter.setRowFilter(
+                new RowFilter<FileTableModel, Integer>() {
+                    @Override
+                    public boolean include(
+                            Entry<? extends FileTableModel, ? extends Integer> entry) {
+                        return query.matches(model.getRows(), entry.getIdentifier());
+                    }
+                });
+    }
+}
@@ -0,0 +1,660 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A filter over file metadata, compiled from a small query language:
+ *
+ * <pre>
+ * size&gt;1G mtime&lt;7d *.log          files over 1 GB, changed in the last week, named *.log
+ * ext:jpg,png or type:d              images or directories
+ * not perm:w (tmp or cache)          read-only, with tmp or cache in the name
+ * </pre>
+ *
+ * <ul>
+ *   <li>{@code size} compares the length with {@code > >= < <= =} and a size like {@code 512},
+ *       {@code 10k}, {@code 1.5M} or {@code 2G};
+ *   <li>{@code mtime} compares the age with a duration in {@code s}, {@code m}, {@code h},
+ *       {@code d} or {@code w} ({@code mtime<7d}: changed within seven days), or the
+ *       modification time with a date ({@code mtime>=2024-01-31});
+ *   <li>{@code type:f} and {@code type:d} select files and directories;
+ *   <li>{@code ext:log,txt} selects extensions, {@code perm:rw} files with all of the given
+ *       permissions, and {@code name:} a glob or a part of the name;
+ *   <li>a plain word selects names containing it, or matching it if it has {@code *} or {@code
+ *       ?}; quotes keep spaces in a word.
+ * </ul>
+ *
+ * Terms next to each other must all match; {@code or}, {@code not} (or a leading {@code -})
+ * and parentheses combine them as usual. Names compare case-insensitively.
+ *
+ * <p>The compiled query reads the columns of {@link FileRows} directly, so filtering a table
+ * costs no {@code getValueAt} calls and no boxing, and the cheap numeric tests of an {@code
+ * and} run before the name tests.
+ */
+final class FileQuery {
+
+    /** A compiled test of one row. */
+    private abstract static class Node {
+
+        abstract boolean matches(FileRows rows, int row);
+
+        /** Relative cost, so that cheaper tests run first. */
+        int cost() {
+            return 1;
+        }
+    }
+
+    private static final Node ALL =
+            new Node() {
+                boolean matches(FileRows rows, int row) {
+                    return true;
+                }
+            };
+
+    private static final Pattern DURATION = Pattern.compile("(\\d+(?:\\.\\d+)?)([smhdw])");
+    private static final Pattern DATE = Pattern.compile("\\d{4}-\\d{2}-\\d{2}");
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    private final String text;
+    private final Node root;
+    private final boolean needsPermissions;
+
+    private FileQuery(String text, Node root, boolean needsPermissions) {
+        this.text = text;
+        this.root = root;
+        this.needsPermissions = needsPermissions;
+    }
+
+    /** A query that matches every row. */
+    static FileQuery all() {
+        return new FileQuery("", ALL, false);
+    }
+
+    /** Compiles {@code text}, taking ages relative to now. */
+    static FileQuery parse(String text) throws ParseException {
+        return parse(text, System.currentTimeMillis());
+    }
+
+    /**
+     * Compiles {@code text}.
+     *
+     * @param now the time ages such as {@code 7d} are counted back from
+     * @throws ParseException with the offset of the term that is wrong
+     */
+    static FileQuery parse(String text, long now) throws ParseException {
+        Parser parser = new Parser(text == null ? "" : text, now);
+        Node root = parser.tokens.isEmpty() ? ALL : parser.parseOr();
+        if (parser.index < parser.tokens.size()) {
+            throw parser.error("Unexpected " + parser.peek().text);
+        }
+        return new FileQuery(text, root, parser.needsPermissions);
+    }
+
+    boolean matches(FileRows rows, int row) {
+        return root.matches(rows, row);
+    }
+
+    /** Whether the query matches everything. */
+    boolean isEmpty() {
+        return root == ALL;
+    }
+
+    /** Whether the query tests permissions, which some listings do not read. */
+    boolean needsPermissions() {
+        return needsPermissions;
+    }
+
+    String getText() {
+        return text;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+
+    /**
+     * Parses a size like {@code 512}, {@code 10k}, {@code 1.5M} or {@code 2G} (powers of
+     * 1024).
+     *
+     * @throws NumberFormatException if it is not a size
+     */
+    static long parseSize(String text) {
+        String number = text.trim();
+        long unit = 1;
+        if (number.length() > 0) {
+            char last = Character.toUpperCase(number.charAt(number.length() - 1));
+            int index = "KMGTP".indexOf(last);
+            if (index >= 0) {
+                unit = 1L << (10 * (index + 1));
+                number = number.substring(0, number.length() - 1);
+            } else if (last == 'B') {
+                number = number.substring(0, number.length() - 1);
+            }
+        }
+        double value = Double.parseDouble(number);
+        if (value < 0 || Double.isNaN(value)) {
+            throw new NumberFormatException("Not a size: " + text);
+        }
+        return (long) (value * unit);
+    }
+
+    /* ---------------------------------------------------------------- parsing */
+
+    private static final class Token {
+        final String text;
+        final int offset;
+        /** Quoted text, never a keyword or operator. */
+        final boolean literal;
+
+        Token(String text, int offset, boolean literal) {
+            this.text = text;
+            this.offset = offset;
+            this.literal = literal;
+        }
+
+        boolean is(String word) {
+            return !literal && text.equalsIgnoreCase(word);
+        }
+    }
+
+    private static final class Parser {
+
+        final List<Token> tokens = new ArrayList<Token>();
+        final long now;
+        final String source;
+        int index;
+        boolean needsPermissions;
+
+        Parser(String source, long now) throws ParseException {
+            this.source = source;
+            this.now = now;
+            tokenize();
+        }
+
+        private void tokenize() throws ParseException {
+            int ii = 0;
+            while (ii < source.length()) {
+                char c = source.charAt(ii);
+                if (Character.isWhitespace(c)) {
+                    ii++;
+                } else if (c == '(' || c == ')' || c == ':' || c == '=') {
+                    tokens.add(new Token(String.valueOf(c), ii, false));
+                    ii++;
+                } else if (c == '<' || c == '>') {
+                    boolean orEqual = ii + 1 < source.length() && source.charAt(ii + 1) == '=';
+                    tokens.add(new Token(orEqual ? c + "=" : String.valueOf(c), ii, false));
+                    ii += orEqual ? 2 : 1;
+                } else if (c == '"') {
+                    int end = source.indexOf('"', ii + 1);
+                    if (end < 0) {
+                        throw new ParseException("Unclosed quote", ii);
+                    }
+                    tokens.add(new Token(source.substring(ii + 1, end), ii, true));
+                    ii = end + 1;
+                } else if ((c == '-' || c == '!') && tokens.isEmpty()
+                        || (c == '-' || c == '!') && isTermStart(ii)) {
+                    tokens.add(new Token("not", ii, false));
+                    ii++;
+                } else {
+                    int start = ii;
+                    while (ii < source.length()
+                            && "()<>=:\"".indexOf(source.charAt(ii)) < 0
+                            && !Character.isWhitespace(source.charAt(ii))) {
+                        ii++;
+                    }
+                    tokens.add(new Token(source.substring(start, ii), start, false));
+                }
+            }
+        }
+
+        /** Whether a {@code -} at {@code ii} starts a term, rather than being inside a value. */
+        private boolean isTermStart(int ii) {
+            Token previous = tokens.get(tokens.size() - 1);
+            return ii > 0
+                    && Character.isWhitespace(source.charAt(ii - 1))
+                    || previous.text.equals("(");
+        }
+
+        Token peek() {
+            return index < tokens.size() ? tokens.get(index) : null;
+        }
+
+        ParseException error(String message) {
+            Token token = peek();
+            return new ParseException(message, token == null ? source.length() : token.offset);
+        }
+
+        Node parseOr() throws ParseException {
+            List<Node> alternatives = new ArrayList<Node>();
+            alternatives.add(parseAnd());
+            while (peek() != null && peek().is("or")) {
+                index++;
+                alternatives.add(parseAnd());
+            }
+            return alternatives.size() == 1 ? alternatives.get(0) : or(alternatives);
+        }
+
+        Node parseAnd() throws ParseException {
+            List<Node> terms = new ArrayList<Node>();
+            terms.add(parseUnary());
+            while (peek() != null && !peek().is("or") && !peek().text.equals(")")) {
+                if (peek().is("and")) {
+                    index++;
+                }
+                terms.add(parseUnary());
+            }
+            return terms.size() == 1 ? terms.get(0) : and(terms);
+        }
+
+        Node parseUnary() throws ParseException {
+            Token token = peek();
+            if (token == null) {
+                throw error("Missing term");
+            }
+            if (token.is("not")) {
+                index++;
+                return not(parseUnary());
+            }
+            if (!token.literal && token.text.equals("(")) {
+                index++;
+                Node inner = parseOr();
+                if (peek() == null || !peek().text.equals(")")) {
+                    throw error("Missing )");
+                }
+                index++;
+                return inner;
+            }
+            return parseTerm();
+        }
+
+        Node parseTerm() throws ParseException {
+            Token key = tokens.get(index++);
+            Token operator = peek();
+            boolean keyed = !key.literal && isOperator(operator);
+            if (!keyed) {
+                if (!key.literal && (key.text.equals("(") || isOperator(key))) {
+                    index--;
+                    throw error("Unexpected " + key.text);
+                }
+                return name(key.text);
+            }
+            index++;
+            Token value = peek();
+            if (value == null) {
+                throw error("Missing value after " + key.text + operator.text);
+            }
+            index++;
+            String op = operator.text;
+            // ':' compares like '='
+            String comparison = op.equals(":") ? "=" : op;
+            String field = key.text.toLowerCase(Locale.ROOT);
+            try {
+                if (field.equals("size")) {
+                    return size(comparison, parseSize(value.text));
+                } else if (field.equals("mtime") || field.equals("modified")) {
+                    return modified(comparison, value.text);
+                } else if (field.equals("type") && op.equals(":")) {
+                    return type(value.text);
+                } else if (field.equals("ext") && op.equals(":")) {
+                    return extensions(value.text);
+                } else if (field.equals("perm") && op.equals(":")) {
+                    needsPermissions = true;
+                    return permissions(value.text);
+                } else if (field.equals("name") && op.equals(":")) {
+                    return name(value.text);
+                }
+            } catch (NumberFormatException ex) {
+                throw new ParseException(
+                        "Bad value for " + key.text + ": " + value.text, value.offset);
+            }
+            throw new ParseException("Unknown term " + key.text + op, key.offset);
+        }
+
+        private static boolean isOperator(Token token) {
+            return token != null
+                    && !token.literal
+                    && (token.text.equals(":")
+                            || token.text.equals("=")
+                            || token.text.startsWith("<")
+                            || token.text.startsWith(">"));
+        }
+
+        Node modified(String op, String value) throws ParseException {
+            Matcher duration = DURATION.matcher(value);
+            if (duration.matches()) {
+                if (op.equals("=")) {
+                    throw new NumberFormatException(value);
+                }
+                double amount = Double.parseDouble(duration.group(1));
+                long age = (long) (amount * unitMillis(duration.group(2)));
+                // a younger file has a later time, so the comparison turns around
+                return time(flip(op), now - age);
+            }
+            if (DATE.matcher(value).matches()) {
+                long day;
+                try {
+                    SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd", Locale.ROOT);
+                    format.setLenient(false);
+                    day = format.parse(value).getTime();
+                } catch (ParseException ex) {
+                    throw new NumberFormatException(value);
+                }
+                if (op.equals("=")) {
+                    return and(Arrays.asList(time(">=", day), time("<", day + DAY)));
+                }
+                // after a date means after that whole day
+                return time(op, op.equals(">") || op.equals("<=") ? day + DAY - 1 : day);
+            }
+            throw new NumberFormatException(value);
+        }
+
+        private static long unitMillis(String unit) {
+            switch (unit.charAt(0)) {
+                case 's':
+                    return 1000L;
+                case 'm':
+                    return 60 * 1000L;
+                case 'h':
+                    return 60 * 60 * 1000L;
+                case 'd':
+                    return DAY;
+                default:
+                    return 7 * DAY;
+            }
+        }
+
+        private static String flip(String op) {
+            if (op.startsWith("<")) {
+                return ">" + op.substring(1);
+            }
+            return "<" + op.substring(1);
+        }
+    }
+
+    /* ---------------------------------------------------------------- nodes */
+
+    private static Node and(List<Node> terms) {
+        final Node[] nodes = terms.toArray(new Node[0]);
+        // stable, so equally cheap tests keep the order they were written in
+        Arrays.sort(
+                nodes,
+                new Comparator<Node>() {
+                    public int compare(Node a, Node b) {
+                        return Integer.compare(a.cost(), b.cost());
+                    }
+                });
+        return new Node() {
+            boolean matches(FileRows rows, int row) {
+                for (Node node : nodes) {
+                    if (!node.matches(rows, row)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            int cost() {
+                return nodes[nodes.length - 1].cost();
+            }
+        };
+    }
+
+    private static Node or(List<Node> alternatives) {
+        final Node[] nodes = alternatives.toArray(new Node[0]);
+        return new Node() {
+            boolean matches(FileRows rows, int row) {
+                for (Node node : nodes) {
+                    if (node.matches(rows, row)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            int cost() {
+                int cost = 0;
+                for (Node node : nodes) {
+                    cost = Math.max(cost, node.cost());
+                }
+                return cost;
+            }
+        };
+    }
+
+    private static Node not(final Node node) {
+        return new Node() {
+            boolean matches(FileRows rows, int row) {
+                return !node.matches(rows, row);
+            }
+
+            int cost() {
+                return node.cost();
+            }
+        };
+    }
+
+    private static Node size(String op, final long bound) {
+        switch (op) {
+            case ">":
+                return new Node() {
+                    boolean matches(FileRows rows, int row) {
+                        return rows.is(row, FileRows.FILE) && rows.getLength(row) > bound;
+                    }
+                };
+            case ">=":
+                return new Node() {
+                    boolean matches(FileRows rows, int row) {
+                        return rows.is(row, FileRows.FILE) && rows.getLength(row) >= bound;
+                    }
+                };
+            case "<":
+                return new Node() {
+                    boolean matches(FileRows rows, int row) {
+                        return rows.is(row, FileRows.FILE) && rows.getLength(row) < bound;
+                    }
+                };
+            case "<=":
+                return new Node() {
+                    boolean matches(FileRows rows, int row) {
+                        return rows.is(row, FileRows.FILE) && rows.getLength(row) <= bound;
+                    }
+                };
+            default:
+                return new Node() {
+                    boolean matches(FileRows rows, int row) {
+                        return rows.is(row, FileRows.FILE) && rows.getLength(row) == bound;
+                    }
+                };
+        }
+    }
+
+    private static Node time(String op, final long bound) {
+        switch (op) {
+            case ">":
+                return new Node() {
+                    boolean matches(FileRows rows, int row) {
+                        return rows.getLastModified(row) > bound;
+                    }
+                };
+            case ">=":
+                return new Node() {
+                    boolean matches(FileRows rows, int row) {
+                        return rows.getLastModified(row) >= bound;
+                    }
+                };
+            case "<":
+                return new Node() {
+                    boolean matches(FileRows rows, int row) {
+                        return rows.getLastModified(row) < bound;
+                    }
+                };
+            default:
+                return new Node() {
+                    boolean matches(FileRows rows, int row) {
+                        return rows.getLastModified(row) <= bound;
+                    }
+                };
+        }
+    }
+
+    private static Node type(String value) {
+        String type = value.toLowerCase(Locale.ROOT);
+        final byte flag;
+        if (type.equals("f") || type.equals("file")) {
+            flag = FileRows.FILE;
+        } else if (type.equals("d") || type.equals("dir") || type.equals("directory")) {
+            flag = FileRows.DIRECTORY;
+        } else {
+            throw new NumberFormatException(value);
+        }
+        return flag(flag);
+    }
+
+    private static Node permissions(String value) {
+        byte required = 0;
+        for (char c : value.toLowerCase(Locale.ROOT).toCharArray()) {
+            if (c == 'r') {
+                required |= FileRows.READABLE;
+            } else if (c == 'w') {
+                required |= FileRows.WRITABLE;
+            } else if (c == 'x') {
+                required |= FileRows.EXECUTABLE;
+            } else {
+                throw new NumberFormatException(value);
+            }
+        }
+        return flag(required);
+    }
+
+    /** Rows with all of the bits of {@code flags}. */
+    private static Node flag(final byte flags) {
+        return new Node() {
+            boolean matches(FileRows rows, int row) {
+                return rows.hasAll(row, flags);
+            }
+        };
+    }
+
+    private static Node extensions(String value) {
+        List<Node> alternatives = new ArrayList<Node>();
+        for (String extension : value.split(",")) {
+            if (extension.length() > 0) {
+                alternatives.add(
+                        suffix(extension.startsWith(".") ? extension : "." + extension));
+            }
+        }
+        if (alternatives.isEmpty()) {
+            throw new NumberFormatException(value);
+        }
+        return alternatives.size() == 1 ? alternatives.get(0) : or(alternatives);
+    }
+
+    /** Names ending with {@code suffix}, compared on the encoded name without a copy. */
+    private static Node suffix(String suffix) {
+        final byte[] encoded = suffix.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8);
+        return new Node() {
+            boolean matches(FileRows rows, int row) {
+                return rows.nameEndsWithIgnoreCase(row, encoded);
+            }
+
+            int cost() {
+                return 2;
+            }
+        };
+    }
+
+    private static Node name(String text) {
+        if (text.indexOf('*') < 0 && text.indexOf('?') < 0) {
+            final String part = text;
+            return new Node() {
+                boolean matches(FileRows rows, int row) {
+                    return containsIgnoreCase(rows.getDisplayName(row), part);
+                }
+
+                int cost() {
+                    return 3;
+                }
+            };
+        }
+        String rest = text.substring(1);
+        if (text.startsWith("*")
+                && rest.indexOf('*') < 0
+                && rest.indexOf('?') < 0
+                && isAscii(rest)) {
+            return suffix(rest);
+        }
+        StringBuilder regex = new StringBuilder();
+        for (char c : text.toCharArray()) {
+            if (c == '*') {
+                regex.append(".*");
+            } else if (c == '?') {
+                regex.append('.');
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        final Pattern pattern =
+                Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+        return new Node() {
+            boolean matches(FileRows rows, int row) {
+                return pattern.matcher(rows.getName(row)).matches();
+            }
+
+            int cost() {
+                return 4;
+            }
+        };
+    }
+
+    private static boolean isAscii(String text) {
+        for (int ii = 0; ii < text.length(); ii++) {
+            if (text.charAt(ii) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static boolean containsIgnoreCase(String text, String part) {
+        int last = text.length() - part.length();
+        for (int ii = 0; ii <= last; ii++) {
+            if (text.regionMatches(true, ii, part, 0, part.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,427 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.Icon;
+import javax.swing.filechooser.FileSystemView;
+
+/**
+ * Metadata of many files stored column by column.
+ *
+ * <p>A row costs about 30 bytes plus its UTF-8 encoded name: sizes and modification times live
+ * in {@code long[]}, the boolean attributes are packed into one byte, names share one byte
+ * buffer, and the parent directory and icon are indexes into small shared tables. {@link File}
+ * objects are only created when asked for. Rows are appended by one thread and must be handed
+ * over safely, e.g. through the EDT, before they are read elsewhere.
+ */
+final class FileRows {
+
+    static final byte EXISTS = 1;
+    static final byte READABLE = 1 << 1;
+    static final byte WRITABLE = 1 << 2;
+    static final byte EXECUTABLE = 1 << 3;
+    static final byte DIRECTORY = 1 << 4;
+    static final byte FILE = 1 << 5;
+    /** The display name differs from the file name and is kept in a side table. */
+    static final byte OWN_DISPLAY_NAME = (byte) (1 << 6);
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private int size;
+    private long[] lengths;
+    private long[] lastModified;
+    private byte[] flags;
+    private int[] parents;
+    private short[] icons;
+    private byte[] names;
+    private int[] nameOffsets;
+    private int namesLength;
+
+    private final List<String> parentTable = new ArrayList<String>();
+    private final Map<String, Integer> parentIndex = new HashMap<String, Integer>();
+    private final List<Icon> iconTable = new ArrayList<Icon>();
+    private final Map<Icon, Integer> iconIndex = new IdentityHashMap<Icon, Integer>();
+    private final Map<Integer, String> displayNames = new HashMap<Integer, String>();
+
+    FileRows() {
+        this(16);
+    }
+
+    FileRows(int capacity) {
+        capacity = Math.max(capacity, 1);
+        lengths = new long[capacity];
+        lastModified = new long[capacity];
+        flags = new byte[capacity];
+        parents = new int[capacity];
+        icons = new short[capacity];
+        nameOffsets = new int[capacity + 1];
+        names = new byte[capacity * 16];
+    }
+
+    /** Reads the metadata of {@code files}; blocks as long as their file systems do. */
+    static FileRows read(File[] files, FileSystemView fileSystemView, IconCache iconCache) {
+        FileRows rows = new FileRows(files.length);
+        for (File file : files) {
+            rows.add(FileInfo.read(file, fileSystemView, iconCache));
+        }
+        return rows;
+    }
+
+    void add(FileInfo info) {
+        byte bits = 0;
+        if (info.exists()) bits |= EXISTS;
+        if (info.canRead()) bits |= READABLE;
+        if (info.canWrite()) bits |= WRITABLE;
+        if (info.canExecute()) bits |= EXECUTABLE;
+        if (info.isDirectory()) bits |= DIRECTORY;
+        if (info.isFile()) bits |= FILE;
+        add(
+                info.getFile(),
+                info.getDisplayName(),
+                info.getIcon(),
+                info.getLength(),
+                info.getLastModified(),
+                bits);
+    }
+
+    void add(File file, String displayName, Icon icon, long length, long modified, byte bits) {
+        ensureCapacity(size + 1);
+        String name = file.getName();
+        String parent = file.getParent();
+        if (name.length() == 0) {
+            // a root such as "/" or "C:\" has no name of its own
+            name = file.getPath();
+            parent = null;
+        }
+        if (displayName != null && !displayName.equals(name)) {
+            bits |= OWN_DISPLAY_NAME;
+            displayNames.put(size, displayName);
+        }
+        byte[] encoded = name.getBytes(UTF_8);
+        if (namesLength + encoded.length > names.length) {
+            names = Arrays.copyOf(names, Math.max(names.length * 2, namesLength + encoded.length));
+        }
+        System.arraycopy(encoded, 0, names, namesLength, encoded.length);
+        namesLength += encoded.length;
+        nameOffsets[size + 1] = namesLength;
+        lengths[size] = length;
+        lastModified[size] = modified;
+        flags[size] = bits;
+        parents[size] = indexOf(parent);
+        icons[size] = (short) indexOf(icon);
+        size++;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > lengths.length) {
+            int grown = Math.max(capacity, lengths.length + (lengths.length >> 1) + 1);
+            lengths = Arrays.copyOf(lengths, grown);
+            lastModified = Arrays.copyOf(lastModified, grown);
+            flags = Arrays.copyOf(flags, grown);
+            parents = Arrays.copyOf(parents, grown);
+            icons = Arrays.copyOf(icons, grown);
+            nameOffsets = Arrays.copyOf(nameOffsets, grown + 1);
+        }
+    }
+
+    private int indexOf(String parent) {
+        if (parent == null) {
+            return -1;
+        }
+        Integer index = parentIndex.get(parent);
+        if (index == null) {
+            index = parentTable.size();
+            parentTable.add(parent);
+            parentIndex.put(parent, index);
+        }
+        return index;
+    }
+
+    private int indexOf(Icon icon) {
+        if (icon == null) {
+            return -1;
+        }
+        Integer index = iconIndex.get(icon);
+        if (index == null) {
+            if (iconTable.size() == Short.MAX_VALUE) {
+                // per-file icons beyond this are not worth keeping
+                return -1;
+            }
+            index = iconTable.size();
+            iconTable.add(icon);
+            iconIndex.put(icon, index);
+        }
+        return index;
+    }
+
+    int size() {
+        return size;
+    }
+
+    String getName(int row) {
+        int start = nameOffsets[row];
+        return new String(names, start, nameOffsets[row + 1] - start, UTF_8);
+    }
+
+    String getDisplayName(int row) {
+        return (flags[row] & OWN_DISPLAY_NAME) != 0 ? displayNames.get(row) : getName(row);
+    }
+
+    String getPath(int row) {
+        int parent = parents[row];
+        if (parent < 0) {
+            return getName(row);
+        }
+        return new File(parentTable.get(parent), getName(row)).getPath();
+    }
+
+    File getFile(int row) {
+        int parent = parents[row];
+        if (parent < 0) {
+            return new File(getName(row));
+        }
+        return new File(parentTable.get(parent), getName(row));
+    }
+
+    Icon getIcon(int row) {
+        int icon = icons[row];
+        return icon < 0 ? null : iconTable.get(icon);
+    }
+
+    long getLength(int row) {
+        return lengths[row];
+    }
+
+    long getLastModified(int row) {
+        return lastModified[row];
+    }
+
+    boolean is(int row, byte flag) {
+        return (flags[row] & flag) != 0;
+    }
+
+    /** Whether the row has all of the bits of {@code flags}. */
+    boolean hasAll(int row, byte flags) {
+        return (this.flags[row] & flags) == flags;
+    }
+
+    /**
+     * Whether the name ends with {@code suffix}, given in lower case, ignoring the case of
+     * ASCII letters in the name. Compares the encoded bytes, so no string is created.
+     */
+    boolean nameEndsWithIgnoreCase(int row, byte[] suffix) {
+        int start = nameOffsets[row + 1] - suffix.length;
+        if (start < nameOffsets[row]) {
+            return false;
+        }
+        for (int ii = 0; ii < suffix.length; ii++) {
+            int b = names[start + ii];
+            if (b >= 'A' && b <= 'Z') {
+                b += 'a' - 'A';
+            }
+            if (b != suffix[ii]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Appends row {@code row} of {@code from}. */
+    void add(FileRows from, int row) {
+        add(
+                from.getFile(row),
+                from.is(row, OWN_DISPLAY_NAME) ? from.displayNames.get(row) : null,
+                from.getIcon(row),
+                from.lengths[row],
+                from.lastModified[row],
+                (byte) (from.flags[row] & ~OWN_DISPLAY_NAME));
+    }
+
+    /** A copy that can be changed without affecting this one, e.g. a cached listing. */
+    FileRows copy() {
+        FileRows copy = new FileRows(size);
+        copy.size = size;
+        System.arraycopy(lengths, 0, copy.lengths, 0, size);
+        System.arraycopy(lastModified, 0, copy.lastModified, 0, size);
+        System.arraycopy(flags, 0, copy.flags, 0, size);
+        System.arraycopy(parents, 0, copy.parents, 0, size);
+        System.arraycopy(icons, 0, copy.icons, 0, size);
+        System.arraycopy(nameOffsets, 0, copy.nameOffsets, 0, size + 1);
+        copy.names = Arrays.copyOf(names, Math.max(namesLength, 16));
+        copy.namesLength = namesLength;
+        copy.parentTable.addAll(parentTable);
+        copy.parentIndex.putAll(parentIndex);
+        copy.iconTable.addAll(iconTable);
+        copy.iconIndex.putAll(iconIndex);
+        copy.displayNames.putAll(displayNames);
+        return copy;
+    }
+
+    /** Removes rows {@code first} to {@code last}, inclusive; the rows after them move up. */
+    void remove(int first, int last) {
+        int count = last - first + 1;
+        int tail = size - last - 1;
+        int nameStart = nameOffsets[first];
+        int nameEnd = nameOffsets[last + 1];
+        int removedBytes = nameEnd - nameStart;
+        System.arraycopy(names, nameEnd, names, nameStart, namesLength - nameEnd);
+        namesLength -= removedBytes;
+        for (int row = first; row < first + tail; row++) {
+            nameOffsets[row + 1] = nameOffsets[row + count + 1] - removedBytes;
+        }
+        System.arraycopy(lengths, last + 1, lengths, first, tail);
+        System.arraycopy(lastModified, last + 1, lastModified, first, tail);
+        System.arraycopy(flags, last + 1, flags, first, tail);
+        System.arraycopy(parents, last + 1, parents, first, tail);
+        System.arraycopy(icons, last + 1, icons, first, tail);
+        if (!displayNames.isEmpty()) {
+            Map<Integer, String> moved = new HashMap<Integer, String>();
+            for (Map.Entry<Integer, String> entry : displayNames.entrySet()) {
+                int row = entry.getKey();
+                if (row < first) {
+                    moved.put(row, entry.getValue());
+                } else if (row > last) {
+                    moved.put(row - count, entry.getValue());
+                }
+            }
+            displayNames.clear();
+            displayNames.putAll(moved);
+        }
+        size -= count;
+    }
+
+    /** Takes the attributes of row {@code fromRow} of {@code from}, a row of the same file. */
+    void set(int row, FileRows from, int fromRow) {
+        lengths[row] = from.lengths[fromRow];
+        lastModified[row] = from.lastModified[fromRow];
+        flags[row] = from.flags[fromRow];
+        icons[row] = (short) indexOf(from.getIcon(fromRow));
+        if (from.is(fromRow, OWN_DISPLAY_NAME)) {
+            displayNames.put(row, from.displayNames.get(fromRow));
+        } else {
+            displayNames.remove(row);
+        }
+    }
+
+    /** Whether both rows stand for the same path. Compares encoded names. */
+    boolean sameFile(int row, FileRows other, int otherRow) {
+        int parent = parents[row];
+        int otherParent = other.parents[otherRow];
+        if (parent < 0 || otherParent < 0) {
+            if (parent != otherParent) {
+                return false;
+            }
+        } else if (this == other
+                ? parent != otherParent
+                : !parentTable.get(parent).equals(other.parentTable.get(otherParent))) {
+            return false;
+        }
+        int start = nameOffsets[row];
+        int length = nameOffsets[row + 1] - start;
+        int otherStart = other.nameOffsets[otherRow];
+        if (other.nameOffsets[otherRow + 1] - otherStart != length) {
+            return false;
+        }
+        for (int ii = 0; ii < length; ii++) {
+            if (names[start + ii] != other.names[otherStart + ii]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Whether both rows would be shown alike: same attributes, icon and display name. */
+    boolean sameAttributes(int row, FileRows other, int otherRow) {
+        return lengths[row] == other.lengths[otherRow]
+                && lastModified[row] == other.lastModified[otherRow]
+                && flags[row] == other.flags[otherRow]
+                && getIcon(row) == other.getIcon(otherRow)
+                && getDisplayName(row).equals(other.getDisplayName(otherRow));
+    }
+
+    /** The row as a standalone object, e.g. for the details panel. */
+    FileInfo getInfo(int row) {
+        return new FileInfo(
+                getFile(row),
+                getDisplayName(row),
+                getIcon(row),
+                lengths[row],
+                lastModified[row],
+                is(row, EXISTS),
+                is(row, READABLE),
+                is(row, WRITABLE),
+                is(row, EXECUTABLE),
+                is(row, DIRECTORY),
+                is(row, FILE));
+    }
+
+    /** Row of {@code file}, trying {@code hint} first; -1 if absent. Compares encoded names. */
+    int indexOf(File file, int hint) {
+        String name = file.getName();
+        String parent = file.getParent();
+        if (name.length() == 0) {
+            name = file.getPath();
+            parent = null;
+        }
+        Integer parentRow = parent == null ? Integer.valueOf(-1) : parentIndex.get(parent);
+        if (parentRow == null) {
+            return -1;
+        }
+        byte[] encoded = name.getBytes(UTF_8);
+        if (hint >= 0 && hint < size && matches(hint, parentRow, encoded)) {
+            return hint;
+        }
+        for (int row = 0; row < size; row++) {
+            if (matches(row, parentRow, encoded)) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    private boolean matches(int row, int parent, byte[] encoded) {
+        if (parents[row] != parent) {
+            return false;
+        }
+        int start = nameOffsets[row];
+        if (nameOffsets[row + 1] - start != encoded.length) {
+            return false;
+        }
+        for (int ii = 0; ii < encoded.length; ii++) {
+            if (names[start + ii] != encoded[ii]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,388 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.ImageIcon;
+import javax.swing.filechooser.FileSystemView;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * A TableModel to hold File[]. The metadata of each file is read into {@link FileRows} before it
+ * is shown, so painting the table never touches the file system and a row costs a few dozen
+ * bytes rather than a File plus boxed attributes.
+ */
+class FileTableModel extends AbstractTableModel {
+
+    /** More row events than this make {@link #update} replace the rows as a whole. */
+    static final int MAX_ROW_EVENTS = 64;
+
+    private FileRows rows;
+    /** The folder a flattened subtree is shown relative to, or null for a plain listing. */
+    private String base;
+    /** Texts of the size and date cells by row, made when a row is first painted. */
+    private String[] sizeTexts;
+    private String[] dateTexts;
+    private FileSystemView fileSystemView = FileSystemView.getFileSystemView();
+    private IconCache icons = new IconCache(fileSystemView);
+    private ThumbnailCache thumbnails;
+    private String[] columns = {
+        "Icon", "File", "Path/name", "Size", "Last Modified", "R", "W", "E", "D", "F",
+    };
+
+    FileTableModel() {
+        this(new File[0]);
+    }
+
+    /** Reads the metadata of {@code files} on the calling thread. */
+    FileTableModel(File[] files) {
+        this.rows = FileRows.read(files, fileSystemView, icons);
+    }
+
+    public Object getValueAt(int row, int column) {
+        switch (column) {
+            case 0:
+                if (thumbnails != null) {
+                    ImageIcon thumbnail = thumbnails.get(rows, row);
+                    if (thumbnail != null) {
+                        return thumbnail;
+                    }
+                }
+                return rows.getIcon(row);
+            case 1:
+                return rows.getDisplayName(row);
+            case 2:
+                String path = rows.getPath(row);
+                if (base != null && path.startsWith(base)) {
+                    return path.substring(base.length());
+                }
+                return path;
+            case 3:
+                return rows.getLength(row);
+            case 4:
+                return new Date(rows.getLastModified(row));
+            case 5:
+                return rows.is(row, FileRows.READABLE);
+            case 6:
+                return rows.is(row, FileRows.WRITABLE);
+            case 7:
+                return rows.is(row, FileRows.EXECUTABLE);
+            case 8:
+                return rows.is(row, FileRows.DIRECTORY);
+            case 9:
+                return rows.is(row, FileRows.FILE);
+            default:
+                System.err.println("Logic Error");
+        }
+        return "";
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    /**
+     * The text painted for the size (column 3) or the date (column 4) of {@code row}. It is
+     * formatted the first time the row is painted and kept until the rows change, so scrolling
+     * back and forth formats nothing; unpainted rows cost nothing.
+     */
+    String getText(int row, int column) {
+        if (sizeTexts == null || sizeTexts.length < rows.size()) {
+            int length = Math.max(rows.size(), sizeTexts == null ? 0 : sizeTexts.length * 3 / 2);
+            sizeTexts = sizeTexts == null ? new String[length] : Arrays.copyOf(sizeTexts, length);
+            dateTexts = dateTexts == null ? new String[length] : Arrays.copyOf(dateTexts, length);
+        }
+        String[] texts = column == 3 ? sizeTexts : dateTexts;
+        String text = texts[row];
+        if (text == null) {
+            text =
+                    column == 3
+                            ? Formats.size(rows.getLength(row))
+                            : Formats.dateTime(rows.getLastModified(row));
+            texts[row] = text;
+        }
+        return text;
+    }
+
+    private void clearTexts() {
+        sizeTexts = null;
+        dateTexts = null;
+    }
+
+    public Class<?> getColumnClass(int column) {
+        switch (column) {
+            case 0:
+                return ImageIcon.class;
+            case 3:
+                return Long.class;
+            case 4:
+                return Date.class;
+            case 5:
+            case 6:
+            case 7:
+            case 8:
+            case 9:
+                return Boolean.class;
+        }
+        return String.class;
+    }
+
+    public String getColumnName(int column) {
+        return columns[column];
+    }
+
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    /** The file of {@code row}, created on demand; null if out of range. */
+    public File getFile(int row) {
+        if (row < 0 || row >= rows.size()) {
+            return null;
+        }
+        return rows.getFile(row);
+    }
+
+    FileInfo getInfo(int row) {
+        if (row < 0 || row >= rows.size()) {
+            return null;
+        }
+        return rows.getInfo(row);
+    }
+
+    boolean isDirectory(int row) {
+        return row >= 0 && row < rows.size() && rows.is(row, FileRows.DIRECTORY);
+    }
+
+    /** Reads the metadata of {@code files} on the calling thread and shows them. */
+    public void setFiles(File[] files) {
+        setRows(FileRows.read(files == null ? new File[0] : files, fileSystemView, icons));
+    }
+
+    void setRows(FileRows rows) {
+        setRows(rows, null);
+    }
+
+    /**
+     * Shows {@code rows}, with paths relative to {@code base} when it is not null; used for the
+     * descendants of {@code base} gathered from several listings.
+     */
+    void setRows(FileRows rows, File base) {
+        this.rows = rows == null ? new FileRows() : rows;
+        clearTexts();
+        if (base == null) {
+            this.base = null;
+        } else {
+            String path = base.getPath();
+            this.base = path.endsWith(File.separator) ? path : path + File.separator;
+        }
+        fireTableDataChanged();
+    }
+
+    /**
+     * Shows {@code next}, a new listing of the directory shown, by row events for what changed
+     * rather than one {@link #fireTableDataChanged}: each run of removed rows, each run of
+     * changed rows and the added rows, which go to the end, get one event. The other rows keep
+     * their place, so the table keeps its selection and scroll position and the sorter and
+     * filter only look at the rows named by the events. Past {@link #MAX_ROW_EVENTS} events, or
+     * when the rows are not a plain listing, the rows are replaced like {@link #setRows}.
+     *
+     * @return false if the rows were replaced as a whole
+     */
+    boolean update(FileRows next) {
+        if (next == null) {
+            next = new FileRows();
+        }
+        int oldSize = rows.size();
+        if (base != null || oldSize == 0) {
+            setRows(next);
+            return false;
+        }
+        // the row of next for each current row, or -1 if it is gone
+        int[] match = new int[oldSize];
+        boolean[] matched = new boolean[next.size()];
+        // both listings usually come in the same order: step over single removals and additions
+        int old = 0;
+        int row = 0;
+        while (old < oldSize && row < next.size()) {
+            if (rows.sameFile(old, next, row)) {
+                match[old++] = row;
+                matched[row++] = true;
+            } else if (old + 1 < oldSize && rows.sameFile(old + 1, next, row)) {
+                match[old++] = -1;
+            } else if (row + 1 < next.size() && rows.sameFile(old, next, row + 1)) {
+                row++;
+            } else {
+                break;
+            }
+        }
+        if (old < oldSize) {
+            // listed in another order; only the rest is hashed
+            Map<String, Integer> rest = new HashMap<String, Integer>();
+            for (int added = row; added < next.size(); added++) {
+                rest.put(next.getPath(added), added);
+            }
+            for (; old < oldSize; old++) {
+                Integer found = rest.remove(rows.getPath(old));
+                match[old] = found == null ? -1 : found;
+                if (found != null) {
+                    matched[found] = true;
+                }
+            }
+        }
+
+        int events = countUnmatched(matched) > 0 ? 1 : 0;
+        boolean inRemoved = false;
+        boolean inChanged = false;
+        for (old = 0; old < oldSize; old++) {
+            boolean removed = match[old] < 0;
+            if (removed) {
+                events += inRemoved ? 0 : 1;
+            } else {
+                boolean changed = !rows.sameAttributes(old, next, match[old]);
+                // removed rows in between do not split a run of changed ones
+                events += changed && !inChanged ? 1 : 0;
+                inChanged = changed;
+            }
+            inRemoved = removed;
+        }
+        if (events > MAX_ROW_EVENTS) {
+            setRows(next);
+            return false;
+        }
+        if (events == 0) {
+            return true;
+        }
+
+        FileRows owned = rows.copy();
+        rows = owned;
+        // rows move up as others are removed; the few painted rows are formatted again
+        clearTexts();
+        for (int last = oldSize - 1; last >= 0; last--) {
+            if (match[last] < 0) {
+                int first = last;
+                while (first > 0 && match[first - 1] < 0) {
+                    first--;
+                }
+                owned.remove(first, last);
+                fireTableRowsDeleted(first, last);
+                last = first;
+            }
+        }
+        row = 0;
+        int changedFrom = -1;
+        for (old = 0; old < oldSize; old++) {
+            if (match[old] < 0) {
+                continue;
+            }
+            if (!owned.sameAttributes(row, next, match[old])) {
+                owned.set(row, next, match[old]);
+                if (changedFrom < 0) {
+                    changedFrom = row;
+                }
+            } else if (changedFrom >= 0) {
+                fireTableRowsUpdated(changedFrom, row - 1);
+                changedFrom = -1;
+            }
+            row++;
+        }
+        if (changedFrom >= 0) {
+            fireTableRowsUpdated(changedFrom, row - 1);
+        }
+        int first = owned.size();
+        for (int added = 0; added < next.size(); added++) {
+            if (!matched[added]) {
+                owned.add(next, added);
+            }
+        }
+        if (owned.size() > first) {
+            fireTableRowsInserted(first, owned.size() - 1);
+        }
+        return true;
+    }
+
+    private static int countUnmatched(boolean[] matched) {
+        int unmatched = 0;
+        for (boolean found : matched) {
+            if (!found) {
+                unmatched++;
+            }
+        }
+        return unmatched;
+    }
+
+    /** The rows shown; read them on the EDT. */
+    FileRows getRows() {
+        return rows;
+    }
+
+    /**
+     * Appends {@code more} to the rows shown. Only for rows the model owns, i.e. after {@link
+     * #setRows} with new rows, never with a cached listing.
+     */
+    void addRows(FileRows more) {
+        addRows(Collections.singletonList(more));
+    }
+
+    /**
+     * Appends all of {@code chunks} with a single event, so a sorter places them in one pass
+     * instead of once per chunk.
+     */
+    void addRows(List<FileRows> chunks) {
+        int first = rows.size();
+        for (FileRows more : chunks) {
+            for (int row = 0; row < more.size(); row++) {
+                rows.add(more, row);
+            }
+        }
+        if (rows.size() > first) {
+            fireTableRowsInserted(first, rows.size() - 1);
+        }
+    }
+
+    /** Enables previews in column 0, or plain system icons when {@code null}. */
+    void setThumbnails(ThumbnailCache thumbnails) {
+        if (this.thumbnails != thumbnails) {
+            this.thumbnails = thumbnails;
+            if (getRowCount() > 0) {
+                fireTableRowsUpdated(0, getRowCount() - 1);
+            }
+        }
+    }
+
+    /** Repaints the row showing {@code file}, trying {@code rowHint} before searching. */
+    void fireFileUpdated(File file, int rowHint) {
+        int row = rows.indexOf(file, rowHint);
+        if (row >= 0) {
+            fireTableCellUpdated(row, 0);
+        }
+    }
+}
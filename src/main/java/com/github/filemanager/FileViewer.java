@@ -0,0 +1,630 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.awt.BorderLayout;
+import java.awt.CardLayout;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.AdjustmentEvent;
+import java.awt.event.AdjustmentListener;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.event.MouseWheelListener;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import javax.swing.ButtonGroup;
+import javax.swing.JButton;
+import javax.swing.JComboBox;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollBar;
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
+import javax.swing.JTextField;
+import javax.swing.JToggleButton;
+import javax.swing.JToolBar;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.border.EmptyBorder;
+import javax.swing.text.BadLocationException;
+
+/**
+ * A read-only text/hex viewer for files of any size.
+ *
+ * <p>The file is accessed through a {@link MappedFile}, and only the lines that fit in the
+ * window are decoded and painted. The view position is a byte offset, so jumping to any offset
+ * is immediate; jumping to a line uses a {@link LineIndex} that is built in the background.
+ *
+ * <p>In follow mode the view switches to the tail of the file, fed by a {@link LogFollower}.
+ */
+class FileViewer extends JPanel {
+
+    /** Longer lines are wrapped so that scanning for line boundaries stays bounded. */
+    private static final int MAX_LINE_BYTES = 4096;
+
+    private static final int HEX_BYTES_PER_ROW = 16;
+    private static final int SCROLL_STEPS = 1000000;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /** Lines kept in memory (and shown) while following. */
+    private static final int FOLLOW_LINES = 10000;
+
+    private static final long FOLLOW_POLL_MILLIS = 1000;
+
+    private File file;
+    private MappedFile mappedFile;
+    private LineIndex lineIndex;
+    private Thread indexer;
+
+    private long topOffset;
+    private boolean hexMode;
+    private boolean adjustingScrollBar;
+
+    private final ViewerCanvas canvas = new ViewerCanvas();
+    private final JScrollBar scrollBar =
+            new JScrollBar(JScrollBar.VERTICAL, 0, 1, 0, SCROLL_STEPS);
+    private final JLabel statusLabel = new JLabel(" ");
+    private final JComboBox<String> gotoKind =
+            new JComboBox<String>(new String[] {"Line", "Offset"});
+    private final JTextField gotoField = new JTextField(12);
+    private final Timer statusTimer;
+
+    private final CardLayout cards = new CardLayout();
+    private final JPanel center = new JPanel(cards);
+    private final JToggleButton follow = new JToggleButton("Follow");
+    private final JTextArea followArea = new JTextArea();
+    private final Timer followTimer;
+    private LogFollower follower;
+    private LineRingBuffer followLines;
+    private long followSeen;
+
+    FileViewer() {
+        super(new BorderLayout(3, 3));
+        setBorder(new EmptyBorder(5, 5, 5, 5));
+
+        JToolBar toolBar = new JToolBar();
+        toolBar.setFloatable(false);
+
+        JToggleButton text = new JToggleButton("Text", true);
+        JToggleButton hex = new JToggleButton("Hex");
+        ButtonGroup modes = new ButtonGroup();
+        modes.add(text);
+        modes.add(hex);
+        text.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        setHexMode(false);
+                    }
+                });
+        hex.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        setHexMode(true);
+                    }
+                });
+        toolBar.add(text);
+        toolBar.add(hex);
+        follow.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        setFollowing(follow.isSelected());
+                    }
+                });
+        toolBar.add(follow);
+        toolBar.addSeparator();
+
+        JPanel gotoPanel = new JPanel(new FlowLayout(FlowLayout.LEADING, 4, 0));
+        gotoPanel.add(new JLabel("Go to"));
+        gotoPanel.add(gotoKind);
+        gotoPanel.add(gotoField);
+        JButton go = new JButton("Go");
+        ActionListener goAction =
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        goTo();
+                    }
+                };
+        go.addActionListener(goAction);
+        gotoField.addActionListener(goAction);
+        gotoPanel.add(go);
+        toolBar.add(gotoPanel);
+
+        JPanel pagedView = new JPanel(new BorderLayout());
+        pagedView.add(canvas, BorderLayout.CENTER);
+        pagedView.add(scrollBar, BorderLayout.EAST);
+        followArea.setEditable(false);
+        followArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        center.add(pagedView, "paged");
+        center.add(new JScrollPane(followArea), "follow");
+
+        add(toolBar, BorderLayout.NORTH);
+        add(center, BorderLayout.CENTER);
+        add(statusLabel, BorderLayout.SOUTH);
+
+        scrollBar.addAdjustmentListener(
+                new AdjustmentListener() {
+                    public void adjustmentValueChanged(AdjustmentEvent e) {
+                        if (!adjustingScrollBar && mappedFile != null) {
+                            double fraction = (double) e.getValue() / SCROLL_STEPS;
+                            setTopOffset((long) (fraction * fileSize()));
+                        }
+                    }
+                });
+        canvas.addMouseWheelListener(
+                new MouseWheelListener() {
+                    public void mouseWheelMoved(MouseWheelEvent e) {
+                        scrollRows(e.getWheelRotation() * 3);
+                    }
+                });
+        canvas.addMouseListener(
+                new MouseAdapter() {
+                    @Override
+                    public void mousePressed(MouseEvent e) {
+                        canvas.requestFocusInWindow();
+                    }
+                });
+        canvas.setFocusable(true);
+        canvas.addKeyListener(
+                new KeyAdapter() {
+                    @Override
+                    public void keyPressed(KeyEvent e) {
+                        switch (e.getKeyCode()) {
+                            case KeyEvent.VK_UP:
+                                scrollRows(-1);
+                                break;
+                            case KeyEvent.VK_DOWN:
+                                scrollRows(1);
+                                break;
+                            case KeyEvent.VK_PAGE_UP:
+                                scrollRows(-canvas.visibleRows());
+                                break;
+                            case KeyEvent.VK_PAGE_DOWN:
+                                scrollRows(canvas.visibleRows());
+                                break;
+                            case KeyEvent.VK_HOME:
+                                setTopOffset(0);
+                                break;
+                            case KeyEvent.VK_END:
+                                setTopOffset(fileSize());
+                                scrollRows(-canvas.visibleRows() + 1);
+                                break;
+                            default:
+                                return;
+                        }
+                        e.consume();
+                    }
+                });
+
+        statusTimer =
+                new Timer(
+                        250,
+                        new ActionListener() {
+                            public void actionPerformed(ActionEvent ae) {
+                                updateStatus();
+                                if (lineIndex == null || lineIndex.isComplete()) {
+                                    statusTimer.stop();
+                                }
+                            }
+                        });
+        followTimer =
+                new Timer(
+                        200,
+                        new ActionListener() {
+                            public void actionPerformed(ActionEvent ae) {
+                                appendFollowedLines();
+                            }
+                        });
+    }
+
+    /** Opens {@code file}, closing any previously shown file. */
+    void open(File file) throws IOException {
+        close();
+        this.file = file;
+        follow.setSelected(false);
+        cards.show(center, "paged");
+        mappedFile = new MappedFile(file);
+        lineIndex = new LineIndex(mappedFile);
+        final LineIndex index = lineIndex;
+        indexer =
+                new Thread(
+                        new Runnable() {
+                            public void run() {
+                                try {
+                                    index.build();
+                                } catch (IOException ignored) {
+                                    // the viewer keeps working by offset without the index
+                                }
+                            }
+                        },
+                        "line-indexer");
+        indexer.setDaemon(true);
+        indexer.setPriority(Thread.MIN_PRIORITY);
+        indexer.start();
+        topOffset = 0;
+        statusTimer.start();
+        updateScrollBar();
+        updateStatus();
+        canvas.repaint();
+    }
+
+    /** Stops indexing and releases the mapped file. */
+    void close() {
+        stopFollowing();
+        statusTimer.stop();
+        if (indexer != null) {
+            indexer.interrupt();
+            indexer = null;
+        }
+        if (mappedFile != null) {
+            try {
+                mappedFile.close();
+            } catch (IOException ignored) {
+            }
+            mappedFile = null;
+        }
+        lineIndex = null;
+    }
+
+    /**
+     * Switches between the paged view and following the tail of the file. Leaving follow mode
+     * reopens the file so the paged view covers what was appended.
+     */
+    void setFollowing(boolean following) {
+        follow.setSelected(following);
+        if (file == null) {
+            return;
+        }
+        if (following) {
+            if (follower != null) {
+                return;
+            }
+            followLines = new LineRingBuffer(FOLLOW_LINES);
+            followSeen = 0;
+            followArea.setText("");
+            follower =
+                    new LogFollower(
+                            file,
+                            followLines,
+                            FOLLOW_POLL_MILLIS,
+                            new LogFollower.Listener() {
+                                public void followerEvent(final String message) {
+                                    SwingUtilities.invokeLater(
+                                            new Runnable() {
+                                                public void run() {
+                                                    statusLabel.setText(" " + message);
+                                                }
+                                            });
+                                }
+                            });
+            follower.start();
+            followTimer.start();
+            cards.show(center, "follow");
+            statusLabel.setText(" Following " + file.getName());
+        } else {
+            File followed = file;
+            long offset = topOffset;
+            boolean hex = hexMode;
+            cards.show(center, "paged");
+            try {
+                open(followed);
+                hexMode = hex;
+                setTopOffset(offset);
+            } catch (IOException ex) {
+                statusLabel.setText(" " + ex.getMessage());
+            }
+        }
+    }
+
+    private void stopFollowing() {
+        followTimer.stop();
+        if (follower != null) {
+            follower.stop();
+            follower = null;
+        }
+    }
+
+    /** Moves newly followed lines into the text area, trimming it to the ring buffer size. */
+    private void appendFollowedLines() {
+        if (followLines == null) {
+            return;
+        }
+        long total = followLines.total();
+        if (total == followSeen) {
+            return;
+        }
+        List<String> added = followLines.since(followSeen);
+        StringBuilder sb = new StringBuilder();
+        for (String line : added) {
+            sb.append(line).append('\n');
+        }
+        if (total - followSeen >= followLines.capacity()) {
+            followArea.setText(sb.toString());
+        } else {
+            followArea.append(sb.toString());
+            int excess = followArea.getLineCount() - 1 - followLines.capacity();
+            if (excess > 0) {
+                try {
+                    followArea.replaceRange("", 0, followArea.getLineStartOffset(excess));
+                } catch (BadLocationException ignored) {
+                }
+            }
+        }
+        followSeen = total;
+        followArea.setCaretPosition(followArea.getDocument().getLength());
+    }
+
+    long getTopOffset() {
+        return topOffset;
+    }
+
+    void setHexMode(boolean hexMode) {
+        this.hexMode = hexMode;
+        setTopOffset(topOffset);
+    }
+
+    private long fileSize() {
+        return mappedFile == null ? 0 : mappedFile.size();
+    }
+
+    /** Moves the view so that the row containing {@code offset} is at the top. */
+    void setTopOffset(long offset) {
+        if (mappedFile == null) {
+            return;
+        }
+        offset = Math.max(0, Math.min(offset, Math.max(0, fileSize() - 1)));
+        try {
+            topOffset = hexMode ? offset - offset % HEX_BYTES_PER_ROW : lineStart(offset);
+        } catch (IOException ex) {
+            topOffset = offset;
+        }
+        updateScrollBar();
+        updateStatus();
+        canvas.repaint();
+    }
+
+    /** Jumps to the zero-based {@code line}; returns false if the index has not reached it. */
+    boolean goToLine(long line) throws IOException {
+        if (lineIndex == null) {
+            return false;
+        }
+        long offset = lineIndex.offsetOfLine(line);
+        if (offset < 0) {
+            return false;
+        }
+        setTopOffset(offset);
+        return true;
+    }
+
+    private void goTo() {
+        String text = gotoField.getText().trim();
+        if (text.length() == 0 || mappedFile == null) {
+            return;
+        }
+        try {
+            if ("Offset".equals(gotoKind.getSelectedItem())) {
+                long offset =
+                        text.startsWith("0x")
+                                ? Long.parseLong(text.substring(2), 16)
+                                : Long.parseLong(text);
+                setTopOffset(offset);
+            } else if (!goToLine(Long.parseLong(text) - 1)) {
+                statusLabel.setText(
+                        " Line "
+                                + text
+                                + " is not indexed yet ("
+                                + lineIndex.getIndexedLines()
+                                + " lines so far)");
+                return;
+            }
+            canvas.requestFocusInWindow();
+        } catch (NumberFormatException ex) {
+            statusLabel.setText(" Not a number: " + text);
+        } catch (IOException ex) {
+            statusLabel.setText(" " + ex.getMessage());
+        }
+    }
+
+    private void scrollRows(int rows) {
+        if (mappedFile == null) {
+            return;
+        }
+        try {
+            long offset = topOffset;
+            if (hexMode) {
+                offset += (long) rows * HEX_BYTES_PER_ROW;
+            } else {
+                for (int ii = 0; ii < rows && offset < fileSize(); ii++) {
+                    offset = nextLineStart(offset);
+                }
+                for (int ii = 0; ii > rows && offset > 0; ii--) {
+                    offset = lineStart(offset - 1);
+                }
+            }
+            setTopOffset(offset);
+        } catch (IOException ex) {
+            statusLabel.setText(" " + ex.getMessage());
+        }
+    }
+
+    /** Start of the line that contains {@code offset}, looking back at most one wrapped line. */
+    private long lineStart(long offset) throws IOException {
+        long limit = Math.max(0, offset - MAX_LINE_BYTES);
+        for (long position = offset - 1; position >= limit; position--) {
+            if (mappedFile.byteAt(position) == '\n') {
+                return position + 1;
+            }
+        }
+        return limit;
+    }
+
+    private long nextLineStart(long offset) throws IOException {
+        byte[] buffer = new byte[MAX_LINE_BYTES];
+        int read = mappedFile.read(offset, buffer, 0, buffer.length);
+        if (read <= 0) {
+            return offset;
+        }
+        for (int ii = 0; ii < read; ii++) {
+            if (buffer[ii] == '\n') {
+                return offset + ii + 1;
+            }
+        }
+        return offset + read;
+    }
+
+    private void updateScrollBar() {
+        adjustingScrollBar = true;
+        try {
+            long size = fileSize();
+            scrollBar.setValue(size == 0 ? 0 : (int) ((double) topOffset / size * SCROLL_STEPS));
+        } finally {
+            adjustingScrollBar = false;
+        }
+    }
+
+    private void updateStatus() {
+        if (mappedFile == null) {
+            statusLabel.setText(" ");
+            return;
+        }
+        StringBuilder sb = new StringBuilder(" Offset ").append(topOffset);
+        sb.append(" of ").append(fileSize()).append(" bytes");
+        if (lineIndex != null) {
+            try {
+                long line = lineIndex.lineOfOffset(topOffset);
+                if (line >= 0) {
+                    sb.append(", line ").append(line + 1);
+                }
+            } catch (IOException ignored) {
+            }
+            if (lineIndex.isComplete()) {
+                sb.append(" | ").append(lineIndex.getIndexedLines()).append(" lines");
+            } else {
+                long size = fileSize();
+                long percent = size == 0 ? 100 : lineIndex.getIndexedBytes() * 100 / size;
+                sb.append(" | indexing lines: ").append(percent).append('%');
+            }
+        }
+        statusLabel.setText(sb.toString());
+    }
+
+    /** Formats one hex dump row without going through {@code String.format}. */
+    static String hexRow(long offset, byte[] bytes, int start, int count) {
+        StringBuilder sb = new StringBuilder(80);
+        for (int shift = 36; shift >= 0; shift -= 4) {
+            sb.append(HEX[(int) (offset >>> shift) & 0xF]);
+        }
+        sb.append("  ");
+        for (int ii = 0; ii < HEX_BYTES_PER_ROW; ii++) {
+            if (ii < count) {
+                int b = bytes[start + ii] & 0xFF;
+                sb.append(HEX[b >> 4]).append(HEX[b & 0xF]).append(' ');
+            } else {
+                sb.append("   ");
+            }
+            if (ii == 7) {
+                sb.append(' ');
+            }
+        }
+        sb.append(" |");
+        for (int ii = 0; ii < count; ii++) {
+            int b = bytes[start + ii] & 0xFF;
+            sb.append(b >= 0x20 && b < 0x7F ? (char) b : '.');
+        }
+        return sb.append('|').toString();
+    }
+
+    /** Paints only the rows that fit in the component. */
+    private class ViewerCanvas extends JComponent {
+
+        private final byte[] buffer = new byte[MAX_LINE_BYTES];
+
+        ViewerCanvas() {
+            setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+            setPreferredSize(new Dimension(720, 480));
+            setOpaque(true);
+        }
+
+        int visibleRows() {
+            return Math.max(1, getHeight() / getFontMetrics(getFont()).getHeight());
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, getWidth(), getHeight());
+            if (mappedFile == null) {
+                return;
+            }
+            g.setColor(Color.BLACK);
+            g.setFont(getFont());
+            FontMetrics metrics = g.getFontMetrics();
+            int rows = visibleRows() + 1;
+            int y = metrics.getAscent();
+            long offset = topOffset;
+            try {
+                for (int row = 0; row < rows && offset < fileSize(); row++) {
+                    String text;
+                    if (hexMode) {
+                        int read = mappedFile.read(offset, buffer, 0, HEX_BYTES_PER_ROW);
+                        text = hexRow(offset, buffer, 0, read);
+                        offset += read;
+                    } else {
+                        int read = mappedFile.read(offset, buffer, 0, buffer.length);
+                        int end = 0;
+                        while (end < read && buffer[end] != '\n') {
+                            end++;
+                        }
+                        int next = end < read ? end + 1 : read;
+                        if (end > 0 && buffer[end - 1] == '\r') {
+                            end--;
+                        }
+                        text =
+                                new String(buffer, 0, end, StandardCharsets.UTF_8)
+                                        .replace('\t', ' ');
+                        offset += next;
+                    }
+                    g.drawString(text, 4, y);
+                    y += metrics.getHeight();
+                }
+            } catch (IOException ex) {
+                g.setColor(Color.RED);
+                g.drawString(ex.toString(), 4, y);
+            }
+        }
+    }
+}
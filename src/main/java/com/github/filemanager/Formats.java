@@ -0,0 +1,110 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Formats sizes and times for display. Safe to use from any thread, unlike the {@link
+ * java.text.SimpleDateFormat} it replaces, so metadata can be formatted off the EDT.
+ *
+ * <p>Sizes are bucketed with shifts instead of logarithms and built without {@link
+ * String#format}. Times go through {@link DateTimeFormatter}, and the text of recent seconds is
+ * kept, so the many files of a listing written in the same second share one string.
+ */
+final class Formats {
+
+    /** Seconds whose text is kept; a power of two, as the second picks the slot. */
+    private static final int DATE_SLOTS = 1024;
+
+    private static final String UNITS = "KMGTPE";
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+    private static final DateTimeFormatter DATE_TIME =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZONE);
+
+    /** A second and its text; immutable, so slots can be read and replaced without locks. */
+    private static final class Second {
+        final long second;
+        final String text;
+
+        Second(long second, String text) {
+            this.second = second;
+            this.text = text;
+        }
+    }
+
+    private static final AtomicReferenceArray<Second> SECONDS =
+            new AtomicReferenceArray<Second>(DATE_SLOTS);
+
+    private Formats() {}
+
+    /**
+     * {@code bytes} as e.g. {@code 512 B} or {@code 1.50 KB}, with two decimals rounded half up
+     * and a point whatever the locale.
+     */
+    static String size(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        int exp = (63 - Long.numberOfLeadingZeros(bytes)) / 10;
+        int shift = 10 * exp;
+        long whole = bytes >>> shift;
+        long remainder = bytes & ((1L << shift) - 1);
+        long hundredths;
+        if (exp < 6) {
+            hundredths = (remainder * 100 + (1L << (shift - 1))) >>> shift;
+        } else {
+            // exabytes: drop ten bits first so the product stays within a long
+            hundredths = ((remainder >>> 10) * 100 + (1L << (shift - 11))) >>> (shift - 10);
+        }
+        if (hundredths == 100) {
+            whole++;
+            hundredths = 0;
+        }
+        StringBuilder sb = new StringBuilder(12);
+        sb.append(whole).append('.');
+        if (hundredths < 10) {
+            sb.append('0');
+        }
+        sb.append(hundredths).append(' ').append(UNITS.charAt(exp - 1)).append('B');
+        return sb.toString();
+    }
+
+    /** {@code millis} since the epoch as {@code yyyy-MM-dd HH:mm:ss} in the local time zone. */
+    static String dateTime(long millis) {
+        long second = Math.floorDiv(millis, 1000);
+        int slot = (int) (second & (DATE_SLOTS - 1));
+        Second cached = SECONDS.get(slot);
+        if (cached != null && cached.second == second) {
+            return cached.text;
+        }
+        String text = DATE_TIME.format(Instant.ofEpochSecond(second));
+        SECONDS.set(slot, new Second(second, text));
+        return text;
+    }
+}
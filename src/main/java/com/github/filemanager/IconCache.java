@@ -0,0 +1,90 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.File;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.swing.Icon;
+import javax.swing.filechooser.FileSystemView;
+
+/**
+ * System icons shared by all files of the same kind.
+ *
+ * <p>Directories share one icon and files share one icon per extension, so the system is asked
+ * once per kind instead of once per file. Extensions whose files carry their own icon (programs,
+ * shortcuts, icon files) are always looked up.
+ */
+class IconCache {
+
+    private static final String DIRECTORY_KEY = "/";
+    private static final String[] OWN_ICON_EXTENSIONS = {
+        "exe", "lnk", "ico", "cur", "url", "scr", "msi", "app", "desktop"
+    };
+
+    private final FileSystemView fileSystemView;
+    private final ConcurrentMap<String, Icon> icons = new ConcurrentHashMap<String, Icon>();
+
+    IconCache(FileSystemView fileSystemView) {
+        this.fileSystemView = fileSystemView;
+    }
+
+    /** Icon of {@code file}; may access the file system on a cache miss. */
+    Icon get(File file, boolean directory) {
+        String key = key(file, directory);
+        Icon icon = key == null ? null : icons.get(key);
+        if (icon == null) {
+            long start = Metrics.start();
+            icon = fileSystemView.getSystemIcon(file);
+            Metrics.stop(Metrics.ICON, start);
+            if (key != null && icon != null) {
+                icons.putIfAbsent(key, icon);
+            }
+        }
+        return icon;
+    }
+
+    /** Cached icon for a directory, or null if none has been looked up yet. */
+    Icon getDirectoryIcon() {
+        return icons.get(DIRECTORY_KEY);
+    }
+
+    /** The cache key for {@code file}, or null if its icon must not be shared. */
+    static String key(File file, boolean directory) {
+        if (directory) {
+            return DIRECTORY_KEY;
+        }
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        String extension = dot <= 0 ? "" : name.substring(dot + 1).toLowerCase(Locale.ROOT);
+        for (String own : OWN_ICON_EXTENSIONS) {
+            if (own.equals(extension)) {
+                return null;
+            }
+        }
+        return "." + extension;
+    }
+}
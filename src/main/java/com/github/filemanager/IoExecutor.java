@@ -0,0 +1,113 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The executor for blocking file system work such as listings, metadata reads and size walks.
+ *
+ * <p>On a JDK with virtual threads every task gets its own virtual thread, so hundreds of
+ * listings stuck on slow disks cost almost nothing. Older runtimes get a pool of {@link
+ * #PLATFORM_THREADS} daemon threads instead. The JDK API is looked up reflectively since the
+ * code still compiles for Java 8.
+ */
+final class IoExecutor {
+
+    static final int PLATFORM_THREADS = 64;
+
+    private static final ExecutorService SHARED = create("file-io");
+
+    private IoExecutor() {}
+
+    /** The executor shared by the whole application. */
+    static ExecutorService get() {
+        return SHARED;
+    }
+
+    /** Whether {@link #get()} runs tasks on virtual threads. */
+    static boolean isVirtual() {
+        return !(SHARED instanceof ThreadPoolExecutor);
+    }
+
+    /** A new executor with virtual threads if available, else a bounded daemon pool. */
+    static ExecutorService create(String name) {
+        ExecutorService virtual = newVirtualThreadPerTaskExecutor();
+        return virtual != null ? virtual : newPlatformExecutor(name, PLATFORM_THREADS);
+    }
+
+    /**
+     * Like {@link #create} but never queues: for calls that may hang indefinitely, where a
+     * bounded pool could be used up by a single dead mount.
+     */
+    static ExecutorService createUnbounded(final String name) {
+        ExecutorService virtual = newVirtualThreadPerTaskExecutor();
+        if (virtual != null) {
+            return virtual;
+        }
+        return Executors.newCachedThreadPool(
+                new ThreadFactory() {
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, name);
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+    }
+
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (Exception ex) {
+            // before Java 21, or virtual threads disabled
+            return null;
+        }
+    }
+
+    static ExecutorService newPlatformExecutor(final String name, int threads) {
+        ThreadPoolExecutor executor =
+                new ThreadPoolExecutor(
+                        threads,
+                        threads,
+                        30,
+                        TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<Runnable>(),
+                        new ThreadFactory() {
+                            public Thread newThread(Runnable r) {
+                                Thread thread = new Thread(r, name);
+                                thread.setDaemon(true);
+                                return thread;
+                            }
+                        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
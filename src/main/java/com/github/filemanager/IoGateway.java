@@ -0,0 +1,352 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.file.FileStore;
+import java.nio.file.FileSystems;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs file system calls with a time limit per mount.
+ *
+ * <p>A call to a dead network mount can block forever, so {@link #call} runs the work on a
+ * dedicated pool and gives up waiting after the mount's timeout. After {@link
+ * #DEFAULT_FAILURE_THRESHOLD} timeouts in a row the mount's circuit opens: further calls fail
+ * at once with {@link UnavailableException} instead of tying up more threads. Once the open
+ * period has passed a single probe call is let through, and its success closes the circuit
+ * again.
+ *
+ * <p>Mounts are identified by their mount point, found by path prefix so that resolving one
+ * never touches the file system.
+ */
+class IoGateway {
+
+    /** Notified, on the calling thread, when a mount becomes unavailable or recovers. */
+    interface Listener {
+        void mountStateChanged(String mount, boolean available);
+    }
+
+    /** Thrown when a mount did not answer in time or its circuit is open. */
+    static class UnavailableException extends IOException {
+
+        private final String mount;
+
+        UnavailableException(String mount, String message) {
+            super(message);
+            this.mount = mount;
+        }
+
+        String getMount() {
+            return mount;
+        }
+    }
+
+    static final long DEFAULT_TIMEOUT_MILLIS = 5000;
+    static final int DEFAULT_FAILURE_THRESHOLD = 3;
+    static final long DEFAULT_OPEN_MILLIS = 30000;
+    /** Mounts come and go while the window is open; /proc has no usable mtime, so re-read. */
+    static final long MOUNT_TABLE_TTL_MILLIS = 5000;
+
+    private static class Breaker {
+        int failures;
+        boolean open;
+        long openUntil;
+        boolean probing;
+    }
+
+    private final long defaultTimeoutMillis;
+    private final int failureThreshold;
+    private final long openMillis;
+    private final Map<String, Breaker> breakers = new HashMap<String, Breaker>();
+    private final Map<String, Long> timeouts = new ConcurrentHashMap<String, Long>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+    private final ExecutorService executor;
+    private volatile List<String> mountPoints;
+    private volatile long mountPointsReadAt;
+    private volatile Callable<List<String>> mountTable =
+            new Callable<List<String>>() {
+                public List<String> call() {
+                    return readMountPoints();
+                }
+            };
+    private volatile long mountTableTtlMillis = MOUNT_TABLE_TTL_MILLIS;
+
+    IoGateway() {
+        this(DEFAULT_TIMEOUT_MILLIS, DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_MILLIS);
+    }
+
+    IoGateway(long defaultTimeoutMillis, int failureThreshold, long openMillis) {
+        this.defaultTimeoutMillis = defaultTimeoutMillis;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+        // a hung call keeps its thread, so the pool must not be bounded
+        executor = IoExecutor.createUnbounded("io-gateway");
+    }
+
+    void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /** Overrides the timeout for one mount point, e.g. a slow but healthy network share. */
+    void setTimeout(String mount, long millis) {
+        timeouts.put(mount, millis);
+    }
+
+    long getTimeout(String mount) {
+        Long millis = timeouts.get(mount);
+        return millis == null ? defaultTimeoutMillis : millis;
+    }
+
+    /**
+     * Runs {@code task}, which accesses {@code file}, and waits for it up to the timeout of the
+     * file's mount. Never call this on the EDT.
+     *
+     * @throws UnavailableException if the mount did not answer in time or is known to be down
+     */
+    <T> T call(File file, Callable<T> task) throws IOException {
+        String mount = mountOf(file);
+        synchronized (this) {
+            Breaker breaker = breaker(mount);
+            if (breaker.open) {
+                if (breaker.probing || System.currentTimeMillis() < breaker.openUntil) {
+                    throw new UnavailableException(mount, mount + " is not responding");
+                }
+                // half open: this call probes whether the mount is back
+                breaker.probing = true;
+            }
+        }
+        Future<T> future = executor.submit(task);
+        try {
+            T result = future.get(getTimeout(mount), TimeUnit.MILLISECONDS);
+            succeeded(mount);
+            return result;
+        } catch (TimeoutException ex) {
+            future.cancel(true);
+            failed(mount);
+            throw new UnavailableException(
+                    mount, mount + " did not answer within " + getTimeout(mount) + " ms");
+        } catch (ExecutionException ex) {
+            // the file system answered, even if with an error
+            succeeded(mount);
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            synchronized (this) {
+                breaker(mount).probing = false;
+            }
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while accessing " + file);
+        }
+    }
+
+    /** Whether calls for {@code file} are currently let through; cheap enough for painting. */
+    synchronized boolean isAvailable(File file) {
+        Breaker breaker = breakers.get(mountOf(file));
+        return breaker == null || !breaker.open;
+    }
+
+    private Breaker breaker(String mount) {
+        Breaker breaker = breakers.get(mount);
+        if (breaker == null) {
+            breaker = new Breaker();
+            breakers.put(mount, breaker);
+        }
+        return breaker;
+    }
+
+    private void succeeded(String mount) {
+        boolean recovered;
+        synchronized (this) {
+            Breaker breaker = breaker(mount);
+            recovered = breaker.open;
+            breaker.failures = 0;
+            breaker.open = false;
+            breaker.probing = false;
+        }
+        if (recovered) {
+            fireMountStateChanged(mount, true);
+        }
+    }
+
+    private void failed(String mount) {
+        boolean opened;
+        synchronized (this) {
+            Breaker breaker = breaker(mount);
+            breaker.failures++;
+            breaker.probing = false;
+            opened = !breaker.open && breaker.failures >= failureThreshold;
+            if (breaker.open || opened) {
+                breaker.open = true;
+                breaker.openUntil = System.currentTimeMillis() + openMillis;
+            }
+        }
+        if (opened) {
+            fireMountStateChanged(mount, false);
+        }
+    }
+
+    private void fireMountStateChanged(String mount, boolean available) {
+        for (Listener listener : listeners) {
+            listener.mountStateChanged(mount, available);
+        }
+    }
+
+    /** Replaces the source of the mount points, e.g. with a fixed list in tests. */
+    void setMountTable(Callable<List<String>> mountTable, long ttlMillis) {
+        this.mountTable = mountTable;
+        this.mountTableTtlMillis = ttlMillis;
+        mountPoints = null;
+    }
+
+    /**
+     * The mount point containing {@code file}. The mount table is re-read once it is older than
+     * the TTL so that a share mounted after startup gets its own breaker instead of the parent's.
+     */
+    String mountOf(File file) {
+        List<String> mounts = mountPoints;
+        long now = System.currentTimeMillis();
+        if (mounts == null || now - mountPointsReadAt >= mountTableTtlMillis) {
+            try {
+                mounts = mountTable.call();
+            } catch (Exception ex) {
+                if (mounts == null) {
+                    mounts = Collections.emptyList();
+                }
+            }
+            mountPoints = mounts;
+            mountPointsReadAt = now;
+        }
+        return mountOf(file.getAbsolutePath(), mounts);
+    }
+
+    /** Longest of {@code mounts} (sorted longest first) that contains {@code path}. */
+    static String mountOf(String path, List<String> mounts) {
+        for (String mount : mounts) {
+            if (path.equals(mount)
+                    || (path.startsWith(mount)
+                            && (mount.endsWith(File.separator)
+                                    || path.charAt(mount.length()) == File.separatorChar))) {
+                return mount;
+            }
+        }
+        File root = new File(path);
+        while (root.getParentFile() != null) {
+            root = root.getParentFile();
+        }
+        return root.getPath();
+    }
+
+    /**
+     * Mount points, longest first. Linux lists them in /proc without touching the mounts
+     * themselves; elsewhere the file stores are asked once and unparseable ones fall back to the
+     * path root.
+     */
+    static List<String> readMountPoints() {
+        List<String> mounts = new ArrayList<String>();
+        File procMounts = new File("/proc/self/mounts");
+        if (procMounts.canRead()) {
+            try {
+                BufferedReader reader =
+                        new BufferedReader(
+                                new InputStreamReader(new FileInputStream(procMounts), "UTF-8"));
+                try {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        String[] fields = line.split(" ");
+                        if (fields.length > 1) {
+                            mounts.add(unescapeMountPoint(fields[1]));
+                        }
+                    }
+                } finally {
+                    reader.close();
+                }
+            } catch (IOException ex) {
+                mounts.clear();
+            }
+        } else {
+            for (FileStore store : FileSystems.getDefault().getFileStores()) {
+                // "mount point (device)" on Unix-like systems
+                String text = store.toString();
+                int paren = text.lastIndexOf(" (");
+                if (paren > 0 && text.startsWith(File.separator)) {
+                    mounts.add(text.substring(0, paren));
+                }
+            }
+        }
+        Collections.sort(
+                mounts,
+                new Comparator<String>() {
+                    public int compare(String a, String b) {
+                        return b.length() - a.length();
+                    }
+                });
+        return mounts;
+    }
+
+    /** Undoes the octal escapes (e.g. {@code \040} for a space) used in /proc/self/mounts. */
+    static String unescapeMountPoint(String field) {
+        StringBuilder sb = new StringBuilder();
+        for (int ii = 0; ii < field.length(); ii++) {
+            char c = field.charAt(ii);
+            if (c == '\\' && ii + 3 < field.length()) {
+                try {
+                    sb.append((char) Integer.parseInt(field.substring(ii + 1, ii + 4), 8));
+                    ii += 3;
+                    continue;
+                } catch (NumberFormatException ex) {
+                    // not an escape
+                }
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,123 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.File;
+import java.io.IOException;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.Timespan;
+
+/**
+ * Writes the current {@link Metrics} and EDT stalls as JFR custom events.
+ *
+ * <p>Only touch this class after {@link #isAvailable()} returned true; older runtimes have no
+ * {@code jdk.jfr} module.
+ */
+final class JfrExport {
+
+    @Name("com.github.filemanager.Metric")
+    @Label("File Manager Metric")
+    @Category("File Manager")
+    static class MetricEvent extends Event {
+        @Label("Name")
+        String name;
+
+        @Label("Count")
+        long count;
+
+        @Label("Total Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long totalNanos;
+
+        @Label("Max Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long maxNanos;
+    }
+
+    @Name("com.github.filemanager.EdtStall")
+    @Label("File Manager EDT Stall")
+    @Category("File Manager")
+    static class EdtStallEvent extends Event {
+        @Label("Event")
+        String event;
+
+        @Label("Timestamp")
+        long timestamp;
+
+        @Label("Duration")
+        @Timespan(Timespan.NANOSECONDS)
+        long durationNanos;
+    }
+
+    private JfrExport() {}
+
+    static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.Recording");
+            return true;
+        } catch (Throwable t) {
+            return false;
+        }
+    }
+
+    /** Records one event per metric and stall into a fresh recording dumped to {@code target}. */
+    static void dump(File target) throws IOException {
+        Recording recording = new Recording();
+        try {
+            recording.setName("File Manager Diagnostics");
+            recording.enable(MetricEvent.class);
+            recording.enable(EdtStallEvent.class);
+            recording.start();
+            commitEvents();
+            recording.stop();
+            recording.dump(target.toPath());
+        } finally {
+            recording.close();
+        }
+    }
+
+    /** Commits the events; they also land in any recording started with the JVM. */
+    static void commitEvents() {
+        for (Metrics.Metric metric : Metrics.snapshot()) {
+            MetricEvent event = new MetricEvent();
+            event.name = metric.getName();
+            event.count = metric.getCount();
+            event.totalNanos = metric.getTotalNanos();
+            event.maxNanos = metric.getMaxNanos();
+            event.commit();
+        }
+        for (EdtMonitor.Stall stall : EdtMonitor.recentStalls()) {
+            EdtStallEvent event = new EdtStallEvent();
+            event.event = stall.getDescription();
+            event.timestamp = stall.getTimestamp();
+            event.durationNanos = stall.getDurationNanos();
+            event.commit();
+        }
+    }
+}
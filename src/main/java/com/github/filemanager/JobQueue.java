@@ -0,0 +1,212 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Runs {@link FileJob}s in the background, at most one at a time per device.
+ *
+ * <p>Every job is tagged with the devices (file stores) of its files. A job starts only when
+ * none of its devices is in use by another job, so two copies onto the same disk run one after
+ * the other while copies between unrelated disks run in parallel. Waiting jobs do not hold a
+ * thread.
+ */
+class JobQueue {
+
+    /** Notified on the EDT whenever a job is added, started or finished. */
+    interface Listener {
+        void jobsChanged();
+    }
+
+    private final List<FileJob> jobs = new ArrayList<FileJob>();
+    private final List<FileJob> waiting = new ArrayList<FileJob>();
+    private final Set<String> busyDevices = new HashSet<String>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+    private final ExecutorService executor;
+
+    JobQueue() {
+        executor =
+                Executors.newCachedThreadPool(
+                        new ThreadFactory() {
+                            public Thread newThread(Runnable r) {
+                                Thread thread = new Thread(r, "file-job");
+                                thread.setDaemon(true);
+                                return thread;
+                            }
+                        });
+    }
+
+    void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /** Queues {@code job}; it starts as soon as its devices are free. */
+    void submit(final FileJob job) {
+        synchronized (this) {
+            jobs.add(job);
+        }
+        fireJobsChanged();
+        executor.execute(
+                new Runnable() {
+                    public void run() {
+                        if (job.getDevices().isEmpty()) {
+                            job.setDevices(devicesOf(job.getFiles()));
+                        }
+                        synchronized (JobQueue.this) {
+                            waiting.add(job);
+                            schedule();
+                        }
+                    }
+                });
+    }
+
+    /** Snapshot of all jobs, oldest first. */
+    synchronized List<FileJob> getJobs() {
+        return new ArrayList<FileJob>(jobs);
+    }
+
+    /** Cancels {@code job}; a job that has not started yet is finished right away. */
+    void cancel(FileJob job) {
+        job.cancel();
+        boolean removed;
+        synchronized (this) {
+            removed = waiting.remove(job);
+        }
+        if (removed) {
+            job.run();
+            finished(job);
+        }
+    }
+
+    /** Forgets finished jobs. */
+    void clearFinished() {
+        synchronized (this) {
+            Iterator<FileJob> it = jobs.iterator();
+            while (it.hasNext()) {
+                if (it.next().isFinished()) {
+                    it.remove();
+                }
+            }
+        }
+        fireJobsChanged();
+    }
+
+    /** Starts every waiting job whose devices are all free, in submission order. */
+    private synchronized void schedule() {
+        Iterator<FileJob> it = waiting.iterator();
+        while (it.hasNext()) {
+            final FileJob job = it.next();
+            boolean free = true;
+            for (String device : job.getDevices()) {
+                if (busyDevices.contains(device)) {
+                    free = false;
+                    break;
+                }
+            }
+            if (!free) {
+                continue;
+            }
+            it.remove();
+            busyDevices.addAll(job.getDevices());
+            executor.execute(
+                    new Runnable() {
+                        public void run() {
+                            try {
+                                job.run();
+                            } finally {
+                                synchronized (JobQueue.this) {
+                                    busyDevices.removeAll(job.getDevices());
+                                    schedule();
+                                }
+                                finished(job);
+                            }
+                        }
+                    });
+        }
+        fireJobsChanged();
+    }
+
+    private void finished(FileJob job) {
+        fireJobsChanged();
+        Runnable whenDone = job.getWhenDone();
+        if (whenDone != null) {
+            SwingUtilities.invokeLater(whenDone);
+        }
+    }
+
+    private void fireJobsChanged() {
+        SwingUtilities.invokeLater(
+                new Runnable() {
+                    public void run() {
+                        for (Listener listener : listeners) {
+                            listener.jobsChanged();
+                        }
+                    }
+                });
+    }
+
+    /** Sorted device keys of the given files; a missing file uses its nearest existing parent. */
+    static List<String> devicesOf(List<File> files) {
+        Set<String> devices = new TreeSet<String>();
+        for (File file : files) {
+            devices.add(deviceOf(file));
+        }
+        return new ArrayList<String>(devices);
+    }
+
+    static String deviceOf(File file) {
+        File existing = file.getAbsoluteFile();
+        while (existing != null && !existing.exists()) {
+            existing = existing.getParentFile();
+        }
+        if (existing == null) {
+            return file.getAbsolutePath();
+        }
+        try {
+            // "mount point (device)", which is distinct per mounted filesystem
+            FileStore store = Files.getFileStore(existing.toPath());
+            return store.toString();
+        } catch (IOException ex) {
+            return existing.toPath().getRoot() == null
+                    ? existing.getPath()
+                    : existing.toPath().getRoot().toString();
+        }
+    }
+}
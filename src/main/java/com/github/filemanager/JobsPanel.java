@@ -0,0 +1,208 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.JButton;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.ListSelectionModel;
+import javax.swing.Timer;
+import javax.swing.border.EmptyBorder;
+import javax.swing.table.AbstractTableModel;
+
+/** Lists the jobs of a {@link JobQueue} with their progress and throughput. */
+class JobsPanel extends JPanel {
+
+    private final JobQueue queue;
+    private final JobTableModel model = new JobTableModel();
+    private final JTable table = new JTable(model);
+    private final Timer refreshTimer;
+
+    JobsPanel(final JobQueue queue) {
+        super(new BorderLayout(3, 3));
+        this.queue = queue;
+        setBorder(new EmptyBorder(2, 0, 2, 0));
+
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.setFillsViewportHeight(true);
+        table.getColumnModel().getColumn(0).setPreferredWidth(260);
+        table.getColumnModel().getColumn(4).setPreferredWidth(260);
+        JScrollPane scroll = new JScrollPane(table);
+        scroll.setPreferredSize(new Dimension(400, 100));
+        add(scroll, BorderLayout.CENTER);
+
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.LEADING, 4, 0));
+        JButton pause = new JButton("Pause");
+        pause.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        FileJob job = selectedJob();
+                        if (job != null) {
+                            job.pause();
+                        }
+                    }
+                });
+        buttons.add(pause);
+        JButton resume = new JButton("Resume");
+        resume.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        FileJob job = selectedJob();
+                        if (job != null) {
+                            job.resume();
+                        }
+                    }
+                });
+        buttons.add(resume);
+        JButton cancel = new JButton("Cancel");
+        cancel.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        FileJob job = selectedJob();
+                        if (job != null) {
+                            queue.cancel(job);
+                        }
+                    }
+                });
+        buttons.add(cancel);
+        JButton clear = new JButton("Clear Finished");
+        clear.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        queue.clearFinished();
+                    }
+                });
+        buttons.add(clear);
+        add(buttons, BorderLayout.SOUTH);
+
+        queue.addListener(
+                new JobQueue.Listener() {
+                    public void jobsChanged() {
+                        refresh();
+                    }
+                });
+        // progress and throughput change continuously while jobs run
+        refreshTimer =
+                new Timer(
+                        500,
+                        new ActionListener() {
+                            public void actionPerformed(ActionEvent ae) {
+                                if (model.getRowCount() > 0) {
+                                    model.fireTableRowsUpdated(0, model.getRowCount() - 1);
+                                }
+                            }
+                        });
+    }
+
+    private FileJob selectedJob() {
+        int row = table.getSelectedRow();
+        return row < 0 ? null : model.jobs.get(table.convertRowIndexToModel(row));
+    }
+
+    private void refresh() {
+        FileJob selected = selectedJob();
+        model.jobs = queue.getJobs();
+        model.fireTableDataChanged();
+        int row = model.jobs.indexOf(selected);
+        if (row >= 0) {
+            table.getSelectionModel().setSelectionInterval(row, row);
+        }
+        boolean active = false;
+        for (FileJob job : model.jobs) {
+            active |= !job.isFinished();
+        }
+        if (active) {
+            refreshTimer.start();
+        } else {
+            refreshTimer.stop();
+        }
+    }
+
+    static String formatProgress(FileJob job) {
+        boolean bytes = "B".equals(job.getUnit());
+        String done = bytes ? Formats.size(job.getProgress()) : "" + job.getProgress();
+        if (job.getTotal() > 0) {
+            long percent = Math.min(100, job.getProgress() * 100 / job.getTotal());
+            return percent + "% (" + done + ")";
+        }
+        return bytes ? done : done + " " + job.getUnit();
+    }
+
+    static String formatThroughput(FileJob job) {
+        double rate = job.getThroughput();
+        if (rate <= 0) {
+            return "";
+        }
+        if ("B".equals(job.getUnit())) {
+            return Formats.size((long) rate) + "/s";
+        }
+        return (long) rate + " " + job.getUnit() + "/s";
+    }
+
+    private static class JobTableModel extends AbstractTableModel {
+
+        private final String[] columns = {"Job", "State", "Progress", "Throughput", "Details"};
+        private List<FileJob> jobs = new ArrayList<FileJob>();
+
+        public int getRowCount() {
+            return jobs.size();
+        }
+
+        public int getColumnCount() {
+            return columns.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return columns[column];
+        }
+
+        public Object getValueAt(int row, int column) {
+            FileJob job = jobs.get(row);
+            switch (column) {
+                case 0:
+                    return job.getName();
+                case 1:
+                    return job.getState();
+                case 2:
+                    return formatProgress(job);
+                case 3:
+                    return formatThroughput(job);
+                case 4:
+                    return job.getMessage();
+                default:
+                    return "";
+            }
+        }
+    }
+}
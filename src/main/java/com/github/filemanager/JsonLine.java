@@ -0,0 +1,61 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+/**
+ * One JSON object on one line, built a key at a time; the records of the command line's
+ * {@code --json} output and of the remote server's listings.
+ */
+final class JsonLine {
+
+    private final StringBuilder sb = new StringBuilder("{");
+
+    private StringBuilder key(String key) {
+        if (sb.length() > 1) {
+            sb.append(", ");
+        }
+        Metrics.appendJsonString(sb, key);
+        return sb.append(": ");
+    }
+
+    JsonLine put(String key, String value) {
+        Metrics.appendJsonString(key(key), value);
+        return this;
+    }
+
+    JsonLine put(String key, long value) {
+        key(key).append(value);
+        return this;
+    }
+
+    JsonLine put(String key, boolean value) {
+        key(key).append(value);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return sb + "}";
+    }
+}
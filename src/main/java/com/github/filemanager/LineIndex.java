@@ -0,0 +1,175 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A sparse line-offset index over a {@link MappedFile}.
+ *
+ * <p>Only the start of every {@value #CHECKPOINT_INTERVAL}th line is stored; any other line is
+ * found by scanning forward from the nearest checkpoint. The index is built incrementally by
+ * {@link #build()} (normally on a background thread) and can be queried while it grows.
+ */
+class LineIndex {
+
+    static final int CHECKPOINT_INTERVAL = 1024;
+
+    private static final int SCAN_BUFFER = 64 * 1024;
+
+    private final MappedFile file;
+
+    /** {@code checkpoints[k]} is the offset of line {@code k * CHECKPOINT_INTERVAL}. */
+    private long[] checkpoints = new long[256];
+
+    private int checkpointCount = 1;
+    private volatile long indexedBytes;
+    private volatile long indexedLines;
+    private volatile boolean complete;
+
+    LineIndex(MappedFile file) {
+        this.file = file;
+    }
+
+    /** Scans the whole file, publishing progress as it goes. Stops early when interrupted. */
+    void build() throws IOException {
+        byte[] buffer = new byte[SCAN_BUFFER];
+        long position = 0;
+        long lines = 0;
+        long size = file.size();
+        while (position < size) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            int read = file.read(position, buffer, 0, buffer.length);
+            for (int ii = 0; ii < read; ii++) {
+                if (buffer[ii] == '\n') {
+                    lines++;
+                    if (lines % CHECKPOINT_INTERVAL == 0) {
+                        addCheckpoint(position + ii + 1);
+                    }
+                }
+            }
+            position += read;
+            indexedLines = lines;
+            indexedBytes = position;
+        }
+        if (size > 0 && file.byteAt(size - 1) != '\n') {
+            // an unterminated last line still counts
+            indexedLines = lines + 1;
+        }
+        complete = true;
+    }
+
+    private synchronized void addCheckpoint(long offset) {
+        if (checkpointCount == checkpoints.length) {
+            checkpoints = Arrays.copyOf(checkpoints, checkpointCount * 2);
+        }
+        checkpoints[checkpointCount++] = offset;
+    }
+
+    private synchronized long checkpoint(long index) {
+        return checkpoints[(int) index];
+    }
+
+    boolean isComplete() {
+        return complete;
+    }
+
+    /** Number of lines whose start offset is known so far. */
+    long getIndexedLines() {
+        return indexedLines;
+    }
+
+    long getIndexedBytes() {
+        return indexedBytes;
+    }
+
+    /**
+     * Returns the offset of the zero-based {@code line}, or -1 if the index has not reached it yet
+     * or the file has fewer lines.
+     */
+    long offsetOfLine(long line) throws IOException {
+        if (line < 0 || line >= indexedLines) {
+            return line == 0 ? 0 : -1;
+        }
+        long offset = checkpoint(line / CHECKPOINT_INTERVAL);
+        long remaining = line % CHECKPOINT_INTERVAL;
+        byte[] buffer = new byte[SCAN_BUFFER];
+        while (remaining > 0) {
+            int read = file.read(offset, buffer, 0, buffer.length);
+            if (read <= 0) {
+                return -1;
+            }
+            for (int ii = 0; ii < read; ii++) {
+                if (buffer[ii] == '\n' && --remaining == 0) {
+                    return offset + ii + 1;
+                }
+            }
+            offset += read;
+        }
+        return offset;
+    }
+
+    /**
+     * Returns the zero-based line containing {@code offset}, or -1 if the index has not reached
+     * it yet.
+     */
+    long lineOfOffset(long offset) throws IOException {
+        if (offset < 0 || (!complete && offset >= indexedBytes)) {
+            return -1;
+        }
+        int low = 0;
+        int high;
+        synchronized (this) {
+            high = checkpointCount - 1;
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (checkpoints[mid] <= offset) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+        }
+        long line = (long) low * CHECKPOINT_INTERVAL;
+        long position = checkpoint(low);
+        byte[] buffer = new byte[SCAN_BUFFER];
+        while (position < offset) {
+            int length = (int) Math.min(buffer.length, offset - position);
+            int read = file.read(position, buffer, 0, length);
+            if (read <= 0) {
+                break;
+            }
+            for (int ii = 0; ii < read; ii++) {
+                if (buffer[ii] == '\n') {
+                    line++;
+                }
+            }
+            position += read;
+        }
+        return line;
+    }
+}
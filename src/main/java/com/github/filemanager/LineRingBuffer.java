@@ -0,0 +1,73 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A fixed-capacity buffer of the most recent lines. Older lines are overwritten, so memory use
+ * does not grow no matter how long a file is followed.
+ */
+class LineRingBuffer {
+
+    private final String[] lines;
+
+    /** Number of lines ever added; also the sequence number of the next line. */
+    private long total;
+
+    LineRingBuffer(int capacity) {
+        lines = new String[capacity];
+    }
+
+    int capacity() {
+        return lines.length;
+    }
+
+    synchronized void add(String line) {
+        lines[(int) (total % lines.length)] = line;
+        total++;
+    }
+
+    synchronized long total() {
+        return total;
+    }
+
+    synchronized int size() {
+        return (int) Math.min(total, lines.length);
+    }
+
+    /**
+     * Returns the retained lines with a sequence number of at least {@code sequence}, oldest
+     * first. Lines that were already overwritten are skipped.
+     */
+    synchronized List<String> since(long sequence) {
+        long first = Math.max(sequence, total - lines.length);
+        List<String> result = new ArrayList<String>((int) Math.max(0, total - first));
+        for (long seq = Math.max(0, first); seq < total; seq++) {
+            result.add(lines[(int) (seq % lines.length)]);
+        }
+        return result;
+    }
+}
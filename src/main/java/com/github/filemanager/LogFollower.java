@@ -0,0 +1,262 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Follows a growing file like {@code tail -F}.
+ *
+ * <p>Only appended bytes are read, with positioned {@link FileChannel} reads. The follower wakes
+ * up on WatchService modify events and also polls, so filesystems that do not deliver events
+ * still work. Truncation restarts from the beginning of the file and rotation (a new file under
+ * the same name) switches to the new file. Complete lines go to a {@link LineRingBuffer}.
+ */
+class LogFollower implements Runnable {
+
+    /** Receives status changes on the follower thread. */
+    interface Listener {
+        void followerEvent(String message);
+    }
+
+    /** How much of an existing file is shown when following starts. */
+    static final int INITIAL_TAIL_BYTES = 64 * 1024;
+
+    private static final int READ_BUFFER = 64 * 1024;
+
+    /** A line without a newline is flushed once it gets this long. */
+    private static final int MAX_LINE_BYTES = 64 * 1024;
+
+    private final Path path;
+    private final LineRingBuffer lines;
+    private final long pollMillis;
+    private final Listener listener;
+    private final ByteArrayOutputStream partial = new ByteArrayOutputStream();
+    private final ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER);
+
+    private FileChannel channel;
+    private Object fileKey;
+    private long position;
+    private boolean skipPartialLine;
+    private volatile boolean running;
+    private Thread thread;
+
+    LogFollower(File file, LineRingBuffer lines, long pollMillis, Listener listener) {
+        this.path = file.toPath().toAbsolutePath();
+        this.lines = lines;
+        this.pollMillis = pollMillis;
+        this.listener = listener;
+    }
+
+    synchronized void start() {
+        if (thread == null) {
+            running = true;
+            thread = new Thread(this, "log-follower " + path.getFileName());
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    public void run() {
+        WatchService watcher = null;
+        try {
+            try {
+                watcher = path.getFileSystem().newWatchService();
+                Path dir = path.getParent();
+                dir.register(
+                        watcher,
+                        StandardWatchEventKinds.ENTRY_MODIFY,
+                        StandardWatchEventKinds.ENTRY_CREATE);
+            } catch (Exception ex) {
+                closeQuietly(watcher);
+                watcher = null;
+                notify("File events unavailable, polling every " + pollMillis + " ms");
+            }
+            openInitial();
+            while (running) {
+                poll();
+                if (watcher == null) {
+                    Thread.sleep(pollMillis);
+                } else {
+                    WatchKey key = watcher.poll(pollMillis, TimeUnit.MILLISECONDS);
+                    if (key != null) {
+                        // the events only wake us up; the file itself is re-checked every time
+                        key.pollEvents();
+                        key.reset();
+                    }
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException ex) {
+            // stopped
+        } catch (IOException ex) {
+            notify("Follow stopped: " + ex);
+        } finally {
+            closeQuietly(watcher);
+            closeChannel();
+        }
+    }
+
+    private void openInitial() throws IOException {
+        if (!Files.isRegularFile(path)) {
+            notify("Waiting for " + path);
+            return;
+        }
+        open();
+        long size = channel.size();
+        if (size > INITIAL_TAIL_BYTES) {
+            // start mid-file: skip the first, partial line
+            position = size - INITIAL_TAIL_BYTES;
+            skipPartialLine = true;
+        }
+    }
+
+    private void open() throws IOException {
+        closeChannel();
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        fileKey = Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+        position = 0;
+        skipPartialLine = false;
+        partial.reset();
+    }
+
+    /** Checks for rotation, truncation and appended data. */
+    void poll() throws IOException {
+        if (!Files.isRegularFile(path)) {
+            // rotated away and not recreated yet; keep reading what the old file still gets
+            if (channel != null) {
+                readAppended();
+            }
+            return;
+        }
+        if (channel == null) {
+            open();
+            notify("Following " + path);
+        }
+        Object key = Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+        if (key != null && !key.equals(fileKey)) {
+            readAppended();
+            flushPartial();
+            open();
+            notify("File was rotated, following the new file");
+        } else if (channel.size() < position) {
+            flushPartial();
+            position = 0;
+            notify("File was truncated, reading from the start");
+        }
+        readAppended();
+    }
+
+    private void readAppended() throws IOException {
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                return;
+            }
+            position += read;
+            byte[] bytes = buffer.array();
+            int start = 0;
+            for (int ii = 0; ii < read; ii++) {
+                if (bytes[ii] == '\n') {
+                    partial.write(bytes, start, ii - start);
+                    emitLine();
+                    start = ii + 1;
+                }
+            }
+            partial.write(bytes, start, read - start);
+            if (partial.size() >= MAX_LINE_BYTES) {
+                flushPartial();
+            }
+        }
+    }
+
+    private void emitLine() {
+        byte[] bytes = partial.toByteArray();
+        partial.reset();
+        if (skipPartialLine) {
+            skipPartialLine = false;
+            return;
+        }
+        int length = bytes.length;
+        if (length > 0 && bytes[length - 1] == '\r') {
+            length--;
+        }
+        lines.add(new String(bytes, 0, length, StandardCharsets.UTF_8));
+    }
+
+    private void flushPartial() {
+        if (partial.size() > 0) {
+            emitLine();
+        }
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+            channel = null;
+        }
+    }
+
+    private static void closeQuietly(WatchService watcher) {
+        if (watcher != null) {
+            try {
+                watcher.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void notify(String message) {
+        if (listener != null) {
+            listener.followerEvent(message);
+        }
+    }
+}
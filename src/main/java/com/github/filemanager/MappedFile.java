@@ -0,0 +1,122 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Random access to a file of any size through a handful of memory-mapped pages.
+ *
+ * <p>Only the most recently used pages stay mapped, so the memory cost is bounded by {@code
+ * pageSize * MAX_PAGES} regardless of the file size. All reads are thread-safe.
+ */
+class MappedFile implements Closeable {
+
+    static final int DEFAULT_PAGE_SIZE = 4 * 1024 * 1024;
+
+    private static final int MAX_PAGES = 16;
+
+    private final RandomAccessFile raf;
+    private final FileChannel channel;
+    private final long size;
+    private final int pageSize;
+    private final Map<Long, ByteBuffer> pages =
+            new LinkedHashMap<Long, ByteBuffer>(MAX_PAGES, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, ByteBuffer> eldest) {
+                    return size() > MAX_PAGES;
+                }
+            };
+
+    MappedFile(File file) throws IOException {
+        this(file, DEFAULT_PAGE_SIZE);
+    }
+
+    MappedFile(File file, int pageSize) throws IOException {
+        this.raf = new RandomAccessFile(file, "r");
+        this.channel = raf.getChannel();
+        this.size = channel.size();
+        this.pageSize = pageSize;
+    }
+
+    /** Size of the file when it was opened. */
+    long size() {
+        return size;
+    }
+
+    /** Returns the unsigned byte at {@code position}, or -1 past the end of the file. */
+    synchronized int byteAt(long position) throws IOException {
+        if (position < 0 || position >= size) {
+            return -1;
+        }
+        ByteBuffer page = page(position / pageSize);
+        return page.get((int) (position % pageSize)) & 0xFF;
+    }
+
+    /**
+     * Copies up to {@code length} bytes starting at {@code position} into {@code target}.
+     *
+     * @return the number of bytes copied, or -1 if {@code position} is past the end of the file
+     */
+    synchronized int read(long position, byte[] target, int offset, int length)
+            throws IOException {
+        if (position >= size) {
+            return -1;
+        }
+        int total = 0;
+        while (total < length && position < size) {
+            ByteBuffer page = page(position / pageSize).duplicate();
+            int inPage = (int) (position % pageSize);
+            int count = Math.min(length - total, page.limit() - inPage);
+            page.position(inPage);
+            page.get(target, offset + total, count);
+            total += count;
+            position += count;
+        }
+        return total;
+    }
+
+    private ByteBuffer page(long index) throws IOException {
+        ByteBuffer page = pages.get(index);
+        if (page == null) {
+            long start = index * pageSize;
+            long length = Math.min(pageSize, size - start);
+            page = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            pages.put(index, page);
+        }
+        return page;
+    }
+
+    public synchronized void close() throws IOException {
+        pages.clear();
+        raf.close();
+    }
+}
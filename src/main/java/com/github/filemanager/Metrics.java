@@ -0,0 +1,212 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide timers and counters.
+ *
+ * <p>Timing a section costs two {@link System#nanoTime()} calls and a few atomic adds, and
+ * allocates nothing once the metric exists:
+ *
+ * <pre>
+ * long start = Metrics.start();
+ * ... work ...
+ * Metrics.stop(Metrics.LISTING, start);
+ * </pre>
+ */
+final class Metrics {
+
+    static final String STARTUP = "startup";
+    static final String ROOT_LISTING = "listing.root";
+    static final String LISTING = "listing";
+    static final String STAT = "stat";
+    static final String ICON = "icon";
+    static final String FIND_TREE_PATH = "findTreePath";
+    static final String FILTER = "filter";
+    static final String SORT = "sort";
+    static final String COPY = "copy";
+    static final String COPY_BYTES = "copy.bytes";
+    static final String EDT_DISPATCH = "edt.dispatch";
+    static final String EDT_STALL = "edt.stall";
+
+    /** A timer or counter; counters only use {@link #getCount()}. */
+    static final class Metric {
+
+        private final String name;
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        Metric(String name) {
+            this.name = name;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        long getCount() {
+            return count.get();
+        }
+
+        long getTotalNanos() {
+            return totalNanos.get();
+        }
+
+        long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        void record(long nanos) {
+            count.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+            long max = maxNanos.get();
+            while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+                max = maxNanos.get();
+            }
+        }
+
+        void reset() {
+            count.set(0);
+            totalNanos.set(0);
+            maxNanos.set(0);
+        }
+    }
+
+    private static final ConcurrentMap<String, Metric> METRICS =
+            new ConcurrentHashMap<String, Metric>();
+
+    private Metrics() {}
+
+    static Metric metric(String name) {
+        Metric metric = METRICS.get(name);
+        if (metric == null) {
+            Metric created = new Metric(name);
+            metric = METRICS.putIfAbsent(name, created);
+            if (metric == null) {
+                metric = created;
+            }
+        }
+        return metric;
+    }
+
+    static long start() {
+        return System.nanoTime();
+    }
+
+    /** Records the time since {@code startNanos} under {@code name}. */
+    static void stop(String name, long startNanos) {
+        metric(name).record(System.nanoTime() - startNanos);
+    }
+
+    /** Adds {@code amount} to the counter {@code name}. */
+    static void count(String name, long amount) {
+        metric(name).count.addAndGet(amount);
+    }
+
+    /** All metrics, sorted by name. */
+    static List<Metric> snapshot() {
+        List<Metric> list = new ArrayList<Metric>(METRICS.values());
+        Collections.sort(
+                list,
+                new Comparator<Metric>() {
+                    public int compare(Metric a, Metric b) {
+                        return a.getName().compareTo(b.getName());
+                    }
+                });
+        return list;
+    }
+
+    static void reset() {
+        for (Metric metric : METRICS.values()) {
+            metric.reset();
+        }
+    }
+
+    /** Serializes all metrics and the recent EDT stalls as a JSON document. */
+    static String toJson() {
+        StringBuilder sb = new StringBuilder("{\n  \"metrics\": [");
+        String separator = "\n";
+        for (Metric metric : snapshot()) {
+            sb.append(separator).append("    {\"name\": ");
+            appendJsonString(sb, metric.getName());
+            sb.append(", \"count\": ").append(metric.getCount());
+            sb.append(", \"totalNanos\": ").append(metric.getTotalNanos());
+            sb.append(", \"maxNanos\": ").append(metric.getMaxNanos()).append('}');
+            separator = ",\n";
+        }
+        sb.append("\n  ],\n  \"edtStalls\": [");
+        separator = "\n";
+        for (EdtMonitor.Stall stall : EdtMonitor.recentStalls()) {
+            sb.append(separator).append("    {\"timestamp\": ").append(stall.getTimestamp());
+            sb.append(", \"durationNanos\": ").append(stall.getDurationNanos());
+            sb.append(", \"event\": ");
+            appendJsonString(sb, stall.getDescription());
+            sb.append('}');
+            separator = ",\n";
+        }
+        return sb.append("\n  ]\n}\n").toString();
+    }
+
+    static void appendJsonString(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int ii = 0; ii < value.length(); ii++) {
+            char c = value.charAt(ii);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append("\\u00");
+                        sb.append(Character.forDigit(c >> 4, 16));
+                        sb.append(Character.forDigit(c & 0xF, 16));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+}
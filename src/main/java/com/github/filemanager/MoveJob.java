@@ -0,0 +1,84 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Moves a file or a directory tree. Within one file system that is a single rename; otherwise
+ * the tree is copied like a {@link CopyJob}, with its resume and verification, and the source is
+ * deleted only once the whole copy has succeeded.
+ */
+class MoveJob extends CopyJob {
+
+    private volatile boolean renamed;
+
+    MoveJob(File source, File target) {
+        super("Move " + source.getName() + " to " + target.getParent(), source, target);
+    }
+
+    /** Whether the move was a rename, with no data copied. */
+    boolean isRenamed() {
+        return renamed;
+    }
+
+    @Override
+    protected void execute() throws IOException {
+        checkpoint();
+        try {
+            Files.move(
+                    getSource().toPath(),
+                    getTarget().toPath(),
+                    StandardCopyOption.ATOMIC_MOVE);
+            renamed = true;
+            setMessage(getTarget().getPath() + " (renamed)");
+            return;
+        } catch (AtomicMoveNotSupportedException ex) {
+            // another file system
+        } catch (FileSystemException ex) {
+            // e.g. a directory that is to be merged into an existing one
+        }
+        super.execute();
+        delete(getSource());
+    }
+
+    private void delete(File file) throws IOException {
+        checkpoint();
+        // do not follow symbolic links to directories
+        if (file.isDirectory() && !Files.isSymbolicLink(file.toPath())) {
+            File[] children = file.listFiles();
+            if (children != null) {
+                for (File child : children) {
+                    delete(child);
+                }
+            }
+        }
+        Files.delete(file.toPath());
+    }
+}
@@ -0,0 +1,85 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/** Back and forward lists of visited directories, like a web browser's. */
+class NavigationHistory {
+
+    static final int MAX_SIZE = 100;
+
+    private final Deque<File> back = new ArrayDeque<File>();
+    private final Deque<File> forward = new ArrayDeque<File>();
+    private File current;
+
+    /** Records a visit; going somewhere new forgets the forward list. */
+    void visit(File dir) {
+        if (dir == null || dir.equals(current)) {
+            return;
+        }
+        if (current != null) {
+            back.push(current);
+            if (back.size() > MAX_SIZE) {
+                back.removeLast();
+            }
+        }
+        forward.clear();
+        current = dir;
+    }
+
+    File getCurrent() {
+        return current;
+    }
+
+    boolean canGoBack() {
+        return !back.isEmpty();
+    }
+
+    boolean canGoForward() {
+        return !forward.isEmpty();
+    }
+
+    /** Steps back and returns the directory to show, or null if there is none. */
+    File back() {
+        if (back.isEmpty()) {
+            return null;
+        }
+        forward.push(current);
+        current = back.pop();
+        return current;
+    }
+
+    /** Steps forward and returns the directory to show, or null if there is none. */
+    File forward() {
+        if (forward.isEmpty()) {
+            return null;
+        }
+        back.push(current);
+        current = forward.pop();
+        return current;
+    }
+}
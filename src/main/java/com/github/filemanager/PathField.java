@@ -0,0 +1,279 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.AbstractAction;
+import javax.swing.DefaultListModel;
+import javax.swing.JList;
+import javax.swing.JPopupMenu;
+import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+import javax.swing.KeyStroke;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+/**
+ * An editable path with completion of directory names.
+ *
+ * <p>Suggestions come from listings the {@link Source} already has. For a directory it has not
+ * listed, it is asked to list it in the background and the suggestions appear when that is
+ * done, if the text still asks for them; typing never waits for the file system. Enter opens
+ * the highlighted suggestion or else the typed path, Escape closes the suggestions, Up and Down
+ * move through them.
+ */
+class PathField extends JTextField {
+
+    static final int MAX_SUGGESTIONS = 20;
+
+    /** Where the names come from. */
+    interface Source {
+
+        /** The listing of {@code dir} if it is at hand without file system access, else null. */
+        FileRows cached(File dir);
+
+        /** Lists {@code dir} in the background and then runs {@code whenLoaded} on the EDT. */
+        void load(File dir, Runnable whenLoaded);
+    }
+
+    /** Notified on the EDT when the user enters a path. */
+    interface Listener {
+        void pathEntered(String path);
+    }
+
+    private final Source source;
+    private final Listener listener;
+    private final DefaultListModel<String> suggestions = new DefaultListModel<String>();
+    private final JList<String> list = new JList<String>(suggestions);
+    private final JPopupMenu popup = new JPopupMenu();
+    /** Directories whose listing was requested and is still loading. */
+    private final List<File> loading = new ArrayList<File>();
+    /** Set while the text is changed by the program rather than typed. */
+    private boolean settingText;
+
+    PathField(int columns, Source source, Listener listener) {
+        super(columns);
+        this.source = source;
+        this.listener = listener;
+
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.setFocusable(false);
+        list.setVisibleRowCount(10);
+        list.addMouseListener(
+                new MouseAdapter() {
+                    @Override
+                    public void mouseClicked(MouseEvent e) {
+                        int index = list.locationToIndex(e.getPoint());
+                        if (index >= 0) {
+                            accept(suggestions.get(index));
+                        }
+                    }
+                });
+        JScrollPane scroll = new JScrollPane(list);
+        scroll.setBorder(null);
+        popup.add(scroll);
+        popup.setFocusable(false);
+
+        getDocument()
+                .addDocumentListener(
+                        new DocumentListener() {
+                            public void insertUpdate(DocumentEvent e) {
+                                textEdited();
+                            }
+
+                            public void removeUpdate(DocumentEvent e) {
+                                textEdited();
+                            }
+
+                            public void changedUpdate(DocumentEvent e) {
+                                textEdited();
+                            }
+                        });
+        addKeyListener(
+                new KeyAdapter() {
+                    @Override
+                    public void keyPressed(KeyEvent e) {
+                        if (!popup.isVisible()) {
+                            return;
+                        }
+                        int index = list.getSelectedIndex();
+                        if (e.getKeyCode() == KeyEvent.VK_DOWN) {
+                            select(Math.min(suggestions.size() - 1, index + 1));
+                            e.consume();
+                        } else if (e.getKeyCode() == KeyEvent.VK_UP) {
+                            select(Math.max(-1, index - 1));
+                            e.consume();
+                        }
+                    }
+                });
+        getInputMap().put(KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), "hideSuggestions");
+        getActionMap()
+                .put(
+                        "hideSuggestions",
+                        new AbstractAction() {
+                            public void actionPerformed(ActionEvent e) {
+                                popup.setVisible(false);
+                            }
+                        });
+        addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent e) {
+                        String selected = popup.isVisible() ? list.getSelectedValue() : null;
+                        if (selected != null) {
+                            accept(selected);
+                        } else {
+                            popup.setVisible(false);
+                            PathField.this.listener.pathEntered(getText());
+                        }
+                    }
+                });
+        addFocusListener(
+                new FocusAdapter() {
+                    @Override
+                    public void focusLost(FocusEvent e) {
+                        popup.setVisible(false);
+                    }
+                });
+    }
+
+    /** Shows {@code text} without offering suggestions for it. */
+    void setPath(String text) {
+        settingText = true;
+        try {
+            setText(text);
+        } finally {
+            settingText = false;
+        }
+        popup.setVisible(false);
+    }
+
+    private void select(int index) {
+        if (index < 0) {
+            list.clearSelection();
+        } else {
+            list.setSelectedIndex(index);
+            list.ensureIndexIsVisible(index);
+        }
+    }
+
+    /** Puts a suggestion in the field and goes on completing below it. */
+    private void accept(String suggestion) {
+        setText(suggestion);
+        setCaretPosition(suggestion.length());
+    }
+
+    private void textEdited() {
+        if (settingText || !isFocusOwner()) {
+            return;
+        }
+        // the document is locked while it notifies
+        SwingUtilities.invokeLater(
+                new Runnable() {
+                    public void run() {
+                        updateSuggestions();
+                    }
+                });
+    }
+
+    private void updateSuggestions() {
+        final String text = getText();
+        int separator = Math.max(text.lastIndexOf('/'), text.lastIndexOf(File.separatorChar));
+        if (separator < 0) {
+            popup.setVisible(false);
+            return;
+        }
+        final File dir = new File(text.substring(0, separator + 1));
+        String prefix = text.substring(separator + 1);
+        FileRows rows = source.cached(dir);
+        if (rows == null) {
+            popup.setVisible(false);
+            if (!loading.contains(dir)) {
+                loading.add(dir);
+                source.load(
+                        dir,
+                        new Runnable() {
+                            public void run() {
+                                loading.remove(dir);
+                                if (text.equals(getText()) && isFocusOwner()) {
+                                    updateSuggestions();
+                                }
+                            }
+                        });
+            }
+            return;
+        }
+        List<String> matches = complete(rows, text.substring(0, separator + 1), prefix);
+        suggestions.clear();
+        for (String match : matches) {
+            suggestions.addElement(match);
+        }
+        if (matches.isEmpty()
+                || (matches.size() == 1 && matches.get(0).equals(text + File.separator))) {
+            popup.setVisible(false);
+            return;
+        }
+        list.clearSelection();
+        popup.pack();
+        if (!popup.isVisible()) {
+            popup.show(this, 0, getHeight());
+        }
+    }
+
+    /**
+     * The directories of {@code rows} whose names start with {@code prefix}, exact case first,
+     * as {@code parentText} + name + separator.
+     */
+    static List<String> complete(FileRows rows, String parentText, String prefix) {
+        List<String> exact = new ArrayList<String>();
+        List<String> other = new ArrayList<String>();
+        for (int row = 0; row < rows.size() && exact.size() < MAX_SUGGESTIONS; row++) {
+            if (!rows.is(row, FileRows.DIRECTORY)) {
+                continue;
+            }
+            String name = rows.getName(row);
+            if (name.startsWith(prefix)) {
+                exact.add(parentText + name + File.separator);
+            } else if (name.regionMatches(true, 0, prefix, 0, prefix.length())) {
+                other.add(parentText + name + File.separator);
+            }
+        }
+        for (int ii = 0; ii < other.size() && exact.size() < MAX_SUGGESTIONS; ii++) {
+            exact.add(other.get(ii));
+        }
+        return exact;
+    }
+}
@@ -0,0 +1,274 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.GroupPrincipal;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.UserPrincipal;
+import java.nio.file.attribute.UserPrincipalLookupService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sets POSIX permission bits, owner and group on a file or a whole subtree.
+ *
+ * <p>Permissions are given as bits to add and bits to remove, like {@code chmod u+x,o-w}, so
+ * different files can keep different modes. Each entry's attributes are read first and only
+ * what differs is written, which makes a re-run over a tree that is already right cost one
+ * {@code stat} per entry. Symbolic links are neither followed nor changed. The entries are
+ * updated by a few threads at once; failures are collected and do not stop the job.
+ */
+class PermissionsJob extends FileJob {
+
+    static final int PARALLELISM = 4;
+    private static final int BATCH_SIZE = 256;
+
+    private final File root;
+    private final Set<PosixFilePermission> add;
+    private final Set<PosixFilePermission> remove;
+    private final String owner;
+    private final String group;
+    private final boolean recursive;
+    private final boolean files;
+    private final boolean directories;
+    private final AtomicInteger changed = new AtomicInteger();
+    private final AtomicInteger unchanged = new AtomicInteger();
+    private final List<String> failures = Collections.synchronizedList(new ArrayList<String>());
+
+    /**
+     * @param add permissions to grant
+     * @param remove permissions to revoke
+     * @param owner the new owner's name, or null to keep it
+     * @param group the new group's name, or null to keep it
+     * @param recursive whether to descend into {@code root} if it is a directory
+     * @param files whether to change regular files
+     * @param directories whether to change directories
+     */
+    PermissionsJob(
+            File root,
+            Set<PosixFilePermission> add,
+            Set<PosixFilePermission> remove,
+            String owner,
+            String group,
+            boolean recursive,
+            boolean files,
+            boolean directories) {
+        super("Permissions of " + root.getName(), root);
+        this.root = root;
+        this.add = copy(add);
+        this.remove = copy(remove);
+        this.owner = owner;
+        this.group = group;
+        this.recursive = recursive;
+        this.files = files;
+        this.directories = directories;
+    }
+
+    private static Set<PosixFilePermission> copy(Set<PosixFilePermission> set) {
+        return set.isEmpty() ? EnumSet.noneOf(PosixFilePermission.class) : EnumSet.copyOf(set);
+    }
+
+    @Override
+    String getUnit() {
+        return "files";
+    }
+
+    int getChangedCount() {
+        return changed.get();
+    }
+
+    int getUnchangedCount() {
+        return unchanged.get();
+    }
+
+    /** Entries that could not be changed, one line each. */
+    List<String> getFailures() {
+        return new ArrayList<String>(failures);
+    }
+
+    @Override
+    protected void execute() throws Exception {
+        Path rootPath = root.toPath();
+        if (Files.getFileAttributeView(rootPath, PosixFileAttributeView.class) == null) {
+            throw new IOException("POSIX permissions are not supported on " + root);
+        }
+        FileSystem fileSystem = rootPath.getFileSystem();
+        UserPrincipalLookupService lookup = fileSystem.getUserPrincipalLookupService();
+        final UserPrincipal newOwner = owner == null ? null : lookup.lookupPrincipalByName(owner);
+        final GroupPrincipal newGroup =
+                group == null ? null : lookup.lookupPrincipalByGroupName(group);
+
+        setMessage("Listing...");
+        List<Path> paths = list(rootPath);
+        setTotal(paths.size());
+        setMessage("");
+
+        ExecutorService executor =
+                Executors.newFixedThreadPool(
+                        PARALLELISM,
+                        new ThreadFactory() {
+                            public Thread newThread(Runnable r) {
+                                Thread thread = new Thread(r, "permissions");
+                                thread.setDaemon(true);
+                                return thread;
+                            }
+                        });
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (int start = 0; start < paths.size(); start += BATCH_SIZE) {
+                final List<Path> batch =
+                        paths.subList(start, Math.min(paths.size(), start + BATCH_SIZE));
+                futures.add(
+                        executor.submit(
+                                new Runnable() {
+                                    public void run() {
+                                        for (Path path : batch) {
+                                            checkpoint();
+                                            apply(path, newOwner, newGroup);
+                                            addProgress(1);
+                                        }
+                                    }
+                                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException ex) {
+                    if (ex.getCause() instanceof CancellationException) {
+                        throw (CancellationException) ex.getCause();
+                    }
+                    throw ex;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        setMessage(
+                changed.get()
+                        + " changed, "
+                        + unchanged.get()
+                        + " already correct"
+                        + (failures.isEmpty() ? "" : ", " + failures.size() + " failed"));
+    }
+
+    /** The entries to update, without following links. */
+    private List<Path> list(Path rootPath) throws IOException {
+        final List<Path> paths = new ArrayList<Path>();
+        if (!recursive) {
+            // the same filter as for the entries of a tree
+            BasicFileAttributes attrs =
+                    Files.readAttributes(
+                            rootPath, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            if (directories && attrs.isDirectory() || files && attrs.isRegularFile()) {
+                paths.add(rootPath);
+            }
+            return paths;
+        }
+        Files.walkFileTree(
+                rootPath,
+                new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(
+                            Path dir, BasicFileAttributes attrs) {
+                        checkpoint();
+                        if (directories) {
+                            paths.add(dir);
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        if (files && attrs.isRegularFile()) {
+                            paths.add(file);
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException ex) {
+                        failures.add(file + ": " + ex.getMessage());
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+        return paths;
+    }
+
+    private void apply(Path path, UserPrincipal newOwner, GroupPrincipal newGroup) {
+        try {
+            PosixFileAttributeView view =
+                    Files.getFileAttributeView(
+                            path, PosixFileAttributeView.class, LinkOption.NOFOLLOW_LINKS);
+            PosixFileAttributes attributes = view.readAttributes();
+            if (attributes.isSymbolicLink()) {
+                unchanged.incrementAndGet();
+                return;
+            }
+            boolean modified = false;
+            Set<PosixFilePermission> permissions = attributes.permissions();
+            Set<PosixFilePermission> wanted = EnumSet.noneOf(PosixFilePermission.class);
+            wanted.addAll(permissions);
+            wanted.addAll(add);
+            wanted.removeAll(remove);
+            if (!wanted.equals(permissions)) {
+                view.setPermissions(wanted);
+                modified = true;
+            }
+            if (newOwner != null && !newOwner.equals(attributes.owner())) {
+                view.setOwner(newOwner);
+                modified = true;
+            }
+            if (newGroup != null && !newGroup.equals(attributes.group())) {
+                view.setGroup(newGroup);
+                modified = true;
+            }
+            (modified ? changed : unchanged).incrementAndGet();
+        } catch (IOException ex) {
+            failures.add(path + ": " + ex);
+        } catch (UnsupportedOperationException ex) {
+            failures.add(path + ": " + ex);
+        }
+    }
+}
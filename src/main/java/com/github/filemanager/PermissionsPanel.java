@@ -0,0 +1,134 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.awt.BorderLayout;
+import java.awt.GridLayout;
+import java.io.File;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.EnumSet;
+import java.util.Set;
+
+import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JTextField;
+import javax.swing.SwingConstants;
+
+/** The settings of a {@link PermissionsJob}: each permission bit can be kept, set or cleared. */
+class PermissionsPanel extends JPanel {
+
+    private static final String KEEP = "Keep";
+    private static final String SET = "Set";
+    private static final String CLEAR = "Clear";
+
+    private static final String BOTH = "Files and directories";
+    private static final String FILES = "Files only";
+    private static final String DIRECTORIES = "Directories only";
+
+    /** In the order of the grid: owner, group, others; read, write, execute. */
+    private static final PosixFilePermission[] PERMISSIONS = {
+        PosixFilePermission.OWNER_READ,
+        PosixFilePermission.OWNER_WRITE,
+        PosixFilePermission.OWNER_EXECUTE,
+        PosixFilePermission.GROUP_READ,
+        PosixFilePermission.GROUP_WRITE,
+        PosixFilePermission.GROUP_EXECUTE,
+        PosixFilePermission.OTHERS_READ,
+        PosixFilePermission.OTHERS_WRITE,
+        PosixFilePermission.OTHERS_EXECUTE
+    };
+
+    private final JComboBox[] choices = new JComboBox[PERMISSIONS.length];
+    private final JTextField owner = new JTextField(10);
+    private final JTextField group = new JTextField(10);
+    private final JCheckBox recursive = new JCheckBox("Include subdirectories", true);
+    private final JComboBox<String> applyTo =
+            new JComboBox<String>(new String[] {BOTH, FILES, DIRECTORIES});
+
+    PermissionsPanel(File file) {
+        super(new BorderLayout(3, 6));
+
+        JPanel grid = new JPanel(new GridLayout(4, 4, 4, 2));
+        grid.add(new JLabel(""));
+        grid.add(new JLabel("Read", SwingConstants.CENTER));
+        grid.add(new JLabel("Write", SwingConstants.CENTER));
+        grid.add(new JLabel("Execute", SwingConstants.CENTER));
+        String[] classes = {"Owner", "Group", "Others"};
+        for (int row = 0; row < 3; row++) {
+            grid.add(new JLabel(classes[row]));
+            for (int column = 0; column < 3; column++) {
+                JComboBox<String> choice =
+                        new JComboBox<String>(new String[] {KEEP, SET, CLEAR});
+                choices[row * 3 + column] = choice;
+                grid.add(choice);
+            }
+        }
+        add(grid, BorderLayout.NORTH);
+
+        JPanel principals = new JPanel(new GridLayout(2, 2, 4, 2));
+        principals.add(new JLabel("Owner (empty to keep)"));
+        principals.add(owner);
+        principals.add(new JLabel("Group (empty to keep)"));
+        principals.add(group);
+        add(principals, BorderLayout.CENTER);
+
+        JPanel scope = new JPanel(new GridLayout(1, 2, 4, 2));
+        scope.add(recursive);
+        scope.add(applyTo);
+        recursive.setEnabled(file.isDirectory());
+        recursive.setSelected(file.isDirectory());
+        add(scope, BorderLayout.SOUTH);
+    }
+
+    /** A job applying the settings to {@code root}. */
+    PermissionsJob createJob(File root) {
+        Set<PosixFilePermission> add = EnumSet.noneOf(PosixFilePermission.class);
+        Set<PosixFilePermission> remove = EnumSet.noneOf(PosixFilePermission.class);
+        for (int ii = 0; ii < PERMISSIONS.length; ii++) {
+            Object choice = choices[ii].getSelectedItem();
+            if (SET.equals(choice)) {
+                add.add(PERMISSIONS[ii]);
+            } else if (CLEAR.equals(choice)) {
+                remove.add(PERMISSIONS[ii]);
+            }
+        }
+        Object target = applyTo.getSelectedItem();
+        return new PermissionsJob(
+                root,
+                add,
+                remove,
+                emptyToNull(owner.getText()),
+                emptyToNull(group.getText()),
+                recursive.isSelected(),
+                !DIRECTORIES.equals(target),
+                !FILES.equals(target));
+    }
+
+    private static String emptyToNull(String text) {
+        String trimmed = text.trim();
+        return trimmed.length() == 0 ? null : trimmed;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import javax.swing.Timer;
+
+/**
+ * Lists the directories the user is likely to open next into a {@link DirectoryCache} while
+ * the user is idle.
+ *
+ * <p>{@link #schedule(List)} is called on the EDT whenever the selection changes; the
+ * candidates are listed once nothing else has been scheduled for {@link #getIdleMillis()}, one
+ * at a time on a single background thread, so prefetching never competes with itself for the
+ * disk. Scheduling again abandons the previous candidates. Directories that are cached already
+ * or on an unavailable mount are skipped.
+ */
+class Prefetcher {
+
+    static final String PREFETCHED = "prefetch";
+    static final int DEFAULT_IDLE_MILLIS = 400;
+
+    private final DirectoryCache cache;
+    private final IoGateway gateway;
+    private final DirectoryCache.Lister lister;
+    private final Timer idleTimer;
+    private final ExecutorService executor = IoExecutor.newPlatformExecutor("prefetch", 1);
+    private volatile int generation;
+    private List<File> candidates = new ArrayList<File>();
+
+    Prefetcher(
+            DirectoryCache cache,
+            IoGateway gateway,
+            DirectoryCache.Lister lister,
+            int idleMillis) {
+        this.cache = cache;
+        this.gateway = gateway;
+        this.lister = lister;
+        idleTimer =
+                new Timer(
+                        idleMillis,
+                        new ActionListener() {
+                            public void actionPerformed(ActionEvent ae) {
+                                start();
+                            }
+                        });
+        idleTimer.setRepeats(false);
+    }
+
+    int getIdleMillis() {
+        return idleTimer.getInitialDelay();
+    }
+
+    /** Replaces the candidates, most likely first; call on the EDT. */
+    void schedule(List<File> directories) {
+        generation++;
+        candidates = new ArrayList<File>(directories);
+        idleTimer.restart();
+    }
+
+    /** Abandons the current candidates; call on the EDT. */
+    void cancel() {
+        generation++;
+        idleTimer.stop();
+    }
+
+    private void start() {
+        final int batch = generation;
+        final List<File> directories = candidates;
+        executor.execute(
+                new Runnable() {
+                    public void run() {
+                        for (final File dir : directories) {
+                            if (batch != generation) {
+                                return;
+                            }
+                            if (cache.contains(dir) || !gateway.isAvailable(dir)) {
+                                continue;
+                            }
+                            try {
+                                gateway.call(
+                                        dir,
+                                        new Callable<FileRows>() {
+                                            public FileRows call() {
+                                                return cache.list(dir, lister);
+                                            }
+                                        });
+                                Metrics.count(PREFETCHED, 1);
+                            } catch (IOException ex) {
+                                // the gateway keeps track of failing mounts
+                            }
+                        }
+                    }
+                });
+    }
+}
@@ -0,0 +1,188 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs a {@link FileQuery} over a directory tree and hands over the matches directory by
+ * directory, so they can be shown while the search goes on.
+ *
+ * <p>Directories are listed through a {@link DirectoryCache.Lister} and tested row by row on
+ * the listing's columns. Symbolic links to directories are not followed, which keeps a link
+ * back up the tree from looping forever.
+ *
+ * <p>{@link #run(File, Results, int)} lists several directories at once, which pays off on
+ * network mounts and on the slow system views; the shared stack keeps the walk close to depth
+ * first, so the directories waiting to be listed stay few even in very wide trees.
+ */
+final class QuerySearch {
+
+    /**
+     * Receives the matches of one directory, on the searching thread. A parallel search calls
+     * it from several threads at once; blocking in it holds back the thread that found them.
+     */
+    interface Results {
+        void found(FileRows matches);
+    }
+
+    private final FileQuery query;
+    private final DirectoryCache.Lister lister;
+    private volatile boolean cancelled;
+    private final AtomicLong directories = new AtomicLong();
+    private final AtomicLong matches = new AtomicLong();
+
+    QuerySearch(FileQuery query, DirectoryCache.Lister lister) {
+        this.query = query;
+        this.lister = lister;
+    }
+
+    /** Stops the search after the directory it is in. */
+    void cancel() {
+        cancelled = true;
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    long getDirectoriesSearched() {
+        return directories.get();
+    }
+
+    long getMatches() {
+        return matches.get();
+    }
+
+    /** Searches below {@code root}, depth first, in the order of the listings. */
+    void run(File root, Results results) {
+        Deque<File> pending = new ArrayDeque<File>();
+        pending.push(root);
+        while (!pending.isEmpty() && !cancelled) {
+            List<File> children = search(pending.pop(), results);
+            // pushed in reverse, so the first subdirectory is searched next
+            for (int index = children.size() - 1; index >= 0; index--) {
+                pending.push(children.get(index));
+            }
+        }
+    }
+
+    /**
+     * Searches below {@code root} on {@code threads} tasks of the {@link IoExecutor} and returns
+     * when all of them are done, or soon after {@link #cancel()}. Matches arrive in no
+     * particular order.
+     */
+    void run(File root, final Results results, int threads) throws InterruptedException {
+        final LinkedBlockingDeque<File> pending = new LinkedBlockingDeque<File>();
+        // directories pushed but not finished; the walk is over when it drops to zero
+        final AtomicInteger outstanding = new AtomicInteger(1);
+        pending.push(root);
+        final CountDownLatch finished = new CountDownLatch(threads);
+        for (int thread = 0; thread < threads; thread++) {
+            IoExecutor.get()
+                    .execute(
+                            new Runnable() {
+                                public void run() {
+                                    try {
+                                        walk(pending, outstanding, results);
+                                    } finally {
+                                        finished.countDown();
+                                    }
+                                }
+                            });
+        }
+        try {
+            finished.await();
+        } catch (InterruptedException ex) {
+            cancel();
+            throw ex;
+        }
+    }
+
+    private void walk(
+            LinkedBlockingDeque<File> pending, AtomicInteger outstanding, Results results) {
+        while (!cancelled && outstanding.get() > 0) {
+            File dir;
+            try {
+                dir = pending.pollFirst(20, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                cancel();
+                return;
+            }
+            if (dir == null) {
+                continue;
+            }
+            try {
+                List<File> children = search(dir, results);
+                // counted before they can be taken, so the count never touches zero early
+                outstanding.addAndGet(children.size());
+                for (int index = children.size() - 1; index >= 0; index--) {
+                    pending.push(children.get(index));
+                }
+            } finally {
+                outstanding.decrementAndGet();
+            }
+        }
+    }
+
+    /** Hands over the matches of {@code dir} and returns its subdirectories to search. */
+    private List<File> search(File dir, Results results) {
+        FileRows rows = lister.list(dir);
+        directories.incrementAndGet();
+        if (rows == null) {
+            return new ArrayList<File>(0);
+        }
+        FileRows found = null;
+        List<File> children = new ArrayList<File>();
+        for (int row = 0; row < rows.size(); row++) {
+            if (query.matches(rows, row)) {
+                if (found == null) {
+                    found = new FileRows();
+                }
+                found.add(rows, row);
+            }
+            if (rows.is(row, FileRows.DIRECTORY)) {
+                File child = rows.getFile(row);
+                if (!Files.isSymbolicLink(child.toPath())) {
+                    children.add(child);
+                }
+            }
+        }
+        if (found != null) {
+            matches.addAndGet(found.size());
+            results.found(found);
+        }
+        return children;
+    }
+}
@@ -0,0 +1,890 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A small HTTP server for browsing a directory tree on a machine without a display.
+ *
+ * <p>It listens on the loopback interface unless told otherwise, and serves only what is below
+ * its root directory. Paths are given relative to the root in the {@code path} parameter:
+ *
+ * <ul>
+ *   <li>{@code GET /api/list?path=dir[&offset=N&limit=N]} lists a directory as JSON Lines, sent
+ *       with chunked encoding a page of {@value #PAGE_SIZE} entries at a time, so a client can
+ *       show the first entries of a large directory before the rest arrives;
+ *   <li>{@code GET /api/stat?path=file} returns the metadata of one file as a JSON object;
+ *   <li>{@code GET /api/file?path=file} downloads a file with {@link FileChannel#transferTo},
+ *       which lets the kernel send the pages without copying them through the heap; a {@code
+ *       Range: bytes=N-} header starts at an offset;
+ *   <li>{@code PUT /api/file?path=file} uploads a file; the body is streamed into a temporary
+ *       file that replaces the target once complete;
+ *   <li>{@code GET /api/watch?path=dir} upgrades to a WebSocket that sends a JSON text message
+ *       for each file created, deleted or modified in the directory.
+ * </ul>
+ *
+ * <p>There is no authentication, so requests must name the server by {@code localhost} or by
+ * the address it is bound to in their {@code Host} header. A web page that has rebound its own
+ * host name to this machine's address therefore cannot read the tree through the browser.
+ *
+ * <p>Each connection is served by its own thread and closed after one request. Listings go
+ * through a {@link DirectoryCache}, so paging through a large directory lists it once.
+ */
+final class RemoteServer implements Closeable {
+
+    static final int DEFAULT_PORT = 8717;
+    static final int PAGE_SIZE = 500;
+
+    static final String REQUESTS = "remote.requests";
+    static final String BYTES_SENT = "remote.bytes.sent";
+    static final String BYTES_RECEIVED = "remote.bytes.received";
+
+    private static final int MAX_HEAD_SIZE = 16 * 1024;
+    private static final long WATCH_POLL_MILLIS = 200;
+    /** How long a client may stop reading before its WebSocket is dropped. */
+    private static final long WRITE_TIMEOUT_MILLIS = 30000;
+    private static final String WEBSOCKET_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+    private static final int OPCODE_TEXT = 0x1;
+    private static final int OPCODE_CLOSE = 0x8;
+    private static final int OPCODE_PING = 0x9;
+    private static final int OPCODE_PONG = 0xA;
+
+    /** A request that cannot be served, answered with {@code status} before any output. */
+    static final class HttpException extends Exception {
+
+        private final int status;
+
+        HttpException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+
+        int getStatus() {
+            return status;
+        }
+    }
+
+    /** The request line and headers; {@code body} holds what was read past the headers. */
+    private static final class Request {
+        String method;
+        String path;
+        final Map<String, String> query = new HashMap<String, String>();
+        final Map<String, String> headers = new HashMap<String, String>();
+        ByteBuffer body;
+    }
+
+    private final Path root;
+    private final Path realRoot;
+    private final ServerSocketChannel server;
+    private final InetAddress boundAddress;
+    private final ExecutorService connections;
+    private final Set<SocketChannel> open =
+            Collections.newSetFromMap(new ConcurrentHashMap<SocketChannel, Boolean>());
+    private final DirectoryCache cache = new DirectoryCache();
+    private final DirectoryCache.Lister lister =
+            new DirectoryCache.Lister() {
+                public FileRows list(File dir) {
+                    try {
+                        return Cli.list(dir, true);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                }
+            };
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private volatile boolean closed;
+
+    /**
+     * Starts serving {@code root} on {@code address}; a port of 0 picks a free one.
+     *
+     * @throws IOException if the address is taken or the root is not a directory
+     */
+    RemoteServer(File root, InetSocketAddress address) throws IOException {
+        if (!root.isDirectory()) {
+            throw new IOException(root + " is not a directory");
+        }
+        this.root = root.toPath().toAbsolutePath().normalize();
+        this.realRoot = this.root.toRealPath();
+        server = ServerSocketChannel.open();
+        server.bind(address);
+        boundAddress = ((InetSocketAddress) server.getLocalAddress()).getAddress();
+        connections =
+                Executors.newCachedThreadPool(
+                        new ThreadFactory() {
+                            public Thread newThread(Runnable r) {
+                                Thread thread = new Thread(r, "remote-connection");
+                                thread.setDaemon(true);
+                                return thread;
+                            }
+                        });
+        Thread acceptor =
+                new Thread(
+                        new Runnable() {
+                            public void run() {
+                                accept();
+                            }
+                        },
+                        "remote-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /** Starts serving {@code root} on the loopback interface. */
+    static RemoteServer onLoopback(File root, int port) throws IOException {
+        return new RemoteServer(root, new InetSocketAddress("127.0.0.1", port));
+    }
+
+    int getPort() throws IOException {
+        return ((InetSocketAddress) server.getLocalAddress()).getPort();
+    }
+
+    File getRoot() {
+        return root.toFile();
+    }
+
+    /** Blocks until the server is closed. */
+    void await() throws InterruptedException {
+        stopped.await();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        closeQuietly(server);
+        for (SocketChannel channel : open) {
+            closeQuietly(channel);
+        }
+        connections.shutdownNow();
+        stopped.countDown();
+    }
+
+    private void accept() {
+        while (!closed) {
+            final SocketChannel channel;
+            try {
+                channel = server.accept();
+            } catch (IOException ex) {
+                if (!closed) {
+                    close();
+                }
+                return;
+            }
+            open.add(channel);
+            connections.execute(
+                    new Runnable() {
+                        public void run() {
+                            try {
+                                serve(channel);
+                            } finally {
+                                open.remove(channel);
+                                closeQuietly(channel);
+                            }
+                        }
+                    });
+        }
+    }
+
+    private void serve(SocketChannel channel) {
+        try {
+            try {
+                Request request = readRequest(channel);
+                if (request == null) {
+                    return;
+                }
+                Metrics.count(REQUESTS, 1);
+                checkHost(request);
+                route(channel, request);
+            } catch (HttpException ex) {
+                sendJson(
+                        channel,
+                        ex.getStatus(),
+                        new JsonLine().put("error", String.valueOf(ex.getMessage())).toString());
+            }
+        } catch (IOException ex) {
+            // the client went away, or the server is closing
+        }
+    }
+
+    private void route(SocketChannel channel, Request request)
+            throws IOException, HttpException {
+        String path = request.path;
+        boolean get = request.method.equals("GET");
+        if (path.equals("/api/list") && get) {
+            list(channel, request);
+        } else if (path.equals("/api/stat") && get) {
+            sendJson(channel, 200, stat(resolve(request, true)).toString());
+        } else if (path.equals("/api/file") && get) {
+            download(channel, request);
+        } else if (path.equals("/api/file") && request.method.equals("PUT")) {
+            upload(channel, request);
+        } else if (path.equals("/api/watch") && get) {
+            watch(channel, request);
+        } else if (path.matches("/api/(list|stat|file|watch)")) {
+            throw new HttpException(405, request.method + " is not supported for " + path);
+        } else {
+            throw new HttpException(404, "Not found: " + path);
+        }
+    }
+
+    /* ---------------------------------------------------------------- handlers */
+
+    private void list(SocketChannel channel, Request request) throws IOException, HttpException {
+        File dir = resolve(request, true);
+        if (!dir.isDirectory()) {
+            throw new HttpException(400, relative(dir) + " is not a directory");
+        }
+        int offset = intParameter(request, "offset", 0);
+        int limit = intParameter(request, "limit", Integer.MAX_VALUE);
+        FileRows rows;
+        try {
+            rows = cache.list(dir, lister);
+        } catch (UncheckedIOException ex) {
+            throw new HttpException(500, ex.getCause().getMessage());
+        }
+        int from = Math.min(offset, rows.size());
+        int to = (int) Math.min((long) from + limit, rows.size());
+        writeHead(
+                channel,
+                200,
+                "application/x-ndjson",
+                -1,
+                "X-Total-Count: " + rows.size() + "\r\n");
+        StringBuilder page = new StringBuilder();
+        for (int row = from; row < to; row++) {
+            page.append(
+                            new JsonLine()
+                                    .put("name", rows.getName(row))
+                                    .put("directory", rows.is(row, FileRows.DIRECTORY))
+                                    .put("size", rows.getLength(row))
+                                    .put("modified", rows.getLastModified(row)))
+                    .append('\n');
+            if ((row - from + 1) % PAGE_SIZE == 0 || row == to - 1) {
+                writeChunk(channel, page.toString().getBytes(StandardCharsets.UTF_8));
+                page.setLength(0);
+            }
+        }
+        writeChunk(channel, new byte[0]);
+    }
+
+    private JsonLine stat(File file) throws HttpException {
+        if (!file.exists()) {
+            throw new HttpException(404, "No such file: " + relative(file));
+        }
+        return new JsonLine()
+                .put("path", relative(file))
+                .put("name", file.getName())
+                .put("directory", file.isDirectory())
+                .put("size", file.isDirectory() ? 0 : file.length())
+                .put("modified", file.lastModified())
+                .put("readable", file.canRead())
+                .put("writable", file.canWrite())
+                .put("hidden", file.isHidden());
+    }
+
+    private void download(SocketChannel channel, Request request)
+            throws IOException, HttpException {
+        File file = resolve(request, true);
+        if (!file.isFile()) {
+            throw new HttpException(file.exists() ? 400 : 404, "Not a file: " + relative(file));
+        }
+        FileChannel in;
+        try {
+            in = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        } catch (IOException ex) {
+            throw new HttpException(403, ex.getMessage());
+        }
+        try {
+            long size = in.size();
+            long start = rangeStart(request.headers.get("range"), size);
+            String headers = "Accept-Ranges: bytes\r\n";
+            if (start > 0) {
+                headers += "Content-Range: bytes " + start + "-" + (size - 1) + "/" + size + "\r\n";
+            }
+            writeHead(
+                    channel,
+                    start > 0 ? 206 : 200,
+                    "application/octet-stream",
+                    size - start,
+                    headers);
+            long position = start;
+            while (position < size) {
+                long sent = in.transferTo(position, size - position, channel);
+                if (sent <= 0) {
+                    throw new IOException("Connection stalled");
+                }
+                position += sent;
+                Metrics.count(BYTES_SENT, sent);
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /** Where a {@code Range: bytes=N-} header starts; other ranges are ignored. */
+    private static long rangeStart(String range, long size) throws HttpException {
+        if (range == null || !range.startsWith("bytes=") || !range.endsWith("-")) {
+            return 0;
+        }
+        long start;
+        try {
+            start = Long.parseLong(range.substring(6, range.length() - 1).trim());
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+        if (start < 0 || start >= size && size > 0) {
+            throw new HttpException(416, "Range starts past the end of the file");
+        }
+        return start;
+    }
+
+    private void upload(SocketChannel channel, Request request)
+            throws IOException, HttpException {
+        File file = resolve(request, false);
+        String header = request.headers.get("content-length");
+        if (header == null) {
+            throw new HttpException(411, "Content-Length is required");
+        }
+        long length;
+        try {
+            length = Long.parseLong(header.trim());
+        } catch (NumberFormatException ex) {
+            length = -1;
+        }
+        if (length < 0) {
+            throw new HttpException(400, "Bad Content-Length: " + header);
+        }
+        if (file.isDirectory()) {
+            throw new HttpException(409, relative(file) + " is a directory");
+        }
+        File parent = file.getParentFile();
+        if (!parent.isDirectory()) {
+            throw new HttpException(404, "No such directory: " + relative(parent));
+        }
+        File temp = new File(parent, file.getName() + CopyJob.PART_SUFFIX);
+        FileChannel out;
+        try {
+            out =
+                    FileChannel.open(
+                            temp.toPath(),
+                            StandardOpenOption.CREATE,
+                            StandardOpenOption.WRITE,
+                            StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException ex) {
+            throw new HttpException(403, ex.getMessage());
+        }
+        boolean complete = false;
+        try {
+            ByteBuffer body = request.body;
+            if (body.remaining() > length) {
+                body.limit(body.position() + (int) length);
+            }
+            long position = 0;
+            while (body.hasRemaining()) {
+                position += out.write(body);
+            }
+            while (position < length) {
+                long received = out.transferFrom(channel, position, length - position);
+                if (received <= 0) {
+                    throw new HttpException(400, "The upload ended after " + position + " bytes");
+                }
+                position += received;
+            }
+            Metrics.count(BYTES_RECEIVED, length);
+            complete = true;
+        } finally {
+            out.close();
+            if (!complete) {
+                temp.delete();
+            }
+        }
+        try {
+            Files.move(
+                    temp.toPath(),
+                    file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        cache.invalidate(parent);
+        sendJson(channel, 201, stat(file).toString());
+    }
+
+    private void watch(SocketChannel channel, Request request) throws IOException, HttpException {
+        File dir = resolve(request, true);
+        if (!dir.isDirectory()) {
+            throw new HttpException(400, relative(dir) + " is not a directory");
+        }
+        String key = request.headers.get("sec-websocket-key");
+        if (!"websocket".equalsIgnoreCase(request.headers.get("upgrade")) || key == null) {
+            throw new HttpException(400, "Expected a WebSocket upgrade");
+        }
+        WatchService watcher = dir.toPath().getFileSystem().newWatchService();
+        try {
+            dir.toPath()
+                    .register(
+                            watcher,
+                            StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_DELETE,
+                            StandardWatchEventKinds.ENTRY_MODIFY);
+            write(
+                    channel,
+                    ("HTTP/1.1 101 Switching Protocols\r\n"
+                                    + "Upgrade: websocket\r\n"
+                                    + "Connection: Upgrade\r\n"
+                                    + "Sec-WebSocket-Accept: "
+                                    + acceptKey(key)
+                                    + "\r\n\r\n")
+                            .getBytes(StandardCharsets.ISO_8859_1));
+            sendText(channel, new JsonLine().put("type", "ready").put("path", relative(dir)));
+            // polled between watch events, so a close from the client ends the loop
+            channel.configureBlocking(false);
+            ByteBuffer incoming = ByteBuffer.allocate(256);
+            while (!closed) {
+                WatchKey watchKey = watcher.poll(WATCH_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (watchKey != null) {
+                    cache.invalidate(dir);
+                    for (WatchEvent<?> event : watchKey.pollEvents()) {
+                        sendText(channel, changeEvent(dir, event));
+                    }
+                    if (!watchKey.reset()) {
+                        sendText(channel, new JsonLine().put("type", "gone"));
+                        sendFrame(channel, OPCODE_CLOSE, new byte[0]);
+                        return;
+                    }
+                }
+                if (!readControlFrames(channel, incoming)) {
+                    return;
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException ex) {
+            // the server is closing
+        } finally {
+            watcher.close();
+        }
+    }
+
+    private JsonLine changeEvent(File dir, WatchEvent<?> event) {
+        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+            // some events were lost; the client should list the directory again
+            return new JsonLine().put("type", "overflow").put("path", relative(dir));
+        }
+        String type =
+                event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+                        ? "create"
+                        : event.kind() == StandardWatchEventKinds.ENTRY_DELETE
+                                ? "delete"
+                                : "modify";
+        File file = new File(dir, event.context().toString());
+        return new JsonLine()
+                .put("type", type)
+                .put("path", relative(file))
+                .put("name", file.getName());
+    }
+
+    /**
+     * Answers pings and closes in the frames the client has sent so far.
+     *
+     * @return false once the client has closed the connection
+     */
+    private static boolean readControlFrames(SocketChannel channel, ByteBuffer incoming)
+            throws IOException {
+        if (channel.read(incoming) < 0) {
+            return false;
+        }
+        incoming.flip();
+        try {
+            // client frames are masked; control frames carry at most 125 bytes
+            while (incoming.remaining() >= 6) {
+                int opcode = incoming.get(incoming.position()) & 0x0F;
+                int length = incoming.get(incoming.position() + 1) & 0x7F;
+                if (length > 125) {
+                    return false;
+                }
+                if (incoming.remaining() < 6 + length) {
+                    break;
+                }
+                incoming.position(incoming.position() + 2);
+                byte[] mask = new byte[4];
+                incoming.get(mask);
+                byte[] payload = new byte[length];
+                incoming.get(payload);
+                for (int ii = 0; ii < length; ii++) {
+                    payload[ii] ^= mask[ii % 4];
+                }
+                if (opcode == OPCODE_CLOSE) {
+                    sendFrame(channel, OPCODE_CLOSE, payload);
+                    return false;
+                } else if (opcode == OPCODE_PING) {
+                    sendFrame(channel, OPCODE_PONG, payload);
+                }
+            }
+        } finally {
+            incoming.compact();
+        }
+        return true;
+    }
+
+    static String acceptKey(String key) {
+        try {
+            MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+            byte[] digest =
+                    sha1.digest((key.trim() + WEBSOCKET_GUID).getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static void sendText(SocketChannel channel, JsonLine message) throws IOException {
+        sendFrame(channel, OPCODE_TEXT, message.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Writes one unmasked, unfragmented frame. */
+    private static void sendFrame(SocketChannel channel, int opcode, byte[] payload)
+            throws IOException {
+        ByteBuffer frame = ByteBuffer.allocate(10 + payload.length);
+        frame.put((byte) (0x80 | opcode));
+        if (payload.length < 126) {
+            frame.put((byte) payload.length);
+        } else if (payload.length <= 0xFFFF) {
+            frame.put((byte) 126);
+            frame.putShort((short) payload.length);
+        } else {
+            frame.put((byte) 127);
+            frame.putLong(payload.length);
+        }
+        frame.put(payload);
+        frame.flip();
+        write(channel, frame);
+    }
+
+    /* ---------------------------------------------------------------- HTTP */
+
+    /** Reads the request line and headers, or returns null if the client sent nothing. */
+    private static Request readRequest(SocketChannel channel) throws IOException, HttpException {
+        ByteBuffer buffer = ByteBuffer.allocate(MAX_HEAD_SIZE);
+        int end = -1;
+        while (end < 0) {
+            if (!buffer.hasRemaining()) {
+                throw new HttpException(431, "The request headers are too large");
+            }
+            int from = Math.max(0, buffer.position() - 3);
+            if (channel.read(buffer) < 0) {
+                return null;
+            }
+            for (int ii = from; ii + 3 < buffer.position(); ii++) {
+                if (buffer.get(ii) == '\r'
+                        && buffer.get(ii + 1) == '\n'
+                        && buffer.get(ii + 2) == '\r'
+                        && buffer.get(ii + 3) == '\n') {
+                    end = ii;
+                    break;
+                }
+            }
+        }
+        String head = new String(buffer.array(), 0, end, StandardCharsets.ISO_8859_1);
+        buffer.flip();
+        buffer.position(end + 4);
+
+        Request request = new Request();
+        request.body = buffer.slice();
+        String[] lines = head.split("\r\n");
+        String[] requestLine = lines[0].split(" ");
+        if (requestLine.length != 3) {
+            throw new HttpException(400, "Bad request line");
+        }
+        request.method = requestLine[0];
+        String target = requestLine[1];
+        int question = target.indexOf('?');
+        request.path = question < 0 ? target : target.substring(0, question);
+        if (question >= 0) {
+            for (String parameter : target.substring(question + 1).split("&")) {
+                int equals = parameter.indexOf('=');
+                if (equals > 0) {
+                    request.query.put(
+                            decode(parameter.substring(0, equals)),
+                            decode(parameter.substring(equals + 1)));
+                }
+            }
+        }
+        for (int ii = 1; ii < lines.length; ii++) {
+            int colon = lines[ii].indexOf(':');
+            if (colon > 0) {
+                request.headers.put(
+                        lines[ii].substring(0, colon).trim().toLowerCase(Locale.ROOT),
+                        lines[ii].substring(colon + 1).trim());
+            }
+        }
+        return request;
+    }
+
+    /**
+     * Refuses a {@code Host} other than {@code localhost} or the bound address; on the wildcard
+     * address any address literal is taken. Names other than localhost are never resolved.
+     */
+    private void checkHost(Request request) throws HttpException {
+        String host = request.headers.get("host");
+        if (host == null) {
+            throw new HttpException(400, "Host is required");
+        }
+        String name = host;
+        if (name.startsWith("[")) {
+            int bracket = name.indexOf(']');
+            name = bracket < 0 ? name : name.substring(1, bracket);
+        } else if (name.indexOf(':') >= 0) {
+            name = name.substring(0, name.indexOf(':'));
+        }
+        if (name.equalsIgnoreCase("localhost")) {
+            return;
+        }
+        // a literal: digits and dots for IPv4, hex digits and colons for IPv6
+        if (name.length() > 0 && name.matches("[0-9.]+|[0-9a-fA-F:.]*:[0-9a-fA-F:.]*")) {
+            InetAddress address;
+            try {
+                address = InetAddress.getByName(name);
+            } catch (IOException ex) {
+                address = null;
+            }
+            if (address != null
+                    && (boundAddress.isAnyLocalAddress()
+                            || address.equals(boundAddress)
+                            || address.isLoopbackAddress() && boundAddress.isLoopbackAddress())) {
+                return;
+            }
+        }
+        throw new HttpException(403, "Not served to host " + host);
+    }
+
+    private static String decode(String text) throws HttpException {
+        try {
+            return URLDecoder.decode(text, "UTF-8");
+        } catch (UnsupportedEncodingException | IllegalArgumentException ex) {
+            throw new HttpException(400, "Bad parameter: " + text);
+        }
+    }
+
+    private static int intParameter(Request request, String name, int defaultValue)
+            throws HttpException {
+        String value = request.query.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(value));
+        } catch (NumberFormatException ex) {
+            throw new HttpException(400, "Bad " + name + ": " + value);
+        }
+    }
+
+    /**
+     * The file named by the {@code path} parameter. Fails if it is outside the root, also
+     * through a symbolic link.
+     *
+     * @param mustExist whether a missing file is an error, rather than one to create
+     */
+    private File resolve(Request request, boolean mustExist) throws HttpException {
+        String name = request.query.get("path");
+        Path path = root.resolve(name == null ? "" : name.replaceFirst("^/+", "")).normalize();
+        if (!path.startsWith(root)) {
+            throw new HttpException(403, "Outside the served directory: " + name);
+        }
+        Path existing = Files.exists(path) ? path : path.getParent();
+        if (existing == null || !Files.exists(existing)) {
+            throw new HttpException(404, "No such file: " + name);
+        }
+        if (mustExist && existing != path) {
+            throw new HttpException(404, "No such file: " + name);
+        }
+        try {
+            if (!existing.toRealPath().startsWith(realRoot)) {
+                throw new HttpException(403, "Outside the served directory: " + name);
+            }
+        } catch (IOException ex) {
+            throw new HttpException(404, ex.getMessage());
+        }
+        return path.toFile();
+    }
+
+    /** The path of {@code file} below the root, with {@code /} separators. */
+    private String relative(File file) {
+        return root.relativize(file.toPath()).toString().replace(File.separatorChar, '/');
+    }
+
+    private static void sendJson(SocketChannel channel, int status, String json)
+            throws IOException {
+        byte[] body = (json + "\n").getBytes(StandardCharsets.UTF_8);
+        writeHead(channel, status, "application/json", body.length, "");
+        write(channel, body);
+    }
+
+    /**
+     * Writes the status line and headers.
+     *
+     * @param length the body length, or -1 for chunked encoding
+     * @param extraHeaders more header lines, each ending with CRLF
+     */
+    private static void writeHead(
+            SocketChannel channel, int status, String contentType, long length,
+            String extraHeaders)
+            throws IOException {
+        String head =
+                "HTTP/1.1 "
+                        + status
+                        + " "
+                        + reason(status)
+                        + "\r\n"
+                        + "Content-Type: "
+                        + contentType
+                        + "\r\n"
+                        + (length < 0
+                                ? "Transfer-Encoding: chunked\r\n"
+                                : "Content-Length: " + length + "\r\n")
+                        + extraHeaders
+                        + "Connection: close\r\n\r\n";
+        write(channel, head.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    /** Writes one chunk; an empty one ends the body. */
+    private static void writeChunk(SocketChannel channel, byte[] data) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(data.length + 16);
+        chunk.put(Integer.toHexString(data.length).getBytes(StandardCharsets.ISO_8859_1));
+        chunk.put((byte) '\r').put((byte) '\n');
+        chunk.put(data);
+        chunk.put((byte) '\r').put((byte) '\n');
+        chunk.flip();
+        write(channel, chunk);
+        Metrics.count(BYTES_SENT, data.length);
+    }
+
+    private static String reason(int status) {
+        switch (status) {
+            case 200:
+                return "OK";
+            case 201:
+                return "Created";
+            case 206:
+                return "Partial Content";
+            case 400:
+                return "Bad Request";
+            case 403:
+                return "Forbidden";
+            case 404:
+                return "Not Found";
+            case 405:
+                return "Method Not Allowed";
+            case 409:
+                return "Conflict";
+            case 411:
+                return "Length Required";
+            case 416:
+                return "Range Not Satisfiable";
+            case 431:
+                return "Request Header Fields Too Large";
+            default:
+                return "Internal Server Error";
+        }
+    }
+
+    private static void write(SocketChannel channel, byte[] data) throws IOException {
+        write(channel, ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Writes all of {@code buffer}, also on a non-blocking channel, where a full send buffer is
+     * waited out with a {@link Selector} for up to {@link #WRITE_TIMEOUT_MILLIS}.
+     *
+     * @throws IOException also if the client has stopped reading
+     */
+    private static void write(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        Selector selector = null;
+        try {
+            while (buffer.hasRemaining()) {
+                if (channel.write(buffer) > 0) {
+                    continue;
+                }
+                if (selector == null) {
+                    selector = Selector.open();
+                    channel.register(selector, SelectionKey.OP_WRITE);
+                }
+                if (selector.select(WRITE_TIMEOUT_MILLIS) == 0) {
+                    throw new IOException("The client stopped reading");
+                }
+                selector.selectedKeys().clear();
+            }
+        } finally {
+            if (selector != null) {
+                selector.close();
+            }
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
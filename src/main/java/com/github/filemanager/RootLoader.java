@@ -0,0 +1,166 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.filechooser.FileSystemView;
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
+
+/**
+ * Fills in the file system roots of the tree in the background.
+ *
+ * <p>{@link #load} adds a node per root right away and lists each root's sub-directories on its
+ * own thread, so a slow or stale mount only delays its own node. A root that has not answered
+ * within the timeout is marked {@link Status#UNRESPONSIVE}; its children are still added if the
+ * listing eventually returns. Status is only read and changed on the EDT.
+ */
+class RootLoader {
+
+    enum Status {
+        LOADING,
+        LOADED,
+        UNRESPONSIVE
+    }
+
+    /** Lists the sub-directories of a root; may block for as long as the mount does. */
+    interface Lister {
+        File[] listDirectories(File root);
+    }
+
+    /** Notified on the EDT when the children of a root node have been added. */
+    interface Listener {
+        void rootLoaded(DefaultMutableTreeNode node);
+    }
+
+    static final long DEFAULT_TIMEOUT_MILLIS = 3000;
+
+    private static final ExecutorService EXECUTOR = IoExecutor.createUnbounded("root-loader");
+
+    private final DefaultTreeModel treeModel;
+    private final Lister lister;
+    private final long timeoutMillis;
+    private final Map<File, Status> statuses = new HashMap<File, Status>();
+    private Listener listener;
+
+    RootLoader(DefaultTreeModel treeModel, Lister lister, long timeoutMillis) {
+        this.treeModel = treeModel;
+        this.lister = lister;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /** Lists with {@code fileSystemView}, keeping only directories. */
+    static Lister directoryLister(final FileSystemView fileSystemView) {
+        return new Lister() {
+            public File[] listDirectories(File root) {
+                File[] files = fileSystemView.getFiles(root, true);
+                List<File> directories = new ArrayList<File>();
+                if (files != null) {
+                    for (File file : files) {
+                        if (file.isDirectory()) {
+                            directories.add(file);
+                        }
+                    }
+                }
+                return directories.toArray(new File[0]);
+            }
+        };
+    }
+
+    void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /** Status of {@code file} if it is a root being loaded, otherwise null. */
+    Status getStatus(File file) {
+        return statuses.get(file);
+    }
+
+    /** Adds a placeholder node per root under {@code parent} and starts listing them. */
+    void load(DefaultMutableTreeNode parent, File[] roots) {
+        for (File root : roots) {
+            DefaultMutableTreeNode node = new DefaultMutableTreeNode(root);
+            treeModel.insertNodeInto(node, parent, parent.getChildCount());
+            start(node, root);
+        }
+    }
+
+    private void start(final DefaultMutableTreeNode node, final File root) {
+        statuses.put(root, Status.LOADING);
+        final long startNanos = Metrics.start();
+        EXECUTOR.execute(
+                new Runnable() {
+                    public void run() {
+                        File[] children;
+                        try {
+                            children = lister.listDirectories(root);
+                        } catch (RuntimeException ex) {
+                            children = new File[0];
+                        }
+                        Metrics.stop(Metrics.ROOT_LISTING, startNanos);
+                        final File[] directories = children;
+                        SwingUtilities.invokeLater(
+                                new Runnable() {
+                                    public void run() {
+                                        loaded(node, root, directories);
+                                    }
+                                });
+                    }
+                });
+        Timer timeout =
+                new Timer(
+                        (int) timeoutMillis,
+                        new ActionListener() {
+                            public void actionPerformed(ActionEvent ae) {
+                                if (statuses.get(root) == Status.LOADING) {
+                                    statuses.put(root, Status.UNRESPONSIVE);
+                                    treeModel.nodeChanged(node);
+                                }
+                            }
+                        });
+        timeout.setRepeats(false);
+        timeout.start();
+    }
+
+    private void loaded(DefaultMutableTreeNode node, File root, File[] directories) {
+        statuses.put(root, Status.LOADED);
+        // the user may have expanded the node or typed a path below it meanwhile
+        TreeNodes.mergeChildren(treeModel, node, Arrays.asList(directories));
+        treeModel.nodeChanged(node);
+        if (listener != null) {
+            listener.rootLoaded(node);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.prefs.BackingStoreException;
+import java.util.prefs.Preferences;
+
+/** Named {@link FileQuery} texts, kept in the user's preferences between sessions. */
+final class SavedQueries {
+
+    private final Preferences node;
+
+    SavedQueries() {
+        this(Preferences.userNodeForPackage(SavedQueries.class).node("queries"));
+    }
+
+    SavedQueries(Preferences node) {
+        this.node = node;
+    }
+
+    /** The names, sorted; empty if the preferences cannot be read. */
+    List<String> getNames() {
+        try {
+            List<String> names = new ArrayList<String>(Arrays.asList(node.keys()));
+            Collections.sort(names, String.CASE_INSENSITIVE_ORDER);
+            return names;
+        } catch (BackingStoreException ex) {
+            return Collections.emptyList();
+        }
+    }
+
+    /** The query saved as {@code name}, or null. */
+    String get(String name) {
+        return node.get(name, null);
+    }
+
+    /**
+     * Saves {@code query} as {@code name}, replacing a query of that name.
+     *
+     * @throws ParseException if the query does not compile
+     * @throws IllegalArgumentException if the name or query is too long to keep
+     */
+    void put(String name, String query) throws ParseException {
+        FileQuery.parse(query);
+        if (name.trim().length() == 0) {
+            throw new IllegalArgumentException("The name is empty");
+        }
+        if (name.length() > Preferences.MAX_KEY_LENGTH
+                || query.length() > Preferences.MAX_VALUE_LENGTH) {
+            throw new IllegalArgumentException("The name or the query is too long");
+        }
+        node.put(name, query);
+        flush();
+    }
+
+    void remove(String name) {
+        node.remove(name);
+        flush();
+    }
+
+    private void flush() {
+        try {
+            node.flush();
+        } catch (BackingStoreException ex) {
+            // kept for this session; written when the preferences next sync
+        }
+    }
+}
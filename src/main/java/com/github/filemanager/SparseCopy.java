@@ -0,0 +1,127 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Copies file data block by block, writing only the blocks that are not all zeros. The
+ * skipped blocks stay holes in the target, so a sparse source such as a VM image or a
+ * database file stays sparse; the caller extends the target to its full length at the end,
+ * with {@link java.io.RandomAccessFile#setLength}, which adds no blocks either.
+ *
+ * <p>The data passes through a direct buffer, so it is still not copied into the heap. Each
+ * thread keeps its buffer for the next file instead of allocating one per copy.
+ */
+final class SparseCopy {
+
+    /** The unit of holes on common file systems. */
+    static final int BLOCK_SIZE = 4096;
+    static final int BUFFER_SIZE = 1024 * 1024;
+
+    private static final ThreadLocal<ByteBuffer> BUFFERS =
+            new ThreadLocal<ByteBuffer>() {
+                @Override
+                protected ByteBuffer initialValue() {
+                    return ByteBuffer.allocateDirect(BUFFER_SIZE);
+                }
+            };
+
+    private ByteBuffer buffer;
+    private long writtenBytes;
+
+    /**
+     * Copies {@code count} bytes at {@code position} from {@code in} to the same position in
+     * {@code out}.
+     *
+     * @return the bytes read, fewer if {@code in} ended first
+     */
+    long copy(FileChannel in, FileChannel out, long position, long count) throws IOException {
+        // the calling thread's buffer; one SparseCopy is only used by one thread at a time
+        buffer = BUFFERS.get();
+        long end = position + count;
+        long offset = position;
+        while (offset < end) {
+            buffer.clear();
+            buffer.limit((int) Math.min(BUFFER_SIZE, end - offset));
+            while (buffer.hasRemaining()) {
+                if (in.read(buffer, offset + buffer.position()) < 0) {
+                    break;
+                }
+            }
+            int length = buffer.position();
+            if (length == 0) {
+                break;
+            }
+            int run = -1;
+            for (int block = 0; block < length; block += BLOCK_SIZE) {
+                boolean zero = isZero(buffer, block, Math.min(block + BLOCK_SIZE, length));
+                if (!zero && run < 0) {
+                    run = block;
+                } else if (zero && run >= 0) {
+                    write(out, offset, run, block);
+                    run = -1;
+                }
+            }
+            if (run >= 0) {
+                write(out, offset, run, length);
+            }
+            offset += length;
+        }
+        return offset - position;
+    }
+
+    /** The bytes actually written, without the skipped zeros. */
+    long getWrittenBytes() {
+        return writtenBytes;
+    }
+
+    private void write(FileChannel out, long offset, int from, int to) throws IOException {
+        int limit = buffer.limit();
+        buffer.limit(to);
+        buffer.position(from);
+        while (buffer.hasRemaining()) {
+            out.write(buffer, offset + buffer.position());
+        }
+        buffer.limit(limit);
+        writtenBytes += to - from;
+    }
+
+    static boolean isZero(ByteBuffer buffer, int from, int to) {
+        int ii = from;
+        for (; ii + 8 <= to; ii += 8) {
+            if (buffer.getLong(ii) != 0) {
+                return false;
+            }
+        }
+        for (; ii < to; ii++) {
+            if (buffer.get(ii) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
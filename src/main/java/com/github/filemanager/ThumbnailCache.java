@@ -0,0 +1,440 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.swing.ImageIcon;
+import javax.swing.SwingUtilities;
+
+/**
+ * Decodes and caches small previews of images and text files.
+ *
+ * <p>Lookups never block: {@link #get(File, int)} answers from the in-memory LRU and otherwise
+ * queues a decode on a small background pool. The most recently requested files are decoded
+ * first, so the rows the table is currently painting win over rows that were scrolled past.
+ * Finished thumbnails are also written to a disk cache keyed by path, size and modification time.
+ * {@link #get(FileRows, int)} takes all of that from a listing, so painting a cell reads nothing
+ * from the disk.
+ *
+ * <p>The disk cache is trimmed in the background, on the first write of a session and then every
+ * {@link #TRIM_INTERVAL} writes: thumbnails unused for {@link #MAX_DISK_AGE_MILLIS} go first,
+ * then the least recently used ones until the cache is below {@link #MAX_DISK_BYTES}.
+ */
+class ThumbnailCache {
+
+    /** Edge length of a thumbnail in pixels. */
+    static final int THUMBNAIL_SIZE = 48;
+
+    /** Receives finished thumbnails on the EDT. */
+    interface Listener {
+        void thumbnailReady(File file, int rowHint);
+    }
+
+    private static final int DEFAULT_MEMORY_CAPACITY = 512;
+
+    /** Requests older than this many newer requests are considered scrolled away and dropped. */
+    private static final int MAX_PENDING = 256;
+
+    private static final long MAX_IMAGE_BYTES = 64L * 1024 * 1024;
+
+    static final long MAX_DISK_BYTES = 128L * 1024 * 1024;
+    static final long MAX_DISK_AGE_MILLIS = 90L * 24 * 60 * 60 * 1000;
+    private static final int TRIM_INTERVAL = 256;
+
+    private static final int TEXT_HEAD_BYTES = 512;
+    private static final int TEXT_HEAD_LINES = 6;
+
+    private static final Set<String> TEXT_SUFFIXES =
+            new HashSet<String>(
+                    Arrays.asList(
+                            "txt", "log", "md", "csv", "json", "xml", "html", "properties", "yml",
+                            "yaml", "java", "c", "h", "cpp", "py", "js", "sh", "sql", "ini", "conf",
+                            "cfg"));
+
+    private final Set<String> imageSuffixes = new HashSet<String>();
+    private final File diskCacheDir;
+    private final Map<String, ImageIcon> memory;
+    private final Set<String> pending = new HashSet<String>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong diskWrites = new AtomicLong();
+    private final ThreadPoolExecutor decoders;
+    private volatile Listener listener;
+
+    ThumbnailCache() {
+        this(
+                new File(System.getProperty("user.home"), ".filemanager/thumbnails"),
+                DEFAULT_MEMORY_CAPACITY);
+    }
+
+    ThumbnailCache(File diskCacheDir, final int memoryCapacity) {
+        this.diskCacheDir = diskCacheDir;
+        this.memory =
+                new LinkedHashMap<String, ImageIcon>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, ImageIcon> eldest) {
+                        return size() > memoryCapacity;
+                    }
+                };
+        for (String suffix : ImageIO.getReaderFileSuffixes()) {
+            imageSuffixes.add(suffix.toLowerCase(Locale.ROOT));
+        }
+        int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+        decoders =
+                new ThreadPoolExecutor(
+                        threads,
+                        threads,
+                        30,
+                        TimeUnit.SECONDS,
+                        new PriorityBlockingQueue<Runnable>(),
+                        new ThreadFactory() {
+                            public Thread newThread(Runnable r) {
+                                Thread thread = new Thread(r, "thumbnail-decoder");
+                                thread.setDaemon(true);
+                                thread.setPriority(Thread.MIN_PRIORITY);
+                                return thread;
+                            }
+                        });
+        decoders.allowCoreThreadTimeOut(true);
+    }
+
+    void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /** Whether this cache knows how to preview the given file; asks the file system. */
+    boolean supports(File file) {
+        return file != null && file.isFile() && supports(file.getName(), file.length());
+    }
+
+    private boolean supports(String name, long length) {
+        String suffix = suffix(name);
+        if (imageSuffixes.contains(suffix)) {
+            return length <= MAX_IMAGE_BYTES;
+        }
+        return TEXT_SUFFIXES.contains(suffix);
+    }
+
+    /**
+     * Returns the cached thumbnail, or {@code null} after scheduling a background decode. The
+     * listener is notified once the thumbnail becomes available. Reads the file's attributes,
+     * so the table uses {@link #get(FileRows, int)}.
+     */
+    ImageIcon get(File file, int rowHint) {
+        if (!supports(file)) {
+            return null;
+        }
+        return lookup(file.getAbsolutePath(), key(file), rowHint);
+    }
+
+    /** Like {@link #get(File, int)} for row {@code row} of a listing, without any I/O. */
+    ImageIcon get(FileRows rows, int row) {
+        if (!rows.is(row, FileRows.FILE) || !supports(rows.getName(row), rows.getLength(row))) {
+            return null;
+        }
+        String path = rows.getPath(row);
+        return lookup(path, key(path, rows.getLength(row), rows.getLastModified(row)), row);
+    }
+
+    private ImageIcon lookup(String path, String key, int rowHint) {
+        synchronized (memory) {
+            if (memory.containsKey(key)) {
+                // a null value remembers files that could not be decoded
+                return memory.get(key);
+            }
+        }
+        synchronized (pending) {
+            if (!pending.add(key)) {
+                return null;
+            }
+        }
+        decoders.execute(new DecodeTask(new File(path), key, rowHint, sequence.incrementAndGet()));
+        return null;
+    }
+
+    /** Drops in-memory thumbnails; the disk cache is kept. */
+    void clearMemory() {
+        synchronized (memory) {
+            memory.clear();
+        }
+    }
+
+    void shutdown() {
+        decoders.shutdownNow();
+    }
+
+    static String key(File file) {
+        return key(file.getAbsolutePath(), file.length(), file.lastModified());
+    }
+
+    static String key(String path, long length, long lastModified) {
+        return path + '|' + length + '|' + lastModified;
+    }
+
+    private static String suffix(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+
+    File diskFile(String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(hash.length * 2 + 4);
+            for (byte b : hash) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+                sb.append(Character.forDigit(b & 0xF, 16));
+            }
+            return new File(diskCacheDir, sb.append(".png").toString());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private BufferedImage load(File file, String key) throws IOException {
+        File cached = diskFile(key);
+        if (cached.isFile()) {
+            BufferedImage image = ImageIO.read(cached);
+            if (image != null) {
+                // the time of last use, which trimming goes by
+                cached.setLastModified(System.currentTimeMillis());
+                return image;
+            }
+        }
+        BufferedImage image =
+                imageSuffixes.contains(suffix(file.getName()))
+                        ? decodeImage(file)
+                        : renderTextHead(file);
+        if (image != null && (diskCacheDir.isDirectory() || diskCacheDir.mkdirs())) {
+            try {
+                ImageIO.write(image, "png", cached);
+                if (diskWrites.getAndIncrement() % TRIM_INTERVAL == 0) {
+                    trimDiskCache(MAX_DISK_BYTES, MAX_DISK_AGE_MILLIS);
+                }
+            } catch (IOException ignored) {
+                // the memory cache still works without the disk cache
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Deletes thumbnails unused for longer than {@code maxAgeMillis}, then the least recently
+     * used ones until the rest take at most {@code maxBytes}.
+     */
+    void trimDiskCache(long maxBytes, long maxAgeMillis) {
+        File[] files = diskCacheDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        final long[] used = new long[files.length];
+        long[] lengths = new long[files.length];
+        Integer[] order = new Integer[files.length];
+        long total = 0;
+        for (int ii = 0; ii < files.length; ii++) {
+            used[ii] = files[ii].lastModified();
+            lengths[ii] = files[ii].length();
+            order[ii] = ii;
+            total += lengths[ii];
+        }
+        Arrays.sort(
+                order,
+                new Comparator<Integer>() {
+                    public int compare(Integer a, Integer b) {
+                        return Long.compare(used[a], used[b]);
+                    }
+                });
+        long oldest = System.currentTimeMillis() - maxAgeMillis;
+        for (int index : order) {
+            if (total <= maxBytes && used[index] >= oldest) {
+                break;
+            }
+            if (files[index].getName().endsWith(".png") && files[index].delete()) {
+                total -= lengths[index];
+            }
+        }
+    }
+
+    /** Reads a subsampled image so large photos are never decoded at full resolution. */
+    private static BufferedImage decodeImage(File file) throws IOException {
+        ImageInputStream in = ImageIO.createImageInputStream(file);
+        if (in == null) {
+            return null;
+        }
+        try {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                int step = Math.max(1, Math.max(width, height) / (THUMBNAIL_SIZE * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return scale(reader.read(0, param));
+            } finally {
+                reader.dispose();
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage source) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double ratio = Math.min(1d, (double) THUMBNAIL_SIZE / Math.max(width, height));
+        int w = Math.max(1, (int) Math.round(width * ratio));
+        int h = Math.max(1, (int) Math.round(height * ratio));
+        BufferedImage target = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(
+                    RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(source, 0, 0, w, h, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    /** Draws the first few lines of a text file as a tiny page. */
+    private static BufferedImage renderTextHead(File file) throws IOException {
+        byte[] buffer = new byte[TEXT_HEAD_BYTES];
+        int read = 0;
+        InputStream in = new FileInputStream(file);
+        try {
+            int n;
+            while (read < buffer.length && (n = in.read(buffer, read, buffer.length - read)) > 0) {
+                read += n;
+            }
+        } finally {
+            in.close();
+        }
+        String[] lines = new String(buffer, 0, read, StandardCharsets.UTF_8).split("\r?\n", -1);
+        BufferedImage image =
+                new BufferedImage(THUMBNAIL_SIZE, THUMBNAIL_SIZE, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, THUMBNAIL_SIZE, THUMBNAIL_SIZE);
+            g.setColor(Color.GRAY);
+            g.drawRect(0, 0, THUMBNAIL_SIZE - 1, THUMBNAIL_SIZE - 1);
+            g.setColor(Color.DARK_GRAY);
+            g.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 6));
+            int lineHeight = THUMBNAIL_SIZE / (TEXT_HEAD_LINES + 1);
+            for (int ii = 0; ii < Math.min(TEXT_HEAD_LINES, lines.length); ii++) {
+                g.drawString(lines[ii], 2, lineHeight * (ii + 1));
+            }
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    /** A queued decode; newer requests sort first. */
+    private class DecodeTask implements Runnable, Comparable<DecodeTask> {
+
+        private final File file;
+        private final String key;
+        private final int rowHint;
+        private final long seq;
+
+        DecodeTask(File file, String key, int rowHint, long seq) {
+            this.file = file;
+            this.key = key;
+            this.rowHint = rowHint;
+            this.seq = seq;
+        }
+
+        public int compareTo(DecodeTask other) {
+            return Long.compare(other.seq, seq);
+        }
+
+        public void run() {
+            try {
+                if (sequence.get() - seq > MAX_PENDING) {
+                    // scrolled out of view long ago; it is requested again if it comes back
+                    return;
+                }
+                BufferedImage image = null;
+                try {
+                    image = load(file, key);
+                } catch (Exception ignored) {
+                    // unreadable or corrupt files simply keep their system icon
+                }
+                synchronized (memory) {
+                    memory.put(key, image == null ? null : new ImageIcon(image));
+                }
+                if (image == null) {
+                    return;
+                }
+                SwingUtilities.invokeLater(
+                        new Runnable() {
+                            public void run() {
+                                Listener l = listener;
+                                if (l != null) {
+                                    l.thumbnailReady(file, rowHint);
+                                }
+                            }
+                        });
+            } finally {
+                synchronized (pending) {
+                    pending.remove(key);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
+
+/** Building the directory tree: merging listings and creating the nodes down to a path. */
+final class TreeNodes {
+
+    private TreeNodes() {}
+
+    static File fileOf(DefaultMutableTreeNode node) {
+        Object userObj = node.getUserObject();
+        return userObj instanceof File ? (File) userObj : null;
+    }
+
+    /**
+     * Adds a node for each of {@code directories} that {@code node} does not have yet, keeping
+     * the listing's order around the nodes that are already there.
+     *
+     * @return how many nodes were added
+     */
+    static int mergeChildren(
+            DefaultTreeModel model, DefaultMutableTreeNode node, List<File> directories) {
+        Map<File, DefaultMutableTreeNode> existing = new HashMap<File, DefaultMutableTreeNode>();
+        for (int ii = 0; ii < node.getChildCount(); ii++) {
+            DefaultMutableTreeNode child = (DefaultMutableTreeNode) node.getChildAt(ii);
+            existing.put(fileOf(child), child);
+        }
+        List<DefaultMutableTreeNode> added = new ArrayList<DefaultMutableTreeNode>();
+        int insertAt = 0;
+        for (File directory : directories) {
+            DefaultMutableTreeNode child = existing.get(directory);
+            if (child != null) {
+                insertAt = node.getIndex(child) + 1;
+            } else {
+                child = new DefaultMutableTreeNode(directory);
+                existing.put(directory, child);
+                node.insert(child, Math.min(insertAt++, node.getChildCount()));
+                added.add(child);
+            }
+        }
+        if (!added.isEmpty()) {
+            int[] indices = new int[added.size()];
+            for (int ii = 0; ii < indices.length; ii++) {
+                indices[ii] = node.getIndex(added.get(ii));
+            }
+            Arrays.sort(indices);
+            model.nodesWereInserted(node, indices);
+        }
+        return added.size();
+    }
+
+    /**
+     * The node of {@code dir}, creating the levels between its deepest ancestor in the tree and
+     * itself. Only the nodes on the way are created, without listing anything; a node that
+     * had no children before is added to {@code partial}, since it now shows only one of
+     * them.
+     *
+     * @param root the invisible root whose children are the file system roots
+     * @return the node, or null if no root of the tree contains {@code dir}
+     */
+    static DefaultMutableTreeNode ensurePath(
+            DefaultTreeModel model,
+            DefaultMutableTreeNode root,
+            File dir,
+            Set<DefaultMutableTreeNode> partial) {
+        DefaultMutableTreeNode node = root;
+        while (!dir.equals(fileOf(node))) {
+            DefaultMutableTreeNode next = null;
+            for (int ii = 0; ii < node.getChildCount() && next == null; ii++) {
+                DefaultMutableTreeNode child = (DefaultMutableTreeNode) node.getChildAt(ii);
+                File file = fileOf(child);
+                if (file != null && contains(file, dir)) {
+                    next = child;
+                }
+            }
+            if (next == null) {
+                if (node == root) {
+                    return null;
+                }
+                next = new DefaultMutableTreeNode(childOnPath(fileOf(node), dir));
+                if (node.getChildCount() == 0) {
+                    partial.add(node);
+                }
+                model.insertNodeInto(next, node, insertionIndex(node, fileOf(next)));
+            }
+            node = next;
+        }
+        return node;
+    }
+
+    /** Whether {@code dir} is {@code ancestor} or below it. */
+    static boolean contains(File ancestor, File dir) {
+        String ancestorPath = ancestor.getPath();
+        String path = dir.getPath();
+        if (path.equals(ancestorPath)) {
+            return true;
+        }
+        String prefix =
+                ancestorPath.endsWith(File.separator)
+                        ? ancestorPath
+                        : ancestorPath + File.separator;
+        return path.startsWith(prefix);
+    }
+
+    /** The child of {@code ancestor} that leads to {@code dir}. */
+    private static File childOnPath(File ancestor, File dir) {
+        File child = dir;
+        while (child.getParentFile() != null && !ancestor.equals(child.getParentFile())) {
+            child = child.getParentFile();
+        }
+        return child;
+    }
+
+    /** Where {@code file} goes among the (name ordered) children of {@code node}. */
+    private static int insertionIndex(DefaultMutableTreeNode node, File file) {
+        int index = 0;
+        while (index < node.getChildCount()) {
+            File sibling = fileOf((DefaultMutableTreeNode) node.getChildAt(index));
+            if (sibling != null && sibling.getName().compareToIgnoreCase(file.getName()) > 0) {
+                break;
+            }
+            index++;
+        }
+        return index;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.awt.geom.Rectangle2D;
+
+/**
+ * Squarified treemap layout (Bruls, Huizing and van Wijk).
+ *
+ * <p>Items are placed in rows along the shorter side of the remaining space; an item joins the
+ * current row only while that does not make the row's worst aspect ratio worse. This keeps the
+ * rectangles close to squares, which makes their areas easy to compare.
+ */
+final class Treemap {
+
+    private Treemap() {}
+
+    /**
+     * Lays out {@code sizes}, which must be sorted largest first, inside {@code bounds}.
+     *
+     * @return one rectangle per size; zero sizes get an empty rectangle
+     */
+    static Rectangle2D.Double[] layout(long[] sizes, Rectangle2D bounds) {
+        Rectangle2D.Double[] result = new Rectangle2D.Double[sizes.length];
+        double total = 0;
+        int count = 0;
+        for (long size : sizes) {
+            if (size > 0) {
+                total += size;
+                count++;
+            }
+        }
+        for (int ii = count; ii < sizes.length; ii++) {
+            result[ii] = new Rectangle2D.Double();
+        }
+        if (count == 0 || bounds.getWidth() <= 0 || bounds.getHeight() <= 0) {
+            for (int ii = 0; ii < count; ii++) {
+                result[ii] = new Rectangle2D.Double();
+            }
+            return result;
+        }
+        // areas in pixels
+        double scale = bounds.getWidth() * bounds.getHeight() / total;
+        double x = bounds.getX();
+        double y = bounds.getY();
+        double width = bounds.getWidth();
+        double height = bounds.getHeight();
+        int start = 0;
+        while (start < count) {
+            double side = Math.min(width, height);
+            int end = start + 1;
+            double rowArea = sizes[start] * scale;
+            double worst = worst(sizes, start, end, rowArea, side, scale);
+            while (end < count) {
+                double nextArea = rowArea + sizes[end] * scale;
+                double nextWorst = worst(sizes, start, end + 1, nextArea, side, scale);
+                if (nextWorst > worst) {
+                    break;
+                }
+                rowArea = nextArea;
+                worst = nextWorst;
+                end++;
+            }
+            // the row fills a strip of thickness rowArea / side along the shorter side
+            double thickness = rowArea / side;
+            double offset = 0;
+            for (int ii = start; ii < end; ii++) {
+                double length = sizes[ii] * scale / thickness;
+                if (width >= height) {
+                    result[ii] = new Rectangle2D.Double(x, y + offset, thickness, length);
+                } else {
+                    result[ii] = new Rectangle2D.Double(x + offset, y, length, thickness);
+                }
+                offset += length;
+            }
+            if (width >= height) {
+                x += thickness;
+                width -= thickness;
+            } else {
+                y += thickness;
+                height -= thickness;
+            }
+            start = end;
+        }
+        return result;
+    }
+
+    /** Worst aspect ratio of the items {@code start..end-1} laid out as one row. */
+    private static double worst(
+            long[] sizes, int start, int end, double rowArea, double side, double scale) {
+        double max = sizes[start] * scale;
+        double min = sizes[end - 1] * scale;
+        double sideSquared = side * side;
+        double areaSquared = rowArea * rowArea;
+        return Math.max(sideSquared * max / areaSquared, areaSquared / (sideSquared * min));
+    }
+}
@@ -0,0 +1,146 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+class BulkRenameTest {
+
+    @TempDir Path tempDir;
+
+    private List<File> create(String... names) throws IOException {
+        List<File> files = new ArrayList<File>();
+        for (String name : names) {
+            Path file = tempDir.resolve(name);
+            Files.write(file, name.getBytes(StandardCharsets.UTF_8));
+            files.add(file.toFile());
+        }
+        return files;
+    }
+
+    private String content(String name) throws IOException {
+        return new String(Files.readAllBytes(tempDir.resolve(name)), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testNewNames() {
+        BulkRename rename = new BulkRename();
+        File file = new File("/photos/Summer Trip.JPG");
+        assertEquals("Summer Trip.JPG", rename.newName(file, 0));
+
+        rename.setTemplate("[P]_[C]_[N][E]");
+        rename.setCounter(5, 10, 3);
+        assertEquals("photos_025_Summer Trip.JPG", rename.newName(file, 2));
+
+        rename.setTemplate("[N][E]");
+        rename.setReplace(Pattern.compile("(\\w+) (\\w+)"), "$2-$1");
+        rename.setCase(BulkRename.Case.LOWER);
+        assertEquals("trip-summer.jpg", rename.newName(file, 0));
+
+        rename.setReplace(null, "");
+        rename.setCase(BulkRename.Case.TITLE);
+        assertEquals("Summer Trip.jpg", rename.newName(file, 0));
+        assertEquals(".profile", new BulkRename().newName(new File(".profile"), 0));
+    }
+
+    @Test
+    void testPlanFindsProblems() throws IOException {
+        List<File> files = create("a.txt", "b.txt", "c.log");
+        create("taken.txt");
+        BulkRename rename = new BulkRename();
+        rename.setTemplate("same");
+        BulkRename.Plan plan = rename.plan(files);
+        assertEquals(3, plan.getProblemCount(), "Every file would be called 'same'");
+
+        rename.setTemplate("[N][E]");
+        rename.setReplace(Pattern.compile("^a"), "taken");
+        plan = rename.plan(files);
+        assertEquals(1, plan.getProblemCount());
+        assertEquals("Already exists", plan.getEntries().get(0).getProblem());
+        assertEquals(0, plan.getRenameCount(), "b.txt and c.log keep their names");
+
+        // b.txt keeps its name, so a.txt cannot take it
+        rename.setReplace(Pattern.compile("^a"), "b");
+        plan = rename.plan(files);
+        assertEquals("Already exists", plan.getEntries().get(0).getProblem());
+        assertNull(plan.getEntries().get(1).getProblem());
+
+        rename.setReplace(Pattern.compile("\\.txt"), "/x");
+        assertEquals(2, rename.plan(files).getProblemCount());
+    }
+
+    @Test
+    void testCycle() throws IOException {
+        List<File> files = create("1", "2", "3");
+        BulkRename rename = new BulkRename();
+        rename.setTemplate("[C]");
+        // in the order 3, 1, 2 the counter gives 3 -> 1, 1 -> 2, 2 -> 3
+        List<File> cycle = Arrays.asList(files.get(2), files.get(0), files.get(1));
+        BulkRename.Plan plan = rename.plan(cycle);
+        assertEquals(0, plan.getProblemCount());
+        assertEquals(3, plan.getRenameCount());
+        for (BulkRename.Entry entry : plan.getEntries()) {
+            assertTrue(entry.isChained(), entry.getSource().getName());
+        }
+
+        BulkRenameJob job = new BulkRenameJob(rename, cycle);
+        job.run();
+        assertEquals(FileJob.State.DONE, job.getState(), job.getMessage());
+        assertEquals("3", content("1"));
+        assertEquals("1", content("2"));
+        assertEquals("2", content("3"));
+        assertEquals(3L, job.getProgress());
+        assertEquals(3, tempDir.toFile().list().length, "No temporary names are left");
+    }
+
+    @Test
+    void testJobChecksAgainBeforeRenaming() throws IOException {
+        List<File> files = create("a", "b");
+        BulkRename rename = new BulkRename();
+        rename.setTemplate("[N]_[C]");
+        assertEquals(0, rename.plan(files).getProblemCount());
+        create("b_2");
+
+        BulkRenameJob job = new BulkRenameJob(rename, files);
+        job.run();
+        assertEquals(FileJob.State.FAILED, job.getState());
+        assertTrue(job.getMessage().contains("Already exists"), job.getMessage());
+        assertTrue(Files.exists(tempDir.resolve("a")), "Nothing was renamed");
+    }
+}
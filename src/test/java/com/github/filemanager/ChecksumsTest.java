@@ -0,0 +1,139 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.zip.Checksum;
+
+class ChecksumsTest {
+
+    @TempDir Path tempDir;
+
+    @Test
+    void testKnownVectors() throws IOException {
+        Path file = tempDir.resolve("abc");
+        Files.write(file, "abc".getBytes(StandardCharsets.US_ASCII));
+        Checksums.Result result = Checksums.compute(file.toFile());
+        assertEquals(3, result.getLength());
+        assertEquals("900150983cd24fb0d6963f7d28e17f72", result.getMd5());
+        assertEquals(
+                "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+                result.getSha256());
+
+        Files.write(file, "123456789".getBytes(StandardCharsets.US_ASCII));
+        assertEquals("e3069283", Checksums.compute(file.toFile()).getCrc32c());
+    }
+
+    @Test
+    void testFallbackCrcMatchesRuntime() throws IOException {
+        byte[] data = new byte[(int) Checksums.MAP_THRESHOLD + 12345];
+        new Random(42).nextBytes(data);
+        Crc32c crc = new Crc32c();
+        // odd chunk sizes exercise the eight byte steps and the tail
+        for (int offset = 0; offset < data.length; offset += 1001) {
+            crc.update(data, offset, Math.min(1001, data.length - offset));
+        }
+        Checksum runtime = Checksums.newCrc32c();
+        if (!(runtime instanceof Crc32c)) {
+            runtime.update(data, 0, data.length);
+            assertEquals(runtime.getValue(), crc.getValue());
+        }
+        Crc32c direct = new Crc32c();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+        buffer.put(data);
+        buffer.flip();
+        direct.update(buffer);
+        assertEquals(crc.getValue(), direct.getValue());
+
+        // large enough to be memory mapped
+        Path file = tempDir.resolve("big");
+        Files.write(file, data);
+        assertEquals(
+                String.format("%08x", crc.getValue()),
+                Checksums.compute(file.toFile()).getCrc32c());
+    }
+
+    @Test
+    void testManifestRoundTrip() throws Exception {
+        Path dir = Files.createDirectories(tempDir.resolve("dir").resolve("sub"));
+        Files.write(dir.resolve("a.txt"), "hello".getBytes(StandardCharsets.UTF_8));
+        Files.write(dir.getParent().resolve("b.txt"), "world".getBytes(StandardCharsets.UTF_8));
+
+        ChecksumJob create = new ChecksumJob(dir.getParent().toFile(), false);
+        create.run();
+        assertEquals(FileJob.State.DONE, create.getState());
+        File manifest = create.getManifest();
+        assertEquals(new File(tempDir.toFile(), "dir.sha256"), manifest);
+        String text = new String(Files.readAllBytes(manifest.toPath()), StandardCharsets.UTF_8);
+        assertTrue(
+                text.contains(
+                        "2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824"
+                                + "  dir/sub/a.txt\n"),
+                text);
+
+        ChecksumJob verify = new ChecksumJob(manifest, true);
+        verify.run();
+        assertEquals(FileJob.State.DONE, verify.getState());
+        assertTrue(verify.getFailures().isEmpty(), verify.getFailures().toString());
+
+        Files.write(dir.resolve("a.txt"), "HELLO".getBytes(StandardCharsets.UTF_8));
+        Files.delete(dir.getParent().resolve("b.txt"));
+        verify = new ChecksumJob(manifest, true);
+        verify.run();
+        assertEquals(2, verify.getFailures().size(), verify.getFailures().toString());
+        assertTrue(verify.getFailures().contains("FAILED dir/sub/a.txt"));
+        assertTrue(verify.getFailures().contains("MISSING dir/b.txt"));
+    }
+
+    @Test
+    void testCopyWithVerification() throws IOException {
+        byte[] data = new byte[100000];
+        new Random(7).nextBytes(data);
+        Path source = tempDir.resolve("source");
+        Files.write(source, data);
+        File target = tempDir.resolve("target").toFile();
+
+        CopyJob copy = new CopyJob(source.toFile(), target);
+        copy.setVerify(true);
+        copy.run();
+        assertEquals(FileJob.State.DONE, copy.getState(), copy.getMessage());
+        assertEquals(2L * data.length, copy.getTotal());
+        assertEquals(copy.getTotal(), copy.getProgress());
+        assertEquals(
+                Checksums.compute(source.toFile()).getSha256(),
+                Checksums.compute(target).getSha256());
+    }
+}
@@ -0,0 +1,159 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+class CliTest {
+
+    @TempDir Path tempDir;
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    private int run(String... args) throws IOException {
+        out.reset();
+        err.reset();
+        PrintStream outStream = new PrintStream(out, true, "UTF-8");
+        PrintStream errStream = new PrintStream(err, true, "UTF-8");
+        return Cli.run(args, outStream, errStream);
+    }
+
+    private String out() throws IOException {
+        return out.toString("UTF-8");
+    }
+
+    private File tree() throws IOException {
+        File src = tempDir.resolve("src").toFile();
+        new File(src, "sub").mkdirs();
+        byte[] data = new byte[300000];
+        new Random(7).nextBytes(data);
+        Files.write(new File(src, "data.bin").toPath(), data);
+        Files.write(
+                new File(src, "sub/notes.txt").toPath(),
+                "first line\nTODO: second \"line\"\n".getBytes(StandardCharsets.UTF_8));
+        return src;
+    }
+
+    @Test
+    void testUsageErrors() throws IOException {
+        assertEquals(Cli.USAGE, run());
+        assertEquals(Cli.USAGE, run("frobnicate"));
+        assertEquals(Cli.USAGE, run("ls", "--bogus"));
+        assertEquals(Cli.USAGE, run("cp", "only-one"));
+        assertEquals(Cli.OK, run("--help"));
+        assertTrue(out().contains("checksum"));
+    }
+
+    @Test
+    void testListFindAndGrep() throws IOException {
+        File src = tree();
+        assertEquals(Cli.OK, run("ls", "--json", src.getPath()));
+        String[] lines = out().split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].contains("\"name\": \"data.bin\""), lines[0]);
+        assertTrue(lines[0].contains("\"size\": 300000"), lines[0]);
+        assertTrue(lines[1].contains("\"directory\": true"), lines[1]);
+        assertTrue(lines[2].startsWith("{\"type\": \"summary\""), lines[2]);
+
+        assertEquals(Cli.OK, run("find", "--name", "*.txt", src.getPath()));
+        assertEquals(new File(src, "sub/notes.txt").getPath() + "\n", out());
+        assertEquals(Cli.OK, run("find", "--type", "f", "--size", "+100k", src.getPath()));
+        assertEquals(new File(src, "data.bin").getPath() + "\n", out());
+        assertEquals(Cli.OK, run("find", "--query", "size>100k or *.TXT", src.getPath()));
+        assertEquals(
+                new File(src, "data.bin").getPath()
+                        + "\n"
+                        + new File(src, "sub/notes.txt").getPath()
+                        + "\n",
+                out());
+        assertEquals(Cli.USAGE, run("find", "--query", "size>", src.getPath()));
+
+        // the binary file is skipped, the quotes are escaped
+        assertEquals(Cli.OK, run("grep", "--json", "-i", "todo", src.getPath()));
+        assertTrue(out().startsWith("{\"type\": \"match\""), out());
+        assertTrue(out().contains("\"line\": 2, \"text\": \"TODO: second \\\"line\\\"\""), out());
+        assertEquals(Cli.FAILED, run("grep", "absent", src.getPath()));
+        assertTrue(err.toString("UTF-8").startsWith("grep: 0 matches"));
+    }
+
+    @Test
+    void testCopyAndSync() throws IOException {
+        File src = tree();
+        File dest = tempDir.resolve("dest").toFile();
+        assertEquals(
+                Cli.OK, run("cp", "--verify", "--parallel", "2", src.getPath(), dest.getPath()));
+        assertTrue(err.toString("UTF-8").contains("/s)"), err.toString("UTF-8"));
+        File copy = new File(dest, "data.bin");
+        assertTrue(
+                Arrays.equals(
+                        Files.readAllBytes(new File(src, "data.bin").toPath()),
+                        Files.readAllBytes(copy.toPath())));
+        assertTrue(new File(dest, "sub/notes.txt").isFile());
+
+        // only the changed file is copied again, the extra one is removed
+        Files.write(new File(src, "sub/notes.txt").toPath(), new byte[] {1, 2});
+        Files.write(new File(dest, "extra").toPath(), new byte[] {3});
+        assertEquals(Cli.OK, run("sync", "--delete", "--json", src.getPath(), dest.getPath()));
+        String output = out();
+        assertTrue(output.contains("\"type\": \"copy\""), output);
+        assertFalse(output.contains("data.bin"), output);
+        assertTrue(output.contains("\"type\": \"delete\""), output);
+        assertTrue(output.contains("\"files\": 1"), output);
+        assertFalse(new File(dest, "extra").exists());
+        assertEquals(2, new File(dest, "sub/notes.txt").length());
+    }
+
+    @Test
+    void testChecksums() throws IOException {
+        File src = tree();
+        File notes = new File(src, "sub/notes.txt");
+        assertEquals(Cli.OK, run("checksum", notes.getPath()));
+        String expected = Checksums.compute(notes).getSha256() + "  " + notes.getPath() + "\n";
+        assertEquals(expected, out());
+
+        assertEquals(Cli.OK, run("checksum", "--write", src.getPath()));
+        File manifest = new File(tempDir.toFile(), "src" + Checksums.MANIFEST_SUFFIX);
+        assertTrue(manifest.isFile());
+        assertEquals(Cli.OK, run("checksum", "--verify", manifest.getPath()));
+        Files.write(notes.toPath(), new byte[] {0});
+        assertEquals(Cli.FAILED, run("checksum", "--verify", manifest.getPath()));
+        assertTrue(out().contains("FAILED"), out());
+    }
+}
@@ -0,0 +1,250 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+class CopyJobTest {
+
+    private static final long INTERVAL = 1024 * 1024;
+
+    @TempDir Path tempDir;
+
+    private File source() throws IOException {
+        byte[] data = new byte[(int) (5 * INTERVAL + 12345)];
+        new Random(11).nextBytes(data);
+        File source = tempDir.resolve("big.bin").toFile();
+        Files.write(source.toPath(), data);
+        return source;
+    }
+
+    /** Starts a copy that stops for good after three intervals, like a crashed process. */
+    private void interruptedCopy(File source, File target) throws InterruptedException {
+        final CopyJob job =
+                new CopyJob(source, target) {
+                    @Override
+                    protected void addProgress(long amount) {
+                        super.addProgress(amount);
+                        if (getProgress() >= 3 * INTERVAL) {
+                            pause();
+                        }
+                    }
+                };
+        job.setJournalInterval(INTERVAL);
+        Thread thread =
+                new Thread(
+                        new Runnable() {
+                            public void run() {
+                                job.run();
+                            }
+                        });
+        thread.setDaemon(true);
+        thread.start();
+        long deadline = System.currentTimeMillis() + 10000;
+        while (job.getState() != FileJob.State.PAUSED && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(FileJob.State.PAUSED, job.getState());
+    }
+
+    private CopyJob copy(File source, File target) {
+        CopyJob job = new CopyJob(source, target);
+        job.setJournalInterval(INTERVAL);
+        job.run();
+        assertEquals(FileJob.State.DONE, job.getState(), String.valueOf(job.getError()));
+        return job;
+    }
+
+    @Test
+    void testInterruptedCopyResumes() throws Exception {
+        File source = source();
+        File target = tempDir.resolve("copy.bin").toFile();
+        interruptedCopy(source, target);
+        File part = new File(target.getPath() + CopyJob.PART_SUFFIX);
+        File journal = new File(target.getPath() + CopyJob.JOURNAL_SUFFIX);
+        assertFalse(target.exists(), "Nothing under the final name until complete");
+        assertTrue(part.isFile() && journal.isFile());
+
+        CopyJob resumed = copy(source, target);
+        assertTrue(resumed.getResumedBytes() >= 2 * INTERVAL, "" + resumed.getResumedBytes());
+        assertEquals(source.length(), resumed.getProgress());
+        assertArrayEquals(Files.readAllBytes(source.toPath()), Files.readAllBytes(target.toPath()));
+        assertFalse(part.exists() || journal.exists());
+    }
+
+    @Test
+    void testDamagedPartFileStartsOver() throws Exception {
+        File source = source();
+        File target = tempDir.resolve("copy.bin").toFile();
+        interruptedCopy(source, target);
+        RandomAccessFile part = new RandomAccessFile(target.getPath() + CopyJob.PART_SUFFIX, "rw");
+        try {
+            part.seek(INTERVAL + 7);
+            int value = part.read();
+            part.seek(INTERVAL + 7);
+            part.write(value ^ 0xFF);
+        } finally {
+            part.close();
+        }
+
+        CopyJob restarted = copy(source, target);
+        assertEquals(0, restarted.getResumedBytes());
+        assertArrayEquals(Files.readAllBytes(source.toPath()), Files.readAllBytes(target.toPath()));
+    }
+
+    @Test
+    void testCancelledCopyLeavesNothing() throws Exception {
+        File source = source();
+        File target = tempDir.resolve("copy.bin").toFile();
+        CopyJob job =
+                new CopyJob(source, target) {
+                    @Override
+                    protected void addProgress(long amount) {
+                        super.addProgress(amount);
+                        if (getProgress() >= 2 * INTERVAL) {
+                            cancel();
+                        }
+                    }
+                };
+        job.setJournalInterval(INTERVAL);
+        job.run();
+        assertEquals(FileJob.State.CANCELLED, job.getState());
+        assertEquals(1, tempDir.toFile().list().length, "Only the source is left");
+    }
+
+    /** The bytes allocated to {@code file}, from {@code stat}; -1 where that is missing. */
+    private static long allocated(File file) throws Exception {
+        Process process;
+        try {
+            process = new ProcessBuilder("stat", "-c", "%b %B", file.getPath()).start();
+        } catch (IOException ex) {
+            return -1;
+        }
+        BufferedReader reader =
+                new BufferedReader(new InputStreamReader(process.getInputStream(), "UTF-8"));
+        String line = reader.readLine();
+        reader.close();
+        if (process.waitFor() != 0 || line == null) {
+            return -1;
+        }
+        String[] fields = line.trim().split(" ");
+        return Long.parseLong(fields[0]) * Long.parseLong(fields[1]);
+    }
+
+    @Test
+    void testSparseFileStaysSparse() throws Exception {
+        File source = tempDir.resolve("disk.img").toFile();
+        long length = CopyJob.JOURNAL_INTERVAL + 40 * INTERVAL;
+        RandomAccessFile image = new RandomAccessFile(source, "rw");
+        try {
+            image.setLength(length);
+            image.seek(INTERVAL);
+            image.write(new byte[] {1, 2, 3});
+            image.seek(length - 100000);
+            image.write(new byte[] {4, 5, 6});
+        } finally {
+            image.close();
+        }
+        long sourceAllocated = allocated(source);
+        assumeTrue(sourceAllocated >= 0 && sourceAllocated < INTERVAL, "No sparse files here");
+
+        File target = tempDir.resolve("copy.img").toFile();
+        CopyJob job = new CopyJob(source, target);
+        job.run();
+        assertEquals(FileJob.State.DONE, job.getState(), String.valueOf(job.getError()));
+        assertEquals(length, target.length());
+        assertEquals(length, job.getLogicalBytes());
+        assertEquals(2 * SparseCopy.BLOCK_SIZE, job.getWrittenBytes());
+        assertTrue(job.getMessage().contains("8.00 KB written for"), job.getMessage());
+        long targetAllocated = allocated(target);
+        assertTrue(targetAllocated < INTERVAL, "Allocated " + targetAllocated);
+        assertEquals(
+                Checksums.compute(source).getSha256(), Checksums.compute(target).getSha256());
+    }
+
+    @Test
+    void testCopyOntoItselfIsRejected() throws IOException {
+        File file = tempDir.resolve("a.txt").toFile();
+        Files.write(file.toPath(), new byte[] {1, 2, 3});
+        CopyJob job = new CopyJob(file, new File(tempDir.toFile(), "./a.txt"));
+        job.run();
+        assertEquals(FileJob.State.FAILED, job.getState());
+        assertTrue(job.getError().getMessage().contains("onto itself"), job.getMessage());
+        assertArrayEquals(new byte[] {1, 2, 3}, Files.readAllBytes(file.toPath()));
+
+        File dir = tempDir.resolve("dir").toFile();
+        dir.mkdir();
+        CopyJob dirJob = new CopyJob(dir, dir);
+        dirJob.run();
+        assertEquals(FileJob.State.FAILED, dirJob.getState());
+        assertTrue(dir.isDirectory());
+    }
+
+    @Test
+    void testMoveRenamesOrCopiesAndDeletes() throws IOException {
+        File source = tempDir.resolve("photos").toFile();
+        new File(source, "2024").mkdirs();
+        Files.write(new File(source, "2024/a.jpg").toPath(), new byte[] {1, 2, 3});
+        File moved = tempDir.resolve("archive/photos").toFile();
+        moved.getParentFile().mkdirs();
+        MoveJob rename = new MoveJob(source, moved);
+        rename.run();
+        assertEquals(FileJob.State.DONE, rename.getState());
+        assertTrue(rename.isRenamed());
+        assertFalse(source.exists());
+        assertArrayEquals(
+                new byte[] {1, 2, 3}, Files.readAllBytes(new File(moved, "2024/a.jpg").toPath()));
+
+        // a folder cannot be renamed over a non-empty one, so it is merged by copying
+        File other = tempDir.resolve("more").toFile();
+        other.mkdirs();
+        Files.write(new File(other, "b.jpg").toPath(), new byte[] {4});
+        File merged = new File(moved.getParentFile(), "more");
+        merged.mkdirs();
+        Files.write(new File(merged, "kept.jpg").toPath(), new byte[] {5});
+        MoveJob merge = new MoveJob(other, merged);
+        merge.run();
+        assertEquals(FileJob.State.DONE, merge.getState(), String.valueOf(merge.getError()));
+        assertFalse(merge.isRenamed());
+        assertFalse(other.exists());
+        assertTrue(new File(merged, "b.jpg").isFile());
+        assertTrue(new File(merged, "kept.jpg").isFile());
+    }
+}
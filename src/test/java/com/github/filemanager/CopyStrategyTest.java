@@ -0,0 +1,131 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+class CopyStrategyTest {
+
+    @TempDir Path tempDir;
+
+    @Test
+    void testCandidatesOnOneFileSystem() throws IOException {
+        File dir = tempDir.toFile();
+        File file = Files.createFile(tempDir.resolve("any")).toFile();
+        assertTrue(CopyStrategy.isSameFileStore(dir, dir));
+        assertEquals(
+                Arrays.asList(CopyStrategy.NATIVE, CopyStrategy.CHUNKED),
+                CopyStrategy.candidates(file, dir, 1000));
+        List<CopyStrategy> large =
+                CopyStrategy.candidates(file, dir, CopyStrategy.NATIVE_MAX_SIZE + 1);
+        assertEquals(Arrays.asList(CopyStrategy.REFLINK, CopyStrategy.CHUNKED), large);
+    }
+
+    @Test
+    void testOnlyUnsupportedClonesDisableReflink() {
+        assertTrue(
+                CopyStrategy.isReflinkUnsupported(
+                        "cp: failed to clone 'b' from 'a': Operation not supported\n"));
+        assertTrue(
+                CopyStrategy.isReflinkUnsupported(
+                        "cp: failed to clone 'b' from 'a': Invalid cross-device link\n"));
+        assertFalse(
+                CopyStrategy.isReflinkUnsupported(
+                        "cp: error writing 'b': No space left on device\n"));
+        assertFalse(
+                CopyStrategy.isReflinkUnsupported(
+                        "cp: cannot create regular file 'x/b': Permission denied\n"));
+        assertFalse(
+                CopyStrategy.isReflinkUnsupported(
+                        "cp: cannot create regular file 'x/b': No such file or directory\n"));
+    }
+
+    @Test
+    void testJobReportsStrategies() throws IOException {
+        File source = tempDir.resolve("src").toFile();
+        source.mkdir();
+        Files.write(new File(source, "a").toPath(), new byte[] {1, 2, 3});
+        Files.write(new File(source, "b").toPath(), new byte[] {4});
+        CopyJob job = new CopyJob(source, tempDir.resolve("dst").toFile());
+        job.run();
+        assertEquals(FileJob.State.DONE, job.getState());
+        assertEquals(Integer.valueOf(2), job.getStrategies().get(CopyStrategy.NATIVE));
+        assertTrue(job.getMessage().endsWith("(native: 2 files)"), job.getMessage());
+        assertFalse(new File(tempDir.toFile(), "dst/a" + CopyJob.PART_SUFFIX).exists());
+    }
+
+    /**
+     * Copies one file with each strategy and publishes the time and throughput of each, with its
+     * speed relative to the chunked copy that always applies.
+     */
+    @Test
+    void testBenchmarkStrategies(TestReporter reporter) throws IOException {
+        byte[] data = new byte[32 * 1024 * 1024];
+        new Random(5).nextBytes(data);
+        File source = tempDir.resolve("source.bin").toFile();
+        Files.write(source.toPath(), data);
+        Map<CopyStrategy, Long> times = new EnumMap<CopyStrategy, Long>(CopyStrategy.class);
+        for (CopyStrategy strategy : CopyStrategy.values()) {
+            File target = tempDir.resolve("copy-" + strategy + ".bin").toFile();
+            long start = System.nanoTime();
+            boolean copied = strategy.copy(source, target);
+            long nanos = System.nanoTime() - start;
+            if (!copied) {
+                assertFalse(target.exists(), strategy + " is not supported here but left a file");
+                reporter.publishEntry(strategy.toString(), "not supported here");
+                continue;
+            }
+            assertArrayEquals(data, Files.readAllBytes(target.toPath()), strategy.toString());
+            times.put(strategy, nanos);
+        }
+        long chunked = times.get(CopyStrategy.CHUNKED);
+        for (Map.Entry<CopyStrategy, Long> time : times.entrySet()) {
+            long nanos = time.getValue();
+            reporter.publishEntry(
+                    time.getKey().toString(),
+                    String.format(
+                            "%d ms, %s/s, %.1fx the chunked copy",
+                            nanos / 1000000,
+                            Formats.size((long) (data.length / (nanos / 1e9))),
+                            (double) chunked / nanos));
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.SwingUtilities;
+
+class DirectoryCacheTest {
+
+    @TempDir Path tempDir;
+
+    /** Lists by name only and counts the calls. */
+    private static class CountingLister implements DirectoryCache.Lister {
+
+        final AtomicInteger calls = new AtomicInteger();
+
+        public FileRows list(File dir) {
+            calls.incrementAndGet();
+            FileRows rows = new FileRows();
+            File[] files = dir.listFiles();
+            for (File file : files == null ? new File[0] : files) {
+                rows.add(file, null, null, file.length(), file.lastModified(), (byte) 0);
+            }
+            return rows;
+        }
+    }
+
+    @Test
+    void testRevalidatesByModificationTime() throws IOException {
+        File dir = Files.createDirectories(tempDir.resolve("dir")).toFile();
+        Files.createFile(dir.toPath().resolve("a"));
+        DirectoryCache cache = new DirectoryCache();
+        CountingLister lister = new CountingLister();
+
+        FileRows first = cache.list(dir, lister);
+        assertSame(first, cache.list(dir, lister));
+        assertEquals(1, lister.calls.get());
+
+        Files.createFile(dir.toPath().resolve("b"));
+        // some file systems only keep seconds
+        dir.setLastModified(dir.lastModified() + 5000);
+        assertEquals(2, cache.list(dir, lister).size());
+        assertEquals(2, lister.calls.get());
+
+        cache.invalidateTree(new File(dir, "b"));
+        assertFalse(cache.contains(dir), "The parent of a changed file is dropped");
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsed() throws IOException {
+        DirectoryCache cache = new DirectoryCache(2, 1000);
+        File a = Files.createDirectories(tempDir.resolve("a")).toFile();
+        File b = Files.createDirectories(tempDir.resolve("b")).toFile();
+        File c = Files.createDirectories(tempDir.resolve("c")).toFile();
+        File sub = Files.createDirectories(tempDir.resolve("c").resolve("sub")).toFile();
+        CountingLister lister = new CountingLister();
+        cache.list(a, lister);
+        cache.list(b, lister);
+        cache.list(a, lister);
+        cache.list(c, lister);
+        assertTrue(cache.contains(a));
+        assertFalse(cache.contains(b), "b was used least recently");
+        assertTrue(cache.contains(c));
+
+        cache.list(sub, lister);
+        cache.invalidateTree(c);
+        assertFalse(cache.contains(c));
+        assertFalse(cache.contains(sub));
+        assertNull(cache.get(b));
+    }
+
+    @Test
+    void testHistory() {
+        NavigationHistory history = new NavigationHistory();
+        File a = new File("/a");
+        File b = new File("/b");
+        File c = new File("/c");
+        assertFalse(history.canGoBack());
+        history.visit(a);
+        history.visit(b);
+        history.visit(b);
+        history.visit(c);
+        assertEquals(b, history.back());
+        assertEquals(a, history.back());
+        assertNull(history.back());
+        assertEquals(b, history.forward());
+        history.visit(new File("/d"));
+        assertFalse(history.canGoForward(), "A new visit forgets the forward list");
+        assertEquals(b, history.back());
+    }
+
+    @Test
+    void testPrefetchFillsTheCache() throws Exception {
+        File a = Files.createDirectories(tempDir.resolve("a")).toFile();
+        File b = Files.createDirectories(tempDir.resolve("b")).toFile();
+        final DirectoryCache cache = new DirectoryCache();
+        CountingLister lister = new CountingLister();
+        final Prefetcher prefetcher = new Prefetcher(cache, new IoGateway(), lister, 10);
+        SwingUtilities.invokeAndWait(
+                new Runnable() {
+                    public void run() {
+                        prefetcher.schedule(Arrays.asList(a, b));
+                    }
+                });
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!(cache.contains(a) && cache.contains(b))
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(cache.contains(a) && cache.contains(b));
+        assertEquals(2, lister.calls.get());
+    }
+}
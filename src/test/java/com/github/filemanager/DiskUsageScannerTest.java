@@ -0,0 +1,120 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.geom.Rectangle2D;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+class DiskUsageScannerTest {
+
+    @TempDir Path tempDir;
+
+    private static void write(Path file, int bytes) throws IOException {
+        Files.write(file, new byte[bytes]);
+    }
+
+    /** root/{a: 3 files of 100, b: c: 1 file of 1000}, plus a 10 byte file in root. */
+    private File createTree() throws IOException {
+        Path root = tempDir.resolve("root");
+        Path a = Files.createDirectories(root.resolve("a"));
+        Path c = Files.createDirectories(root.resolve("b").resolve("c"));
+        for (int ii = 0; ii < 3; ii++) {
+            write(a.resolve("f" + ii), 100);
+        }
+        write(c.resolve("big"), 1000);
+        write(root.resolve("small"), 10);
+        return root.toFile();
+    }
+
+    private static DiskUsageScanner.Node child(DiskUsageScanner.Node node, String name) {
+        for (DiskUsageScanner.Node child : node.getChildren()) {
+            if (child.getName().equals(name)) {
+                return child;
+            }
+        }
+        throw new AssertionError("No child " + name);
+    }
+
+    @Test
+    void testTotals() throws IOException {
+        DiskUsageScanner.Scan scan = new DiskUsageScanner().scan(createTree());
+        DiskUsageScanner.Node root = scan.getRoot();
+        assertTrue(root.isComplete());
+        assertEquals(1310, root.getSize());
+        assertEquals(5, root.getFileCount());
+        assertEquals(300, child(root, "a").getSize());
+        assertEquals(1000, child(child(root, "b"), "c").getSize());
+        assertEquals(4, scan.getDirectoriesListed(), "root, a, b and c");
+    }
+
+    @Test
+    void testRescanListsOnlyModifiedDirectories() throws IOException {
+        File root = createTree();
+        DiskUsageScanner scanner = new DiskUsageScanner();
+        scanner.scan(root);
+
+        File c = new File(root, "b/c");
+        write(c.toPath().resolve("more"), 500);
+        // some file systems only keep seconds
+        c.setLastModified(c.lastModified() + 5000);
+
+        DiskUsageScanner.Scan scan = scanner.scan(root);
+        assertEquals(1, scan.getDirectoriesListed(), "Only b/c changed");
+        assertEquals(1810, scan.getRoot().getSize());
+        assertEquals(300, child(scan.getRoot(), "a").getSize(), "Cached sizes are reused");
+
+        scanner.clearCache();
+        assertEquals(4, scanner.scan(root).getDirectoriesListed());
+    }
+
+    @Test
+    void testTreemapAreasAreProportional() {
+        long[] sizes = {600, 300, 60, 40, 0};
+        Rectangle2D.Double[] rects =
+                Treemap.layout(sizes, new Rectangle2D.Double(0, 0, 100, 100));
+        double total = 0;
+        for (int ii = 0; ii < sizes.length; ii++) {
+            Rectangle2D.Double rect = rects[ii];
+            double area = rect.width * rect.height;
+            assertEquals(sizes[ii], area * 1000 / 10000, 0.001, "Area of item " + ii);
+            assertTrue(rect.x >= -1e-9 && rect.getMaxX() <= 100 + 1e-9);
+            assertTrue(rect.y >= -1e-9 && rect.getMaxY() <= 100 + 1e-9);
+            total += area;
+        }
+        assertEquals(10000, total, 0.001, "The items fill the bounds");
+        // squarified: the largest item is not a thin sliver
+        double aspect =
+                Math.max(rects[0].width / rects[0].height, rects[0].height / rects[0].width);
+        assertTrue(aspect < 2, "Aspect ratio " + aspect);
+    }
+}
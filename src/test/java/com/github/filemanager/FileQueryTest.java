@@ -0,0 +1,207 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.prefs.Preferences;
+
+class FileQueryTest {
+
+    private static final long DAY = 24L * 60 * 60 * 1000;
+    private static final long NOW = 100 * DAY;
+
+    private final File parent = new File("/data");
+    private final FileRows rows = new FileRows();
+
+    @TempDir File folder;
+
+    FileQueryTest() {
+        byte file = (byte) (FileRows.EXISTS | FileRows.READABLE | FileRows.FILE);
+        rows.add(new File(parent, "server.log"), null, null, 2L << 30, NOW - DAY, file);
+        rows.add(new File(parent, "Notes.TXT"), null, null, 300, NOW - 30 * DAY, file);
+        rows.add(new File(parent, "photo.jpg"), null, null, 5 << 20, NOW - 2 * DAY, file);
+        rows.add(new File(parent, "build"), null, null, 0, NOW, FileRows.DIRECTORY);
+    }
+
+    private String matching(String text) throws ParseException {
+        FileQuery query = FileQuery.parse(text, NOW);
+        StringBuilder names = new StringBuilder();
+        for (int row = 0; row < rows.size(); row++) {
+            if (query.matches(rows, row)) {
+                names.append(names.length() == 0 ? "" : " ").append(rows.getName(row));
+            }
+        }
+        return names.toString();
+    }
+
+    @Test
+    void testTerms() throws ParseException {
+        assertEquals("server.log", matching("size>1G"));
+        assertEquals("Notes.TXT", matching("size<=1k"), "Sizes only match files");
+        assertEquals("server.log build", matching("mtime<2d"));
+        assertEquals("Notes.TXT", matching("mtime>1w"));
+        assertEquals("Notes.TXT", matching("modified<1970-03-20"));
+        assertEquals("build", matching("type:d"));
+        assertEquals("Notes.TXT photo.jpg", matching("ext:txt,jpg"));
+        assertEquals("Notes.TXT", matching("*.txt"));
+        assertEquals("server.log", matching("name:serv*"));
+        assertEquals("photo.jpg", matching("OTO"));
+        assertEquals("server.log Notes.TXT photo.jpg", matching("perm:r"));
+    }
+
+    @Test
+    void testOperators() throws ParseException {
+        assertEquals("server.log photo.jpg", matching("type:f size>1M"));
+        assertEquals("server.log photo.jpg", matching("type:f and not ext:txt"));
+        assertEquals("server.log photo.jpg", matching("type:f -*.txt"));
+        assertEquals("server.log Notes.TXT", matching("*.log or *.txt"));
+        assertEquals("photo.jpg", matching("(*.log or *.jpg) !mtime<2d"));
+        assertTrue(FileQuery.parse("  ").isEmpty());
+        assertEquals("server.log Notes.TXT photo.jpg build", matching(""));
+        assertTrue(FileQuery.parse("perm:w").needsPermissions());
+        assertFalse(FileQuery.parse("size>1").needsPermissions());
+    }
+
+    @Test
+    void testErrorsPointAtTheProblem() {
+        ParseException ex =
+                assertThrows(ParseException.class, () -> FileQuery.parse("type:f size>abc"));
+        assertEquals(12, ex.getErrorOffset());
+        assertThrows(ParseException.class, () -> FileQuery.parse("(*.log or *.txt"));
+        assertThrows(ParseException.class, () -> FileQuery.parse("type:x"));
+    }
+
+    @Test
+    void testSavedQueries() throws Exception {
+        Preferences node = Preferences.userRoot().node("file-manager-test-" + System.nanoTime());
+        try {
+            SavedQueries saved = new SavedQueries(node);
+            saved.put("logs", "*.log size>10M");
+            saved.put("Big", "size>1G");
+            assertEquals("[Big, logs]", saved.getNames().toString());
+            assertEquals("*.log size>10M", saved.get("logs"));
+            assertThrows(ParseException.class, () -> saved.put("broken", "size>"));
+            saved.remove("Big");
+            assertEquals("[logs]", new SavedQueries(node).getNames().toString());
+        } finally {
+            node.removeNode();
+        }
+    }
+
+    @Test
+    void testSubtreeSearchStreamsMatches() throws Exception {
+        new File(folder, "a/b").mkdirs();
+        Files.write(new File(folder, "top.log").toPath(), new byte[10]);
+        Files.write(new File(folder, "a/b/deep.log").toPath(), new byte[10]);
+        Files.write(new File(folder, "a/skip.txt").toPath(), new byte[10]);
+        QuerySearch search =
+                new QuerySearch(
+                        FileQuery.parse("*.log"),
+                        new DirectoryCache.Lister() {
+                            public FileRows list(File dir) {
+                                try {
+                                    return Cli.list(dir, true);
+                                } catch (IOException ex) {
+                                    return null;
+                                }
+                            }
+                        });
+        final List<String> found = new ArrayList<String>();
+        search.run(
+                folder,
+                new QuerySearch.Results() {
+                    public void found(FileRows matches) {
+                        for (int row = 0; row < matches.size(); row++) {
+                            found.add(matches.getName(row));
+                        }
+                    }
+                });
+        Collections.sort(found);
+        assertEquals("[deep.log, top.log]", found.toString());
+        assertEquals(2, search.getMatches());
+        assertEquals(3, search.getDirectoriesSearched());
+    }
+
+    @Test
+    void testParallelWalkFindsTheSameRows() throws Exception {
+        for (int a = 0; a < 6; a++) {
+            for (int b = 0; b < 5; b++) {
+                File dir = new File(folder, "d" + a + "/e" + b);
+                dir.mkdirs();
+                for (int c = 0; c < 4; c++) {
+                    Files.write(new File(dir, "f" + c).toPath(), new byte[c]);
+                }
+            }
+        }
+        DirectoryCache.Lister lister =
+                new DirectoryCache.Lister() {
+                    public FileRows list(File dir) {
+                        try {
+                            return Cli.list(dir, true);
+                        } catch (IOException ex) {
+                            return null;
+                        }
+                    }
+                };
+        final List<String> found = Collections.synchronizedList(new ArrayList<String>());
+        QuerySearch.Results results =
+                new QuerySearch.Results() {
+                    public void found(FileRows matches) {
+                        for (int row = 0; row < matches.size(); row++) {
+                            found.add(matches.getPath(row));
+                        }
+                    }
+                };
+        QuerySearch search = new QuerySearch(FileQuery.all(), lister);
+        search.run(folder, results, 4);
+        assertEquals(6 + 6 * 5 + 6 * 5 * 4, found.size());
+        assertEquals(found.size(), search.getMatches());
+        assertEquals(1 + 6 + 6 * 5, search.getDirectoriesSearched());
+        List<String> parallel = new ArrayList<String>(found);
+        found.clear();
+        new QuerySearch(FileQuery.all(), lister).run(folder, results);
+        Collections.sort(parallel);
+        Collections.sort(found);
+        assertEquals(found, parallel);
+
+        QuerySearch cancelled = new QuerySearch(FileQuery.all(), lister);
+        cancelled.cancel();
+        cancelled.run(folder, results, 4);
+        assertEquals(0, cancelled.getDirectoriesSearched());
+    }
+}
@@ -0,0 +1,133 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+import javax.swing.Icon;
+import javax.swing.ImageIcon;
+
+class FileRowsTest {
+
+    private static final int ROWS = 200000;
+
+    private final File parent = new File("/data/photos");
+    private final Icon icon = new ImageIcon();
+
+    @Test
+    void testColumnsRoundTrip() {
+        FileRows rows = new FileRows(1);
+        byte bits = (byte) (FileRows.EXISTS | FileRows.READABLE | FileRows.FILE);
+        rows.add(new File(parent, "a.txt"), "a.txt", icon, 12, 1000, bits);
+        rows.add(new File(parent, "été 日本.jpg"), "Summer", icon, 34, 2000, bits);
+        rows.add(new File("/other", "b"), "b", null, 0, 3000, FileRows.DIRECTORY);
+
+        assertEquals(3, rows.size());
+        assertEquals(new File(parent, "a.txt"), rows.getFile(0));
+        assertEquals("été 日本.jpg", rows.getName(1));
+        assertEquals("Summer", rows.getDisplayName(1), "Own display names are kept");
+        assertEquals("a.txt", rows.getDisplayName(0));
+        assertEquals(new File("/other", "b").getPath(), rows.getPath(2));
+        assertEquals(34, rows.getLength(1));
+        assertEquals(3000, rows.getLastModified(2));
+        assertSame(icon, rows.getIcon(1));
+        assertNull(rows.getIcon(2));
+        assertTrue(rows.is(0, FileRows.READABLE));
+        assertFalse(rows.is(0, FileRows.WRITABLE));
+        assertTrue(rows.is(2, FileRows.DIRECTORY));
+
+        assertEquals(1, rows.indexOf(new File(parent, "été 日本.jpg"), 0));
+        assertEquals(2, rows.indexOf(new File("/other/b"), 2));
+        assertEquals(-1, rows.indexOf(new File("/other/a.txt"), 0));
+
+        FileInfo info = rows.getInfo(1);
+        assertEquals(rows.getFile(1), info.getFile());
+        assertTrue(info.isFile());
+    }
+
+    private static long usedHeapAfterGc() throws InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int ii = 0; ii < 3; ii++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static String name(int ii) {
+        return "IMG_" + (1000000 + ii) + ".jpg";
+    }
+
+    @Test
+    void testFootprintAgainstPerRowObjects() throws InterruptedException {
+        long base = usedHeapAfterGc();
+        // what the table held before: a File and its boxed metadata per row
+        FileInfo[] infos = new FileInfo[ROWS];
+        for (int ii = 0; ii < ROWS; ii++) {
+            infos[ii] =
+                    new FileInfo(
+                            new File(parent, name(ii)),
+                            name(ii),
+                            icon,
+                            ii,
+                            ii * 1000L,
+                            true,
+                            true,
+                            true,
+                            false,
+                            false,
+                            true);
+        }
+        long objects = usedHeapAfterGc() - base;
+        assertEquals(ROWS, infos.length);
+        infos = null;
+
+        base = usedHeapAfterGc();
+        FileRows rows = new FileRows(ROWS);
+        byte bits = (byte) (FileRows.EXISTS | FileRows.READABLE | FileRows.FILE);
+        for (int ii = 0; ii < ROWS; ii++) {
+            rows.add(new File(parent, name(ii)), name(ii), icon, ii, ii * 1000L, bits);
+        }
+        long columnar = usedHeapAfterGc() - base;
+        assertEquals(ROWS, rows.size());
+
+        assertTrue(
+                columnar * 3 < objects,
+                "Columnar rows should take under a third of the memory: "
+                        + columnar / ROWS
+                        + " B/row vs "
+                        + objects / ROWS
+                        + " B/row for per-row objects");
+    }
+}
@@ -0,0 +1,161 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import javax.swing.table.TableRowSorter;
+
+class FileTableModelTest {
+
+    private static final int ROWS = 100000;
+
+    private final File dir = new File("/data/big");
+    private final List<String> events = new ArrayList<String>();
+
+    private FileRows listing(int count) {
+        FileRows rows = new FileRows(count);
+        for (int row = 0; row < count; row++) {
+            rows.add(new File(dir, "file" + row), null, null, row, 1000, FileRows.FILE);
+        }
+        return rows;
+    }
+
+    private FileTableModel model(FileRows rows) {
+        FileTableModel model = new FileTableModel();
+        model.setRows(rows);
+        model.addTableModelListener(
+                new TableModelListener() {
+                    public void tableChanged(TableModelEvent e) {
+                        String type =
+                                e.getType() == TableModelEvent.INSERT
+                                        ? "inserted"
+                                        : e.getType() == TableModelEvent.DELETE
+                                                ? "deleted"
+                                                : "updated";
+                        events.add(type + " " + e.getFirstRow() + "-" + e.getLastRow());
+                    }
+                });
+        return model;
+    }
+
+    @Test
+    void testThreeChangesAreThreeEvents() {
+        FileRows cached = listing(ROWS);
+        FileTableModel model = model(cached);
+        TableRowSorter<FileTableModel> sorter = new TableRowSorter<FileTableModel>(model);
+        sorter.toggleSortOrder(3);
+
+        FileRows next = new FileRows(ROWS);
+        for (int row = 0; row < ROWS; row++) {
+            if (row == 500) {
+                continue;
+            }
+            long length = row == 70000 ? 1 : row;
+            next.add(new File(dir, "file" + row), null, null, length, 1000, FileRows.FILE);
+        }
+        next.add(new File(dir, "new"), null, null, 5, 2000, FileRows.FILE);
+
+        long start = System.nanoTime();
+        assertTrue(model.update(next));
+        long millis = (System.nanoTime() - start) / 1000000;
+        assertEquals(
+                "[deleted 500-500, updated 69999-69999, inserted 99999-99999]",
+                events.toString(),
+                "Diffed " + ROWS + " rows in " + millis + " ms");
+        assertEquals(ROWS, model.getRowCount());
+        assertEquals(ROWS, sorter.getViewRowCount());
+        assertEquals(1L, model.getValueAt(69999, 3));
+        assertEquals("file501", model.getValueAt(500, 1));
+        assertEquals("new", model.getValueAt(ROWS - 1, 1));
+        assertEquals(ROWS - 1, cached.getLength(ROWS - 1), "The cached listing is not changed");
+
+        events.clear();
+        assertTrue(model.update(next));
+        assertEquals(0, events.size(), "Nothing changed, nothing to tell");
+    }
+
+    @Test
+    void testReorderedListingKeepsTheRows() {
+        FileTableModel model = model(listing(5));
+        FileRows next = new FileRows();
+        for (int row = 4; row >= 0; row--) {
+            if (row != 2) {
+                next.add(new File(dir, "file" + row), "Name " + row, null, row, 1000, (byte) 0);
+            }
+        }
+        assertTrue(model.update(next));
+        assertEquals("[deleted 2-2, updated 0-3]", events.toString());
+        assertEquals("Name 3", model.getValueAt(2, 1));
+        assertEquals(new File(dir, "file4"), model.getFile(3));
+    }
+
+    @Test
+    void testManyChangesReplaceTheRows() {
+        FileTableModel model = model(listing(1000));
+        FileRows next = new FileRows();
+        for (int row = 0; row < 1000; row += 2) {
+            next.add(new File(dir, "file" + row), null, null, row, 1000, FileRows.FILE);
+        }
+        assertFalse(model.update(next));
+        assertEquals(1, events.size());
+        assertEquals(500, model.getRowCount());
+    }
+
+    @Test
+    void testRemoveKeepsNamesAndDisplayNames() {
+        FileRows rows = new FileRows();
+        for (int row = 0; row < 6; row++) {
+            String shown = row % 2 == 0 ? "Shown " + row : null;
+            rows.add(new File(dir, "é" + row), shown, null, row, row, FileRows.FILE);
+        }
+        FileRows copy = rows.copy();
+        copy.remove(1, 2);
+        assertEquals(4, copy.size());
+        assertEquals("é3", copy.getName(1));
+        assertEquals("Shown 4", copy.getDisplayName(2));
+        assertEquals("é5", copy.getDisplayName(3));
+        assertEquals(6, rows.size());
+        assertTrue(copy.sameFile(3, rows, 5));
+        assertTrue(copy.sameAttributes(3, rows, 5));
+
+        FileRows changed = new FileRows();
+        changed.add(new File(dir, "é5"), "Shown 5", null, 99, 5, FileRows.FILE);
+        assertFalse(copy.sameAttributes(3, changed, 0));
+        copy.set(3, changed, 0);
+        assertTrue(copy.sameAttributes(3, changed, 0));
+        assertEquals("Shown 5", copy.getDisplayName(3));
+        assertEquals("é5", rows.getDisplayName(5));
+    }
+}
@@ -0,0 +1,176 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.swing.JTable;
+import javax.swing.table.TableCellRenderer;
+
+class FormatsTest {
+
+    private static final int ROWS = 100000;
+    private static final int PAINTED = 2000;
+
+    /** The size text computed exactly, to check the shifts against. */
+    private static String reference(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        int exp = (63 - Long.numberOfLeadingZeros(bytes)) / 10;
+        BigDecimal value =
+                new BigDecimal(bytes)
+                        .divide(new BigDecimal(BigDecimal.valueOf(2).pow(10 * exp).toString()))
+                        .setScale(2, RoundingMode.HALF_UP);
+        return value.toPlainString() + " " + "KMGTPE".charAt(exp - 1) + "B";
+    }
+
+    @Test
+    void testSizes() {
+        assertEquals("0 B", Formats.size(0));
+        assertEquals("1023 B", Formats.size(1023));
+        assertEquals("1.00 KB", Formats.size(1024));
+        assertEquals("1.50 KB", Formats.size(1536));
+        assertEquals("1.01 KB", Formats.size(1034));
+        assertEquals("1024.00 KB", Formats.size(1024 * 1024 - 1));
+        assertEquals("1.00 MB", Formats.size(1024 * 1024));
+        assertEquals("8.00 EB", Formats.size(Long.MAX_VALUE));
+        Random random = new Random(5);
+        for (int ii = 0; ii < 100000; ii++) {
+            long bytes = random.nextLong() >>> random.nextInt(64);
+            assertEquals(reference(bytes), Formats.size(bytes), "for " + bytes);
+        }
+    }
+
+    @Test
+    void testDatesAreReusedWithinASecond() throws Exception {
+        final SimpleDateFormat expected = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        long second = 1700000000000L;
+        assertEquals(expected.format(new Date(second + 999)), Formats.dateTime(second + 999));
+        assertSame(Formats.dateTime(second), Formats.dateTime(second + 500));
+        assertEquals(expected.format(new Date(-1)), Formats.dateTime(-1));
+
+        // shared by many threads, unlike a SimpleDateFormat
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for (int thread = 0; thread < 4; thread++) {
+                final long seed = thread;
+                results.add(
+                        pool.submit(
+                                new Callable<Boolean>() {
+                                    public Boolean call() {
+                                        SimpleDateFormat own =
+                                                new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+                                        Random random = new Random(seed);
+                                        for (int ii = 0; ii < 20000; ii++) {
+                                            long millis =
+                                                    1600000000000L
+                                                            + random.nextInt(5000) * 1000L;
+                                            String text = Formats.dateTime(millis);
+                                            if (!text.equals(own.format(new Date(millis)))) {
+                                                return false;
+                                            }
+                                        }
+                                        return true;
+                                    }
+                                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /** Bytes allocated per cell for painting the size and date cells of the first rows. */
+    private static long paint(JTable table) {
+        long start = allocatedBytes();
+        for (int row = 0; row < PAINTED; row++) {
+            for (int column = 3; column <= 4; column++) {
+                TableCellRenderer renderer = table.getCellRenderer(row, column);
+                table.prepareRenderer(renderer, row, column);
+            }
+        }
+        return (allocatedBytes() - start) / (PAINTED * 2);
+    }
+
+    @Test
+    void testPaintingAllocatesLittle() {
+        File dir = new File("/data");
+        FileRows rows = new FileRows(ROWS);
+        Random random = new Random(3);
+        long now = System.currentTimeMillis();
+        for (int row = 0; row < ROWS; row++) {
+            rows.add(
+                    new File(dir, "file" + row),
+                    null,
+                    null,
+                    random.nextInt(1 << 30),
+                    now - random.nextInt(1 << 30),
+                    FileRows.FILE);
+        }
+        FileTableModel model = new FileTableModel();
+        model.setRows(rows);
+
+        JTable plain = new JTable(model);
+        JTable cached = new JTable(model);
+        FileCellRenderer.install(cached);
+        for (int round = 0; round < 5; round++) {
+            // warm up the JIT, and the texts of the painted rows
+            paint(plain);
+            paint(cached);
+        }
+        long before = paint(plain);
+        long after = paint(cached);
+        assertEquals(Formats.dateTime(rows.getLastModified(7)), model.getText(7, 4));
+        // what remains is the boxed Long or Date JTable asks for and the renderer's lookups
+        assertTrue(after < 128, "Painting a cell allocates " + after + " bytes, was " + before);
+        assertTrue(after * 3 < before, "Painting a cell allocates " + after + " vs " + before);
+    }
+}
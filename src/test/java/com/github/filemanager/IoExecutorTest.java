@@ -0,0 +1,149 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import javax.swing.SwingWorker;
+import javax.swing.filechooser.FileSystemView;
+
+/** Expansion latency when many directories are opened at once, as in rapid navigation. */
+class IoExecutorTest {
+
+    private static final int DIRECTORIES = 200;
+    private static final int FILES_PER_DIRECTORY = 20;
+    /** Added to every listing to stand in for a network mount's round trip. */
+    private static final long MOUNT_LATENCY_MILLIS = 20;
+    /** Threads of the default SwingWorker pool the listings used to share. */
+    private static final int SWING_WORKER_THREADS = 10;
+
+    @TempDir Path tempDir;
+
+    private List<File> createTree() throws IOException {
+        List<File> dirs = new ArrayList<File>();
+        for (int ii = 0; ii < DIRECTORIES; ii++) {
+            Path dir = Files.createDirectory(tempDir.resolve("dir" + ii));
+            for (int jj = 0; jj < FILES_PER_DIRECTORY; jj++) {
+                Files.createFile(dir.resolve("file" + jj + ".txt"));
+            }
+            dirs.add(dir.toFile());
+        }
+        return dirs;
+    }
+
+    /** Expands every directory at once and returns the sorted latencies in nanoseconds. */
+    private static long[] expandAll(ExecutorService executor, List<File> dirs)
+            throws Exception {
+        final FileSystemView fileSystemView = FileSystemView.getFileSystemView();
+        final IconCache icons = new IconCache(fileSystemView);
+        List<Future<Long>> futures = new ArrayList<Future<Long>>();
+        final long submitted = System.nanoTime();
+        for (final File dir : dirs) {
+            futures.add(
+                    executor.submit(
+                            new Callable<Long>() {
+                                public Long call() throws Exception {
+                                    Thread.sleep(MOUNT_LATENCY_MILLIS);
+                                    File[] files = dir.listFiles();
+                                    FileRows rows = FileRows.read(files, fileSystemView, icons);
+                                    assertEquals(FILES_PER_DIRECTORY, rows.size());
+                                    return System.nanoTime() - submitted;
+                                }
+                            }));
+        }
+        long[] latencies = new long[futures.size()];
+        for (int ii = 0; ii < latencies.length; ii++) {
+            latencies[ii] = futures.get(ii).get();
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    private static String describe(String name, long[] latencies) {
+        return String.format(
+                "%s: p50 %.1f ms, p95 %.1f ms, max %.1f ms",
+                name,
+                latencies[latencies.length / 2] / 1e6,
+                latencies[latencies.length * 95 / 100] / 1e6,
+                latencies[latencies.length - 1] / 1e6);
+    }
+
+    @Test
+    void testConcurrentExpansionLatency() throws Exception {
+        List<File> dirs = createTree();
+        ExecutorService swingWorkerLike =
+                IoExecutor.newPlatformExecutor("benchmark", SWING_WORKER_THREADS);
+        ExecutorService io = IoExecutor.create("benchmark-io");
+        try {
+            // warm up file system caches and class loading
+            expandAll(io, dirs);
+            long[] pooled = expandAll(swingWorkerLike, dirs);
+            long[] concurrent = expandAll(io, dirs);
+            assertTrue(
+                    concurrent[concurrent.length * 95 / 100] < pooled[pooled.length * 95 / 100],
+                    "Expansions should not queue behind each other; "
+                            + describe(SWING_WORKER_THREADS + " worker threads", pooled)
+                            + "; "
+                            + describe(
+                                    IoExecutor.isVirtual() ? "virtual threads" : "I/O executor",
+                                    concurrent));
+        } finally {
+            swingWorkerLike.shutdown();
+            io.shutdown();
+        }
+    }
+
+    @Test
+    void testSwingWorkerRunsOnExecutor() throws Exception {
+        final Thread[] ranOn = new Thread[1];
+        SwingWorker<String, Void> worker =
+                new SwingWorker<String, Void>() {
+                    @Override
+                    protected String doInBackground() {
+                        ranOn[0] = Thread.currentThread();
+                        return "listed";
+                    }
+                };
+        IoExecutor.get().execute(worker);
+        assertEquals("listed", worker.get());
+        assertTrue(
+                IoExecutor.isVirtual() || ranOn[0].getName().equals("file-io"),
+                "Worker should run on the I/O executor, not the SwingWorker pool");
+    }
+}
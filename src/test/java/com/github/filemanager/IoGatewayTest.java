@@ -0,0 +1,176 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class IoGatewayTest {
+
+    private final File file = new File(System.getProperty("java.io.tmpdir"));
+
+    /** A call that blocks like a dead mount until {@code release} is counted down. */
+    private static Callable<String> hang(final CountDownLatch release, final AtomicInteger runs) {
+        return new Callable<String>() {
+            public String call() throws InterruptedException {
+                runs.incrementAndGet();
+                release.await(10, TimeUnit.SECONDS);
+                return "late";
+            }
+        };
+    }
+
+    @Test
+    void testCircuitOpensAfterRepeatedTimeoutsAndRecovers() throws Exception {
+        final IoGateway gateway = new IoGateway(100, 2, 300);
+        final List<String> events = new ArrayList<String>();
+        gateway.addListener(
+                new IoGateway.Listener() {
+                    public void mountStateChanged(String mount, boolean available) {
+                        synchronized (events) {
+                            events.add(available ? "up" : "down");
+                        }
+                    }
+                });
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger runs = new AtomicInteger();
+
+        for (int ii = 0; ii < 2; ii++) {
+            long start = System.nanoTime();
+            try {
+                gateway.call(file, hang(release, runs));
+            } catch (IoGateway.UnavailableException expected) {
+                // timed out
+            }
+            assertTrue(
+                    System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2),
+                    "A hung call should give up after its timeout");
+        }
+        assertFalse(gateway.isAvailable(file), "Circuit should be open after two timeouts");
+        assertEquals(Arrays.asList("down"), events);
+
+        // open: fails fast without running anything
+        assertThrows(
+                IoGateway.UnavailableException.class,
+                new Executable() {
+                    public void execute() throws Throwable {
+                        gateway.call(file, hang(release, runs));
+                    }
+                });
+        assertEquals(2, runs.get(), "Open circuit must not run the call");
+
+        // after the open period one probe goes through and closes the circuit
+        release.countDown();
+        Thread.sleep(400);
+        String result =
+                gateway.call(
+                        file,
+                        new Callable<String>() {
+                            public String call() {
+                                return "ok";
+                            }
+                        });
+        assertEquals("ok", result);
+        assertTrue(gateway.isAvailable(file));
+        assertEquals(Arrays.asList("down", "up"), events);
+    }
+
+    @Test
+    void testErrorsFromTheFileSystemArePassedThrough() {
+        final IoGateway gateway = new IoGateway(1000, 1, 1000);
+        assertThrows(
+                IOException.class,
+                new Executable() {
+                    public void execute() throws Throwable {
+                        gateway.call(
+                                file,
+                                new Callable<String>() {
+                                    public String call() throws IOException {
+                                        throw new IOException("permission denied");
+                                    }
+                                });
+                    }
+                });
+        assertTrue(gateway.isAvailable(file), "An answer, even an error, keeps the mount up");
+    }
+
+    @Test
+    void testMountOfUsesLongestPrefix() {
+        List<String> mounts = Arrays.asList("/mnt/share", "/mnt", "/");
+        assertEquals("/mnt/share", IoGateway.mountOf("/mnt/share/a/b", mounts));
+        assertEquals("/mnt/share", IoGateway.mountOf("/mnt/share", mounts));
+        assertEquals("/mnt", IoGateway.mountOf("/mnt/shared", mounts));
+        assertEquals("/", IoGateway.mountOf("/home/user", mounts));
+        assertEquals("/mnt/my disk", IoGateway.unescapeMountPoint("/mnt/my\\040disk"));
+    }
+
+    @Test
+    void testMountTableIsReReadWhenMountsChange() throws Exception {
+        final List<String> mounts = new ArrayList<String>(Arrays.asList("/"));
+        final AtomicInteger reads = new AtomicInteger();
+        IoGateway gateway = new IoGateway();
+        gateway.setMountTable(
+                new Callable<List<String>>() {
+                    public List<String> call() {
+                        reads.incrementAndGet();
+                        return new ArrayList<String>(mounts);
+                    }
+                },
+                200);
+        File share = new File("/mnt/share/docs");
+        assertEquals("/", gateway.mountOf(share));
+        mounts.add(0, "/mnt/share");
+        assertEquals("/", gateway.mountOf(share), "Within the TTL the old table is used");
+        assertEquals(1, reads.get());
+        Thread.sleep(300);
+        assertEquals("/mnt/share", gateway.mountOf(share), "A new mount is seen after the TTL");
+        assertEquals(2, reads.get());
+        mounts.remove(0);
+        Thread.sleep(300);
+        assertEquals("/", gateway.mountOf(share), "An unmounted share falls back to its parent");
+    }
+
+    @Test
+    void testIconCacheKeys() {
+        assertEquals(
+                IconCache.key(new File("a.txt"), false), IconCache.key(new File("B.TXT"), false));
+        assertEquals(null, IconCache.key(new File("setup.exe"), false));
+        assertEquals("/", IconCache.key(new File("dir.txt"), true));
+    }
+}
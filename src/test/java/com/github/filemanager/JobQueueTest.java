@@ -0,0 +1,166 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class JobQueueTest {
+
+    @TempDir Path tempDir;
+
+    /** Tracks how many of these jobs run at the same time. */
+    private static class ProbeJob extends FileJob {
+
+        private final AtomicInteger running;
+        private final AtomicInteger maxRunning;
+        private final CountDownLatch finished;
+
+        ProbeJob(
+                String device,
+                AtomicInteger running,
+                AtomicInteger maxRunning,
+                CountDownLatch finished) {
+            super("probe " + device);
+            setDevices(Arrays.asList(device));
+            this.running = running;
+            this.maxRunning = maxRunning;
+            this.finished = finished;
+        }
+
+        @Override
+        protected void execute() throws Exception {
+            int now = running.incrementAndGet();
+            maxRunning.accumulateAndGet(now, Math::max);
+            Thread.sleep(150);
+            running.decrementAndGet();
+            finished.countDown();
+        }
+    }
+
+    private static void awaitFinished(FileJob job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!job.isFinished() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(job.isFinished(), "Job should finish: " + job);
+    }
+
+    @Test
+    void testJobsOnSameDeviceAreSerialized() throws Exception {
+        JobQueue queue = new JobQueue();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch finished = new CountDownLatch(3);
+        for (int ii = 0; ii < 3; ii++) {
+            queue.submit(new ProbeJob("disk-a", running, maxRunning, finished));
+        }
+        assertTrue(finished.await(10, TimeUnit.SECONDS), "All jobs should finish");
+        assertEquals(1, maxRunning.get(), "Jobs on one device never overlap");
+    }
+
+    @Test
+    void testJobsOnDifferentDevicesRunInParallel() throws Exception {
+        JobQueue queue = new JobQueue();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch finished = new CountDownLatch(2);
+        queue.submit(new ProbeJob("disk-a", running, maxRunning, finished));
+        queue.submit(new ProbeJob("disk-b", running, maxRunning, finished));
+        assertTrue(finished.await(10, TimeUnit.SECONDS), "All jobs should finish");
+        assertEquals(2, maxRunning.get(), "Jobs on different devices overlap");
+    }
+
+    @Test
+    void testPauseResumeAndCancel() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        FileJob job =
+                new FileJob("loop") {
+                    @Override
+                    protected void execute() throws Exception {
+                        started.countDown();
+                        while (true) {
+                            checkpoint();
+                            addProgress(1);
+                            Thread.sleep(1);
+                        }
+                    }
+                };
+        job.setDevices(Arrays.asList("disk-c"));
+        JobQueue queue = new JobQueue();
+        queue.submit(job);
+        assertTrue(started.await(10, TimeUnit.SECONDS), "Job should start");
+
+        job.pause();
+        Thread.sleep(100);
+        assertEquals(FileJob.State.PAUSED, job.getState(), "Job should be paused");
+        long progress = job.getProgress();
+        Thread.sleep(100);
+        assertEquals(progress, job.getProgress(), "Paused job makes no progress");
+
+        job.resume();
+        Thread.sleep(100);
+        assertTrue(job.getProgress() > progress, "Resumed job makes progress");
+
+        queue.cancel(job);
+        awaitFinished(job);
+        assertEquals(FileJob.State.CANCELLED, job.getState(), "Job should be cancelled");
+    }
+
+    @Test
+    void testCopyAndDeleteJobs() throws Exception {
+        File source = Files.createDirectories(tempDir.resolve("src/nested")).toFile();
+        Files.write(new File(source, "a.txt").toPath(), "alpha".getBytes("UTF-8"));
+        File target = tempDir.resolve("dst").toFile();
+
+        JobQueue queue = new JobQueue();
+        CopyJob copy = new CopyJob(source.getParentFile(), target);
+        queue.submit(copy);
+        awaitFinished(copy);
+        assertEquals(FileJob.State.DONE, copy.getState(), "Copy should succeed");
+        assertEquals(5, copy.getProgress(), "Copied bytes are counted");
+        assertEquals(
+                "alpha",
+                new String(Files.readAllBytes(tempDir.resolve("dst/nested/a.txt")), "UTF-8"));
+
+        DeleteJob delete = new DeleteJob(target);
+        queue.submit(delete);
+        awaitFinished(delete);
+        assertEquals(FileJob.State.DONE, delete.getState(), "Delete should succeed");
+        assertEquals(3, delete.getProgress(), "Each deleted entry is counted");
+        assertFalse(target.exists(), "Target tree should be gone");
+    }
+}
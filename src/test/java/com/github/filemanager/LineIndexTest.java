@@ -0,0 +1,108 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+
+class LineIndexTest {
+
+    @TempDir Path tempDir;
+
+    /** Writes {@code lines} lines of the form "line N" and returns the file. */
+    private File writeLines(int lines) throws IOException {
+        File file = tempDir.resolve("lines.txt").toFile();
+        OutputStream out = new FileOutputStream(file);
+        try {
+            for (int ii = 0; ii < lines; ii++) {
+                out.write(("line " + ii + "\n").getBytes("UTF-8"));
+            }
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    private static String readLine(MappedFile mapped, long offset) throws IOException {
+        byte[] buffer = new byte[64];
+        int read = mapped.read(offset, buffer, 0, buffer.length);
+        int end = 0;
+        while (end < read && buffer[end] != '\n') {
+            end++;
+        }
+        return new String(buffer, 0, end, "UTF-8");
+    }
+
+    @Test
+    void testReadAcrossSmallPages() throws IOException {
+        File file = writeLines(100);
+        MappedFile mapped = new MappedFile(file, 7);
+        try {
+            assertEquals(file.length(), mapped.size(), "Size should match the file");
+            assertEquals("line 3", readLine(mapped, "line 0\nline 1\nline 2\n".length()));
+            assertEquals('l', mapped.byteAt(0), "First byte should be readable");
+            assertEquals(-1, mapped.byteAt(mapped.size()), "Reading past the end returns -1");
+        } finally {
+            mapped.close();
+        }
+    }
+
+    @Test
+    void testOffsetOfLineUsesCheckpoints() throws IOException {
+        int lines = LineIndex.CHECKPOINT_INTERVAL * 3 + 17;
+        MappedFile mapped = new MappedFile(writeLines(lines), 4096);
+        try {
+            LineIndex index = new LineIndex(mapped);
+            index.build();
+
+            assertTrue(index.isComplete(), "Index should be complete after build");
+            assertEquals(lines, index.getIndexedLines(), "All lines should be indexed");
+            for (long line : new long[] {0, 1, 1023, 1024, 1025, 2048, lines - 1}) {
+                long offset = index.offsetOfLine(line);
+                assertEquals("line " + line, readLine(mapped, offset), "Line " + line);
+                assertEquals(line, index.lineOfOffset(offset), "Reverse lookup of " + line);
+            }
+            assertEquals(-1, index.offsetOfLine(lines), "Lines past the end are not found");
+        } finally {
+            mapped.close();
+        }
+    }
+
+    @Test
+    void testHexRow() {
+        byte[] bytes = "ABCDEFGHIJKLMNOP".getBytes();
+        String row = FileViewer.hexRow(16, bytes, 0, 3);
+        assertTrue(row.startsWith("0000000010  41 42 43 "), row);
+        assertTrue(row.endsWith("|ABC|"), row);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+class LogFollowerTest {
+
+    @TempDir Path tempDir;
+
+    private static void append(File file, String text) throws IOException {
+        Files.write(
+                file.toPath(),
+                text.getBytes("UTF-8"),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+    }
+
+    @Test
+    void testAppendedLinesAreRead() throws IOException {
+        File log = tempDir.resolve("app.log").toFile();
+        append(log, "one\ntwo\nthr");
+        LineRingBuffer lines = new LineRingBuffer(10);
+        LogFollower follower = new LogFollower(log, lines, 50, null);
+
+        follower.poll();
+        assertEquals(Arrays.asList("one", "two"), lines.since(0), "Partial line is held back");
+
+        append(log, "ee\nfour\r\n");
+        follower.poll();
+        assertEquals(Arrays.asList("three", "four"), lines.since(2), "Only new bytes are read");
+    }
+
+    @Test
+    void testTruncationRestartsFromBeginning() throws IOException {
+        File log = tempDir.resolve("app.log").toFile();
+        append(log, "first\nsecond\n");
+        LineRingBuffer lines = new LineRingBuffer(10);
+        LogFollower follower = new LogFollower(log, lines, 50, null);
+        follower.poll();
+
+        Files.write(log.toPath(), "new\n".getBytes("UTF-8"));
+        follower.poll();
+        assertEquals(Arrays.asList("new"), lines.since(2), "Truncated file is read again");
+    }
+
+    @Test
+    void testRotationSwitchesToNewFile() throws IOException {
+        File log = tempDir.resolve("app.log").toFile();
+        append(log, "old\n");
+        LineRingBuffer lines = new LineRingBuffer(10);
+        LogFollower follower = new LogFollower(log, lines, 50, null);
+        follower.poll();
+
+        append(log, "last old\n");
+        Files.move(log.toPath(), tempDir.resolve("app.log.1"));
+        append(log, "fresh\n");
+        follower.poll();
+        assertEquals(
+                Arrays.asList("old", "last old", "fresh"),
+                lines.since(0),
+                "Tail of the rotated file is kept, then the new file is followed");
+    }
+
+    @Test
+    void testRingBufferIsBounded() {
+        LineRingBuffer lines = new LineRingBuffer(3);
+        for (int ii = 0; ii < 10; ii++) {
+            lines.add("line " + ii);
+        }
+        assertEquals(3, lines.size(), "Only capacity lines are kept");
+        assertEquals(10, lines.total(), "All lines are counted");
+        assertEquals(Arrays.asList("line 7", "line 8", "line 9"), lines.since(0));
+        assertEquals(Arrays.asList("line 9"), lines.since(9));
+    }
+}
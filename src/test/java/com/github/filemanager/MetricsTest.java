@@ -0,0 +1,86 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+
+class MetricsTest {
+
+    @TempDir Path tempDir;
+
+    @Test
+    void testTimerKeepsCountTotalAndMax() {
+        Metrics.Metric metric = Metrics.metric("test.timer");
+        metric.reset();
+        metric.record(5);
+        metric.record(20);
+        metric.record(10);
+        assertEquals(3, metric.getCount());
+        assertEquals(35, metric.getTotalNanos());
+        assertEquals(20, metric.getMaxNanos());
+        assertTrue(metric == Metrics.metric("test.timer"), "Metrics should be shared by name");
+    }
+
+    @Test
+    void testCounter() {
+        Metrics.metric("test.counter").reset();
+        Metrics.count("test.counter", 100);
+        Metrics.count("test.counter", 28);
+        assertEquals(128, Metrics.metric("test.counter").getCount());
+        assertEquals(0, Metrics.metric("test.counter").getTotalNanos());
+    }
+
+    @Test
+    void testJsonContainsMetricsAndEscapedStalls() {
+        Metrics.metric("test.json").record(42);
+        EdtMonitor.addStall(new EdtMonitor.Stall(1000, 250000000L, "say \"hi\"\n"));
+        String json = Metrics.toJson();
+        assertTrue(json.contains("\"name\": \"test.json\""), json);
+        assertTrue(json.contains("\"event\": \"say \\\"hi\\\"\\n\""), json);
+        assertTrue(json.contains("\"durationNanos\": 250000000"), json);
+
+        StringBuilder sb = new StringBuilder();
+        Metrics.appendJsonString(sb, "a\u0001b");
+        assertEquals("\"a\\u0001b\"", sb.toString());
+    }
+
+    @Test
+    void testJfrDump() throws IOException {
+        if (!JfrExport.isAvailable()) {
+            return;
+        }
+        Metrics.metric("test.jfr").record(7);
+        File target = tempDir.resolve("metrics.jfr").toFile();
+        JfrExport.dump(target);
+        assertTrue(target.length() > 0, "Recording should have been written");
+    }
+}
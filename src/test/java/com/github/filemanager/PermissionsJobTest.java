@@ -0,0 +1,145 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.EnumSet;
+import java.util.Set;
+
+class PermissionsJobTest {
+
+    @TempDir Path tempDir;
+
+    private static String mode(Path path) throws IOException {
+        return PosixFilePermissions.toString(Files.getPosixFilePermissions(path));
+    }
+
+    /** A tree with a directory, a script in it and a config file, all group and world writable. */
+    private Path tree() throws IOException {
+        assumeTrue(
+                Files.getFileAttributeView(tempDir, PosixFileAttributeView.class) != null,
+                "POSIX file system");
+        Path root = Files.createDirectories(tempDir.resolve("app"));
+        Path bin = Files.createDirectories(root.resolve("bin"));
+        Files.setPosixFilePermissions(root, PosixFilePermissions.fromString("rwxrwxrwx"));
+        Files.setPosixFilePermissions(bin, PosixFilePermissions.fromString("rwxrwxrwx"));
+        Set<PosixFilePermission> mode = PosixFilePermissions.fromString("rw-rw-rw-");
+        Files.setPosixFilePermissions(Files.createFile(bin.resolve("run.sh")), mode);
+        Files.setPosixFilePermissions(Files.createFile(root.resolve("app.conf")), mode);
+        return root;
+    }
+
+    private static PermissionsJob job(
+            Path root,
+            Set<PosixFilePermission> add,
+            Set<PosixFilePermission> remove,
+            String owner,
+            boolean recursive,
+            boolean files,
+            boolean directories) {
+        PermissionsJob job =
+                new PermissionsJob(
+                        root.toFile(), add, remove, owner, null, recursive, files, directories);
+        job.run();
+        assertEquals(FileJob.State.DONE, job.getState(), job.getMessage());
+        assertTrue(job.getFailures().isEmpty(), job.getFailures().toString());
+        return job;
+    }
+
+    private static Set<PosixFilePermission> none() {
+        return EnumSet.noneOf(PosixFilePermission.class);
+    }
+
+    private static Set<PosixFilePermission> groupAndOthersWrite() {
+        return EnumSet.of(PosixFilePermission.GROUP_WRITE, PosixFilePermission.OTHERS_WRITE);
+    }
+
+    @Test
+    void testRerunChangesNothing() throws IOException {
+        Path root = tree();
+        PermissionsJob job = job(root, none(), groupAndOthersWrite(), null, true, true, true);
+        assertEquals("rwxr-xr-x", mode(root));
+        assertEquals("rw-r--r--", mode(root.resolve("bin/run.sh")));
+        assertEquals(4, job.getChangedCount());
+        assertEquals(0, job.getUnchangedCount());
+
+        PermissionsJob again = job(root, none(), groupAndOthersWrite(), null, true, true, true);
+        assertEquals(0, again.getChangedCount(), "A re-run changes nothing");
+        assertEquals(4, again.getUnchangedCount());
+    }
+
+    @Test
+    void testOwnerThatIsAlreadySetIsNotWritten() throws IOException {
+        Path root = tree();
+        String owner = Files.getOwner(root).getName();
+        PermissionsJob job = job(root, none(), none(), owner, true, true, true);
+        assertEquals(0, job.getChangedCount());
+        assertEquals(4, job.getUnchangedCount());
+
+        // u+x with the same owner: only the files lack it
+        Set<PosixFilePermission> execute = EnumSet.of(PosixFilePermission.OWNER_EXECUTE);
+        job = job(root, execute, none(), owner, true, true, true);
+        assertEquals("rwxrw-rw-", mode(root.resolve("bin/run.sh")));
+        assertEquals(2, job.getChangedCount());
+        assertEquals(2, job.getUnchangedCount());
+        assertEquals(owner, Files.getOwner(root.resolve("app.conf")).getName());
+    }
+
+    @Test
+    void testFilesAndDirectoriesFilter() throws IOException {
+        Path root = tree();
+        PermissionsJob job = job(root, none(), groupAndOthersWrite(), null, true, true, false);
+        assertEquals("rw-r--r--", mode(root.resolve("bin/run.sh")));
+        assertEquals("rw-r--r--", mode(root.resolve("app.conf")));
+        assertEquals("rwxrwxrwx", mode(root.resolve("bin")));
+        assertEquals("rwxrwxrwx", mode(root));
+        assertEquals(2L, job.getTotal(), "Directories were not included");
+
+        // without recursion the filter applies to the root itself
+        job = job(root, none(), groupAndOthersWrite(), null, false, true, false);
+        assertEquals(0L, job.getTotal());
+        assertEquals("rwxrwxrwx", mode(root), "The root is a directory");
+        Set<PosixFilePermission> execute = EnumSet.of(PosixFilePermission.OWNER_EXECUTE);
+        job = job(root.resolve("app.conf"), execute, none(), null, false, false, true);
+        assertEquals(0L, job.getTotal());
+        assertEquals("rw-r--r--", mode(root.resolve("app.conf")), "The root is a file");
+
+        job = job(root, none(), groupAndOthersWrite(), null, false, false, true);
+        assertEquals(1, job.getChangedCount());
+        assertEquals("rwxr-xr-x", mode(root));
+        assertEquals("rwxrwxrwx", mode(root.resolve("bin")), "Not recursive");
+    }
+}
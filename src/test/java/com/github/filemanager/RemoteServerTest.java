@@ -0,0 +1,257 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+class RemoteServerTest {
+
+    @TempDir Path tempDir;
+
+    private RemoteServer server;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = RemoteServer.onLoopback(tempDir.toFile(), 0);
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+    }
+
+    private HttpURLConnection open(String method, String api, String path) throws IOException {
+        URL url =
+                new URL(
+                        "http://127.0.0.1:"
+                                + server.getPort()
+                                + api
+                                + "?path="
+                                + URLEncoder.encode(path, "UTF-8"));
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(method);
+        connection.setReadTimeout(10000);
+        return connection;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            out.write(buffer, 0, read);
+        }
+        in.close();
+        return out.toByteArray();
+    }
+
+    @Test
+    void testListingIsStreamedInPages() throws IOException {
+        File dir = tempDir.resolve("many").toFile();
+        dir.mkdir();
+        int count = RemoteServer.PAGE_SIZE * 2 + 7;
+        for (int ii = 0; ii < count; ii++) {
+            new File(dir, String.format("f%05d", ii)).createNewFile();
+        }
+        HttpURLConnection connection = open("GET", "/api/list", "many");
+        assertEquals(200, connection.getResponseCode());
+        assertEquals("chunked", connection.getHeaderField("Transfer-Encoding"));
+        assertEquals(String.valueOf(count), connection.getHeaderField("X-Total-Count"));
+        String[] lines =
+                new String(readAll(connection.getInputStream()), StandardCharsets.UTF_8)
+                        .split("\n");
+        assertEquals(count, lines.length);
+        assertTrue(lines[0].startsWith("{\"name\": \"f00000\", \"directory\": false"), lines[0]);
+
+        connection = open("GET", "/api/list", "many");
+        connection =
+                (HttpURLConnection)
+                        new URL(connection.getURL() + "&offset=1000&limit=5").openConnection();
+        lines =
+                new String(readAll(connection.getInputStream()), StandardCharsets.UTF_8)
+                        .split("\n");
+        assertEquals(5, lines.length);
+        assertTrue(lines[0].contains("f01000"), lines[0]);
+    }
+
+    @Test
+    void testUploadStatAndDownload() throws IOException {
+        byte[] data = new byte[1 << 20];
+        new Random(3).nextBytes(data);
+        HttpURLConnection upload = open("PUT", "/api/file", "up.bin");
+        upload.setDoOutput(true);
+        upload.setFixedLengthStreamingMode(data.length);
+        OutputStream out = upload.getOutputStream();
+        out.write(data);
+        out.close();
+        assertEquals(201, upload.getResponseCode());
+        assertArrayEquals(data, Files.readAllBytes(tempDir.resolve("up.bin")));
+
+        HttpURLConnection stat = open("GET", "/api/stat", "up.bin");
+        String json = new String(readAll(stat.getInputStream()), StandardCharsets.UTF_8);
+        assertTrue(json.contains("\"size\": " + data.length), json);
+
+        HttpURLConnection download = open("GET", "/api/file", "up.bin");
+        assertArrayEquals(data, readAll(download.getInputStream()));
+
+        HttpURLConnection resumed = open("GET", "/api/file", "up.bin");
+        resumed.setRequestProperty("Range", "bytes=1000-");
+        assertEquals(206, resumed.getResponseCode());
+        byte[] tail = readAll(resumed.getInputStream());
+        assertEquals(data.length - 1000, tail.length);
+        assertEquals(data[1000], tail[0]);
+    }
+
+    @Test
+    void testPathsOutsideTheRootAreRefused() throws IOException {
+        assertEquals(403, open("GET", "/api/stat", "../").getResponseCode());
+        assertEquals(404, open("GET", "/api/stat", "missing").getResponseCode());
+        assertEquals(404, open("GET", "/api/nothing", "").getResponseCode());
+        assertEquals(405, open("DELETE", "/api/file", "x").getResponseCode());
+    }
+
+    @Test
+    void testOtherHostsAreRefused() throws IOException {
+        String rebound = exchange("GET /api/stat?path= HTTP/1.1\r\nHost: attacker.example\r\n\r\n");
+        assertTrue(rebound.startsWith("HTTP/1.1 403"), rebound);
+        String missing = exchange("GET /api/stat?path= HTTP/1.1\r\n\r\n");
+        assertTrue(missing.startsWith("HTTP/1.1 400"), missing);
+        String local =
+                exchange(
+                        "GET /api/stat?path= HTTP/1.1\r\nHost: localhost:"
+                                + server.getPort()
+                                + "\r\n\r\n");
+        assertTrue(local.startsWith("HTTP/1.1 200"), local);
+    }
+
+    @Test
+    void testNegativeContentLengthIsRefused() throws IOException {
+        String head =
+                exchange(
+                        "PUT /api/file?path=x HTTP/1.1\r\n"
+                                + "Host: localhost\r\n"
+                                + "Content-Length: -5\r\n\r\n");
+        assertTrue(head.startsWith("HTTP/1.1 400"), head);
+        assertFalse(tempDir.resolve("x" + CopyJob.PART_SUFFIX).toFile().exists());
+    }
+
+    @Test
+    void testWatchSendsChanges() throws Exception {
+        Socket socket = new Socket("127.0.0.1", server.getPort());
+        try {
+            socket.setSoTimeout(10000);
+            OutputStream out = socket.getOutputStream();
+            String key = "dGhlIHNhbXBsZSBub25jZQ==";
+            out.write(
+                    ("GET /api/watch?path= HTTP/1.1\r\n"
+                                    + "Host: localhost\r\n"
+                                    + "Upgrade: websocket\r\n"
+                                    + "Connection: Upgrade\r\n"
+                                    + "Sec-WebSocket-Key: "
+                                    + key
+                                    + "\r\n"
+                                    + "Sec-WebSocket-Version: 13\r\n\r\n")
+                            .getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            String head = readHead(in);
+            assertTrue(head.startsWith("HTTP/1.1 101"), head);
+            // the example from RFC 6455
+            assertTrue(head.contains("Sec-WebSocket-Accept: s3pPLMBiTxaQ9kYGzzhZRbK+xOo="), head);
+            assertTrue(readTextFrame(in).contains("\"type\": \"ready\""));
+
+            Files.write(tempDir.resolve("new.txt"), new byte[] {1});
+            String event = readTextFrame(in);
+            assertTrue(event.contains("\"type\": \"create\""), event);
+            assertTrue(event.contains("\"path\": \"new.txt\""), event);
+
+            // a masked close frame is answered with a close frame
+            out.write(new byte[] {(byte) 0x88, (byte) 0x80, 1, 2, 3, 4});
+            out.flush();
+            int opcode;
+            do {
+                opcode = in.readUnsignedByte() & 0x0F;
+                in.skipBytes(in.readUnsignedByte());
+            } while (opcode != 0x8);
+        } finally {
+            socket.close();
+        }
+    }
+
+    /** Sends a raw request head and returns the head of the response. */
+    private String exchange(String request) throws IOException {
+        Socket socket = new Socket("127.0.0.1", server.getPort());
+        try {
+            socket.setSoTimeout(10000);
+            OutputStream out = socket.getOutputStream();
+            out.write(request.getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+            return readHead(new DataInputStream(socket.getInputStream()));
+        } finally {
+            socket.close();
+        }
+    }
+
+    private static String readHead(DataInputStream in) throws IOException {
+        StringBuilder head = new StringBuilder();
+        while (!head.toString().endsWith("\r\n\r\n")) {
+            head.append((char) in.readUnsignedByte());
+        }
+        return head.toString();
+    }
+
+    private static String readTextFrame(DataInputStream in) throws IOException {
+        assertEquals(0x81, in.readUnsignedByte());
+        int length = in.readUnsignedByte();
+        if (length == 126) {
+            length = in.readUnsignedShort();
+        }
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        return new String(payload, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,140 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
+
+class RootLoaderTest {
+
+    private final File healthy = new File("healthy-root");
+    private final File hung = new File("hung-root");
+
+    private static void onEdt(Runnable runnable) throws Exception {
+        SwingUtilities.invokeAndWait(runnable);
+    }
+
+    private RootLoader.Status statusOf(final RootLoader loader, final File root)
+            throws Exception {
+        final RootLoader.Status[] status = new RootLoader.Status[1];
+        onEdt(
+                new Runnable() {
+                    public void run() {
+                        status[0] = loader.getStatus(root);
+                    }
+                });
+        return status[0];
+    }
+
+    private void awaitStatus(RootLoader loader, File root, RootLoader.Status expected)
+            throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (statusOf(loader, root) != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(expected, statusOf(loader, root));
+    }
+
+    @Test
+    void testStartupDoesNotWaitForSlowRoots() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        RootLoader.Lister lister =
+                new RootLoader.Lister() {
+                    public File[] listDirectories(File root) {
+                        if (root.equals(hung)) {
+                            try {
+                                release.await(10, TimeUnit.SECONDS);
+                            } catch (InterruptedException ex) {
+                                Thread.currentThread().interrupt();
+                            }
+                        }
+                        return new File[] {new File(root, "a"), new File(root, "b")};
+                    }
+                };
+        final DefaultMutableTreeNode top = new DefaultMutableTreeNode();
+        final RootLoader loader = new RootLoader(new DefaultTreeModel(top), lister, 200);
+        final long[] elapsed = new long[1];
+        onEdt(
+                new Runnable() {
+                    public void run() {
+                        long start = System.nanoTime();
+                        loader.load(top, new File[] {healthy, hung});
+                        elapsed[0] = System.nanoTime() - start;
+                    }
+                });
+        assertTrue(
+                elapsed[0] < TimeUnit.MILLISECONDS.toNanos(500),
+                "Root placeholders took " + elapsed[0] / 1000 + " us");
+        assertEquals(2, top.getChildCount(), "Each root should get a node at once");
+
+        awaitStatus(loader, healthy, RootLoader.Status.LOADED);
+        assertEquals(2, top.getChildAt(0).getChildCount());
+        awaitStatus(loader, hung, RootLoader.Status.UNRESPONSIVE);
+        assertEquals(0, top.getChildAt(1).getChildCount());
+
+        // a mount that answers late is still filled in
+        release.countDown();
+        awaitStatus(loader, hung, RootLoader.Status.LOADED);
+        assertEquals(2, top.getChildAt(1).getChildCount());
+    }
+
+    @Test
+    void testNodeExpandedMeanwhileIsNotFilledTwice() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        RootLoader.Lister lister =
+                new RootLoader.Lister() {
+                    public File[] listDirectories(File root) {
+                        try {
+                            release.await(10, TimeUnit.SECONDS);
+                        } catch (InterruptedException ex) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return new File[] {new File(root, "a")};
+                    }
+                };
+        final DefaultMutableTreeNode top = new DefaultMutableTreeNode();
+        final RootLoader loader = new RootLoader(new DefaultTreeModel(top), lister, 5000);
+        onEdt(
+                new Runnable() {
+                    public void run() {
+                        loader.load(top, new File[] {healthy});
+                        ((DefaultMutableTreeNode) top.getChildAt(0))
+                                .add(new DefaultMutableTreeNode(new File(healthy, "a")));
+                    }
+                });
+        release.countDown();
+        awaitStatus(loader, healthy, RootLoader.Status.LOADED);
+        assertEquals(1, top.getChildAt(0).getChildCount());
+    }
+}
@@ -0,0 +1,142 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+import javax.swing.ImageIcon;
+
+class ThumbnailCacheTest {
+
+    @TempDir Path tempDir;
+
+    private static ImageIcon await(ThumbnailCache cache, File file) throws Exception {
+        final CountDownLatch ready = new CountDownLatch(1);
+        cache.setListener(
+                new ThumbnailCache.Listener() {
+                    public void thumbnailReady(File f, int rowHint) {
+                        ready.countDown();
+                    }
+                });
+        ImageIcon icon = cache.get(file, 0);
+        if (icon == null) {
+            assertTrue(ready.await(10, TimeUnit.SECONDS), "Thumbnail should be decoded");
+            icon = cache.get(file, 0);
+        }
+        return icon;
+    }
+
+    @Test
+    void testImageIsDownscaledAndCachedOnDisk() throws Exception {
+        File image = tempDir.resolve("big.png").toFile();
+        ImageIO.write(new BufferedImage(800, 400, BufferedImage.TYPE_INT_RGB), "png", image);
+        File cacheDir = tempDir.resolve("cache").toFile();
+
+        ThumbnailCache cache = new ThumbnailCache(cacheDir, 8);
+        ImageIcon icon = await(cache, image);
+
+        assertNotNull(icon, "Thumbnail should be available after decoding");
+        assertTrue(icon.getIconWidth() <= ThumbnailCache.THUMBNAIL_SIZE, "Width is downscaled");
+        assertTrue(icon.getIconHeight() <= ThumbnailCache.THUMBNAIL_SIZE, "Height is downscaled");
+        assertTrue(
+                cache.diskFile(ThumbnailCache.key(image)).isFile(),
+                "Thumbnail should be written to the disk cache");
+        cache.shutdown();
+    }
+
+    @Test
+    void testTextHeadIsRendered() throws Exception {
+        File text = tempDir.resolve("notes.txt").toFile();
+        Files.write(text.toPath(), "first line\nsecond line\n".getBytes("UTF-8"));
+
+        ThumbnailCache cache = new ThumbnailCache(tempDir.resolve("cache").toFile(), 8);
+        assertNotNull(await(cache, text), "Text files get a rendered preview");
+        cache.shutdown();
+    }
+
+    @Test
+    void testUnsupportedFilesAreNotQueued() throws IOException {
+        File binary = Files.createFile(tempDir.resolve("data.bin")).toFile();
+        ThumbnailCache cache = new ThumbnailCache(tempDir.resolve("cache").toFile(), 8);
+
+        assertFalse(cache.supports(binary), "Unknown types are not previewed");
+        assertFalse(cache.supports(tempDir.toFile()), "Directories are not previewed");
+        assertNull(cache.get(binary, 0), "Unsupported files return no thumbnail");
+        cache.shutdown();
+    }
+
+    @Test
+    void testListingRowsNeedNoFileAccess() throws Exception {
+        File image = tempDir.resolve("shot.png").toFile();
+        ImageIO.write(new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB), "png", image);
+        ThumbnailCache cache = new ThumbnailCache(tempDir.resolve("cache").toFile(), 8);
+        assertNotNull(await(cache, image));
+
+        FileRows rows = new FileRows();
+        rows.add(image, null, null, image.length(), image.lastModified(), FileRows.FILE);
+        // a listed directory is never previewed, whatever its name
+        rows.add(tempDir.resolve("folder.png").toFile(), null, null, 0, 0, FileRows.DIRECTORY);
+        assertTrue(image.delete());
+        assertNotNull(cache.get(rows, 0), "The key comes from the row, not from the disk");
+        assertNull(cache.get(rows, 1));
+        cache.shutdown();
+    }
+
+    @Test
+    void testDiskCacheIsTrimmed() throws IOException {
+        File cacheDir = tempDir.resolve("cache").toFile();
+        cacheDir.mkdirs();
+        long now = System.currentTimeMillis();
+        for (int ii = 0; ii < 5; ii++) {
+            File thumbnail = new File(cacheDir, ii + ".png");
+            Files.write(thumbnail.toPath(), new byte[1000]);
+            thumbnail.setLastModified(now - ii * 60000L);
+        }
+        ThumbnailCache cache = new ThumbnailCache(cacheDir, 8);
+        cache.trimDiskCache(2500, 10 * 60000L);
+        assertTrue(new File(cacheDir, "0.png").isFile(), "The most recently used are kept");
+        assertTrue(new File(cacheDir, "1.png").isFile());
+        assertFalse(new File(cacheDir, "2.png").exists(), "The rest is over the size limit");
+
+        cache.trimDiskCache(Long.MAX_VALUE, 30000L);
+        assertTrue(new File(cacheDir, "0.png").isFile());
+        assertFalse(new File(cacheDir, "1.png").exists(), "Thumbnails unused too long go");
+        cache.shutdown();
+    }
+}
@@ -0,0 +1,122 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2025 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
+
+class TreeNodesTest {
+
+    private static final File ROOT = new File(File.separator);
+
+    private static File file(String... names) {
+        File file = ROOT;
+        for (String name : names) {
+            file = new File(file, name);
+        }
+        return file;
+    }
+
+    private static String children(DefaultMutableTreeNode node) {
+        StringBuilder sb = new StringBuilder();
+        for (int ii = 0; ii < node.getChildCount(); ii++) {
+            File file = TreeNodes.fileOf((DefaultMutableTreeNode) node.getChildAt(ii));
+            sb.append(ii == 0 ? "" : ",").append(file.getName());
+        }
+        return sb.toString();
+    }
+
+    @Test
+    void testEnsurePathCreatesOnlyTheWay() {
+        DefaultMutableTreeNode top = new DefaultMutableTreeNode();
+        DefaultTreeModel model = new DefaultTreeModel(top);
+        DefaultMutableTreeNode root = new DefaultMutableTreeNode(ROOT);
+        top.add(root);
+        root.add(new DefaultMutableTreeNode(file("bin")));
+        root.add(new DefaultMutableTreeNode(file("usr")));
+        Set<DefaultMutableTreeNode> partial = new HashSet<DefaultMutableTreeNode>();
+
+        DefaultMutableTreeNode target =
+                TreeNodes.ensurePath(model, top, file("usr", "share", "doc"), partial);
+        assertEquals(file("usr", "share", "doc"), TreeNodes.fileOf(target));
+        assertEquals(4, target.getLevel());
+        DefaultMutableTreeNode usr = (DefaultMutableTreeNode) root.getChildAt(1);
+        assertEquals("share", children(usr));
+        assertTrue(partial.contains(usr), "usr was not listed yet");
+        assertEquals(2, partial.size(), "usr and share");
+
+        assertSame(target, TreeNodes.ensurePath(model, top, file("usr", "share", "doc"), partial));
+        TreeNodes.ensurePath(model, top, file("etc"), partial);
+        assertEquals("bin,etc,usr", children(root), "Inserted in name order");
+        assertEquals(2, partial.size(), "root was listed already");
+
+        assertNull(TreeNodes.ensurePath(model, new DefaultMutableTreeNode(), ROOT, partial));
+    }
+
+    @Test
+    void testMergeKeepsExistingNodes() {
+        DefaultMutableTreeNode node = new DefaultMutableTreeNode(ROOT);
+        DefaultTreeModel model = new DefaultTreeModel(node);
+        DefaultMutableTreeNode usr = new DefaultMutableTreeNode(file("usr"));
+        node.add(usr);
+        List<File> listing = Arrays.asList(file("bin"), file("etc"), file("usr"), file("var"));
+        assertEquals(3, TreeNodes.mergeChildren(model, node, listing));
+        assertEquals("bin,etc,usr,var", children(node));
+        assertSame(usr, node.getChildAt(2), "The existing node is kept");
+        assertEquals(0, TreeNodes.mergeChildren(model, node, listing));
+    }
+
+    @Test
+    void testCompletion() {
+        FileRows rows = new FileRows();
+        String[] names = {"Documents", "docs", "downloads", "doc.txt", "music"};
+        for (String name : names) {
+            byte bits = name.endsWith(".txt") ? FileRows.FILE : FileRows.DIRECTORY;
+            rows.add(file("home", name), null, null, 0, 0, bits);
+        }
+        String parent = file("home").getPath() + File.separator;
+        List<String> matches = PathField.complete(rows, parent, "do");
+        assertEquals(
+                Arrays.asList(
+                        parent + "docs" + File.separator,
+                        parent + "downloads" + File.separator,
+                        parent + "Documents" + File.separator),
+                matches,
+                "Directories only, exact case first");
+        assertEquals(4, PathField.complete(rows, parent, "").size());
+    }
+}